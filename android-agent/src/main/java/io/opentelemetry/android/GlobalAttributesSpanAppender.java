@@ -56,7 +56,7 @@ public final class GlobalAttributesSpanAppender implements SpanProcessor {
         span.setAllAttributes(getAttributes());
     }
 
-    private Attributes getAttributes() {
+    Attributes getAttributes() {
         Supplier<Attributes> supplier = attributesSupplier.get();
         if (supplier != null) {
             Attributes result = supplier.get();
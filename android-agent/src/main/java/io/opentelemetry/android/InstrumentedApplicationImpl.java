@@ -8,21 +8,30 @@ package io.opentelemetry.android;
 import android.app.Application;
 import io.opentelemetry.android.instrumentation.common.ApplicationStateListener;
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.android.instrumentation.common.SessionChangeListener;
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import java.util.concurrent.ScheduledExecutorService;
 
 final class InstrumentedApplicationImpl implements InstrumentedApplication {
 
     private final Application application;
     private final OpenTelemetrySdk openTelemetrySdk;
     private final ApplicationStateWatcher applicationStateWatcher;
+    private final SessionId sessionId;
+    private final SchedulerService schedulerService;
 
     InstrumentedApplicationImpl(
             Application application,
             OpenTelemetrySdk openTelemetrySdk,
-            ApplicationStateWatcher applicationStateWatcher) {
+            ApplicationStateWatcher applicationStateWatcher,
+            SessionId sessionId,
+            SchedulerService schedulerService) {
         this.application = application;
         this.openTelemetrySdk = openTelemetrySdk;
         this.applicationStateWatcher = applicationStateWatcher;
+        this.sessionId = sessionId;
+        this.schedulerService = schedulerService;
     }
 
     @Override
@@ -35,8 +44,18 @@ final class InstrumentedApplicationImpl implements InstrumentedApplication {
         return openTelemetrySdk;
     }
 
+    @Override
+    public ScheduledExecutorService getScheduler() {
+        return schedulerService.getScheduler();
+    }
+
     @Override
     public void registerApplicationStateListener(ApplicationStateListener listener) {
         applicationStateWatcher.registerListener(listener);
     }
+
+    @Override
+    public void registerSessionChangeListener(SessionChangeListener listener) {
+        sessionId.addSessionIdChangeListener(listener::onSessionChanged);
+    }
 }
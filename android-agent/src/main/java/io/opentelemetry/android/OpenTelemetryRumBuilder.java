@@ -13,6 +13,11 @@ import android.os.Looper;
 import android.util.Log;
 import io.opentelemetry.android.common.RumConstants;
 import io.opentelemetry.android.config.OtelRumConfig;
+import io.opentelemetry.android.export.BufferDelegatingLogExporter;
+import io.opentelemetry.android.export.BufferDelegatingMetricExporter;
+import io.opentelemetry.android.export.BufferDelegatingSpanExporter;
+import io.opentelemetry.android.export.LogRecordDataModifier;
+import io.opentelemetry.android.export.SpanDataModifier;
 import io.opentelemetry.android.features.diskbuffering.DiskBufferingConfiguration;
 import io.opentelemetry.android.features.diskbuffering.SignalFromDiskExporter;
 import io.opentelemetry.android.features.diskbuffering.scheduler.ExportScheduleHandler;
@@ -25,22 +30,21 @@ import io.opentelemetry.android.instrumentation.crash.CrashReporterBuilder;
 import io.opentelemetry.android.instrumentation.slowrendering.SlowRenderingDetector;
 import io.opentelemetry.android.instrumentation.startup.InitializationEvents;
 import io.opentelemetry.android.instrumentation.startup.SdkInitializationEvents;
-import io.opentelemetry.android.internal.features.networkattrs.NetworkAttributesSpanAppender;
 import io.opentelemetry.android.internal.features.persistence.DiskManager;
-import io.opentelemetry.android.internal.features.persistence.SimpleTemporaryFileProvider;
+import io.opentelemetry.android.internal.features.persistence.ExportFailureTracker;
+import io.opentelemetry.android.internal.features.persistence.MemoryFirstBuffering;
+import io.opentelemetry.android.internal.features.persistence.SignalStorage;
 import io.opentelemetry.android.internal.processors.GlobalAttributesLogRecordAppender;
 import io.opentelemetry.android.internal.services.CacheStorage;
 import io.opentelemetry.android.internal.services.Preferences;
 import io.opentelemetry.android.internal.services.ServiceManager;
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider;
 import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
 import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.context.propagation.TextMapPropagator;
-import io.opentelemetry.contrib.disk.buffering.LogRecordFromDiskExporter;
-import io.opentelemetry.contrib.disk.buffering.LogRecordToDiskExporter;
-import io.opentelemetry.contrib.disk.buffering.SpanFromDiskExporter;
-import io.opentelemetry.contrib.disk.buffering.SpanToDiskExporter;
-import io.opentelemetry.contrib.disk.buffering.StorageConfiguration;
+import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter;
+import io.opentelemetry.exporter.logging.LoggingMetricExporter;
 import io.opentelemetry.exporter.logging.LoggingSpanExporter;
 import io.opentelemetry.exporter.logging.SystemOutLogRecordExporter;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
@@ -51,6 +55,8 @@ import io.opentelemetry.sdk.logs.export.BatchLogRecordProcessor;
 import io.opentelemetry.sdk.logs.export.LogRecordExporter;
 import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
@@ -62,6 +68,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -76,6 +84,8 @@ import javax.annotation.Nullable;
  */
 public final class OpenTelemetryRumBuilder {
 
+    private static final long DEFAULT_DISK_EXPORT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
     private final SessionId sessionId;
     private final Application application;
     private final List<BiFunction<SdkTracerProviderBuilder, Application, SdkTracerProviderBuilder>>
@@ -94,6 +104,11 @@ public final class OpenTelemetryRumBuilder {
     private Function<? super SpanExporter, ? extends SpanExporter> spanExporterCustomizer = a -> a;
     private Function<? super LogRecordExporter, ? extends LogRecordExporter>
             logRecordExporterCustomizer = a -> a;
+    private Function<? super SpanExporter, ? extends SpanExporter> spanExporterModifier = a -> a;
+    private Function<? super LogRecordExporter, ? extends LogRecordExporter>
+            logRecordExporterModifier = a -> a;
+    @Nullable
+    private Function<? super MetricExporter, ? extends MetricExporter> metricExporterCustomizer;
     private Function<? super TextMapPropagator, ? extends TextMapPropagator> propagatorCustomizer =
             (a) -> a;
 
@@ -101,6 +116,7 @@ public final class OpenTelemetryRumBuilder {
     private InitializationEvents initializationEvents = InitializationEvents.NO_OP;
     private Consumer<AnrDetectorBuilder> anrCustomizer = x -> {};
     private Consumer<CrashReporterBuilder> crashReporterCustomizer = x -> {};
+    @Nullable private MemoryFirstBuffering memoryFirstBuffering;
 
     private static TextMapPropagator buildDefaultPropagator() {
         return TextMapPropagator.composite(
@@ -297,6 +313,75 @@ public final class OpenTelemetryRumBuilder {
         return this;
     }
 
+    /**
+     * Adds a {@link Function} wrapping the {@link SpanExporter} the spans are sent to, to filter
+     * and modify them, such as with a {@link SpanDataModifier}. Unlike the exporter customizers,
+     * the modifiers apply before disk buffering, so that the rejected and removed data is never
+     * written to disk.
+     *
+     * <p>Multiple calls will execute the modifiers in order.
+     */
+    public OpenTelemetryRumBuilder addSpanExporterModifier(
+            Function<? super SpanExporter, ? extends SpanExporter> spanExporterModifier) {
+        requireNonNull(spanExporterModifier, "spanExporterModifier");
+        Function<? super SpanExporter, ? extends SpanExporter> existing = this.spanExporterModifier;
+        this.spanExporterModifier =
+                exporter -> {
+                    SpanExporter intermediate = existing.apply(exporter);
+                    return spanExporterModifier.apply(intermediate);
+                };
+        return this;
+    }
+
+    /**
+     * Adds a {@link Function} wrapping the {@link LogRecordExporter} the log records are sent to,
+     * to filter, modify and rate limit them, such as with a {@link LogRecordDataModifier}. Unlike
+     * the exporter customizers, the modifiers apply before disk buffering, so that the rejected
+     * and removed data is never written to disk.
+     *
+     * <p>Multiple calls will execute the modifiers in order.
+     */
+    public OpenTelemetryRumBuilder addLogRecordExporterModifier(
+            Function<? super LogRecordExporter, ? extends LogRecordExporter>
+                    logRecordExporterModifier) {
+        requireNonNull(logRecordExporterModifier, "logRecordExporterModifier");
+        Function<? super LogRecordExporter, ? extends LogRecordExporter> existing =
+                this.logRecordExporterModifier;
+        this.logRecordExporterModifier =
+                exporter -> {
+                    LogRecordExporter intermediate = existing.apply(exporter);
+                    return logRecordExporterModifier.apply(intermediate);
+                };
+        return this;
+    }
+
+    /**
+     * Adds a {@link Function} to invoke with the default {@link MetricExporter} to allow
+     * customization. The return value of the {@link Function} will replace the passed-in argument.
+     *
+     * <p>Metrics are only exported once a metric exporter customizer has been added: the exporter
+     * is then registered with a {@link PeriodicMetricReader} and, when disk buffering is enabled,
+     * the exported metrics are written to disk first.
+     *
+     * <p>Multiple calls will execute the customizers in order.
+     */
+    public OpenTelemetryRumBuilder addMetricExporterCustomizer(
+            Function<? super MetricExporter, ? extends MetricExporter> metricExporterCustomizer) {
+        requireNonNull(metricExporterCustomizer, "metricExporterCustomizer");
+        Function<? super MetricExporter, ? extends MetricExporter> existing =
+                this.metricExporterCustomizer;
+        if (existing == null) {
+            this.metricExporterCustomizer = metricExporterCustomizer;
+            return this;
+        }
+        this.metricExporterCustomizer =
+                exporter -> {
+                    MetricExporter intermediate = existing.apply(exporter);
+                    return metricExporterCustomizer.apply(intermediate);
+                };
+        return this;
+    }
+
     public SessionId getSessionId() {
         return sessionId;
     }
@@ -311,13 +396,131 @@ public final class OpenTelemetryRumBuilder {
      * @return A new {@link OpenTelemetryRum} instance.
      */
     public OpenTelemetryRum build() {
-        ServiceManager.initialize(application);
+        ServiceManager.initialize(application, config);
         return build(ServiceManager.get());
     }
 
     OpenTelemetryRum build(ServiceManager serviceManager) {
-        applyConfiguration();
+        applyConfiguration(serviceManager);
+
+        SignalExporters exporters = buildSignalExporters(serviceManager, buildMetricExporter());
+        initializationEvents.spanExporterInitialized(exporters.spanExporter);
+
+        OpenTelemetrySdk sdk =
+                buildSdk(
+                        serviceManager,
+                        exporters.spanExporter,
+                        exporters.logsExporter,
+                        exporters.metricExporter);
+
+        scheduleDiskTelemetryReader(
+                exporters.signalFromDiskExporter, config.getDiskBufferingConfiguration());
 
+        OpenTelemetryRum openTelemetryRum = installInstrumentations(serviceManager, sdk);
+        serviceManager.start();
+        return openTelemetryRum;
+    }
+
+    /**
+     * Creates a new instance of {@link OpenTelemetryRum} with the settings of this {@link
+     * OpenTelemetryRumBuilder}, deferring the expensive parts of the initialization to a
+     * background thread.
+     *
+     * <p>The returned instance is immediately usable: the OpenTelemetry SDK is created and the
+     * built-in instrumentations are installed on the calling thread. The exporters (including disk
+     * buffering, which needs to touch the storage) are created in the background, and the services
+     * are started once they are ready. Spans and log records produced in the meantime are kept in
+     * a bounded in-memory buffer and handed over to the exporters as soon as they are available.
+     *
+     * @return A new {@link OpenTelemetryRum} instance.
+     */
+    public OpenTelemetryRum buildAsync() {
+        return buildAsync(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "otel-rum-init");
+                    thread.setDaemon(true);
+                    thread.start();
+                });
+    }
+
+    /**
+     * Same as {@link #buildAsync()}, but runs the deferred initialization on the given {@link
+     * Executor}.
+     *
+     * @param executor The {@link Executor} that will run the exporters initialization.
+     * @return A new {@link OpenTelemetryRum} instance.
+     */
+    public OpenTelemetryRum buildAsync(Executor executor) {
+        ServiceManager.initialize(application, config);
+        return buildAsync(ServiceManager.get(), executor);
+    }
+
+    OpenTelemetryRum buildAsync(ServiceManager serviceManager, Executor executor) {
+        applyConfiguration(serviceManager);
+
+        BufferDelegatingSpanExporter bufferedSpanExporter = BufferDelegatingSpanExporter.create();
+        BufferDelegatingLogExporter bufferedLogsExporter = BufferDelegatingLogExporter.create();
+        // the metric exporter is needed upfront for its aggregation temporality; only the disk
+        // buffering on top of it is deferred
+        MetricExporter metricExporter = buildMetricExporter();
+        BufferDelegatingMetricExporter bufferedMetricExporter =
+                metricExporter == null
+                        ? null
+                        : BufferDelegatingMetricExporter.create(metricExporter);
+        OpenTelemetrySdk sdk =
+                buildSdk(
+                        serviceManager,
+                        bufferedSpanExporter,
+                        bufferedLogsExporter,
+                        bufferedMetricExporter);
+        OpenTelemetryRum openTelemetryRum = installInstrumentations(serviceManager, sdk);
+
+        executor.execute(
+                () -> {
+                    SignalExporters exporters =
+                            buildSignalExportersOrFallback(serviceManager, metricExporter);
+                    initializationEvents.spanExporterInitialized(exporters.spanExporter);
+                    bufferedSpanExporter.setDelegate(exporters.spanExporter);
+                    bufferedLogsExporter.setDelegate(exporters.logsExporter);
+                    if (bufferedMetricExporter != null && exporters.metricExporter != null) {
+                        bufferedMetricExporter.setDelegate(exporters.metricExporter);
+                    }
+                    try {
+                        scheduleDiskTelemetryReader(
+                                exporters.signalFromDiskExporter,
+                                config.getDiskBufferingConfiguration());
+                        serviceManager.start();
+                    } catch (RuntimeException e) {
+                        Log.e(RumConstants.OTEL_RUM_LOG_TAG, "Could not start the services.", e);
+                    }
+                });
+        return openTelemetryRum;
+    }
+
+    /**
+     * Nothing reports the failures of the deferred initialization, so they are logged here, and
+     * the exporters without disk buffering are used instead for the buffered signals to be
+     * exported anyway.
+     */
+    private SignalExporters buildSignalExportersOrFallback(
+            ServiceManager serviceManager, @Nullable MetricExporter metricExporter) {
+        try {
+            return buildSignalExporters(serviceManager, metricExporter);
+        } catch (RuntimeException e) {
+            Log.e(
+                    RumConstants.OTEL_RUM_LOG_TAG,
+                    "Could not initialize the exporters, disk buffering is disabled.",
+                    e);
+            return new SignalExporters(
+                    spanExporterModifier.apply(buildSpanExporter()),
+                    logRecordExporterModifier.apply(buildLogsExporter()),
+                    metricExporter,
+                    null);
+        }
+    }
+
+    private SignalExporters buildSignalExporters(
+            ServiceManager serviceManager, @Nullable MetricExporter metricExporter) {
         DiskBufferingConfiguration diskBufferingConfiguration =
                 config.getDiskBufferingConfiguration();
         SpanExporter spanExporter = buildSpanExporter();
@@ -325,60 +528,99 @@ public final class OpenTelemetryRumBuilder {
         SignalFromDiskExporter signalFromDiskExporter = null;
         if (diskBufferingConfiguration.isEnabled()) {
             try {
-                StorageConfiguration storageConfiguration =
-                        createStorageConfiguration(serviceManager);
+                SignalStorage storage = createSignalStorage(serviceManager);
+                ExportFailureTracker exportFailures = new ExportFailureTracker();
                 final SpanExporter originalSpanExporter = spanExporter;
-                spanExporter =
-                        SpanToDiskExporter.create(originalSpanExporter, storageConfiguration);
+                spanExporter = storage.spanToDiskExporter(originalSpanExporter);
                 final LogRecordExporter originalLogsExporter = logsExporter;
-                logsExporter =
-                        LogRecordToDiskExporter.create(originalLogsExporter, storageConfiguration);
+                logsExporter = storage.logRecordToDiskExporter(originalLogsExporter);
+                final MetricExporter originalMetricExporter = metricExporter;
+                FromDiskExporter metricFromDiskExporter = null;
+                if (originalMetricExporter != null) {
+                    metricExporter = storage.metricToDiskExporter(originalMetricExporter);
+                    metricFromDiskExporter =
+                            storage.metricFromDiskExporter(
+                                    exportFailures.metricExporter(originalMetricExporter));
+                }
+                MemoryFirstBuffering memoryFirst = memoryFirstBuffering;
+                if (memoryFirst != null) {
+                    // only write to disk when needed, the disk exporters are kept as a fallback
+                    memoryFirst.listenToNetworkChanges(serviceManager.getCurrentNetworkProvider());
+                    spanExporter = memoryFirst.spanExporter(originalSpanExporter, spanExporter);
+                    logsExporter =
+                            memoryFirst.logRecordExporter(originalLogsExporter, logsExporter);
+                    if (originalMetricExporter != null && metricExporter != null) {
+                        metricExporter =
+                                memoryFirst.metricExporter(originalMetricExporter, metricExporter);
+                    }
+                }
                 signalFromDiskExporter =
                         new SignalFromDiskExporter(
-                                SpanFromDiskExporter.create(
-                                        originalSpanExporter, storageConfiguration),
-                                null,
-                                LogRecordFromDiskExporter.create(
-                                        originalLogsExporter, storageConfiguration));
+                                storage.spanFromDiskExporter(
+                                        exportFailures.spanExporter(originalSpanExporter)),
+                                metricFromDiskExporter,
+                                storage.logRecordFromDiskExporter(
+                                        exportFailures.logRecordExporter(originalLogsExporter)),
+                                DEFAULT_DISK_EXPORT_TIMEOUT_MILLIS,
+                                storage.getRootDir(),
+                                exportFailures);
             } catch (IOException e) {
                 Log.e(RumConstants.OTEL_RUM_LOG_TAG, "Could not initialize disk exporters.", e);
             }
         }
-        initializationEvents.spanExporterInitialized(spanExporter);
+        // the signals are modified before being buffered rather than when sent, so that the
+        // rejected and removed data never reaches the disk
+        return new SignalExporters(
+                spanExporterModifier.apply(spanExporter),
+                logRecordExporterModifier.apply(logsExporter),
+                metricExporter,
+                signalFromDiskExporter);
+    }
 
+    private OpenTelemetrySdk buildSdk(
+            ServiceManager serviceManager,
+            SpanExporter spanExporter,
+            LogRecordExporter logsExporter,
+            @Nullable MetricExporter metricExporter) {
+        SessionIdRatioBasedSampler sessionSampler =
+                config.getSessionSamplingRatio() < 1.0
+                        ? new SessionIdRatioBasedSampler(
+                                config.getSessionSamplingRatio(), sessionId)
+                        : null;
         OpenTelemetrySdk sdk =
                 OpenTelemetrySdk.builder()
                         .setTracerProvider(
-                                buildTracerProvider(sessionId, application, spanExporter))
-                        .setMeterProvider(buildMeterProvider(application))
-                        .setLoggerProvider(buildLoggerProvider(application, logsExporter))
+                                buildTracerProvider(
+                                        serviceManager,
+                                        sessionId,
+                                        application,
+                                        spanExporter,
+                                        sessionSampler))
+                        .setMeterProvider(buildMeterProvider(application, metricExporter))
+                        .setLoggerProvider(
+                                buildLoggerProvider(application, logsExporter, sessionSampler))
                         .setPropagators(buildFinalPropagators())
                         .build();
 
         otelSdkReadyListeners.forEach(listener -> listener.accept(sdk));
+        return sdk;
+    }
 
-        scheduleDiskTelemetryReader(signalFromDiskExporter, diskBufferingConfiguration);
-
+    private OpenTelemetryRum installInstrumentations(
+            ServiceManager serviceManager, OpenTelemetrySdk sdk) {
         SdkPreconfiguredRumBuilder delegate =
-                new SdkPreconfiguredRumBuilder(application, sdk, sessionId);
+                new SdkPreconfiguredRumBuilder(
+                        application, sdk, sessionId, serviceManager.getSchedulerService());
         instrumentationInstallers.forEach(delegate::addInstrumentation);
-        serviceManager.start();
         return delegate.build();
     }
 
-    private StorageConfiguration createStorageConfiguration(ServiceManager serviceManager)
-            throws IOException {
+    private SignalStorage createSignalStorage(ServiceManager serviceManager) throws IOException {
         Preferences preferences = serviceManager.getPreferences();
         CacheStorage storage = serviceManager.getCacheStorage();
         DiskManager diskManager =
                 new DiskManager(storage, preferences, config.getDiskBufferingConfiguration());
-        return StorageConfiguration.builder()
-                .setMaxFileSize(diskManager.getMaxCacheFileSize())
-                .setMaxFolderSize(diskManager.getMaxFolderSize())
-                .setRootDir(diskManager.getSignalsBufferDir())
-                .setTemporaryFileProvider(
-                        new SimpleTemporaryFileProvider(diskManager.getTemporaryDir()))
-                .build();
+        return diskManager.createSignalStorage();
     }
 
     private void scheduleDiskTelemetryReader(
@@ -412,7 +654,7 @@ public final class OpenTelemetryRumBuilder {
     }
 
     /** Leverage the configuration to wire up various instrumentation components. */
-    private void applyConfiguration() {
+    private void applyConfiguration(ServiceManager serviceManager) {
         if (config.shouldGenerateSdkInitializationEvents()) {
             if (initializationEvents == InitializationEvents.NO_OP) {
                 SdkInitializationEvents sdkInitEvents = new SdkInitializationEvents();
@@ -427,38 +669,19 @@ public final class OpenTelemetryRumBuilder {
         }
         initializationEvents.sdkInitializationStarted();
 
-        // Global attributes
-        if (config.hasGlobalAttributes()) {
-            // Add span processor that appends global attributes.
-            GlobalAttributesSpanAppender appender =
-                    GlobalAttributesSpanAppender.create(config.getGlobalAttributesSupplier());
-            addTracerProviderCustomizer(
-                    (tracerProviderBuilder, app) ->
-                            tracerProviderBuilder.addSpanProcessor(appender));
-        }
-
-        // Network specific attributes
+        // Network specific attributes are appended by the RumAttributesSpanAppender
         if (config.shouldIncludeNetworkAttributes()) {
-            // Add span processor that appends network attributes.
-            addTracerProviderCustomizer(
-                    (tracerProviderBuilder, app) -> {
-                        SpanProcessor networkAttributesSpanAppender =
-                                NetworkAttributesSpanAppender.create(
-                                        ServiceManager.get().getCurrentNetworkProvider());
-                        return tracerProviderBuilder.addSpanProcessor(
-                                networkAttributesSpanAppender);
-                    });
             initializationEvents.currentNetworkProviderInitialized();
         }
 
-        // Add span processor that appends screen attribute(s)
-        if (config.shouldIncludeScreenAttributes()) {
-            addTracerProviderCustomizer(
-                    (tracerProviderBuilder, app) -> {
-                        SpanProcessor screenAttributesAppender =
-                                new ScreenAttributesSpanProcessor(visibleScreenTracker);
-                        return tracerProviderBuilder.addSpanProcessor(screenAttributesAppender);
-                    });
+        // Keep signals in memory until they need to be written to disk
+        DiskBufferingConfiguration diskBufferingConfiguration =
+                config.getDiskBufferingConfiguration();
+        if (diskBufferingConfiguration.isEnabled() && diskBufferingConfiguration.isMemoryFirst()) {
+            MemoryFirstBuffering memoryFirst =
+                    new MemoryFirstBuffering(diskBufferingConfiguration.getMaxBatchesInMemory());
+            memoryFirstBuffering = memoryFirst;
+            addInstrumentation(memoryFirst::installOn);
         }
 
         // Add ANR detection if enabled
@@ -467,7 +690,12 @@ public final class OpenTelemetryRumBuilder {
             addInstrumentation(
                     instrumentedApplication -> {
                         AnrDetectorBuilder builder =
-                                AnrDetector.builder().setMainLooper(mainLooper);
+                                AnrDetector.builder()
+                                        .setMainLooper(mainLooper)
+                                        .setScheduler(
+                                                serviceManager
+                                                        .getSchedulerService()
+                                                        .getScheduler());
                         anrCustomizer.accept(builder);
                         builder.build().installOn(instrumentedApplication);
                         initializationEvents.anrMonitorInitialized();
@@ -481,6 +709,8 @@ public final class OpenTelemetryRumBuilder {
                         SlowRenderingDetector.builder()
                                 .setSlowRenderingDetectionPollInterval(
                                         config.getSlowRenderingDetectionPollInterval())
+                                .setScheduler(
+                                        serviceManager.getSchedulerService().getScheduler())
                                 .build()
                                 .installOn(instrumentedApplication);
                         initializationEvents.slowRenderingDetectorInitialized();
@@ -506,11 +736,20 @@ public final class OpenTelemetryRumBuilder {
     }
 
     private SdkTracerProvider buildTracerProvider(
-            SessionId sessionId, Application application, SpanExporter spanExporter) {
+            ServiceManager serviceManager,
+            SessionId sessionId,
+            Application application,
+            SpanExporter spanExporter,
+            @Nullable SessionIdRatioBasedSampler sessionSampler) {
         SdkTracerProviderBuilder tracerProviderBuilder =
                 SdkTracerProvider.builder()
                         .setResource(resource)
-                        .addSpanProcessor(new SessionIdSpanAppender(sessionId));
+                        .addSpanProcessor(
+                                buildRumAttributesSpanAppender(serviceManager, sessionId));
+        if (sessionSampler != null) {
+            // spans of unsampled sessions are non-recording, so no span processor sees them
+            tracerProviderBuilder.setSampler(sessionSampler);
+        }
 
         BatchSpanProcessor batchSpanProcessor = BatchSpanProcessor.builder(spanExporter).build();
         tracerProviderBuilder.addSpanProcessor(batchSpanProcessor);
@@ -522,17 +761,42 @@ public final class OpenTelemetryRumBuilder {
         return tracerProviderBuilder.build();
     }
 
+    private SpanProcessor buildRumAttributesSpanAppender(
+            ServiceManager serviceManager, SessionId sessionId) {
+        GlobalAttributesSpanAppender globalAttributes =
+                config.hasGlobalAttributes()
+                        ? GlobalAttributesSpanAppender.create(config.getGlobalAttributesSupplier())
+                        : null;
+        CurrentNetworkProvider currentNetworkProvider =
+                config.shouldIncludeNetworkAttributes()
+                        ? serviceManager.getCurrentNetworkProvider()
+                        : null;
+        VisibleScreenTracker screenTracker =
+                config.shouldIncludeScreenAttributes() ? visibleScreenTracker : null;
+        RumAttributesSpanAppender appender =
+                new RumAttributesSpanAppender(
+                        sessionId, globalAttributes, currentNetworkProvider, screenTracker);
+        if (currentNetworkProvider != null) {
+            currentNetworkProvider.addNetworkChangeListener(appender);
+        }
+        return appender;
+    }
+
     private SdkLoggerProvider buildLoggerProvider(
-            Application application, LogRecordExporter logsExporter) {
+            Application application,
+            LogRecordExporter logsExporter,
+            @Nullable SessionIdRatioBasedSampler sessionSampler) {
         SdkLoggerProviderBuilder loggerProviderBuilder =
-                SdkLoggerProvider.builder()
-                        .addLogRecordProcessor(
-                                new GlobalAttributesLogRecordAppender(
-                                        config.getGlobalAttributesSupplier()))
-                        .setResource(resource);
-        LogRecordProcessor batchLogsProcessor =
-                BatchLogRecordProcessor.builder(logsExporter).build();
-        loggerProviderBuilder.addLogRecordProcessor(batchLogsProcessor);
+                SdkLoggerProvider.builder().setResource(resource);
+        LogRecordProcessor rumLogsProcessor =
+                LogRecordProcessor.composite(
+                        new GlobalAttributesLogRecordAppender(config.getGlobalAttributesSupplier()),
+                        BatchLogRecordProcessor.builder(logsExporter).build());
+        if (sessionSampler != null) {
+            rumLogsProcessor =
+                    new SessionSamplingLogRecordProcessor(rumLogsProcessor, sessionSampler);
+        }
+        loggerProviderBuilder.addLogRecordProcessor(rumLogsProcessor);
         for (BiFunction<SdkLoggerProviderBuilder, Application, SdkLoggerProviderBuilder>
                 customizer : loggerProviderCustomizers) {
             loggerProviderBuilder = customizer.apply(loggerProviderBuilder, application);
@@ -551,9 +815,23 @@ public final class OpenTelemetryRumBuilder {
         return logRecordExporterCustomizer.apply(defaultExporter);
     }
 
-    private SdkMeterProvider buildMeterProvider(Application application) {
+    @Nullable
+    private MetricExporter buildMetricExporter() {
+        if (metricExporterCustomizer == null) {
+            return null;
+        }
+        MetricExporter defaultExporter = LoggingMetricExporter.create();
+        return metricExporterCustomizer.apply(defaultExporter);
+    }
+
+    private SdkMeterProvider buildMeterProvider(
+            Application application, @Nullable MetricExporter metricExporter) {
         SdkMeterProviderBuilder meterProviderBuilder =
                 SdkMeterProvider.builder().setResource(resource);
+        if (metricExporter != null) {
+            meterProviderBuilder.registerMetricReader(
+                    PeriodicMetricReader.builder(metricExporter).build());
+        }
         for (BiFunction<SdkMeterProviderBuilder, Application, SdkMeterProviderBuilder> customizer :
                 meterProviderCustomizers) {
             meterProviderBuilder = customizer.apply(meterProviderBuilder, application);
@@ -570,4 +848,22 @@ public final class OpenTelemetryRumBuilder {
         this.initializationEvents = initializationEvents;
         return this;
     }
+
+    private static final class SignalExporters {
+        private final SpanExporter spanExporter;
+        private final LogRecordExporter logsExporter;
+        @Nullable private final MetricExporter metricExporter;
+        @Nullable private final SignalFromDiskExporter signalFromDiskExporter;
+
+        private SignalExporters(
+                SpanExporter spanExporter,
+                LogRecordExporter logsExporter,
+                @Nullable MetricExporter metricExporter,
+                @Nullable SignalFromDiskExporter signalFromDiskExporter) {
+            this.spanExporter = spanExporter;
+            this.logsExporter = logsExporter;
+            this.metricExporter = metricExporter;
+            this.signalFromDiskExporter = signalFromDiskExporter;
+        }
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android;
+
+import static io.opentelemetry.android.common.RumConstants.SCREEN_NAME_KEY;
+import static io.opentelemetry.android.common.RumConstants.SESSION_ID_KEY;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.instrumentation.activity.VisibleScreenTracker;
+import io.opentelemetry.android.internal.features.networkattrs.CurrentNetworkAttributesExtractor;
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider;
+import io.opentelemetry.android.internal.services.network.NetworkChangeListener;
+import io.opentelemetry.android.internal.services.network.data.CurrentNetwork;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+/**
+ * A {@link SpanProcessor} that appends all the RUM attributes (session id, global attributes,
+ * network attributes and screen name) to every started span with a single {@link
+ * ReadWriteSpan#setAllAttributes(Attributes)} call.
+ *
+ * <p>The combined {@link Attributes} are kept in an immutable snapshot, which is only rebuilt when
+ * one of its sources has changed: the session id was rotated, the global attributes were updated,
+ * the network changed or a different screen became visible. In the common case, starting a span
+ * does not allocate anything here.
+ *
+ * <p>The network attributes are also extracted only once per {@link CurrentNetwork}, when the
+ * network changes, so rebuilding the snapshot for another reason does not extract them again.
+ *
+ * <p>Attributes appended later take precedence over the earlier ones, in the same order as the
+ * individual processors this one replaces: session id, global attributes, network, screen.
+ */
+final class RumAttributesSpanAppender implements SpanProcessor, NetworkChangeListener {
+
+    private final SessionId sessionId;
+    @Nullable private final GlobalAttributesSpanAppender globalAttributes;
+    @Nullable private final CurrentNetworkProvider currentNetworkProvider;
+    @Nullable private final VisibleScreenTracker visibleScreenTracker;
+    private final CurrentNetworkAttributesExtractor networkAttributesExtractor =
+            new CurrentNetworkAttributesExtractor();
+
+    @Nullable private volatile Snapshot snapshot;
+    @Nullable private volatile NetworkAttributes networkAttributes;
+
+    RumAttributesSpanAppender(
+            SessionId sessionId,
+            @Nullable GlobalAttributesSpanAppender globalAttributes,
+            @Nullable CurrentNetworkProvider currentNetworkProvider,
+            @Nullable VisibleScreenTracker visibleScreenTracker) {
+        this.sessionId = sessionId;
+        this.globalAttributes = globalAttributes;
+        this.currentNetworkProvider = currentNetworkProvider;
+        this.visibleScreenTracker = visibleScreenTracker;
+    }
+
+    @Override
+    public void onNetworkChange(CurrentNetwork currentNetwork) {
+        networkAttributes = extract(currentNetwork);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        span.setAllAttributes(currentAttributes());
+    }
+
+    // visible for tests
+    Attributes currentAttributes() {
+        String currentSessionId = sessionId.getSessionId();
+        Attributes currentGlobals =
+                globalAttributes == null ? null : globalAttributes.getAttributes();
+        CurrentNetwork currentNetwork =
+                currentNetworkProvider == null ? null : currentNetworkProvider.getCurrentNetwork();
+        String currentScreen =
+                visibleScreenTracker == null
+                        ? null
+                        : visibleScreenTracker.getCurrentlyVisibleScreen();
+
+        Snapshot current = snapshot;
+        if (current != null
+                && current.matches(
+                        currentSessionId, currentGlobals, currentNetwork, currentScreen)) {
+            return current.attributes;
+        }
+        // racing threads may both rebuild the snapshot; they will end up with equal attributes
+        current =
+                new Snapshot(
+                        currentSessionId,
+                        currentGlobals,
+                        currentNetwork,
+                        currentScreen,
+                        buildAttributes(
+                                currentSessionId, currentGlobals, currentNetwork, currentScreen));
+        snapshot = current;
+        return current.attributes;
+    }
+
+    private Attributes buildAttributes(
+            String currentSessionId,
+            @Nullable Attributes currentGlobals,
+            @Nullable CurrentNetwork currentNetwork,
+            @Nullable String currentScreen) {
+        AttributesBuilder builder = Attributes.builder().put(SESSION_ID_KEY, currentSessionId);
+        if (currentGlobals != null) {
+            builder.putAll(currentGlobals);
+        }
+        if (currentNetwork != null) {
+            builder.putAll(networkAttributes(currentNetwork));
+        }
+        if (currentScreen != null) {
+            builder.put(SCREEN_NAME_KEY, currentScreen);
+        }
+        return builder.build();
+    }
+
+    // visible for tests
+    Attributes networkAttributes(CurrentNetwork currentNetwork) {
+        NetworkAttributes current = networkAttributes;
+        // the provider may also refresh its network without notifying the listeners (e.g. when it
+        // starts monitoring), so the cached attributes are only used if they describe the very
+        // same CurrentNetwork instance
+        if (current == null || current.network != currentNetwork) {
+            current = extract(currentNetwork);
+            networkAttributes = current;
+        }
+        return current.attributes;
+    }
+
+    private NetworkAttributes extract(CurrentNetwork network) {
+        return new NetworkAttributes(network, networkAttributesExtractor.extract(network));
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return true;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {}
+
+    @Override
+    public boolean isEndRequired() {
+        return false;
+    }
+
+    private static final class Snapshot {
+
+        private final String sessionId;
+        @Nullable private final Attributes globalAttributes;
+        @Nullable private final CurrentNetwork network;
+        @Nullable private final String screen;
+        private final Attributes attributes;
+
+        private Snapshot(
+                String sessionId,
+                @Nullable Attributes globalAttributes,
+                @Nullable CurrentNetwork network,
+                @Nullable String screen,
+                Attributes attributes) {
+            this.sessionId = sessionId;
+            this.globalAttributes = globalAttributes;
+            this.network = network;
+            this.screen = screen;
+            this.attributes = attributes;
+        }
+
+        // The session id, global attributes and network are compared by identity: their sources
+        // only create a new instance when the value changes (a global attributes supplier that
+        // returns a fresh instance on every call just forces a rebuild). Screen names are not
+        // guaranteed to be the same instance, so these are compared by value.
+        private boolean matches(
+                String sessionId,
+                @Nullable Attributes globalAttributes,
+                @Nullable CurrentNetwork network,
+                @Nullable String screen) {
+            return this.sessionId == sessionId
+                    && this.globalAttributes == globalAttributes
+                    && this.network == network
+                    && (this.screen == null ? screen == null : this.screen.equals(screen));
+        }
+    }
+
+    private static final class NetworkAttributes {
+
+        private final CurrentNetwork network;
+        private final Attributes attributes;
+
+        private NetworkAttributes(CurrentNetwork network, Attributes attributes) {
+            this.network = network;
+            this.attributes = attributes;
+        }
+    }
+}
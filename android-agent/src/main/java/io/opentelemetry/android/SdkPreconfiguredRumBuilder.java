@@ -7,6 +7,7 @@ package io.opentelemetry.android;
 
 import android.app.Application;
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import java.util.ArrayList;
@@ -17,19 +18,28 @@ public final class SdkPreconfiguredRumBuilder {
     private final Application application;
     private final OpenTelemetrySdk sdk;
     private final SessionId sessionId;
+    private final SchedulerService schedulerService;
 
     private final List<Consumer<InstrumentedApplication>> instrumentationInstallers =
             new ArrayList<>();
 
     SdkPreconfiguredRumBuilder(Application application, OpenTelemetrySdk openTelemetrySdk) {
-        this(application, openTelemetrySdk, new SessionId(new SessionIdTimeoutHandler()));
+        this(
+                application,
+                openTelemetrySdk,
+                new SessionId(new SessionIdTimeoutHandler()),
+                new SchedulerService());
     }
 
     SdkPreconfiguredRumBuilder(
-            Application application, OpenTelemetrySdk openTelemetrySdk, SessionId sessionId) {
+            Application application,
+            OpenTelemetrySdk openTelemetrySdk,
+            SessionId sessionId,
+            SchedulerService schedulerService) {
         this.application = application;
         this.sdk = openTelemetrySdk;
         this.sessionId = sessionId;
+        this.schedulerService = schedulerService;
     }
 
     /**
@@ -61,10 +71,11 @@ public final class SdkPreconfiguredRumBuilder {
         applicationStateWatcher.registerListener(sessionId.getTimeoutHandler());
 
         Tracer tracer = sdk.getTracer(OpenTelemetryRum.class.getSimpleName());
-        sessionId.setSessionIdChangeListener(new SessionIdChangeTracer(tracer));
+        sessionId.addSessionIdChangeListener(new SessionIdChangeTracer(tracer));
 
         InstrumentedApplication instrumentedApplication =
-                new InstrumentedApplicationImpl(application, sdk, applicationStateWatcher);
+                new InstrumentedApplicationImpl(
+                        application, sdk, applicationStateWatcher, sessionId, schedulerService);
         for (Consumer<InstrumentedApplication> installer : instrumentationInstallers) {
             installer.accept(instrumentedApplication);
         }
@@ -5,24 +5,33 @@
 
 package io.opentelemetry.android;
 
-import static java.util.Objects.requireNonNull;
-
-import androidx.annotation.Nullable;
 import io.opentelemetry.api.trace.TraceId;
 import io.opentelemetry.sdk.common.Clock;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Holds the current RUM session id.
+ *
+ * <p>{@link #getSessionId()} is called for every span (and every sampling decision), so the common
+ * case only reads a single volatile snapshot and compares its precomputed "valid until" deadline to
+ * the current time. The expiry and timeout bookkeeping only runs when that deadline has passed: in
+ * the foreground that happens when the session reaches its maximum lifetime, in the background
+ * every few seconds (see {@link SessionIdTimeoutHandler#getValidityNanos()}). App state
+ * transitions reported by the {@link SessionIdTimeoutHandler} invalidate the deadline right away.
+ */
 class SessionId {
 
     private static final long SESSION_LIFETIME_NANOS = TimeUnit.HOURS.toNanos(4);
 
     private final Clock clock;
-    private final AtomicReference<String> value = new AtomicReference<>();
     private final SessionIdTimeoutHandler timeoutHandler;
-    private volatile long createTimeNanos;
-    @Nullable private volatile SessionIdChangeListener sessionIdChangeListener;
+    private final Object lock = new Object();
+    private volatile Session session;
+    private final List<SessionIdChangeListener> sessionIdChangeListeners =
+            new CopyOnWriteArrayList<>();
 
     SessionId(SessionIdTimeoutHandler timeoutHandler) {
         this(Clock.getDefault(), timeoutHandler);
@@ -32,8 +41,10 @@ class SessionId {
     SessionId(Clock clock, SessionIdTimeoutHandler timeoutHandler) {
         this.clock = clock;
         this.timeoutHandler = timeoutHandler;
-        value.set(createNewId());
-        createTimeNanos = clock.now();
+        long now = clock.nanoTime();
+        // the first call will bump the timeout handler and compute the actual deadline
+        session = new Session(createNewId(), now, Long.MIN_VALUE);
+        timeoutHandler.setStateChangeListener(this::invalidate);
     }
 
     private static String createNewId() {
@@ -48,45 +59,81 @@ class SessionId {
     }
 
     String getSessionId() {
-        // value will never be null
-        String oldValue = requireNonNull(value.get());
-        String currentValue = oldValue;
-        boolean sessionIdChanged = false;
-
-        if (sessionExpired() || timeoutHandler.hasTimedOut()) {
-            String newId = createNewId();
-            // if this returns false, then another thread updated the value already.
-            sessionIdChanged = value.compareAndSet(oldValue, newId);
-            if (sessionIdChanged) {
-                createTimeNanos = clock.nanoTime();
+        Session current = session;
+        if (clock.nanoTime() < current.validUntilNanos) {
+            return current.id;
+        }
+        return refreshSessionId();
+    }
+
+    private String refreshSessionId() {
+        String oldValue;
+        Session current;
+        synchronized (lock) {
+            current = session;
+            long now = clock.nanoTime();
+            if (now < current.validUntilNanos) {
+                // another thread got here first
+                return current.id;
+            }
+            oldValue = current.id;
+            String id = current.id;
+            long createTimeNanos = current.createTimeNanos;
+            if (now - createTimeNanos >= SESSION_LIFETIME_NANOS || timeoutHandler.hasTimedOut()) {
+                id = createNewId();
+                createTimeNanos = now;
             }
-            // value will never be null
-            currentValue = requireNonNull(value.get());
+            timeoutHandler.bump();
+            current = new Session(id, createTimeNanos, computeDeadline(createTimeNanos, now));
+            session = current;
         }
 
-        timeoutHandler.bump();
-        // sessionId change listener needs to be called after bumping the timer because it may
+        // sessionId change listeners need to be called after bumping the timer because they may
         // create a new span
-        SessionIdChangeListener sessionIdChangeListener = this.sessionIdChangeListener;
-        if (sessionIdChanged && sessionIdChangeListener != null) {
-            sessionIdChangeListener.onChange(oldValue, currentValue);
+        if (!oldValue.equals(current.id)) {
+            for (SessionIdChangeListener listener : sessionIdChangeListeners) {
+                listener.onChange(oldValue, current.id);
+            }
         }
+        return current.id;
+    }
 
-        return currentValue;
+    private long computeDeadline(long createTimeNanos, long now) {
+        long deadline = createTimeNanos + SESSION_LIFETIME_NANOS;
+        long validityNanos = timeoutHandler.getValidityNanos();
+        if (validityNanos < deadline - now) {
+            deadline = now + validityNanos;
+        }
+        return deadline;
     }
 
-    private boolean sessionExpired() {
-        long elapsedTime = clock.nanoTime() - createTimeNanos;
-        return elapsedTime >= SESSION_LIFETIME_NANOS;
+    /** Forces the next {@link #getSessionId()} call to re-check the session expiry and timeout. */
+    private void invalidate() {
+        synchronized (lock) {
+            Session current = session;
+            session = new Session(current.id, current.createTimeNanos, Long.MIN_VALUE);
+        }
     }
 
-    void setSessionIdChangeListener(SessionIdChangeListener sessionIdChangeListener) {
-        this.sessionIdChangeListener = sessionIdChangeListener;
+    void addSessionIdChangeListener(SessionIdChangeListener sessionIdChangeListener) {
+        sessionIdChangeListeners.add(sessionIdChangeListener);
     }
 
     @Override
     public String toString() {
-        // value will never be null
-        return requireNonNull(value.get());
+        return session.id;
+    }
+
+    private static final class Session {
+
+        private final String id;
+        private final long createTimeNanos;
+        private final long validUntilNanos;
+
+        private Session(String id, long createTimeNanos, long validUntilNanos) {
+            this.id = id;
+            this.createTimeNanos = createTimeNanos;
+            this.validUntilNanos = validUntilNanos;
+        }
     }
 }
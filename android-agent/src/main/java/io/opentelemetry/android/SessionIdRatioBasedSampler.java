@@ -5,12 +5,15 @@
 
 package io.opentelemetry.android;
 
+import androidx.annotation.Nullable;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.sdk.trace.data.LinkData;
 import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
 import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,10 +22,14 @@ import java.util.List;
  * same ratio logic but on sessionId instead. This is valid as sessionId uses {@link
  * io.opentelemetry.api.trace.TraceId#fromLongs(long, long)} internally to generate random session
  * IDs.
+ *
+ * <p>Since the decision only depends on the session id, it is computed once per session and reused
+ * for every span until the session id changes.
  */
 public class SessionIdRatioBasedSampler implements Sampler {
     private final Sampler ratioBasedSampler;
     private final SessionId sessionId;
+    @Nullable private volatile SessionDecision decision;
 
     public SessionIdRatioBasedSampler(double ratio, SessionId sessionId) {
         this.sessionId = sessionId;
@@ -38,9 +45,32 @@ public class SessionIdRatioBasedSampler implements Sampler {
             SpanKind spanKind,
             Attributes attributes,
             List<LinkData> parentLinks) {
-        // Replace traceId with sessionId
-        return ratioBasedSampler.shouldSample(
-                parentContext, sessionId.getSessionId(), name, spanKind, attributes, parentLinks);
+        return currentDecision().result;
+    }
+
+    /** Returns true if the telemetry of the current session is sampled. */
+    boolean isSessionSampled() {
+        return currentDecision().result.getDecision() != SamplingDecision.DROP;
+    }
+
+    private SessionDecision currentDecision() {
+        String currentSessionId = sessionId.getSessionId();
+        SessionDecision current = decision;
+        if (current == null || !current.sessionId.equals(currentSessionId)) {
+            // Replace traceId with sessionId. The trace ID ratio sampler only looks at the id, so
+            // the rest of the arguments don't matter.
+            SamplingResult result =
+                    ratioBasedSampler.shouldSample(
+                            Context.root(),
+                            currentSessionId,
+                            "",
+                            SpanKind.INTERNAL,
+                            Attributes.empty(),
+                            Collections.emptyList());
+            current = new SessionDecision(currentSessionId, result);
+            decision = current;
+        }
+        return current;
     }
 
     @Override
@@ -49,4 +79,15 @@ public class SessionIdRatioBasedSampler implements Sampler {
                 "SessionIdRatioBased{traceIdRatioBased:%s}",
                 this.ratioBasedSampler.getDescription());
     }
+
+    private static final class SessionDecision {
+
+        private final String sessionId;
+        private final SamplingResult result;
+
+        private SessionDecision(String sessionId, SamplingResult result) {
+            this.sessionId = sessionId;
+            this.result = result;
+        }
+    }
 }
@@ -5,9 +5,11 @@
 
 package io.opentelemetry.android;
 
+import androidx.annotation.Nullable;
 import io.opentelemetry.android.instrumentation.common.ApplicationStateListener;
 import io.opentelemetry.sdk.common.Clock;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class encapsulates the following criteria about the sessionId timeout:
@@ -22,15 +24,22 @@ import java.time.Duration;
  *
  * <p>Consequently, when the app spent >15 minutes without any activity (spans) in the background,
  * after moving to the foreground the first span should trigger the sessionId timeout.
+ *
+ * <p>The timeout is not bumped on every span: {@link SessionId} only calls {@link #bump()} when
+ * the validity returned by {@link #getValidityNanos()} has elapsed, or after an app state
+ * transition.
  */
 final class SessionIdTimeoutHandler implements ApplicationStateListener {
 
     static final Duration DEFAULT_SESSION_TIMEOUT = Duration.ofMinutes(15);
+    private static final long MAX_BACKGROUND_VALIDITY_NANOS = TimeUnit.SECONDS.toNanos(5);
     private final Duration sessionTimeout;
+    private final long backgroundValidityNanos;
 
     private final Clock clock;
     private volatile long timeoutStartNanos;
     private volatile State state = State.FOREGROUND;
+    @Nullable private volatile Runnable stateChangeListener;
 
     SessionIdTimeoutHandler() {
         this(DEFAULT_SESSION_TIMEOUT);
@@ -44,16 +53,35 @@ final class SessionIdTimeoutHandler implements ApplicationStateListener {
     SessionIdTimeoutHandler(Clock clock, Duration sessionTimeout) {
         this.clock = clock;
         this.sessionTimeout = sessionTimeout;
+        // in the background, bump at most 1/10th of the timeout late
+        this.backgroundValidityNanos =
+                Math.min(MAX_BACKGROUND_VALIDITY_NANOS, sessionTimeout.toNanos() / 10);
+    }
+
+    /** Sets a callback that is invoked every time the app state changes. */
+    void setStateChangeListener(Runnable stateChangeListener) {
+        this.stateChangeListener = stateChangeListener;
     }
 
     @Override
     public void onApplicationForegrounded() {
         state = State.TRANSITIONING_TO_FOREGROUND;
+        notifyStateChanged();
     }
 
     @Override
     public void onApplicationBackgrounded() {
+        // spans don't bump the timeout while in the foreground, start counting from now
+        timeoutStartNanos = clock.nanoTime();
         state = State.BACKGROUND;
+        notifyStateChanged();
+    }
+
+    private void notifyStateChanged() {
+        Runnable listener = stateChangeListener;
+        if (listener != null) {
+            listener.run();
+        }
     }
 
     boolean hasTimedOut() {
@@ -74,6 +102,15 @@ final class SessionIdTimeoutHandler implements ApplicationStateListener {
         }
     }
 
+    /**
+     * Returns for how long, after a {@link #bump()}, the current session id can be used without
+     * checking {@link #hasTimedOut()} again.
+     */
+    long getValidityNanos() {
+        // sessionId never times out in the foreground; state changes are notified separately
+        return state == State.FOREGROUND ? Long.MAX_VALUE : backgroundValidityNanos;
+    }
+
     private enum State {
         FOREGROUND,
         BACKGROUND,
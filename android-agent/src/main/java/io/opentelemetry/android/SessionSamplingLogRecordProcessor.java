@@ -0,0 +1,45 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
+import io.opentelemetry.sdk.logs.ReadWriteLogRecord;
+
+/**
+ * A {@link LogRecordProcessor} that only forwards log records to its delegate when the current
+ * session is sampled, according to the same {@link SessionIdRatioBasedSampler} used for spans. Log
+ * records of unsampled sessions skip the attribute appenders and the batch processor entirely.
+ */
+final class SessionSamplingLogRecordProcessor implements LogRecordProcessor {
+
+    private final LogRecordProcessor delegate;
+    private final SessionIdRatioBasedSampler sampler;
+
+    SessionSamplingLogRecordProcessor(
+            LogRecordProcessor delegate, SessionIdRatioBasedSampler sampler) {
+        this.delegate = delegate;
+        this.sampler = sampler;
+    }
+
+    @Override
+    public void onEmit(Context context, ReadWriteLogRecord logRecord) {
+        if (sampler.isSessionSampled()) {
+            delegate.onEmit(context, logRecord);
+        }
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+}
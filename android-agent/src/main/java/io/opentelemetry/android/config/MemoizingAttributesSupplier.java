@@ -0,0 +1,120 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.config;
+
+import static java.util.Objects.requireNonNull;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Supplier} of {@link Attributes} that caches the result of an expensive delegate
+ * supplier, to be used with {@link OtelRumConfig#setGlobalAttributes(Supplier)}.
+ *
+ * <p>The global attributes supplier is called for every span and every log record. When computing
+ * the attributes is not cheap (e.g. it reads user or account state), wrapping it in a {@link
+ * MemoizingAttributesSupplier} makes the delegate run only when the cached value is stale: after
+ * {@link #invalidate()} is called, or after the optional time-to-live has elapsed.
+ *
+ * <p>The same {@link Attributes} instance is returned for as long as the cached value is valid.
+ */
+public final class MemoizingAttributesSupplier implements Supplier<Attributes> {
+
+    /**
+     * Returns a new {@link MemoizingAttributesSupplier} which only calls the {@code delegate} again
+     * after {@link #invalidate()} has been called.
+     */
+    public static MemoizingAttributesSupplier create(Supplier<Attributes> delegate) {
+        return new MemoizingAttributesSupplier(delegate, null, Clock.getDefault());
+    }
+
+    /**
+     * Returns a new {@link MemoizingAttributesSupplier} which calls the {@code delegate} again after
+     * {@link #invalidate()} has been called, or when the cached attributes are older than {@code
+     * timeToLive}.
+     */
+    public static MemoizingAttributesSupplier create(
+            Supplier<Attributes> delegate, Duration timeToLive) {
+        return new MemoizingAttributesSupplier(
+                delegate, requireNonNull(timeToLive, "timeToLive"), Clock.getDefault());
+    }
+
+    private final Supplier<Attributes> delegate;
+    private final long timeToLiveNanos;
+    private final Clock clock;
+    private final AtomicLong version = new AtomicLong();
+    @Nullable private volatile CachedAttributes cached;
+
+    // visible for tests
+    MemoizingAttributesSupplier(
+            Supplier<Attributes> delegate, @Nullable Duration timeToLive, Clock clock) {
+        this.delegate = requireNonNull(delegate, "delegate");
+        this.timeToLiveNanos = timeToLive == null ? -1 : timeToLive.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public Attributes get() {
+        CachedAttributes current = cached;
+        if (isValid(current)) {
+            return current.attributes;
+        }
+        synchronized (this) {
+            current = cached;
+            if (isValid(current)) {
+                return current.attributes;
+            }
+            // read the version before calling the delegate, so that an invalidation that happens
+            // while computing the attributes is not lost
+            long currentVersion = version.get();
+            Attributes attributes = delegate.get();
+            if (attributes == null) {
+                attributes = Attributes.empty();
+            }
+            long expiresAtNanos = timeToLiveNanos < 0 ? 0 : clock.nanoTime() + timeToLiveNanos;
+            current = new CachedAttributes(attributes, currentVersion, expiresAtNanos);
+            cached = current;
+            return attributes;
+        }
+    }
+
+    private boolean isValid(@Nullable CachedAttributes current) {
+        if (current == null || current.version != version.get()) {
+            return false;
+        }
+        return timeToLiveNanos < 0 || clock.nanoTime() - current.expiresAtNanos < 0;
+    }
+
+    /**
+     * Marks the cached attributes as stale, so that the next {@link #get()} call computes them
+     * again with the delegate supplier.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    /** Returns the number of times this supplier has been {@linkplain #invalidate() invalidated}. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private static final class CachedAttributes {
+
+        private final Attributes attributes;
+        private final long version;
+        private final long expiresAtNanos;
+
+        private CachedAttributes(Attributes attributes, long version, long expiresAtNanos) {
+            this.attributes = attributes;
+            this.version = version;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
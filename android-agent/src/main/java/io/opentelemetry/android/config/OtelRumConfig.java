@@ -8,6 +8,7 @@ package io.opentelemetry.android.config;
 import io.opentelemetry.android.ScreenAttributesSpanProcessor;
 import io.opentelemetry.android.features.diskbuffering.DiskBufferingConfiguration;
 import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider;
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService;
 import io.opentelemetry.api.common.Attributes;
 import java.time.Duration;
 import java.util.function.Supplier;
@@ -34,6 +35,9 @@ public class OtelRumConfig {
             DEFAULT_SLOW_RENDERING_DETECTION_POLL_INTERVAL;
     private boolean crashReportingEnabled = true;
     private Duration sessionTimeout = Duration.ofMinutes(15);
+    private double sessionSamplingRatio = 1.0;
+    private int schedulerThreadCount = SchedulerService.DEFAULT_THREAD_COUNT;
+    private int schedulerThreadPriority = SchedulerService.DEFAULT_THREAD_PRIORITY;
 
     /**
      * Configures the set of global attributes to emit with every span and event. Any existing
@@ -43,6 +47,11 @@ public class OtelRumConfig {
         return setGlobalAttributes(() -> attributes);
     }
 
+    /**
+     * Configures a {@link Supplier} of global attributes to emit with every span and event. The
+     * supplier is called for every span and log record; wrap it in a {@link
+     * MemoizingAttributesSupplier} if computing the attributes is expensive.
+     */
     public OtelRumConfig setGlobalAttributes(Supplier<Attributes> globalAttributesSupplier) {
         this.globalAttributesSupplier = globalAttributesSupplier;
         return this;
@@ -186,4 +195,61 @@ public class OtelRumConfig {
     public Duration getSessionTimeout() {
         return sessionTimeout;
     }
+
+    /**
+     * Sets the ratio of sessions whose telemetry is recorded, between 0 (no session) and 1 (every
+     * session). The decision is made once per session, based on its id: spans and log records of
+     * unsampled sessions are dropped before reaching any processor. Default = 1.
+     *
+     * @return this
+     */
+    public OtelRumConfig setSessionSamplingRatio(double sessionSamplingRatio) {
+        if (sessionSamplingRatio < 0.0 || sessionSamplingRatio > 1.0) {
+            throw new IllegalArgumentException("sessionSamplingRatio must be in range [0.0, 1.0]");
+        }
+        this.sessionSamplingRatio = sessionSamplingRatio;
+        return this;
+    }
+
+    /** Returns the ratio of sessions whose telemetry is recorded. */
+    public double getSessionSamplingRatio() {
+        return sessionSamplingRatio;
+    }
+
+    /**
+     * Sets the number of threads of the scheduler shared by all the built-in instrumentations and
+     * background work of the agent (ANR detection, slow rendering polling, disk buffering exports).
+     * Idle threads are released after a while. Default = 2.
+     *
+     * @return this
+     */
+    public OtelRumConfig setSchedulerThreadCount(int schedulerThreadCount) {
+        if (schedulerThreadCount < 1) {
+            throw new IllegalArgumentException("schedulerThreadCount must be positive");
+        }
+        this.schedulerThreadCount = schedulerThreadCount;
+        return this;
+    }
+
+    /** Returns the number of threads of the shared agent scheduler. */
+    public int getSchedulerThreadCount() {
+        return schedulerThreadCount;
+    }
+
+    /**
+     * Sets the Linux priority of the threads of the shared agent scheduler, as accepted by {@link
+     * android.os.Process#setThreadPriority(int)}. Default = {@link
+     * android.os.Process#THREAD_PRIORITY_BACKGROUND}.
+     *
+     * @return this
+     */
+    public OtelRumConfig setSchedulerThreadPriority(int schedulerThreadPriority) {
+        this.schedulerThreadPriority = schedulerThreadPriority;
+        return this;
+    }
+
+    /** Returns the Linux priority of the threads of the shared agent scheduler. */
+    public int getSchedulerThreadPriority() {
+        return schedulerThreadPriority;
+    }
 }
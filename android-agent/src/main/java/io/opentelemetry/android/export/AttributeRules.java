@@ -0,0 +1,97 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The attribute rejection and replacement rules of a modifying exporter, merged per attribute key
+ * so that each key is only looked up once per exported item.
+ */
+final class AttributeRules {
+
+    private final Rule[] rules;
+
+    @SuppressWarnings("unchecked")
+    AttributeRules(
+            Map<AttributeKey<?>, Predicate<?>> rejectPredicates,
+            Map<AttributeKey<?>, Function<?, ?>> replacements) {
+        Set<AttributeKey<?>> keys = new HashSet<>(rejectPredicates.keySet());
+        keys.addAll(replacements.keySet());
+        rules = new Rule[keys.size()];
+        int i = 0;
+        for (AttributeKey<?> key : keys) {
+            rules[i++] =
+                    new Rule(
+                            (AttributeKey<Object>) key,
+                            (Predicate<Object>) rejectPredicates.get(key),
+                            (Function<Object, Object>) replacements.get(key));
+        }
+    }
+
+    boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    /**
+     * Applies the rules to the given attributes. Rejection is evaluated on the original attributes.
+     *
+     * @return {@code null} if the item should be rejected, the very same {@code attributes}
+     *     instance if no rule changed them, or the modified attributes.
+     */
+    @Nullable
+    Attributes apply(Attributes attributes) {
+        AttributesBuilder modified = null;
+        for (Rule rule : rules) {
+            Object value = attributes.get(rule.key);
+            if (value == null) {
+                continue;
+            }
+            if (rule.reject != null && rule.reject.test(value)) {
+                return null;
+            }
+            if (rule.replace != null) {
+                Object newValue = rule.replace.apply(value);
+                if (newValue == value) {
+                    continue;
+                }
+                if (modified == null) {
+                    modified = attributes.toBuilder();
+                }
+                if (newValue == null) {
+                    modified.remove(rule.key);
+                } else {
+                    modified.put(rule.key, newValue);
+                }
+            }
+        }
+        return modified == null ? attributes : modified.build();
+    }
+
+    private static final class Rule {
+
+        private final AttributeKey<Object> key;
+        @Nullable private final Predicate<Object> reject;
+        @Nullable private final Function<Object, Object> replace;
+
+        private Rule(
+                AttributeKey<Object> key,
+                @Nullable Predicate<Object> reject,
+                @Nullable Function<Object, Object> replace) {
+            this.key = key;
+            this.reject = reject;
+            this.replace = replace;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.common.RumConstants;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link LogRecordExporter} that keeps log records in a bounded in-memory buffer until its
+ * delegate exporter is set. Once the delegate is available, all buffered log records are handed
+ * over to it and every subsequent export goes straight to the delegate.
+ *
+ * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
+ * time.
+ */
+public final class BufferDelegatingLogExporter implements LogRecordExporter {
+
+    static final int DEFAULT_MAX_BUFFERED_LOGS = 2048;
+
+    /** Returns a new {@link BufferDelegatingLogExporter} with the default buffer size. */
+    public static BufferDelegatingLogExporter create() {
+        return create(DEFAULT_MAX_BUFFERED_LOGS);
+    }
+
+    /**
+     * Returns a new {@link BufferDelegatingLogExporter} that buffers at most {@code
+     * maxBufferedLogs} log records, dropping the oldest ones when full.
+     */
+    public static BufferDelegatingLogExporter create(int maxBufferedLogs) {
+        return new BufferDelegatingLogExporter(maxBufferedLogs);
+    }
+
+    private final Object lock = new Object();
+    private final BufferedItems<LogRecordData> buffer;
+    @Nullable private volatile LogRecordExporter delegate;
+    private boolean isShutdown;
+
+    private BufferDelegatingLogExporter(int maxBufferedLogs) {
+        this.buffer = new BufferedItems<>(maxBufferedLogs);
+    }
+
+    /**
+     * Sets the exporter that will receive all the buffered log records, and every log record
+     * exported from now on. Can only be called once.
+     */
+    public void setDelegate(LogRecordExporter delegate) {
+        List<LogRecordData> pending;
+        boolean shutdownRequested;
+        synchronized (lock) {
+            if (this.delegate != null) {
+                throw new IllegalStateException("The delegate has already been set.");
+            }
+            this.delegate = delegate;
+            pending = buffer.drain();
+            shutdownRequested = isShutdown;
+            if (buffer.getDroppedCount() > 0) {
+                Log.w(
+                        RumConstants.OTEL_RUM_LOG_TAG,
+                        "Dropped "
+                                + buffer.getDroppedCount()
+                                + " log records while waiting for the exporter to be initialized.");
+            }
+        }
+        if (shutdownRequested) {
+            delegate.shutdown();
+            return;
+        }
+        if (!pending.isEmpty()) {
+            delegate.export(pending);
+        }
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<LogRecordData> logs) {
+        LogRecordExporter current = delegate;
+        if (current == null) {
+            synchronized (lock) {
+                current = delegate;
+                if (current == null) {
+                    if (!isShutdown) {
+                        buffer.addAll(logs);
+                    }
+                    return CompletableResultCode.ofSuccess();
+                }
+            }
+        }
+        return current.export(logs);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        LogRecordExporter current = delegate;
+        return current == null ? CompletableResultCode.ofSuccess() : current.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        LogRecordExporter current;
+        synchronized (lock) {
+            current = delegate;
+            if (current == null) {
+                isShutdown = true;
+                buffer.clear();
+                return CompletableResultCode.ofSuccess();
+            }
+        }
+        return current.shutdown();
+    }
+
+    // visible for tests
+    int getBufferedCount() {
+        synchronized (lock) {
+            return buffer.size();
+        }
+    }
+}
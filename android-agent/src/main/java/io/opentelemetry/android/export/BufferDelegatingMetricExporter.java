@@ -0,0 +1,144 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.common.RumConstants;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link MetricExporter} that keeps metrics in a bounded in-memory buffer until its delegate
+ * exporter is set. Once the delegate is available, all buffered metrics are handed over to it and
+ * every subsequent export goes straight to the delegate.
+ *
+ * <p>The aggregation temporality is needed by the metric reader before the delegate exists, so it
+ * is given upfront and must match the one of the delegate.
+ *
+ * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
+ * time.
+ */
+public final class BufferDelegatingMetricExporter implements MetricExporter {
+
+    static final int DEFAULT_MAX_BUFFERED_METRICS = 1024;
+
+    /**
+     * Returns a new {@link BufferDelegatingMetricExporter} with the default buffer size, using the
+     * given {@link AggregationTemporalitySelector}.
+     */
+    public static BufferDelegatingMetricExporter create(
+            AggregationTemporalitySelector temporalitySelector) {
+        return create(temporalitySelector, DEFAULT_MAX_BUFFERED_METRICS);
+    }
+
+    /**
+     * Returns a new {@link BufferDelegatingMetricExporter} that buffers at most {@code
+     * maxBufferedMetrics} metrics, dropping the oldest ones when full.
+     */
+    public static BufferDelegatingMetricExporter create(
+            AggregationTemporalitySelector temporalitySelector, int maxBufferedMetrics) {
+        return new BufferDelegatingMetricExporter(temporalitySelector, maxBufferedMetrics);
+    }
+
+    private final AggregationTemporalitySelector temporalitySelector;
+    private final Object lock = new Object();
+    private final BufferedItems<MetricData> buffer;
+    @Nullable private volatile MetricExporter delegate;
+    private boolean isShutdown;
+
+    private BufferDelegatingMetricExporter(
+            AggregationTemporalitySelector temporalitySelector, int maxBufferedMetrics) {
+        this.temporalitySelector = temporalitySelector;
+        this.buffer = new BufferedItems<>(maxBufferedMetrics);
+    }
+
+    /**
+     * Sets the exporter that will receive all the buffered metrics, and every metric exported from
+     * now on. Can only be called once.
+     */
+    public void setDelegate(MetricExporter delegate) {
+        List<MetricData> pending;
+        boolean shutdownRequested;
+        synchronized (lock) {
+            if (this.delegate != null) {
+                throw new IllegalStateException("The delegate has already been set.");
+            }
+            this.delegate = delegate;
+            pending = buffer.drain();
+            shutdownRequested = isShutdown;
+            if (buffer.getDroppedCount() > 0) {
+                Log.w(
+                        RumConstants.OTEL_RUM_LOG_TAG,
+                        "Dropped "
+                                + buffer.getDroppedCount()
+                                + " metrics while waiting for the exporter to be initialized.");
+            }
+        }
+        if (shutdownRequested) {
+            delegate.shutdown();
+            return;
+        }
+        if (!pending.isEmpty()) {
+            delegate.export(pending);
+        }
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+        return temporalitySelector.getAggregationTemporality(instrumentType);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<MetricData> metrics) {
+        MetricExporter current = delegate;
+        if (current == null) {
+            synchronized (lock) {
+                current = delegate;
+                if (current == null) {
+                    if (!isShutdown) {
+                        buffer.addAll(metrics);
+                    }
+                    return CompletableResultCode.ofSuccess();
+                }
+            }
+        }
+        return current.export(metrics);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        MetricExporter current = delegate;
+        return current == null ? CompletableResultCode.ofSuccess() : current.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        MetricExporter current;
+        synchronized (lock) {
+            current = delegate;
+            if (current == null) {
+                isShutdown = true;
+                buffer.clear();
+                return CompletableResultCode.ofSuccess();
+            }
+        }
+        return current.shutdown();
+    }
+
+    // visible for tests
+    int getBufferedCount() {
+        synchronized (lock) {
+            return buffer.size();
+        }
+    }
+}
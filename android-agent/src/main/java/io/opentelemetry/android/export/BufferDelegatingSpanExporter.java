@@ -0,0 +1,128 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import android.util.Log;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.common.RumConstants;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link SpanExporter} that keeps spans in a bounded in-memory buffer until its delegate
+ * exporter is set. Once the delegate is available, all buffered spans are handed over to it and
+ * every subsequent export goes straight to the delegate.
+ *
+ * <p>This is used to let the SDK record telemetry while the real export pipeline (which may touch
+ * the disk or the network stack) is still being initialized in the background.
+ *
+ * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
+ * time.
+ */
+public final class BufferDelegatingSpanExporter implements SpanExporter {
+
+    static final int DEFAULT_MAX_BUFFERED_SPANS = 2048;
+
+    /** Returns a new {@link BufferDelegatingSpanExporter} with the default buffer size. */
+    public static BufferDelegatingSpanExporter create() {
+        return create(DEFAULT_MAX_BUFFERED_SPANS);
+    }
+
+    /**
+     * Returns a new {@link BufferDelegatingSpanExporter} that buffers at most {@code
+     * maxBufferedSpans} spans, dropping the oldest ones when full.
+     */
+    public static BufferDelegatingSpanExporter create(int maxBufferedSpans) {
+        return new BufferDelegatingSpanExporter(maxBufferedSpans);
+    }
+
+    private final Object lock = new Object();
+    private final BufferedItems<SpanData> buffer;
+    @Nullable private volatile SpanExporter delegate;
+    private boolean isShutdown;
+
+    private BufferDelegatingSpanExporter(int maxBufferedSpans) {
+        this.buffer = new BufferedItems<>(maxBufferedSpans);
+    }
+
+    /**
+     * Sets the exporter that will receive all the buffered spans, and every span exported from now
+     * on. Can only be called once.
+     */
+    public void setDelegate(SpanExporter delegate) {
+        List<SpanData> pending;
+        boolean shutdownRequested;
+        synchronized (lock) {
+            if (this.delegate != null) {
+                throw new IllegalStateException("The delegate has already been set.");
+            }
+            this.delegate = delegate;
+            pending = buffer.drain();
+            shutdownRequested = isShutdown;
+            if (buffer.getDroppedCount() > 0) {
+                Log.w(
+                        RumConstants.OTEL_RUM_LOG_TAG,
+                        "Dropped "
+                                + buffer.getDroppedCount()
+                                + " spans while waiting for the exporter to be initialized.");
+            }
+        }
+        if (shutdownRequested) {
+            delegate.shutdown();
+            return;
+        }
+        if (!pending.isEmpty()) {
+            delegate.export(pending);
+        }
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        SpanExporter current = delegate;
+        if (current == null) {
+            synchronized (lock) {
+                current = delegate;
+                if (current == null) {
+                    if (!isShutdown) {
+                        buffer.addAll(spans);
+                    }
+                    return CompletableResultCode.ofSuccess();
+                }
+            }
+        }
+        return current.export(spans);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        SpanExporter current = delegate;
+        return current == null ? CompletableResultCode.ofSuccess() : current.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        SpanExporter current;
+        synchronized (lock) {
+            current = delegate;
+            if (current == null) {
+                isShutdown = true;
+                buffer.clear();
+                return CompletableResultCode.ofSuccess();
+            }
+        }
+        return current.shutdown();
+    }
+
+    // visible for tests
+    int getBufferedCount() {
+        synchronized (lock) {
+            return buffer.size();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A bounded FIFO of telemetry items waiting for a delegate exporter. When full, the oldest items
+ * are dropped to make room for the newest ones. Not thread safe, callers must synchronize.
+ */
+final class BufferedItems<T> {
+
+    private final int maxItems;
+    private final ArrayDeque<T> items = new ArrayDeque<>();
+    private long droppedCount;
+
+    BufferedItems(int maxItems) {
+        if (maxItems <= 0) {
+            throw new IllegalArgumentException("maxItems must be positive");
+        }
+        this.maxItems = maxItems;
+    }
+
+    void addAll(Collection<T> newItems) {
+        for (T item : newItems) {
+            if (items.size() == maxItems) {
+                items.pollFirst();
+                droppedCount++;
+            }
+            items.addLast(item);
+        }
+    }
+
+    /** Removes and returns every buffered item, oldest first. */
+    List<T> drain() {
+        List<T> result = new ArrayList<>(items);
+        items.clear();
+        return result;
+    }
+
+    void clear() {
+        items.clear();
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    long getDroppedCount() {
+        return droppedCount;
+    }
+}
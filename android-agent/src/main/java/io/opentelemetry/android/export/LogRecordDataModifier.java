@@ -0,0 +1,197 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import static java.util.Objects.requireNonNull;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A utility that can be used to create a {@link LogRecordExporter} that filters and modifies log
+ * records before they are sent to a delegate exporter. Log records can be rejected entirely based
+ * on their content, their attributes may be modified, their body truncated, and the number of
+ * exported log records can be rate limited.
+ *
+ * <p>The exporter built by this class is to be installed with {@code
+ * OpenTelemetryRumBuilder.addLogRecordExporterModifier()}, so that the log records are modified
+ * and rate limited before being buffered on disk, and the rejected and removed data is never
+ * written to disk.
+ */
+public final class LogRecordDataModifier {
+
+    private final LogRecordExporter delegate;
+    @Nullable private Predicate<LogRecordData> rejectLogRecordsPredicate;
+    private final Map<AttributeKey<?>, Predicate<?>> rejectAttributesPredicates = new HashMap<>();
+    private final Map<AttributeKey<?>, Function<?, ?>> attributeReplacements = new HashMap<>();
+    private int maxBodyLength = -1;
+    private int rateLimitMaxLogRecords = -1;
+    private Duration rateLimitWindow = Duration.ZERO;
+    private Clock clock = Clock.getDefault();
+
+    public static LogRecordDataModifier builder(LogRecordExporter delegate) {
+        return new LogRecordDataModifier(delegate);
+    }
+
+    private LogRecordDataModifier(LogRecordExporter delegate) {
+        this.delegate = requireNonNull(delegate, "delegate");
+    }
+
+    /**
+     * Remove matching log records from the exporter pipeline.
+     *
+     * @param logRecordPredicate A function that returns true if the passed log record should be
+     *     rejected.
+     * @return {@code this}.
+     */
+    public LogRecordDataModifier rejectLogRecords(Predicate<LogRecordData> logRecordPredicate) {
+        rejectLogRecordsPredicate =
+                rejectLogRecordsPredicate == null
+                        ? logRecordPredicate
+                        : rejectLogRecordsPredicate.or(logRecordPredicate);
+        return this;
+    }
+
+    /**
+     * Remove matching log records from the exporter pipeline.
+     *
+     * <p>Any log record that contains an attribute with key {@code attributeKey} and value matching
+     * the {@code attributeValuePredicate} will not be exported.
+     *
+     * @param attributeKey An attribute key to match.
+     * @param attributeValuePredicate A function that returns true if a log record containing an
+     *     attribute with matching value should be rejected.
+     * @return {@code this}.
+     */
+    public <T> LogRecordDataModifier rejectLogRecordsByAttributeValue(
+            AttributeKey<T> attributeKey, Predicate<? super T> attributeValuePredicate) {
+
+        rejectAttributesPredicates.compute(
+                attributeKey,
+                (k, oldValue) ->
+                        oldValue == null
+                                ? attributeValuePredicate
+                                : ((Predicate<T>) oldValue).or(attributeValuePredicate));
+        return this;
+    }
+
+    /**
+     * Modify log record data before it enters the exporter pipeline.
+     *
+     * <p>Any attribute with key {@code attributeKey} will be removed from the log record before it
+     * is exported.
+     *
+     * @param attributeKey An attribute key to match.
+     * @return {@code this}.
+     */
+    public <T> LogRecordDataModifier removeLogRecordAttribute(AttributeKey<T> attributeKey) {
+        return removeLogRecordAttribute(attributeKey, value -> true);
+    }
+
+    /**
+     * Modify log record data before it enters the exporter pipeline.
+     *
+     * <p>Any attribute with key {@code attributeKey} and value matching the {@code
+     * attributeValuePredicate} will be removed from the log record before it is exported.
+     *
+     * @param attributeKey An attribute key to match.
+     * @param attributeValuePredicate A function that returns true if an attribute with matching
+     *     value should be removed from the log record.
+     * @return {@code this}.
+     */
+    public <T> LogRecordDataModifier removeLogRecordAttribute(
+            AttributeKey<T> attributeKey, Predicate<? super T> attributeValuePredicate) {
+
+        return replaceLogRecordAttribute(
+                attributeKey, old -> attributeValuePredicate.test(old) ? null : old);
+    }
+
+    /**
+     * Modify log record data before it enters the exporter pipeline.
+     *
+     * <p>The value of any attribute with key {@code attributeKey} will be passed to the {@code
+     * attributeValueModifier} function. The value returned by the function will replace the
+     * original value. When the modifier function returns {@code null} the attribute will be removed
+     * from the log record.
+     *
+     * @param attributeKey An attribute key to match.
+     * @param attributeValueModifier A function that receives the old attribute value and returns
+     *     the new one.
+     * @return {@code this}.
+     */
+    public <T> LogRecordDataModifier replaceLogRecordAttribute(
+            AttributeKey<T> attributeKey, Function<? super T, ? extends T> attributeValueModifier) {
+
+        attributeReplacements.compute(
+                attributeKey,
+                (k, oldValue) ->
+                        oldValue == null
+                                ? attributeValueModifier
+                                : ((Function<T, T>) oldValue).andThen(attributeValueModifier));
+        return this;
+    }
+
+    /**
+     * Truncates string log record bodies that are longer than {@code maxBodyLength} characters.
+     *
+     * @param maxBodyLength The maximum number of characters of an exported log record body.
+     * @return {@code this}.
+     */
+    public LogRecordDataModifier truncateBody(int maxBodyLength) {
+        if (maxBodyLength < 0) {
+            throw new IllegalArgumentException("maxBodyLength must not be negative");
+        }
+        this.maxBodyLength = maxBodyLength;
+        return this;
+    }
+
+    /**
+     * Limits the number of exported log records to at most {@code maxLogRecords} in every {@code
+     * window}. Log records exceeding the limit are dropped. Rejected log records don't count
+     * towards the limit.
+     *
+     * @param maxLogRecords The maximum number of log records exported per window.
+     * @param window The duration of the fixed rate limiting window.
+     * @return {@code this}.
+     */
+    public LogRecordDataModifier rateLimit(int maxLogRecords, Duration window) {
+        if (maxLogRecords < 0) {
+            throw new IllegalArgumentException("maxLogRecords must not be negative");
+        }
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.rateLimitMaxLogRecords = maxLogRecords;
+        this.rateLimitWindow = window;
+        return this;
+    }
+
+    // visible for tests
+    LogRecordDataModifier setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public LogRecordExporter build() {
+        return new ModifyingLogRecordExporter(
+                delegate,
+                rejectLogRecordsPredicate,
+                new HashMap<>(rejectAttributesPredicates),
+                new HashMap<>(attributeReplacements),
+                maxBodyLength,
+                rateLimitMaxLogRecords,
+                rateLimitWindow.toNanos(),
+                clock);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.logs.data.Body;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.resources.Resource;
+
+final class ModifiedLogRecordData implements LogRecordData {
+
+    private final LogRecordData original;
+    private final Attributes modifiedAttributes;
+    private final Body modifiedBody;
+
+    ModifiedLogRecordData(
+            LogRecordData original, Attributes modifiedAttributes, Body modifiedBody) {
+        this.original = original;
+        this.modifiedAttributes = modifiedAttributes;
+        this.modifiedBody = modifiedBody;
+    }
+
+    @Override
+    public Resource getResource() {
+        return original.getResource();
+    }
+
+    @Override
+    public InstrumentationScopeInfo getInstrumentationScopeInfo() {
+        return original.getInstrumentationScopeInfo();
+    }
+
+    @Override
+    public long getTimestampEpochNanos() {
+        return original.getTimestampEpochNanos();
+    }
+
+    @Override
+    public long getObservedTimestampEpochNanos() {
+        return original.getObservedTimestampEpochNanos();
+    }
+
+    @Override
+    public SpanContext getSpanContext() {
+        return original.getSpanContext();
+    }
+
+    @Override
+    public Severity getSeverity() {
+        return original.getSeverity();
+    }
+
+    @Nullable
+    @Override
+    public String getSeverityText() {
+        return original.getSeverityText();
+    }
+
+    @Override
+    public Body getBody() {
+        return modifiedBody;
+    }
+
+    @Override
+    public Attributes getAttributes() {
+        return modifiedAttributes;
+    }
+
+    @Override
+    public int getTotalAttributeCount() {
+        // the attributes dropped by the attribute limits still count, the removed ones no longer do
+        return original.getTotalAttributeCount()
+                + modifiedAttributes.size()
+                - original.getAttributes().size();
+    }
+}
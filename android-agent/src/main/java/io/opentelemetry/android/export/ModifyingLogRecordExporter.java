@@ -0,0 +1,155 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.data.Body;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The {@link LogRecordExporter} built by {@link LogRecordDataModifier}. Rejects, modifies and rate
+ * limits log records in a single pass over every exported batch. Log records that are left
+ * untouched are passed to the delegate as the very same {@link LogRecordData} instance, and
+ * batches without any change are passed to the delegate as the original collection.
+ */
+final class ModifyingLogRecordExporter implements LogRecordExporter {
+
+    private final LogRecordExporter delegate;
+    @Nullable private final Predicate<LogRecordData> rejectLogRecordsPredicate;
+    private final AttributeRules attributeRules;
+    private final int maxBodyLength;
+    private final int rateLimitMaxLogRecords;
+    private final long rateLimitWindowNanos;
+    private final Clock clock;
+
+    private final Object rateLimitLock = new Object();
+    private long windowStartNanos;
+    private int exportedInWindow;
+
+    ModifyingLogRecordExporter(
+            LogRecordExporter delegate,
+            @Nullable Predicate<LogRecordData> rejectLogRecordsPredicate,
+            Map<AttributeKey<?>, Predicate<?>> rejectAttributesPredicates,
+            Map<AttributeKey<?>, Function<?, ?>> attributeReplacements,
+            int maxBodyLength,
+            int rateLimitMaxLogRecords,
+            long rateLimitWindowNanos,
+            Clock clock) {
+        this.delegate = delegate;
+        this.rejectLogRecordsPredicate = rejectLogRecordsPredicate;
+        this.attributeRules = new AttributeRules(rejectAttributesPredicates, attributeReplacements);
+        this.maxBodyLength = maxBodyLength;
+        this.rateLimitMaxLogRecords = rateLimitMaxLogRecords;
+        this.rateLimitWindowNanos = rateLimitWindowNanos;
+        this.clock = clock;
+        this.windowStartNanos = clock.nanoTime();
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<LogRecordData> logs) {
+        if (rejectLogRecordsPredicate == null
+                && attributeRules.isEmpty()
+                && maxBodyLength < 0
+                && rateLimitMaxLogRecords < 0) {
+            return delegate.export(logs);
+        }
+
+        List<LogRecordData> output = new ArrayList<>(logs.size());
+        boolean changed = false;
+        for (LogRecordData log : logs) {
+            LogRecordData result = process(log);
+            if (result != null && !tryAcquireRateLimit()) {
+                result = null;
+            }
+            if (result != null) {
+                output.add(result);
+            }
+            changed |= result != log;
+        }
+
+        if (!changed) {
+            return delegate.export(logs);
+        }
+        if (output.isEmpty()) {
+            return CompletableResultCode.ofSuccess();
+        }
+        return delegate.export(output);
+    }
+
+    /** Returns {@code null} if the log is rejected, the same log if it is left untouched. */
+    @Nullable
+    private LogRecordData process(LogRecordData log) {
+        if (rejectLogRecordsPredicate != null && rejectLogRecordsPredicate.test(log)) {
+            return null;
+        }
+        Attributes attributes = log.getAttributes();
+        Attributes modifiedAttributes = attributeRules.apply(attributes);
+        if (modifiedAttributes == null) {
+            return null;
+        }
+        Body body = log.getBody();
+        Body modifiedBody = truncate(body);
+        if (modifiedAttributes == attributes && modifiedBody == body) {
+            return log;
+        }
+        return new ModifiedLogRecordData(log, modifiedAttributes, modifiedBody);
+    }
+
+    private Body truncate(Body body) {
+        if (maxBodyLength < 0 || body.getType() != Body.Type.STRING) {
+            return body;
+        }
+        String value = body.asString();
+        if (value.length() <= maxBodyLength) {
+            return body;
+        }
+        int end = maxBodyLength;
+        // don't split a surrogate pair
+        if (end > 0 && Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--;
+        }
+        return Body.string(value.substring(0, end));
+    }
+
+    private boolean tryAcquireRateLimit() {
+        if (rateLimitMaxLogRecords < 0) {
+            return true;
+        }
+        synchronized (rateLimitLock) {
+            long now = clock.nanoTime();
+            if (now - windowStartNanos >= rateLimitWindowNanos) {
+                windowStartNanos = now;
+                exportedInWindow = 0;
+            }
+            if (exportedInWindow >= rateLimitMaxLogRecords) {
+                return false;
+            }
+            exportedInWindow++;
+            return true;
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+}
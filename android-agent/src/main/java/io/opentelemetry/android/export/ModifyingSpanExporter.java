@@ -0,0 +1,93 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The {@link SpanExporter} built by {@link SpanDataModifier}. Rejects and modifies spans in a
+ * single pass over every exported batch.
+ *
+ * <p>All the rules configured for a given attribute key are merged into a single rule (see {@link
+ * AttributeRules}), so each span only looks up every configured key once. Rejection is always
+ * evaluated on the original attributes. Spans that are neither rejected nor modified are passed to
+ * the delegate as the very same {@link SpanData} instance, and batches without any rejected or
+ * modified span are passed to the delegate as the original collection.
+ */
+final class ModifyingSpanExporter implements SpanExporter {
+
+    private final SpanExporter delegate;
+    @Nullable private final Predicate<String> rejectSpanNamesPredicate;
+    private final AttributeRules attributeRules;
+
+    ModifyingSpanExporter(
+            SpanExporter delegate,
+            @Nullable Predicate<String> rejectSpanNamesPredicate,
+            Map<AttributeKey<?>, Predicate<?>> rejectSpanAttributesPredicates,
+            Map<AttributeKey<?>, Function<?, ?>> spanAttributeReplacements) {
+        this.delegate = delegate;
+        this.rejectSpanNamesPredicate = rejectSpanNamesPredicate;
+        this.attributeRules =
+                new AttributeRules(rejectSpanAttributesPredicates, spanAttributeReplacements);
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        if (rejectSpanNamesPredicate == null && attributeRules.isEmpty()) {
+            return delegate.export(spans);
+        }
+
+        List<SpanData> output = new ArrayList<>(spans.size());
+        boolean changed = false;
+        for (SpanData span : spans) {
+            SpanData result = process(span);
+            if (result != null) {
+                output.add(result);
+            }
+            changed |= result != span;
+        }
+
+        return delegate.export(changed ? output : spans);
+    }
+
+    /** Returns {@code null} if the span is rejected, the same span if it is left untouched. */
+    @Nullable
+    private SpanData process(SpanData span) {
+        if (rejectSpanNamesPredicate != null && rejectSpanNamesPredicate.test(span.getName())) {
+            return null;
+        }
+        if (attributeRules.isEmpty()) {
+            return span;
+        }
+        Attributes attributes = span.getAttributes();
+        Attributes modified = attributeRules.apply(attributes);
+        if (modified == null) {
+            return null;
+        }
+        return modified == attributes ? span : new ModifiedSpanData(span, modified);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+}
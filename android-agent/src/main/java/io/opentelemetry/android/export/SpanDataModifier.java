@@ -5,6 +5,7 @@
 
 package io.opentelemetry.android.export;
 
+import androidx.annotation.Nullable;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import java.util.HashMap;
@@ -17,11 +18,15 @@ import java.util.function.Predicate;
  * span data before it is sent to Allows modification of span data before it is sent to a delegate
  * exporter. Spans can be rejected entirely based on their name or attribute content, or their
  * attributes may be modified.
+ *
+ * <p>The exporter built by this class is to be installed with {@code
+ * OpenTelemetryRumBuilder.addSpanExporterModifier()}, so that the spans are modified before being
+ * buffered on disk.
  */
 public final class SpanDataModifier {
 
     private final SpanExporter delegate;
-    private Predicate<String> rejectSpanNamesPredicate = spanName -> false;
+    @Nullable private Predicate<String> rejectSpanNamesPredicate;
     private final Map<AttributeKey<?>, Predicate<?>> rejectSpanAttributesPredicates =
             new HashMap<>();
     private final Map<AttributeKey<?>, Function<?, ?>> spanAttributeReplacements = new HashMap<>();
@@ -44,7 +49,10 @@ public final class SpanDataModifier {
      * @return {@code this}.
      */
     public SpanDataModifier rejectSpansByName(Predicate<String> spanNamePredicate) {
-        rejectSpanNamesPredicate = rejectSpanNamesPredicate.or(spanNamePredicate);
+        rejectSpanNamesPredicate =
+                rejectSpanNamesPredicate == null
+                        ? spanNamePredicate
+                        : rejectSpanNamesPredicate.or(spanNamePredicate);
         return this;
     }
 
@@ -127,16 +135,15 @@ public final class SpanDataModifier {
         return this;
     }
 
+    /**
+     * Returns a {@link SpanExporter} that applies all the configured rules in a single pass over
+     * each exported batch, and passes unmodified spans through as-is.
+     */
     public SpanExporter build() {
-        SpanExporter modifier = delegate;
-        if (!spanAttributeReplacements.isEmpty()) {
-            modifier =
-                    new AttributeModifyingSpanExporter(
-                            delegate, new HashMap<>(spanAttributeReplacements));
-        }
-        return FilteringSpanExporter.builder(modifier)
-                .rejectSpansWithAttributesMatching(new HashMap<>(rejectSpanAttributesPredicates))
-                .rejectSpansNamed(rejectSpanNamesPredicate)
-                .build();
+        return new ModifyingSpanExporter(
+                delegate,
+                rejectSpanNamesPredicate,
+                new HashMap<>(rejectSpanAttributesPredicates),
+                new HashMap<>(spanAttributeReplacements));
     }
 }
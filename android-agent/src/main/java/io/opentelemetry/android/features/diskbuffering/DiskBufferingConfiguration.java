@@ -5,21 +5,59 @@
 
 package io.opentelemetry.android.features.diskbuffering;
 
+import static io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_ESCAPED;
+import static java.util.Objects.requireNonNull;
+
 import io.opentelemetry.android.features.diskbuffering.scheduler.DefaultExportScheduleHandler;
 import io.opentelemetry.android.features.diskbuffering.scheduler.ExportScheduleHandler;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+import java.util.zip.Deflater;
 
 /** Configuration for disk buffering. */
 public final class DiskBufferingConfiguration {
+    /** The priority of buffered signals, unless configured otherwise. */
+    public static final int DEFAULT_PRIORITY = 0;
+
+    /** The default priority of buffered crash reports. */
+    public static final int CRASH_PRIORITY = 100;
+
     private final boolean enabled;
     private final int maxCacheSize;
     private final ExportScheduleHandler exportScheduleHandler;
+    private final StorageEngine storageEngine;
+    private final Duration maxAge;
+    private final ToIntFunction<SpanData> spanPriority;
+    private final ToIntFunction<LogRecordData> logRecordPriority;
+    private final int metricPriority;
+    private final boolean memoryFirst;
+    private final int maxBatchesInMemory;
+    private final int maxExportBatchBytes;
+    private final int maxExportBatchItems;
+    private final int compressionLevel;
     private static final int DEFAULT_MAX_CACHE_SIZE = 60 * 1024 * 1024;
     private static final int MAX_FILE_SIZE = 1024 * 1024;
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(18);
+    private static final int DEFAULT_MAX_BATCHES_IN_MEMORY = 32;
+    private static final int DEFAULT_MAX_EXPORT_BATCH_BYTES = 512 * 1024;
+    private static final int DEFAULT_MAX_EXPORT_BATCH_ITEMS = 512;
 
     private DiskBufferingConfiguration(Builder builder) {
         this.enabled = builder.enabled;
         this.maxCacheSize = builder.maxCacheSize;
         this.exportScheduleHandler = builder.exportScheduleHandler;
+        this.storageEngine = builder.storageEngine;
+        this.maxAge = builder.maxAge;
+        this.spanPriority = builder.spanPriority;
+        this.logRecordPriority = builder.logRecordPriority;
+        this.metricPriority = builder.metricPriority;
+        this.memoryFirst = builder.memoryFirst;
+        this.maxBatchesInMemory = builder.maxBatchesInMemory;
+        this.maxExportBatchBytes = builder.maxExportBatchBytes;
+        this.maxExportBatchItems = builder.maxExportBatchItems;
+        this.compressionLevel = builder.compressionLevel;
     }
 
     public static Builder builder() {
@@ -42,10 +80,67 @@ public final class DiskBufferingConfiguration {
         return exportScheduleHandler;
     }
 
+    public StorageEngine getStorageEngine() {
+        return storageEngine;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public ToIntFunction<SpanData> getSpanPriority() {
+        return spanPriority;
+    }
+
+    public ToIntFunction<LogRecordData> getLogRecordPriority() {
+        return logRecordPriority;
+    }
+
+    public int getMetricPriority() {
+        return metricPriority;
+    }
+
+    public boolean isMemoryFirst() {
+        return memoryFirst;
+    }
+
+    public int getMaxBatchesInMemory() {
+        return maxBatchesInMemory;
+    }
+
+    public int getMaxExportBatchBytes() {
+        return maxExportBatchBytes;
+    }
+
+    public int getMaxExportBatchItems() {
+        return maxExportBatchItems;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    private static int defaultLogRecordPriority(LogRecordData logRecord) {
+        return Boolean.TRUE.equals(logRecord.getAttributes().get(EXCEPTION_ESCAPED))
+                ? CRASH_PRIORITY
+                : DEFAULT_PRIORITY;
+    }
+
     public static final class Builder {
         private boolean enabled = false;
         private int maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
         private ExportScheduleHandler exportScheduleHandler = DefaultExportScheduleHandler.create();
+        private StorageEngine storageEngine = StorageEngine.FILE_PER_BATCH;
+        private Duration maxAge = DEFAULT_MAX_AGE;
+        private ToIntFunction<SpanData> spanPriority = span -> DEFAULT_PRIORITY;
+        private ToIntFunction<LogRecordData> logRecordPriority =
+                DiskBufferingConfiguration::defaultLogRecordPriority;
+        private int metricPriority = DEFAULT_PRIORITY;
+        private boolean memoryFirst = false;
+        private int maxBatchesInMemory = DEFAULT_MAX_BATCHES_IN_MEMORY;
+        private int maxExportBatchBytes = DEFAULT_MAX_EXPORT_BATCH_BYTES;
+        private int maxExportBatchItems = DEFAULT_MAX_EXPORT_BATCH_ITEMS;
+        private int compressionLevel = Deflater.NO_COMPRESSION;
 
         /** Enables or disables disk buffering. */
         public Builder setEnabled(boolean enabled) {
@@ -72,6 +167,118 @@ public final class DiskBufferingConfiguration {
             return this;
         }
 
+        /**
+         * Sets the way signals are stored in disk. Defaults to {@link
+         * StorageEngine#FILE_PER_BATCH}.
+         */
+        public Builder setStorageEngine(StorageEngine storageEngine) {
+            this.storageEngine = storageEngine;
+            return this;
+        }
+
+        /**
+         * Sets how long signals can stay in disk. Older signals are dropped without being
+         * exported. Defaults to 18 hours.
+         */
+        public Builder setMaxAge(Duration maxAge) {
+            this.maxAge = requireNonNull(maxAge, "maxAge");
+            return this;
+        }
+
+        /**
+         * Sets the priority of every span stored in disk. When the cache is full, signals of the
+         * lowest priority are dropped first, oldest first, and signals are never dropped to make
+         * room for signals of a lower priority. Signals of a higher priority are also exported
+         * first. All spans get {@link #DEFAULT_PRIORITY} by default.
+         *
+         * <p>Priorities are only supported by {@link StorageEngine#SEGMENTED_LOG}.
+         */
+        public Builder setSpanPriority(ToIntFunction<SpanData> spanPriority) {
+            this.spanPriority = requireNonNull(spanPriority, "spanPriority");
+            return this;
+        }
+
+        /**
+         * Sets the priority of every log record stored in disk, see {@link
+         * #setSpanPriority(ToIntFunction)}. Crash reports get {@link #CRASH_PRIORITY} by default,
+         * and other log records get {@link #DEFAULT_PRIORITY}.
+         */
+        public Builder setLogRecordPriority(ToIntFunction<LogRecordData> logRecordPriority) {
+            this.logRecordPriority = requireNonNull(logRecordPriority, "logRecordPriority");
+            return this;
+        }
+
+        /**
+         * Sets the priority of the metrics stored in disk, see {@link
+         * #setSpanPriority(ToIntFunction)}. Defaults to {@link #DEFAULT_PRIORITY}.
+         */
+        public Builder setMetricPriority(int metricPriority) {
+            this.metricPriority = metricPriority;
+            return this;
+        }
+
+        /**
+         * Keeps signals in memory and exports them directly while the app is in the foreground,
+         * instead of writing every batch to disk. Signals are only written to disk when the app
+         * goes to the background, when their export fails, or when the system is low on memory.
+         * While offline, up to {@link #setMaxBatchesInMemory(int)} batches of each kind of signal
+         * are kept in memory. Disabled by default.
+         */
+        public Builder setMemoryFirst(boolean memoryFirst) {
+            this.memoryFirst = memoryFirst;
+            return this;
+        }
+
+        /**
+         * Sets how many batches of each kind of signal can be kept in memory while offline, when
+         * {@linkplain #setMemoryFirst(boolean) memory first} buffering is enabled. Older batches
+         * are written to disk beyond that. Defaults to 32.
+         */
+        public Builder setMaxBatchesInMemory(int maxBatchesInMemory) {
+            this.maxBatchesInMemory = maxBatchesInMemory;
+            return this;
+        }
+
+        /**
+         * Sets how many bytes of stored signals can be merged into a single export when reading
+         * them back from disk. Consecutive stored batches are merged until this limit or the
+         * {@linkplain #setMaxExportBatchItems(int) item limit} is reached, so that fewer and larger
+         * requests are made. Defaults to 512 KiB.
+         *
+         * <p>Merging stored batches is only supported by {@link StorageEngine#SEGMENTED_LOG}.
+         */
+        public Builder setMaxExportBatchBytes(int maxExportBatchBytes) {
+            this.maxExportBatchBytes = maxExportBatchBytes;
+            return this;
+        }
+
+        /**
+         * Sets how many signals can be merged into a single export when reading them back from
+         * disk, see {@link #setMaxExportBatchBytes(int)}. Defaults to 512.
+         */
+        public Builder setMaxExportBatchItems(int maxExportBatchItems) {
+            this.maxExportBatchItems = maxExportBatchItems;
+            return this;
+        }
+
+        /**
+         * Sets the deflate level used to compress the signals stored in disk, from {@link
+         * Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, or {@link
+         * Deflater#DEFAULT_COMPRESSION}. Compression lets the cache hold more signals for some CPU
+         * time when storing and exporting them. Defaults to {@link Deflater#NO_COMPRESSION}.
+         *
+         * <p>Compression is only supported by {@link StorageEngine#SEGMENTED_LOG}.
+         */
+        public Builder setCompressionLevel(int compressionLevel) {
+            if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+                    || compressionLevel > Deflater.BEST_COMPRESSION) {
+                throw new IllegalArgumentException(
+                        "Invalid compression level: " + compressionLevel);
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
         public DiskBufferingConfiguration build() {
             return new DiskBufferingConfiguration(this);
         }
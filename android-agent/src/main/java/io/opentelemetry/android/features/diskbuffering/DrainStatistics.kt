@@ -0,0 +1,61 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.features.diskbuffering
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * What a drain of the signals stored in disk has exported, and how fast.
+ *
+ * <p>The amount of bytes is the space freed in the disk buffer during the drain: signals written to
+ * disk while draining are subtracted from it. It is only measured when debug logging is enabled,
+ * and is zero otherwise.
+ */
+class DrainStatistics(
+    val spanBatches: Int,
+    val metricBatches: Int,
+    val logBatches: Int,
+    val bytes: Long,
+    val durationNanos: Long,
+) {
+    companion object {
+        @JvmField
+        val EMPTY = DrainStatistics(0, 0, 0, 0, 0)
+    }
+
+    val batches: Int
+        get() = spanBatches + metricBatches + logBatches
+
+    fun batchesPerSecond(): Double {
+        return perSecond(batches.toLong())
+    }
+
+    fun bytesPerSecond(): Double {
+        return perSecond(bytes)
+    }
+
+    private fun perSecond(amount: Long): Double {
+        if (durationNanos <= 0) {
+            return 0.0
+        }
+        return amount * TimeUnit.SECONDS.toNanos(1).toDouble() / durationNanos
+    }
+
+    operator fun plus(other: DrainStatistics): DrainStatistics {
+        return DrainStatistics(
+            spanBatches + other.spanBatches,
+            metricBatches + other.metricBatches,
+            logBatches + other.logBatches,
+            bytes + other.bytes,
+            durationNanos + other.durationNanos,
+        )
+    }
+
+    override fun toString(): String {
+        return "DrainStatistics{spanBatches=$spanBatches, metricBatches=$metricBatches, " +
+            "logBatches=$logBatches, bytes=$bytes, durationNanos=$durationNanos}"
+    }
+}
@@ -5,11 +5,17 @@
 
 package io.opentelemetry.android.features.diskbuffering
 
+import android.util.Log
 import androidx.annotation.WorkerThread
-import io.opentelemetry.contrib.disk.buffering.LogRecordFromDiskExporter
-import io.opentelemetry.contrib.disk.buffering.MetricFromDiskExporter
-import io.opentelemetry.contrib.disk.buffering.SpanFromDiskExporter
+import io.opentelemetry.android.common.RumConstants.OTEL_RUM_LOG_TAG
+import io.opentelemetry.android.internal.features.persistence.ExportFailureTracker
+import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter
+import java.io.File
 import java.io.IOException
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
 import java.util.concurrent.TimeUnit
 
 /**
@@ -18,13 +24,18 @@ import java.util.concurrent.TimeUnit
 class SignalFromDiskExporter
     @JvmOverloads
     internal constructor(
-        private val spanFromDiskExporter: SpanFromDiskExporter?,
-        private val metricFromDiskExporter: MetricFromDiskExporter?,
-        private val logRecordFromDiskExporter: LogRecordFromDiskExporter?,
+        private val spanFromDiskExporter: FromDiskExporter?,
+        private val metricFromDiskExporter: FromDiskExporter?,
+        private val logRecordFromDiskExporter: FromDiskExporter?,
         private val exportTimeoutInMillis: Long = TimeUnit.SECONDS.toMillis(5),
+        private val storageDir: File? = null,
+        private val exportFailures: ExportFailureTracker? = null,
+        private val debugLoggingEnabled: () -> Boolean = {
+            Log.isLoggable(OTEL_RUM_LOG_TAG, Log.DEBUG)
+        },
     ) {
         /**
-         * A batch contains all the signals that arrived in one call to [SpanFromDiskExporter.exportStoredBatch]. So if
+         * A batch contains all the signals that arrived in one call to [FromDiskExporter.exportStoredBatch]. So if
          * that function is called 5 times, then there will be 5 batches in disk. This function reads
          * and exports ONE batch every time is called.
          *
@@ -41,7 +52,7 @@ class SignalFromDiskExporter
         }
 
         /**
-         * A batch contains all the signals that arrived in one call to [MetricFromDiskExporter.exportStoredBatch]. So if
+         * A batch contains all the signals that arrived in one call to [FromDiskExporter.exportStoredBatch]. So if
          * that function is called 5 times, then there will be 5 batches in disk. This function reads
          * and exports ONE batch every time is called.
          *
@@ -58,7 +69,7 @@ class SignalFromDiskExporter
         }
 
         /**
-         * A batch contains all the signals that arrived in one call to [LogRecordFromDiskExporter.exportStoredBatch]. So if
+         * A batch contains all the signals that arrived in one call to [FromDiskExporter.exportStoredBatch]. So if
          * that function is called 5 times, then there will be 5 batches in disk. This function reads
          * and exports ONE batch every time is called.
          *
@@ -93,7 +104,106 @@ class SignalFromDiskExporter
             return atLeastOneWorked
         }
 
+        /**
+         * Tells a failed export apart from an empty disk, as the export functions return FALSE in
+         * both cases.
+         *
+         * @return TRUE if exporting any of the signals read from disk failed since the last call.
+         * Always FALSE when the failures aren't tracked.
+         */
+        fun exportFailedSinceLastCheck(): Boolean {
+            return exportFailures?.getAndReset() ?: false
+        }
+
+        /**
+         * Exports up to [maxBatchesPerSignal] batches of each kind of signal, draining the
+         * different kinds concurrently: the calling thread drains one kind while the others are
+         * handed to the [executor]. The calling thread also drains the kinds the [executor] hasn't
+         * picked up yet, so this never waits for an [executor] that is busy. The batches of a
+         * single kind are exported one after the other, as they can't be read from disk
+         * concurrently.
+         *
+         * @return what was exported. Measuring the bytes takes walking the storage directory, so
+         * these are only measured when it is known and debug logging is enabled.
+         */
+        @WorkerThread
+        @Throws(IOException::class)
+        fun exportConcurrently(
+            executor: Executor,
+            maxBatchesPerSignal: Int,
+        ): DrainStatistics {
+            require(maxBatchesPerSignal > 0) { "maxBatchesPerSignal must be positive" }
+            val startNanos = System.nanoTime()
+            val measureBytes = storageDir != null && debugLoggingEnabled()
+            val storedBytesBefore = if (measureBytes) storedBytes() else 0
+
+            val spanLane = spanFromDiskExporter?.let { DrainLane(it) }
+            val metricLane = metricFromDiskExporter?.let { DrainLane(it) }
+            val logLane = logRecordFromDiskExporter?.let { DrainLane(it) }
+            val lanes = ConcurrentLinkedQueue(listOfNotNull(spanLane, metricLane, logLane))
+            val remainingLanes = CountDownLatch(lanes.size)
+            val worker =
+                Runnable {
+                    while (true) {
+                        val lane = lanes.poll() ?: return@Runnable
+                        try {
+                            lane.drain(maxBatchesPerSignal)
+                        } finally {
+                            remainingLanes.countDown()
+                        }
+                    }
+                }
+            try {
+                repeat(lanes.size - 1) { executor.execute(worker) }
+            } catch (e: RejectedExecutionException) {
+                // the calling thread drains everything by itself
+            }
+            worker.run()
+            remainingLanes.await()
+
+            for (lane in listOfNotNull(spanLane, metricLane, logLane)) {
+                lane.error?.let { throw it }
+            }
+            return DrainStatistics(
+                spanLane?.batches ?: 0,
+                metricLane?.batches ?: 0,
+                logLane?.batches ?: 0,
+                if (measureBytes) maxOf(0, storedBytesBefore - storedBytes()) else 0,
+                System.nanoTime() - startNanos,
+            )
+        }
+
+        private fun storedBytes(): Long {
+            val dir = storageDir ?: return 0
+            return dir.walkTopDown().filter { it.isFile }.sumOf { it.length() }
+        }
+
+        private inner class DrainLane(private val exporter: FromDiskExporter) {
+            @Volatile
+            var batches = 0
+                private set
+
+            @Volatile
+            var error: Exception? = null
+                private set
+
+            fun drain(maxBatches: Int) {
+                try {
+                    while (batches < maxBatches &&
+                        exporter.exportStoredBatch(exportTimeoutInMillis, TimeUnit.MILLISECONDS)
+                    ) {
+                        batches++
+                    }
+                } catch (e: IOException) {
+                    error = e
+                } catch (e: RuntimeException) {
+                    error = e
+                }
+            }
+        }
+
         companion object {
+            @Volatile
             private var instance: SignalFromDiskExporter? = null
 
             @JvmStatic
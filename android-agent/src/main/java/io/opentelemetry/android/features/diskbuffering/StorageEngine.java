@@ -0,0 +1,22 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.features.diskbuffering;
+
+/** The way signals are laid out in disk when disk buffering is enabled. */
+public enum StorageEngine {
+    /**
+     * Every exported batch is stored in its own file, and read back through a temporary copy. This
+     * is the default.
+     */
+    FILE_PER_BATCH,
+
+    /**
+     * Batches are appended to segment files of an append-only log, and read back straight from
+     * them. Exporting a batch only moves a read checkpoint forward, which avoids copying files and
+     * reduces the amount of disk writes.
+     */
+    SEGMENTED_LOG
+}
@@ -19,15 +19,23 @@ class DefaultExportScheduleHandler(
 
     override fun enable() {
         if (!enabled.getAndSet(true)) {
+            exportScheduler.startListeningToNetworkChanges()
             periodicWorkService.enqueue(exportScheduler)
         }
     }
 
     companion object {
+        /**
+         * Creates the default handler. The different kinds of signals stored in disk are exported
+         * concurrently, up to [maxBatchesPerSignal] batches of each kind at a time.
+         */
         @JvmStatic
-        fun create(): DefaultExportScheduleHandler {
+        @JvmOverloads
+        fun create(
+            maxBatchesPerSignal: Int = DefaultExportScheduler.DEFAULT_MAX_BATCHES_PER_SIGNAL,
+        ): DefaultExportScheduleHandler {
             return DefaultExportScheduleHandler(
-                DefaultExportScheduler.create(),
+                DefaultExportScheduler.create(maxBatchesPerSignal),
             ) {
                 ServiceManager.get().getPeriodicWorkService()
             }
@@ -7,42 +7,196 @@ package io.opentelemetry.android.features.diskbuffering.scheduler
 
 import android.util.Log
 import io.opentelemetry.android.common.RumConstants.OTEL_RUM_LOG_TAG
+import io.opentelemetry.android.features.diskbuffering.DrainStatistics
 import io.opentelemetry.android.features.diskbuffering.SignalFromDiskExporter
 import io.opentelemetry.android.internal.services.ServiceManager
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
+import io.opentelemetry.android.internal.services.network.NetworkChangeListener
+import io.opentelemetry.android.internal.services.network.data.CurrentNetwork
 import io.opentelemetry.android.internal.services.periodicwork.PeriodicRunnable
 import io.opentelemetry.android.internal.services.periodicwork.PeriodicWorkService
 import java.io.IOException
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.math.min
 
-class DefaultExportScheduler(periodicWorkServiceProvider: () -> PeriodicWorkService) :
-    PeriodicRunnable(periodicWorkServiceProvider) {
-    companion object {
-        private val DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS = TimeUnit.SECONDS.toMillis(10)
+/**
+ * Exports the signals stored in disk.
+ *
+ * <p>The stored signals are exported right away when a network becomes available, and nothing is
+ * read from disk while there is no network. In between, stored signals are exported periodically
+ * as a fallback, backing off exponentially while exports fail. Finding nothing to export doesn't
+ * back off, so that newly stored signals are still exported within the base delay.
+ *
+ * <p>When an [Executor] is available, the drain runs on it rather than on the thread scheduling it,
+ * and the different kinds of signals are drained concurrently, up to a limited amount of batches
+ * per kind and round. The exports block while waiting for the network, so this should be an
+ * executor dedicated to I/O.
+ */
+class DefaultExportScheduler
+    @JvmOverloads
+    constructor(
+        periodicWorkServiceProvider: () -> PeriodicWorkService,
+        private val currentNetworkProviderProvider: (() -> CurrentNetworkProvider)? = null,
+        private val executorProvider: (() -> Executor)? = null,
+        private val maxBatchesPerSignal: Int = DEFAULT_MAX_BATCHES_PER_SIGNAL,
+    ) : PeriodicRunnable(periodicWorkServiceProvider), NetworkChangeListener {
+        companion object {
+            private val DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS = TimeUnit.SECONDS.toMillis(10)
+            private val MAX_DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS = TimeUnit.MINUTES.toMillis(5)
+            const val DEFAULT_MAX_BATCHES_PER_SIGNAL = 8
 
-        fun create(): DefaultExportScheduler {
-            return DefaultExportScheduler {
-                ServiceManager.get().getPeriodicWorkService()
+            @JvmOverloads
+            fun create(
+                maxBatchesPerSignal: Int = DEFAULT_MAX_BATCHES_PER_SIGNAL,
+            ): DefaultExportScheduler {
+                return DefaultExportScheduler(
+                    { ServiceManager.get().getPeriodicWorkService() },
+                    { ServiceManager.get().getCurrentNetworkProvider() },
+                    { ServiceManager.get().getSchedulerService().getIoExecutor() },
+                    maxBatchesPerSignal,
+                )
+            }
+        }
+
+        private val periodicWorkService by lazy { periodicWorkServiceProvider() }
+        private val drainLock = ReentrantLock()
+
+        // the scheduler is enqueued by its handler as soon as disk buffering is enabled
+        private val periodicRunsActive = AtomicBoolean(true)
+
+        @Volatile
+        private var online = true
+
+        @Volatile
+        private var delayBeforeNextExportInMillis = DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS
+
+        /**
+         * Starts following the network changes, so that stored signals are exported as soon as a
+         * network becomes available and not read while offline.
+         */
+        fun startListeningToNetworkChanges() {
+            val currentNetworkProvider = currentNetworkProviderProvider?.invoke() ?: return
+            online = currentNetworkProvider.getCurrentNetwork().isOnline
+            currentNetworkProvider.addNetworkChangeListener(this)
+        }
+
+        override fun onNetworkChange(currentNetwork: CurrentNetwork) {
+            val wasOnline = online
+            online = currentNetwork.isOnline
+            if (!online || wasOnline) {
+                return
+            }
+            delayBeforeNextExportInMillis = DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS
+            periodicWorkService.enqueue { startDrain() }
+            // periodic runs stop while offline
+            if (periodicRunsActive.compareAndSet(false, true)) {
+                periodicWorkService.schedule(this, DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS)
+            }
+        }
+
+        override fun onRun() {
+            if (online) {
+                startDrain()
+            }
+        }
+
+        private fun startDrain() {
+            val executor = executorProvider?.invoke()
+            if (executor == null) {
+                drain(null)
+                return
+            }
+            try {
+                executor.execute { drain(executor) }
+            } catch (e: RejectedExecutionException) {
+                // the I/O threads are busy, the next run will try again
+                backOff()
             }
         }
-    }
 
-    override fun onRun() {
-        val exporter = SignalFromDiskExporter.get() ?: return
+        private fun drain(executor: Executor?) {
+            val exporter = SignalFromDiskExporter.get() ?: return
+            // a drain triggered by a network change might already be running
+            if (!drainLock.tryLock()) {
+                return
+            }
+            try {
+                val exportedAny =
+                    if (executor == null) {
+                        drainSequentially(exporter)
+                    } else {
+                        drainConcurrently(exporter, executor)
+                    }
+                // an empty disk doesn't back off, only failed exports do
+                val failed = exporter.exportFailedSinceLastCheck()
+                if (failed && !exportedAny) {
+                    backOff()
+                } else {
+                    delayBeforeNextExportInMillis = DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS
+                }
+            } catch (e: IOException) {
+                Log.e(OTEL_RUM_LOG_TAG, "Error while exporting signals from disk.", e)
+                backOff()
+            } finally {
+                drainLock.unlock()
+            }
+        }
 
-        try {
+        private fun drainSequentially(exporter: SignalFromDiskExporter): Boolean {
+            var exportedAny = false
             do {
                 val didExport = exporter.exportBatchOfEach()
+                exportedAny = exportedAny || didExport
             } while (didExport)
-        } catch (e: IOException) {
-            Log.e(OTEL_RUM_LOG_TAG, "Error while exporting signals from disk.", e)
+            return exportedAny
         }
-    }
 
-    override fun shouldStopRunning(): Boolean {
-        return SignalFromDiskExporter.get() == null
-    }
+        private fun drainConcurrently(
+            exporter: SignalFromDiskExporter,
+            executor: Executor,
+        ): Boolean {
+            var total = DrainStatistics.EMPTY
+            do {
+                val statistics = exporter.exportConcurrently(executor, maxBatchesPerSignal)
+                total += statistics
+            } while (statistics.batches > 0)
+            if (total.batches > 0) {
+                Log.d(
+                    OTEL_RUM_LOG_TAG,
+                    "Exported ${total.batches} batches (${total.bytes} bytes) from disk in " +
+                        "${TimeUnit.NANOSECONDS.toMillis(total.durationNanos)} ms: " +
+                        "%.1f batches/s, %.0f bytes/s.".format(
+                            total.batchesPerSecond(),
+                            total.bytesPerSecond(),
+                        ),
+                )
+            }
+            return total.batches > 0
+        }
+
+        private fun backOff() {
+            delayBeforeNextExportInMillis =
+                min(delayBeforeNextExportInMillis * 2, MAX_DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS)
+        }
+
+        override fun shouldStopRunning(): Boolean {
+            if (SignalFromDiskExporter.get() == null) {
+                periodicRunsActive.set(false)
+                return true
+            }
+            if (online) {
+                return false
+            }
+            periodicRunsActive.set(false)
+            // the network might have come back meanwhile, without restarting the periodic runs
+            return !(online && periodicRunsActive.compareAndSet(false, true))
+        }
 
-    override fun minimumDelayUntilNextRunInMillis(): Long {
-        return DELAY_BEFORE_NEXT_EXPORT_IN_MILLIS
+        override fun minimumDelayUntilNextRunInMillis(): Long {
+            return delayBeforeNextExportInMillis
+        }
     }
-}
@@ -8,8 +8,10 @@ package io.opentelemetry.android.internal.features.persistence
 import android.util.Log
 import io.opentelemetry.android.common.RumConstants
 import io.opentelemetry.android.features.diskbuffering.DiskBufferingConfiguration
+import io.opentelemetry.android.features.diskbuffering.StorageEngine
 import io.opentelemetry.android.internal.services.CacheStorage
 import io.opentelemetry.android.internal.services.Preferences
+import io.opentelemetry.contrib.disk.buffering.StorageConfiguration
 import java.io.File
 import java.io.IOException
 
@@ -26,6 +28,14 @@ internal class DiskManager(
             return dir
         }
 
+    @get:Throws(IOException::class)
+    val segmentsBufferDir: File
+        get() {
+            val dir = File(cacheStorage.cacheDir, "opentelemetry/segments")
+            ensureExistingOrThrow(dir)
+            return dir
+        }
+
     @get:Throws(IOException::class)
     val temporaryDir: File
         get() {
@@ -35,48 +45,56 @@ internal class DiskManager(
             return dir
         }
 
-    val maxFolderSize: Int
+    val maxCacheSize: Int
         /**
-         * It checks for the available cache space in disk, then it attempts to divide by 3 in order to
-         * get each signal's folder max size. The resulting value is subtracted the max file size value
-         * in order to account for temp files used during the reading process.
+         * The amount of bytes that all the signals can use in disk, shared between the kinds of
+         * signals. It is the requested cache size, or the available cache space if smaller, minus
+         * room for the temporary files used while reading (one per kind of signal).
+         *
+         * The size is stored in the preferences, and only computed again when the requested size
+         * changes or when the usable space in disk has changed significantly since the last time.
          *
-         * @return If the calculated size is < the max file size value, it returns 0. The calculated
-         * size is stored in the preferences and returned otherwise.
+         * @return 0 if there's not enough space for at least one file per kind of signal.
          */
         get() {
-            val storedSize = preferences.retrieveInt(MAX_FOLDER_SIZE_KEY, -1)
-            if (storedSize > 0) {
+            val requestedSize = diskBufferingConfiguration.maxCacheSize
+            val usableSpaceMb = (cacheStorage.usableSpace / BYTES_PER_MB).toInt()
+            val storedSize = preferences.retrieveInt(MAX_CACHE_SIZE_KEY, -1)
+            if (storedSize >= 0 &&
+                preferences.retrieveInt(REQUESTED_CACHE_SIZE_KEY, -1) == requestedSize &&
+                !hasChangedSignificantly(
+                    preferences.retrieveInt(USABLE_SPACE_MB_KEY, -1),
+                    usableSpaceMb,
+                )
+            ) {
                 Log.d(
                     RumConstants.OTEL_RUM_LOG_TAG,
-                    String.format("Returning max folder size from preferences: %s", storedSize),
+                    String.format("Returning max cache size from preferences: %s", storedSize),
                 )
                 return storedSize
             }
-            val requestedSize = diskBufferingConfiguration.maxCacheSize
             val availableCacheSize =
                 cacheStorage.ensureCacheSpaceAvailable(requestedSize.toLong()).toInt()
-            // Divides the available cache size by 3 (for each signal's folder) and then subtracts the
-            // size of a single file to be aware of a temp file used when reading data back from the
-            // disk.
             val maxCacheFileSize = maxCacheFileSize
-            val calculatedSize = availableCacheSize / 3 - maxCacheFileSize
-            if (calculatedSize < maxCacheFileSize) {
+            val calculatedSize = availableCacheSize - SIGNAL_FOLDERS.size * maxCacheFileSize
+            if (calculatedSize < SIGNAL_FOLDERS.size * maxCacheFileSize) {
                 Log.w(
                     RumConstants.OTEL_RUM_LOG_TAG,
                     String.format(
-                        "Insufficient folder cache size: %s, it must be at least: %s",
+                        "Insufficient cache size: %s, it must be at least: %s",
                         calculatedSize,
-                        maxCacheFileSize,
+                        SIGNAL_FOLDERS.size * maxCacheFileSize,
                     ),
                 )
                 return 0
             }
-            preferences.store(MAX_FOLDER_SIZE_KEY, calculatedSize)
+            preferences.store(MAX_CACHE_SIZE_KEY, calculatedSize)
+            preferences.store(REQUESTED_CACHE_SIZE_KEY, requestedSize)
+            preferences.store(USABLE_SPACE_MB_KEY, usableSpaceMb)
             Log.d(
                 RumConstants.OTEL_RUM_LOG_TAG,
                 String.format(
-                    "Requested cache size: %s, available cache size: %s, folder size: %s",
+                    "Requested cache size: %s, available cache size: %s, max cache size: %s",
                     requestedSize,
                     availableCacheSize,
                     calculatedSize,
@@ -85,11 +103,136 @@ internal class DiskManager(
             return calculatedSize
         }
 
+    /**
+     * Splits the [maxCacheSize] between the kinds of signals stored in [signalsDir], based on how
+     * much of the cache each kind has been using. Every kind gets a minimum quota, and the rest is
+     * split according to the observed usage share of each kind, smoothed over the previous
+     * observations that are stored in the preferences. The observed usage is the amount of bytes
+     * found in disk for each kind, so it's only updated when there is data in disk.
+     */
+    fun signalQuotas(signalsDir: File): SignalQuotas {
+        val cacheSize = maxCacheSize
+        if (cacheSize == 0) {
+            return SignalQuotas(0, 0, 0)
+        }
+        val usage = SIGNAL_FOLDERS.map { folderSize(File(signalsDir, it)) }
+        val totalUsage = usage.sum()
+        val shares =
+            SIGNAL_FOLDERS.mapIndexed { index, folder ->
+                val previousShare = preferences.retrieveInt(USAGE_SHARE_KEY_PREFIX + folder, -1)
+                val share =
+                    when {
+                        totalUsage == 0L -> previousShare
+                        previousShare < 0 -> (usage[index] * PER_MILLE / totalUsage).toInt()
+                        else -> (previousShare + usage[index] * PER_MILLE / totalUsage).toInt() / 2
+                    }
+                if (share >= 0 && share != previousShare) {
+                    preferences.store(USAGE_SHARE_KEY_PREFIX + folder, share)
+                }
+                if (share < 0) PER_MILLE / SIGNAL_FOLDERS.size else share
+            }
+        val quotas = allocate(cacheSize, maxCacheFileSize, shares)
+        Log.d(
+            RumConstants.OTEL_RUM_LOG_TAG,
+            String.format("Signal quotas: %s, usage shares (per mille): %s", quotas, shares),
+        )
+        return SignalQuotas(quotas[0], quotas[1], quotas[2])
+    }
+
     val maxCacheFileSize: Int
         get() = diskBufferingConfiguration.maxCacheFileSize
 
+    /** Creates the [SignalStorage] of the configured [StorageEngine]. */
+    @Throws(IOException::class)
+    fun createSignalStorage(): SignalStorage {
+        return when (diskBufferingConfiguration.storageEngine) {
+            StorageEngine.SEGMENTED_LOG ->
+                // the signals share the whole cache, evicting each other by priority
+                SegmentedLogSignalStorage(
+                    segmentsBufferDir,
+                    maxCacheFileSize,
+                    maxCacheSize.toLong(),
+                    diskBufferingConfiguration,
+                )
+            else -> {
+                val rootDir = signalsBufferDir
+                val quotas = signalQuotas(rootDir)
+                val temporaryFileProvider = SimpleTemporaryFileProvider(temporaryDir)
+                FilePerBatchSignalStorage(
+                    storageConfiguration(rootDir, quotas.spans, temporaryFileProvider),
+                    storageConfiguration(rootDir, quotas.logRecords, temporaryFileProvider),
+                    storageConfiguration(rootDir, quotas.metrics, temporaryFileProvider),
+                )
+            }
+        }
+    }
+
+    private fun storageConfiguration(
+        rootDir: File,
+        maxFolderSize: Int,
+        temporaryFileProvider: SimpleTemporaryFileProvider,
+    ): StorageConfiguration {
+        return StorageConfiguration.builder()
+            .setMaxFileSize(maxCacheFileSize)
+            .setMaxFolderSize(maxFolderSize)
+            .setMaxFileAgeForReadMillis(diskBufferingConfiguration.maxAge.toMillis())
+            .setRootDir(rootDir)
+            .setTemporaryFileProvider(temporaryFileProvider)
+            .build()
+    }
+
     companion object {
-        private const val MAX_FOLDER_SIZE_KEY = "max_signal_folder_size"
+        private const val MAX_CACHE_SIZE_KEY = "max_cache_size"
+        private const val REQUESTED_CACHE_SIZE_KEY = "requested_cache_size"
+        private const val USABLE_SPACE_MB_KEY = "cache_usable_space_mb"
+        private const val USAGE_SHARE_KEY_PREFIX = "signal_usage_share_"
+        private const val BYTES_PER_MB = 1024 * 1024
+        private const val PER_MILLE = 1000
+        private const val MIN_QUOTA_PER_MILLE = 100
+
+        // a change of more than 25% of the usable space in disk
+        private const val SIGNIFICANT_CHANGE_DIVISOR = 4
+
+        /** The folders of each kind of signal, in the order of [SignalQuotas]. */
+        private val SIGNAL_FOLDERS = listOf("spans", "logs", "metrics")
+
+        private fun hasChangedSignificantly(
+            previous: Int,
+            current: Int,
+        ): Boolean {
+            return previous < 0 ||
+                Math.abs(current - previous) > previous / SIGNIFICANT_CHANGE_DIVISOR
+        }
+
+        /**
+         * Gives every kind of signal at least 10% of the cache (and at least one file), then splits
+         * the rest according to the given shares.
+         */
+        internal fun allocate(
+            cacheSize: Int,
+            maxFileSize: Int,
+            shares: List<Int>,
+        ): List<Int> {
+            val minQuota =
+                minOf(
+                    maxOf(
+                        maxFileSize.toLong(),
+                        cacheSize.toLong() * MIN_QUOTA_PER_MILLE / PER_MILLE,
+                    ),
+                    cacheSize.toLong() / shares.size,
+                )
+            val rest = cacheSize - minQuota * shares.size
+            val totalShares = shares.sum().toLong()
+            return shares.map { share ->
+                val extra =
+                    if (totalShares == 0L) rest / shares.size else rest * share / totalShares
+                (minQuota + extra).toInt()
+            }
+        }
+
+        private fun folderSize(dir: File): Long {
+            return dir.walkTopDown().filter { it.isFile }.sumOf { it.length() }
+        }
 
         private fun deleteFiles(dir: File) {
             val files = dir.listFiles()
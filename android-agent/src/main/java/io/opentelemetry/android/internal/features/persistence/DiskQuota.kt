@@ -0,0 +1,68 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+/**
+ * The amount of disk space shared by a group of [SegmentedLog]s. When a log needs more space than
+ * what's left, segments are evicted from the logs of the group: lowest priority first, and oldest
+ * first among logs of the same priority. Data is never evicted to make room for data of a lower
+ * priority.
+ *
+ * All the logs of a group use their quota as a lock, so that evicting segments from another log
+ * can't deadlock.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class DiskQuota(val maxSize: Long) {
+    private val logs = mutableListOf<SegmentedLog>()
+
+    /** The amount of bytes used by all the logs of the group. */
+    var usedSize = 0L
+        get() = synchronized(this) { field }
+        private set
+
+    internal fun register(log: SegmentedLog) {
+        logs.add(log)
+    }
+
+    internal fun unregister(log: SegmentedLog) {
+        logs.remove(log)
+    }
+
+    internal fun allocated(bytes: Long) {
+        usedSize += bytes
+    }
+
+    internal fun released(bytes: Long) {
+        usedSize -= bytes
+    }
+
+    /**
+     * Evicts segments until there's room for [bytes] more. Expired segments are evicted first,
+     * then segments from logs with a priority lower or equal to [priority].
+     *
+     * @return FALSE if there isn't enough room even after evicting everything that could be.
+     */
+    internal fun makeRoom(
+        bytes: Long,
+        priority: Int,
+    ): Boolean {
+        if (usedSize + bytes > maxSize) {
+            logs.toList().forEach { it.evictExpiredSegments() }
+        }
+        while (usedSize + bytes > maxSize) {
+            val victim =
+                logs
+                    .filter { it.priority <= priority && it.hasSegments() }
+                    .minWithOrNull(
+                        compareBy<SegmentedLog> { it.priority }
+                            .thenBy { it.oldestSegmentCreatedAtMillis() },
+                    ) ?: return false
+            victim.evictOldestSegment()
+        }
+        return true
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.CompletableResultCode
+import io.opentelemetry.sdk.logs.data.LogRecordData
+import io.opentelemetry.sdk.logs.export.LogRecordExporter
+import io.opentelemetry.sdk.metrics.InstrumentType
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality
+import io.opentelemetry.sdk.metrics.data.MetricData
+import io.opentelemetry.sdk.metrics.export.MetricExporter
+import io.opentelemetry.sdk.trace.data.SpanData
+import io.opentelemetry.sdk.trace.export.SpanExporter
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Records whether the exports of the signals read back from disk failed. The disk exporters report
+ * a failed export and an empty disk the same way, so this tells them apart by wrapping the
+ * exporters they send the stored signals to.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class ExportFailureTracker {
+    private val failed = AtomicBoolean()
+
+    /** Returns TRUE if an export has failed since the last call. */
+    fun getAndReset(): Boolean = failed.getAndSet(false)
+
+    fun spanExporter(delegate: SpanExporter): SpanExporter =
+        object : SpanExporter {
+            override fun export(spans: Collection<SpanData>): CompletableResultCode =
+                track(delegate.export(spans))
+
+            override fun flush(): CompletableResultCode = delegate.flush()
+
+            override fun shutdown(): CompletableResultCode = delegate.shutdown()
+        }
+
+    fun logRecordExporter(delegate: LogRecordExporter): LogRecordExporter =
+        object : LogRecordExporter {
+            override fun export(logs: Collection<LogRecordData>): CompletableResultCode =
+                track(delegate.export(logs))
+
+            override fun flush(): CompletableResultCode = delegate.flush()
+
+            override fun shutdown(): CompletableResultCode = delegate.shutdown()
+        }
+
+    fun metricExporter(delegate: MetricExporter): MetricExporter =
+        object : MetricExporter {
+            override fun getAggregationTemporality(
+                instrumentType: InstrumentType,
+            ): AggregationTemporality = delegate.getAggregationTemporality(instrumentType)
+
+            override fun export(metrics: Collection<MetricData>): CompletableResultCode =
+                track(delegate.export(metrics))
+
+            override fun flush(): CompletableResultCode = delegate.flush()
+
+            override fun shutdown(): CompletableResultCode = delegate.shutdown()
+        }
+
+    // an export that times out is recorded once it completes
+    private fun track(result: CompletableResultCode): CompletableResultCode {
+        result.whenComplete {
+            if (!result.isSuccess) {
+                failed.set(true)
+            }
+        }
+        return result
+    }
+}
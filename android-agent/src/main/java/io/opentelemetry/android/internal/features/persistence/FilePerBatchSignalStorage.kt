@@ -0,0 +1,53 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.contrib.disk.buffering.LogRecordFromDiskExporter
+import io.opentelemetry.contrib.disk.buffering.LogRecordToDiskExporter
+import io.opentelemetry.contrib.disk.buffering.MetricFromDiskExporter
+import io.opentelemetry.contrib.disk.buffering.MetricToDiskExporter
+import io.opentelemetry.contrib.disk.buffering.SpanFromDiskExporter
+import io.opentelemetry.contrib.disk.buffering.SpanToDiskExporter
+import io.opentelemetry.contrib.disk.buffering.StorageConfiguration
+import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter
+import io.opentelemetry.sdk.logs.export.LogRecordExporter
+import io.opentelemetry.sdk.metrics.export.MetricExporter
+import io.opentelemetry.sdk.trace.export.SpanExporter
+import java.io.File
+
+/**
+ * The default [SignalStorage], backed by the contrib disk buffering exporters, which store every
+ * batch in its own file. Each kind of signal gets its own configuration, so that they can be given
+ * different folder sizes.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class FilePerBatchSignalStorage(
+    private val spanStorageConfiguration: StorageConfiguration,
+    private val logRecordStorageConfiguration: StorageConfiguration,
+    private val metricStorageConfiguration: StorageConfiguration,
+) : SignalStorage {
+    override val rootDir: File
+        get() = spanStorageConfiguration.rootDir
+
+    override fun spanToDiskExporter(delegate: SpanExporter): SpanExporter =
+        SpanToDiskExporter.create(delegate, spanStorageConfiguration)
+
+    override fun spanFromDiskExporter(delegate: SpanExporter): FromDiskExporter =
+        SpanFromDiskExporter.create(delegate, spanStorageConfiguration)
+
+    override fun logRecordToDiskExporter(delegate: LogRecordExporter): LogRecordExporter =
+        LogRecordToDiskExporter.create(delegate, logRecordStorageConfiguration)
+
+    override fun logRecordFromDiskExporter(delegate: LogRecordExporter): FromDiskExporter =
+        LogRecordFromDiskExporter.create(delegate, logRecordStorageConfiguration)
+
+    override fun metricToDiskExporter(delegate: MetricExporter): MetricExporter =
+        MetricToDiskExporter.create(delegate, metricStorageConfiguration)
+
+    override fun metricFromDiskExporter(delegate: MetricExporter): FromDiskExporter =
+        MetricFromDiskExporter.create(delegate, metricStorageConfiguration)
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import android.content.ComponentCallbacks2
+import android.content.res.Configuration
+import io.opentelemetry.android.instrumentation.common.ApplicationStateListener
+import io.opentelemetry.android.instrumentation.common.InstrumentedApplication
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
+import io.opentelemetry.android.internal.services.network.NetworkChangeListener
+import io.opentelemetry.android.internal.services.network.data.CurrentNetwork
+import io.opentelemetry.sdk.common.CompletableResultCode
+import io.opentelemetry.sdk.logs.data.LogRecordData
+import io.opentelemetry.sdk.logs.export.LogRecordExporter
+import io.opentelemetry.sdk.metrics.InstrumentType
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality
+import io.opentelemetry.sdk.metrics.data.MetricData
+import io.opentelemetry.sdk.metrics.export.MetricExporter
+import io.opentelemetry.sdk.trace.data.SpanData
+import io.opentelemetry.sdk.trace.export.SpanExporter
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+/**
+ * Keeps the signals in memory while the app is in the foreground, exporting them directly, and
+ * only writes them to disk when the app goes to the background, when an export fails, or when the
+ * system asks to trim memory. See [MemoryFirstExporter].
+ *
+ * The app is considered to be in the background until its first activity starts, so that
+ * signals recorded by a process started without any UI (such as for a broadcast) are not lost.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class MemoryFirstBuffering(
+    private val maxQueuedBatches: Int,
+) : ApplicationStateListener, NetworkChangeListener, ComponentCallbacks2 {
+    private val exporters = CopyOnWriteArrayList<MemoryFirstExporter<*>>()
+
+    @Volatile
+    private var background = true
+
+    @Volatile
+    private var online = true
+
+    /** Starts following the app state and the memory pressure. */
+    fun installOn(instrumentedApplication: InstrumentedApplication) {
+        instrumentedApplication.registerApplicationStateListener(this)
+        instrumentedApplication.application.registerComponentCallbacks(this)
+    }
+
+    /** Starts following the network changes, keeping the signals in memory while offline. */
+    fun listenToNetworkChanges(currentNetworkProvider: CurrentNetworkProvider) {
+        online = currentNetworkProvider.currentNetwork.isOnline
+        currentNetworkProvider.addNetworkChangeListener(this)
+    }
+
+    override fun onApplicationForegrounded() {
+        background = false
+    }
+
+    override fun onApplicationBackgrounded() {
+        background = true
+        spill()
+    }
+
+    override fun onNetworkChange(currentNetwork: CurrentNetwork) {
+        val wasOnline = online
+        online = currentNetwork.isOnline
+        if (online && !wasOnline) {
+            exporters.forEach { it.exportQueued() }
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        spill()
+    }
+
+    override fun onLowMemory() {
+        spill()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {}
+
+    private fun spill() {
+        exporters.forEach { it.spill() }
+    }
+
+    /**
+     * Wraps the [delegate] so that spans are exported directly, and written with [toDiskExporter]
+     * only when needed.
+     */
+    fun spanExporter(
+        delegate: SpanExporter,
+        toDiskExporter: SpanExporter,
+    ): SpanExporter {
+        val exporter = createExporter(delegate::export, toDiskExporter::export)
+        return object : SpanExporter {
+            override fun export(spans: Collection<SpanData>): CompletableResultCode =
+                exporter.export(spans)
+
+            override fun flush(): CompletableResultCode = exporter.flush()
+
+            override fun shutdown(): CompletableResultCode =
+                shutdownExporter(exporter, toDiskExporter::shutdown)
+        }
+    }
+
+    /** Same as [spanExporter], for log records. */
+    fun logRecordExporter(
+        delegate: LogRecordExporter,
+        toDiskExporter: LogRecordExporter,
+    ): LogRecordExporter {
+        val exporter = createExporter(delegate::export, toDiskExporter::export)
+        return object : LogRecordExporter {
+            override fun export(logs: Collection<LogRecordData>): CompletableResultCode =
+                exporter.export(logs)
+
+            override fun flush(): CompletableResultCode = exporter.flush()
+
+            override fun shutdown(): CompletableResultCode =
+                shutdownExporter(exporter, toDiskExporter::shutdown)
+        }
+    }
+
+    /** Same as [spanExporter], for metrics. */
+    fun metricExporter(
+        delegate: MetricExporter,
+        toDiskExporter: MetricExporter,
+    ): MetricExporter {
+        val exporter = createExporter(delegate::export, toDiskExporter::export)
+        return object : MetricExporter {
+            override fun getAggregationTemporality(
+                instrumentType: InstrumentType,
+            ): AggregationTemporality = delegate.getAggregationTemporality(instrumentType)
+
+            override fun export(metrics: Collection<MetricData>): CompletableResultCode =
+                exporter.export(metrics)
+
+            override fun flush(): CompletableResultCode = exporter.flush()
+
+            override fun shutdown(): CompletableResultCode =
+                shutdownExporter(exporter, toDiskExporter::shutdown)
+        }
+    }
+
+    private fun <T> createExporter(
+        exportFunction: (Collection<T>) -> CompletableResultCode,
+        toDiskFunction: (Collection<T>) -> CompletableResultCode,
+    ): MemoryFirstExporter<T> {
+        val exporter =
+            MemoryFirstExporter(
+                exportFunction,
+                toDiskFunction,
+                maxQueuedBatches,
+                { background },
+                { online },
+            )
+        exporters.add(exporter)
+        return exporter
+    }
+
+    private fun shutdownExporter(
+        exporter: MemoryFirstExporter<*>,
+        toDiskShutdown: () -> CompletableResultCode,
+    ): CompletableResultCode {
+        exporters.remove(exporter)
+        // the to disk exporter also shuts down the delegate
+        exporter.spill().join(SHUTDOWN_SPILL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        return toDiskShutdown()
+    }
+
+    companion object {
+        private const val SHUTDOWN_SPILL_TIMEOUT_SECONDS = 5L
+    }
+}
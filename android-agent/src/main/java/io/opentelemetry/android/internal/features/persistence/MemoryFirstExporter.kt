@@ -0,0 +1,104 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.CompletableResultCode
+
+/**
+ * Exports batches straight to the network while possible, only writing them to disk when needed.
+ *
+ * While [spilling] is off and [online] is on, batches are exported right away with
+ * [exportFunction], and only the batches that fail to export are written with [toDiskFunction].
+ * While offline, batches are kept in memory, up to [maxQueuedBatches] (the oldest ones are written
+ * to disk beyond that), and exported once back online. While [spilling] is on, such as when the
+ * app is in the background, batches are written to disk right away.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class MemoryFirstExporter<T>(
+    private val exportFunction: (Collection<T>) -> CompletableResultCode,
+    private val toDiskFunction: (Collection<T>) -> CompletableResultCode,
+    private val maxQueuedBatches: Int,
+    private val spilling: () -> Boolean,
+    private val online: () -> Boolean,
+) {
+    private val queue = ArrayDeque<Collection<T>>()
+
+    /** The amount of batches kept in memory. */
+    val queuedBatches: Int
+        get() = synchronized(queue) { queue.size }
+
+    fun export(items: Collection<T>): CompletableResultCode {
+        if (items.isEmpty()) {
+            return CompletableResultCode.ofSuccess()
+        }
+        if (spilling()) {
+            return toDiskFunction(items)
+        }
+        if (!online()) {
+            enqueue(items)
+            return CompletableResultCode.ofSuccess()
+        }
+        // batches kept while offline go first, so that they are exported in order
+        exportQueued()
+        return exportOrSpill(items)
+    }
+
+    /** Exports the batches kept in memory, or writes them to disk if offline. */
+    fun flush(): CompletableResultCode {
+        return if (online()) exportQueued() else spill()
+    }
+
+    /** Writes the batches kept in memory to disk. */
+    fun spill(): CompletableResultCode {
+        return CompletableResultCode.ofAll(takeQueued().map(toDiskFunction))
+    }
+
+    /** Exports the batches kept in memory, writing the ones that fail to disk. */
+    fun exportQueued(): CompletableResultCode {
+        val batches = takeQueued()
+        // the common case, as it happens before every export while online
+        if (batches.isEmpty()) {
+            return CompletableResultCode.ofSuccess()
+        }
+        return CompletableResultCode.ofAll(batches.map(::exportOrSpill))
+    }
+
+    private fun exportOrSpill(items: Collection<T>): CompletableResultCode {
+        val result = CompletableResultCode()
+        val exported = exportFunction(items)
+        exported.whenComplete {
+            if (exported.isSuccess) {
+                result.succeed()
+            } else {
+                val stored = toDiskFunction(items)
+                stored.whenComplete {
+                    if (stored.isSuccess) result.succeed() else result.fail()
+                }
+            }
+        }
+        return result
+    }
+
+    private fun enqueue(items: Collection<T>) {
+        // the batch processors clear and reuse the exported collection once the export returns
+        val batch = ArrayList(items)
+        val overflow =
+            synchronized(queue) {
+                queue.addLast(batch)
+                if (queue.size > maxQueuedBatches) queue.removeFirst() else null
+            }
+        overflow?.let(toDiskFunction)
+    }
+
+    private fun takeQueued(): List<Collection<T>> {
+        synchronized(queue) {
+            val batches = queue.toList()
+            queue.clear()
+            return batches
+        }
+    }
+}
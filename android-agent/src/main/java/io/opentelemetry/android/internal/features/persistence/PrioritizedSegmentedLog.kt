@@ -0,0 +1,98 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.Clock
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.util.Collections
+import java.util.concurrent.ConcurrentSkipListMap
+
+/**
+ * The records of a single kind of signal, kept in one [SegmentedLog] per priority, each one in a
+ * subdirectory named after its priority. Records are read highest priority first, and oldest first
+ * within the same priority.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class PrioritizedSegmentedLog(
+    private val dir: File,
+    private val maxSegmentSize: Int,
+    private val quota: DiskQuota,
+    private val maxAgeMillis: Long = SegmentedLog.NO_MAX_AGE,
+    private val clock: Clock = Clock.getDefault(),
+    private val tagged: Boolean = false,
+) : Closeable {
+    private val logs = ConcurrentSkipListMap<Int, SegmentedLog>(Collections.reverseOrder())
+
+    init {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw IOException("Could not create dir $dir")
+        }
+        dir.listFiles()?.forEach { file ->
+            val priority = file.name.toIntOrNull()
+            if (file.isDirectory && priority != null) {
+                logs[priority] = openLog(priority)
+            }
+        }
+    }
+
+    /** The amount of bytes used by the logs of every priority. */
+    val size: Long
+        get() = logs.values.sumOf { it.size }
+
+    /** Appends a record to the log of the given [priority]. See [SegmentedLog.append]. */
+    @Throws(IOException::class)
+    fun append(
+        data: ByteArray,
+        priority: Int,
+        tag: Byte = 0,
+    ): Boolean {
+        val log =
+            logs[priority] ?: synchronized(logs) { logs.getOrPut(priority) { openLog(priority) } }
+        return log.append(data, tag)
+    }
+
+    /** Reads the oldest record of the highest priority. See [SegmentedLog.read]. */
+    @Throws(IOException::class)
+    fun read(): SegmentedLog.Record? {
+        for (log in logs.values) {
+            log.read()?.let { return it }
+        }
+        return null
+    }
+
+    /**
+     * Reads the record that follows the given [record] in the log of the same priority. See
+     * [SegmentedLog.readAfter].
+     */
+    @Throws(IOException::class)
+    fun readAfter(record: SegmentedLog.Record): SegmentedLog.Record? {
+        return record.log.readAfter(record)
+    }
+
+    @Throws(IOException::class)
+    fun acknowledge(record: SegmentedLog.Record) {
+        record.log.acknowledge(record)
+    }
+
+    override fun close() {
+        logs.values.forEach { it.close() }
+    }
+
+    private fun openLog(priority: Int): SegmentedLog {
+        return SegmentedLog(
+            File(dir, priority.toString()),
+            maxSegmentSize,
+            quota,
+            priority,
+            maxAgeMillis,
+            clock,
+            tagged,
+        )
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+/**
+ * Encodes the serialized batches stored in a [SegmentedLog], compressing them with deflate unless
+ * [compressionLevel] is [Deflater.NO_COMPRESSION]. The encoding is stored as the tag of every
+ * record, so records written with a different level can still be decoded. Without compression, the
+ * data is stored and read back as is, without copying it.
+ *
+ * Data is deflated and inflated as a stream, through a fixed size buffer, so that compressing
+ * doesn't need more memory than the compressed and uncompressed batch.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class RecordCodec(private val compressionLevel: Int = Deflater.NO_COMPRESSION) {
+    /** The encoding of the records, to be stored as their tag. */
+    val encoding: Byte =
+        if (compressionLevel == Deflater.NO_COMPRESSION) ENCODING_RAW else ENCODING_DEFLATE
+
+    fun encode(data: ByteArray): ByteArray {
+        if (encoding == ENCODING_RAW) {
+            return data
+        }
+        val output = ByteArrayOutputStream(data.size / 2 + 1)
+        val deflater = Deflater(compressionLevel)
+        try {
+            DeflaterOutputStream(output, deflater, BUFFER_SIZE).use { it.write(data) }
+        } finally {
+            deflater.end()
+        }
+        return output.toByteArray()
+    }
+
+    @Throws(IOException::class)
+    fun decode(
+        encoding: Byte,
+        data: ByteArray,
+    ): ByteArray {
+        return when (encoding) {
+            ENCODING_RAW -> data
+            ENCODING_DEFLATE -> inflate(data)
+            else -> throw IOException("Unknown record encoding: $encoding")
+        }
+    }
+
+    private fun inflate(data: ByteArray): ByteArray {
+        val inflater = Inflater()
+        try {
+            val input = ByteArrayInputStream(data)
+            return InflaterInputStream(input, inflater, BUFFER_SIZE).use { it.readBytes() }
+        } finally {
+            inflater.end()
+        }
+    }
+
+    companion object {
+        private const val ENCODING_RAW: Byte = 0
+        private const val ENCODING_DEFLATE: Byte = 1
+        private const val BUFFER_SIZE = 8 * 1024
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import android.util.Log
+import io.opentelemetry.android.common.RumConstants
+import io.opentelemetry.sdk.common.Clock
+import java.io.Closeable
+import java.io.EOFException
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+import java.util.zip.CRC32
+
+/**
+ * An append-only log of records stored in a directory, split in segment files of up to
+ * [maxSegmentSize] bytes.
+ *
+ * Every record is written as a header (its length, the time it was appended and a CRC32 checksum
+ * of both the time and the data) followed by its bytes. Records are addressed by their position,
+ * which only grows: each segment file is named after the position of its first record. The
+ * position of the next record to read is checkpointed in a small cursor file, so acknowledging a
+ * record only rewrites that checkpoint. Segments are deleted as a whole once all their records
+ * have been acknowledged, and nothing is ever copied around.
+ *
+ * Records are read with positional [FileChannel] reads, straight from the segment files. The
+ * cursor is not synced to disk on every acknowledgement, so a process death may cause a few
+ * records to be read again (at-least-once delivery).
+ *
+ * A process death while appending can leave a torn record at the end of the last segment, which
+ * is truncated when the log is opened again. Records that fail their checksum, or segment tails
+ * that can't be parsed, are skipped when reading so that they can't stall the export, and are
+ * moved to a quarantine directory (keeping only the latest few) for troubleshooting.
+ *
+ * The space used by the log is accounted in a [DiskQuota], which may evict the oldest segments of
+ * this log to make room for records of the same or a higher [priority]. Records older than
+ * [maxAgeMillis] are skipped and dropped when reading.
+ *
+ * When [tagged], every record starts with a one-byte tag (such as the encoding of its data), which
+ * is written and read apart from the data so that neither needs to be copied to add or strip it.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class SegmentedLog(
+    private val dir: File,
+    private val maxSegmentSize: Int,
+    private val quota: DiskQuota,
+    val priority: Int = 0,
+    private val maxAgeMillis: Long = NO_MAX_AGE,
+    private val clock: Clock = Clock.getDefault(),
+    private val tagged: Boolean = false,
+) : Closeable {
+    private val segments = ArrayDeque<Segment>()
+    private val cursorChannel: FileChannel
+    private val cursorBuffer = ByteBuffer.allocate(CURSOR_SIZE)
+    private val headerBuffer = ByteBuffer.allocate(HEADER_SIZE)
+    private val tagBuffer = ByteBuffer.allocate(TAG_SIZE)
+    private val crc = CRC32()
+
+    // segments from previous runs may end with a torn write, so appends always go to a new segment
+    private var writeSegment: Segment? = null
+    private var readPosition: Long
+    private var totalSize = 0L
+    private var closed = false
+
+    init {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw IOException("Could not create dir $dir")
+        }
+        dir.listFiles()
+            ?.mapNotNull { file -> parseBasePosition(file.name)?.let { Segment(file, it) } }
+            ?.sortedBy { it.basePosition }
+            ?.forEach { segments.addLast(it) }
+        cursorChannel = RandomAccessFile(File(dir, CURSOR_FILE_NAME), "rw").channel
+        readPosition = readCursor()
+        segments.lastOrNull()?.let { truncateTornWrite(it) }
+        synchronized(quota) {
+            totalSize = segments.sumOf { it.size }
+            quota.allocated(totalSize)
+            quota.register(this)
+            deleteConsumedSegments()
+        }
+    }
+
+    /** The amount of bytes used by the segment files. */
+    val size: Long
+        get() = synchronized(quota) { totalSize }
+
+    /**
+     * Appends a record to the log, evicting older data from the [quota] if needed. The [tag] is
+     * only stored by [tagged] logs.
+     *
+     * @return FALSE if the record can't be stored: it is bigger than a segment or the whole quota,
+     * there's no data of the same or a lower priority left to evict, or the log is closed.
+     */
+    @Throws(IOException::class)
+    fun append(
+        data: ByteArray,
+        tag: Byte = 0,
+    ): Boolean {
+        val tagSize = if (tagged) TAG_SIZE else 0
+        val recordSize = HEADER_SIZE + tagSize + data.size
+        synchronized(quota) {
+            if (closed || recordSize > maxSegmentSize || recordSize > quota.maxSize) {
+                return false
+            }
+            if (!quota.makeRoom(recordSize.toLong(), priority)) {
+                return false
+            }
+            var segment = writeSegment
+            if (segment == null || segment.size + recordSize > maxSegmentSize) {
+                segment?.close()
+                segment = createSegment()
+                writeSegment = segment
+            }
+
+            val createdAtMillis = nowMillis()
+            val recordTag = if (tagged) tag else null
+            headerBuffer.clear()
+            headerBuffer
+                .putInt(tagSize + data.size)
+                .putLong(createdAtMillis)
+                .putInt(checksum(createdAtMillis, recordTag, data))
+                .flip()
+            // a single gathering write, so that the data isn't copied into a buffer of the record
+            val dataBuffer = ByteBuffer.wrap(data)
+            val buffers =
+                if (recordTag != null) {
+                    tagBuffer.clear()
+                    tagBuffer.put(recordTag).flip()
+                    arrayOf(headerBuffer, tagBuffer, dataBuffer)
+                } else {
+                    arrayOf(headerBuffer, dataBuffer)
+                }
+            val channel = segment.channel()
+            channel.position(segment.size)
+            while (dataBuffer.hasRemaining()) {
+                channel.write(buffers)
+            }
+            segment.size += recordSize
+            totalSize += recordSize
+            quota.allocated(recordSize.toLong())
+            return true
+        }
+    }
+
+    /**
+     * Reads the oldest record that hasn't been acknowledged yet, without consuming it. Reading
+     * again before acknowledging returns the same record. Expired and corrupt records are dropped
+     * on the way.
+     *
+     * @return null if there are no records left to read.
+     */
+    @Throws(IOException::class)
+    fun read(): Record? {
+        synchronized(quota) {
+            if (closed) {
+                return null
+            }
+            val positionBefore = readPosition
+            val record = findRecord(readPosition, consume = true)
+            if (readPosition != positionBefore) {
+                writeCursor()
+                deleteConsumedSegments()
+            }
+            return record
+        }
+    }
+
+    /**
+     * Reads the record that follows the given [record], without consuming any of them. Expired
+     * and corrupt records are skipped.
+     *
+     * @return null if there are no records after [record].
+     */
+    @Throws(IOException::class)
+    fun readAfter(record: Record): Record? {
+        synchronized(quota) {
+            if (closed) {
+                return null
+            }
+            return findRecord(maxOf(record.nextPosition, readPosition), consume = false)
+        }
+    }
+
+    /** Consumes the given [record] and every record before it. */
+    @Throws(IOException::class)
+    fun acknowledge(record: Record) {
+        synchronized(quota) {
+            if (closed || record.nextPosition <= readPosition) {
+                return
+            }
+            readPosition = record.nextPosition
+            writeCursor()
+            deleteConsumedSegments()
+        }
+    }
+
+    override fun close() {
+        synchronized(quota) {
+            if (closed) {
+                return
+            }
+            closed = true
+            quota.unregister(this)
+            quota.released(totalSize)
+            segments.forEach { it.close() }
+            cursorChannel.close()
+        }
+    }
+
+    internal fun hasSegments(): Boolean = segments.isNotEmpty()
+
+    internal fun oldestSegmentCreatedAtMillis(): Long = segments.first().createdAtMillis()
+
+    /** Drops the oldest segment, read or not. */
+    internal fun evictOldestSegment() {
+        val segment = segments.removeFirst()
+        if (segment === writeSegment) {
+            writeSegment = null
+        }
+        totalSize -= segment.size
+        quota.released(segment.size)
+        segment.delete()
+        if (readPosition < segment.endPosition) {
+            readPosition = segment.endPosition
+            writeCursor()
+        }
+    }
+
+    /** Drops the oldest segments if all their records have expired, read or not. */
+    internal fun evictExpiredSegments() {
+        val expiredBefore = expiredBeforeMillis()
+        while (segments.isNotEmpty() && segments.first().file.lastModified() < expiredBefore) {
+            evictOldestSegment()
+        }
+    }
+
+    /**
+     * Finds the first valid record that hasn't expired, starting at position [from]. When
+     * [consume] is set, the read position is moved past the records that are skipped, and the
+     * corrupt ones are quarantined.
+     */
+    private fun findRecord(
+        from: Long,
+        consume: Boolean,
+    ): Record? {
+        val expiredBefore = expiredBeforeMillis()
+        for (segment in segments) {
+            if (from >= segment.endPosition) {
+                continue
+            }
+            var offset = maxOf(from, segment.basePosition) - segment.basePosition
+            while (segment.readHeader(offset, headerBuffer)) {
+                val length = headerBuffer.getInt(0)
+                val createdAtMillis = headerBuffer.getLong(LENGTH_SIZE)
+                val storedChecksum = headerBuffer.getInt(LENGTH_SIZE + TIMESTAMP_SIZE)
+                val position = segment.basePosition + offset
+                val nextPosition = position + HEADER_SIZE + length
+                if (createdAtMillis >= expiredBefore) {
+                    val tag = if (tagged && length >= TAG_SIZE) readTag(segment, offset) else null
+                    val tagSize = if (tag != null) TAG_SIZE else 0
+                    val data = segment.readData(offset + HEADER_SIZE + tagSize, length - tagSize)
+                    if (checksum(createdAtMillis, tag, data) == storedChecksum) {
+                        return Record(data, tag ?: 0, createdAtMillis, this, position, nextPosition)
+                    }
+                    if (consume) {
+                        quarantine(segment, offset, nextPosition - position)
+                    }
+                }
+                if (consume) {
+                    readPosition = nextPosition
+                }
+                offset += HEADER_SIZE + length
+            }
+            if (offset < segment.size && consume) {
+                // torn writes are truncated on startup, so the rest of the segment is corrupt
+                quarantine(segment, offset, segment.size - offset)
+                readPosition = segment.endPosition
+            }
+        }
+        return null
+    }
+
+    private fun readTag(
+        segment: Segment,
+        offset: Long,
+    ): Byte {
+        tagBuffer.clear()
+        readFully(segment.channel(), tagBuffer, offset + HEADER_SIZE)
+        return tagBuffer.get(0)
+    }
+
+    /**
+     * Truncates the [segment] after its last complete and valid record. Only the last segment of
+     * a previous run can end with a torn write, since appends of a new run go to a new segment.
+     */
+    private fun truncateTornWrite(segment: Segment) {
+        var offset = 0L
+        var validSize = 0L
+        while (segment.readHeader(offset, headerBuffer)) {
+            val length = headerBuffer.getInt(0)
+            val createdAtMillis = headerBuffer.getLong(LENGTH_SIZE)
+            val storedChecksum = headerBuffer.getInt(LENGTH_SIZE + TIMESTAMP_SIZE)
+            val data = segment.readData(offset + HEADER_SIZE, length)
+            offset += HEADER_SIZE + length
+            // a corrupt record followed by valid ones is not a torn write, it's skipped on read
+            // the tag is covered by the checksum as if it was part of the data
+            if (checksum(createdAtMillis, null, data) == storedChecksum ||
+                offset < segment.size
+            ) {
+                validSize = offset
+            }
+        }
+        if (validSize < segment.size) {
+            Log.w(
+                RumConstants.OTEL_RUM_LOG_TAG,
+                "Truncating a torn write of ${segment.size - validSize} bytes in ${segment.file}",
+            )
+            segment.truncate(validSize)
+        }
+        if (validSize == 0L) {
+            // the next segment would get the same name
+            segments.removeLast()
+            segment.delete()
+        } else {
+            segment.close()
+        }
+    }
+
+    /** Copies the given range of the [segment] to the quarantine directory, for troubleshooting. */
+    private fun quarantine(
+        segment: Segment,
+        offset: Long,
+        length: Long,
+    ) {
+        Log.w(
+            RumConstants.OTEL_RUM_LOG_TAG,
+            "Skipping $length corrupt bytes at offset $offset of ${segment.file}",
+        )
+        try {
+            val quarantineDir = File(dir, QUARANTINE_DIR_NAME)
+            if (!quarantineDir.exists() && !quarantineDir.mkdirs()) {
+                return
+            }
+            val data = segment.readData(offset, minOf(length, maxSegmentSize.toLong()).toInt())
+            File(quarantineDir, segmentFileName(segment.basePosition + offset)).writeBytes(data)
+            quarantineDir.listFiles()
+                ?.sortedByDescending { it.name }
+                ?.drop(MAX_QUARANTINED_FILES)
+                ?.forEach { it.delete() }
+        } catch (e: IOException) {
+            Log.w(RumConstants.OTEL_RUM_LOG_TAG, "Could not quarantine corrupt bytes.", e)
+        }
+    }
+
+    private fun checksum(
+        createdAtMillis: Long,
+        tag: Byte?,
+        data: ByteArray,
+    ): Int {
+        crc.reset()
+        for (shift in 56 downTo 0 step 8) {
+            crc.update((createdAtMillis ushr shift).toInt())
+        }
+        tag?.let { crc.update(it.toInt()) }
+        crc.update(data)
+        return crc.value.toInt()
+    }
+
+    private fun createSegment(): Segment {
+        val basePosition = maxOf(segments.lastOrNull()?.endPosition ?: 0, readPosition)
+        val segment = Segment(File(dir, segmentFileName(basePosition)), basePosition)
+        segment.createdAtMillis = nowMillis()
+        segments.addLast(segment)
+        return segment
+    }
+
+    private fun deleteConsumedSegments() {
+        while (segments.isNotEmpty() && segments.first().endPosition <= readPosition) {
+            val segment = segments.removeFirst()
+            if (segment === writeSegment) {
+                // the next append starts a new segment at the current read position
+                writeSegment = null
+            }
+            totalSize -= segment.size
+            quota.released(segment.size)
+            segment.delete()
+        }
+    }
+
+    private fun expiredBeforeMillis(): Long {
+        return if (maxAgeMillis == NO_MAX_AGE) Long.MIN_VALUE else nowMillis() - maxAgeMillis
+    }
+
+    private fun nowMillis(): Long = TimeUnit.NANOSECONDS.toMillis(clock.now())
+
+    private fun readCursor(): Long {
+        if (cursorChannel.size() < CURSOR_SIZE) {
+            return 0
+        }
+        cursorBuffer.clear()
+        readFully(cursorChannel, cursorBuffer, 0)
+        return cursorBuffer.getLong(0)
+    }
+
+    private fun writeCursor() {
+        cursorBuffer.clear()
+        cursorBuffer.putLong(readPosition).flip()
+        var position = 0L
+        while (cursorBuffer.hasRemaining()) {
+            position += cursorChannel.write(cursorBuffer, position)
+        }
+    }
+
+    /**
+     * A record read from the log, to be [acknowledged][acknowledge] once processed. The [tag] is
+     * always 0 for records of logs that aren't [tagged].
+     */
+    class Record internal constructor(
+        val data: ByteArray,
+        val tag: Byte,
+        val createdAtMillis: Long,
+        internal val log: SegmentedLog,
+        internal val position: Long,
+        internal val nextPosition: Long,
+    )
+
+    private class Segment(val file: File, val basePosition: Long) {
+        var size: Long = file.length()
+        var createdAtMillis: Long? = null
+        private var channel: FileChannel? = null
+
+        val endPosition: Long
+            get() = basePosition + size
+
+        fun channel(): FileChannel {
+            return channel ?: RandomAccessFile(file, "rw").channel.also { channel = it }
+        }
+
+        /** The time the first record was appended, or the last modification for older files. */
+        fun createdAtMillis(): Long {
+            createdAtMillis?.let { return it }
+            val header = ByteBuffer.allocate(HEADER_SIZE)
+            val createdAt =
+                if (readHeader(0, header)) header.getLong(LENGTH_SIZE) else file.lastModified()
+            createdAtMillis = createdAt
+            return createdAt
+        }
+
+        /** Returns FALSE if there's no complete record at the given offset. */
+        fun readHeader(
+            offset: Long,
+            header: ByteBuffer,
+        ): Boolean {
+            if (size - offset < HEADER_SIZE) {
+                return false
+            }
+            header.clear()
+            readFully(channel(), header, offset)
+            val length = header.getInt(0)
+            return length >= 0 && length <= size - offset - HEADER_SIZE
+        }
+
+        fun readData(
+            offset: Long,
+            length: Int,
+        ): ByteArray {
+            val data = ByteBuffer.allocate(length)
+            readFully(channel(), data, offset)
+            return data.array()
+        }
+
+        fun truncate(newSize: Long) {
+            channel().truncate(newSize)
+            size = newSize
+        }
+
+        fun close() {
+            channel?.close()
+            channel = null
+        }
+
+        fun delete() {
+            close()
+            file.delete()
+        }
+    }
+
+    companion object {
+        const val NO_MAX_AGE = -1L
+        private const val LENGTH_SIZE = 4
+        private const val TIMESTAMP_SIZE = 8
+        private const val CHECKSUM_SIZE = 4
+        private const val HEADER_SIZE = LENGTH_SIZE + TIMESTAMP_SIZE + CHECKSUM_SIZE
+        private const val TAG_SIZE = 1
+        private const val CURSOR_SIZE = 8
+        private const val CURSOR_FILE_NAME = "cursor"
+        private const val SEGMENT_FILE_SUFFIX = ".log"
+        private const val QUARANTINE_DIR_NAME = "quarantine"
+        private const val MAX_QUARANTINED_FILES = 4
+
+        private fun segmentFileName(basePosition: Long): String {
+            return String.format(Locale.ROOT, "%020d", basePosition) + SEGMENT_FILE_SUFFIX
+        }
+
+        private fun parseBasePosition(fileName: String): Long? {
+            if (!fileName.endsWith(SEGMENT_FILE_SUFFIX)) {
+                return null
+            }
+            return fileName.removeSuffix(SEGMENT_FILE_SUFFIX).toLongOrNull()
+        }
+
+        private fun readFully(
+            channel: FileChannel,
+            buffer: ByteBuffer,
+            position: Long,
+        ) {
+            var offset = position
+            while (buffer.hasRemaining()) {
+                val read = channel.read(buffer, offset)
+                if (read < 0) {
+                    throw EOFException("Unexpected end of file")
+                }
+                offset += read
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import android.util.Log
+import io.opentelemetry.android.common.RumConstants
+import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter
+import io.opentelemetry.sdk.common.CompletableResultCode
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Exports the records of a [PrioritizedSegmentedLog], highest priority and oldest first. A record
+ * is only acknowledged, which removes it from the log, once its export has succeeded.
+ *
+ * Consecutive records of the same priority are merged into a single export, as long as the merged
+ * batch stays within [maxBatchBytes] of stored data and [maxBatchItems] items, so that draining
+ * many small stored batches doesn't take as many requests. A record that is bigger than the limits
+ * on its own is still exported, alone.
+ *
+ * A record that can't be deserialized is dropped, so that it can't stall the export.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class SegmentedLogFromDiskExporter<T>(
+    private val log: PrioritizedSegmentedLog,
+    private val deserializer: (SegmentedLog.Record) -> List<T>,
+    private val exportFunction: (Collection<T>) -> CompletableResultCode,
+    private val shutdownFunction: () -> CompletableResultCode,
+    private val maxBatchBytes: Int = Int.MAX_VALUE,
+    private val maxBatchItems: Int = Int.MAX_VALUE,
+) : FromDiskExporter {
+    @Throws(IOException::class)
+    override fun exportStoredBatch(
+        timeout: Long,
+        unit: TimeUnit,
+    ): Boolean {
+        var lastRecord = log.read() ?: return false
+        val items = deserialize(lastRecord)?.toMutableList()
+        if (items == null) {
+            log.acknowledge(lastRecord)
+            return true
+        }
+        var batchBytes = lastRecord.data.size
+        while (items.size < maxBatchItems) {
+            val next = log.readAfter(lastRecord) ?: break
+            if (batchBytes + next.data.size > maxBatchBytes) {
+                break
+            }
+            val nextItems = deserialize(next) ?: break
+            if (items.size + nextItems.size > maxBatchItems) {
+                break
+            }
+            items.addAll(nextItems)
+            batchBytes += next.data.size
+            lastRecord = next
+        }
+        val result = exportFunction(items).join(timeout, unit)
+        if (!result.isSuccess) {
+            return false
+        }
+        // acknowledging the last merged record consumes the ones before it too
+        log.acknowledge(lastRecord)
+        return true
+    }
+
+    private fun deserialize(record: SegmentedLog.Record): List<T>? {
+        return try {
+            deserializer(record)
+        } catch (e: Exception) {
+            Log.w(RumConstants.OTEL_RUM_LOG_TAG, "Dropping a stored batch that can't be read.", e)
+            null
+        }
+    }
+
+    @Throws(IOException::class)
+    override fun shutdown() {
+        log.close()
+        shutdownFunction()
+    }
+}
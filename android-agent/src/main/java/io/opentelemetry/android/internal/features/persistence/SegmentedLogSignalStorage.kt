@@ -0,0 +1,167 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.android.features.diskbuffering.DiskBufferingConfiguration
+import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter
+import io.opentelemetry.contrib.disk.buffering.internal.serialization.serializers.SignalSerializer
+import io.opentelemetry.sdk.common.Clock
+import io.opentelemetry.sdk.common.CompletableResultCode
+import io.opentelemetry.sdk.logs.data.LogRecordData
+import io.opentelemetry.sdk.logs.export.LogRecordExporter
+import io.opentelemetry.sdk.metrics.InstrumentType
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality
+import io.opentelemetry.sdk.metrics.data.MetricData
+import io.opentelemetry.sdk.metrics.export.MetricExporter
+import io.opentelemetry.sdk.trace.data.SpanData
+import io.opentelemetry.sdk.trace.export.SpanExporter
+import java.io.File
+
+/**
+ * A [SignalStorage] that keeps each kind of signal in its own [PrioritizedSegmentedLog], using the
+ * contrib serialization, optionally compressed with a [RecordCodec]. Reading a batch back doesn't
+ * need any temporary file, and acknowledging it doesn't copy or rewrite any data.
+ *
+ * All the signals share the same [DiskQuota] of [maxSize] bytes, so that when it's full the lowest
+ * priority signals get evicted first, whatever their kind.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class SegmentedLogSignalStorage(
+    override val rootDir: File,
+    maxSegmentSize: Int,
+    maxSize: Long,
+    private val configuration: DiskBufferingConfiguration,
+    clock: Clock = Clock.getDefault(),
+) : SignalStorage {
+    private val quota = DiskQuota(maxSize)
+    private val codec = RecordCodec(configuration.compressionLevel)
+    private val maxAgeMillis = configuration.maxAge.toMillis()
+    private val spans = openLog("spans", maxSegmentSize, clock)
+    private val logRecords = openLog("logs", maxSegmentSize, clock)
+    private val metrics = openLog("metrics", maxSegmentSize, clock)
+
+    override fun spanToDiskExporter(delegate: SpanExporter): SpanExporter {
+        val exporter =
+            SegmentedLogToDiskExporter(
+                spans,
+                encoder(SignalSerializer.ofSpans()),
+                configuration.spanPriority::applyAsInt,
+                delegate::export,
+                codec.encoding,
+            )
+        return object : SpanExporter {
+            override fun export(spans: Collection<SpanData>): CompletableResultCode =
+                exporter.export(spans)
+
+            override fun flush(): CompletableResultCode = CompletableResultCode.ofSuccess()
+
+            override fun shutdown(): CompletableResultCode {
+                exporter.shutdown()
+                return delegate.shutdown()
+            }
+        }
+    }
+
+    override fun spanFromDiskExporter(delegate: SpanExporter): FromDiskExporter =
+        SegmentedLogFromDiskExporter(
+            spans,
+            decoder(SignalSerializer.ofSpans()),
+            delegate::export,
+            delegate::shutdown,
+            configuration.maxExportBatchBytes,
+            configuration.maxExportBatchItems,
+        )
+
+    override fun logRecordToDiskExporter(delegate: LogRecordExporter): LogRecordExporter {
+        val exporter =
+            SegmentedLogToDiskExporter(
+                logRecords,
+                encoder(SignalSerializer.ofLogs()),
+                configuration.logRecordPriority::applyAsInt,
+                delegate::export,
+                codec.encoding,
+            )
+        return object : LogRecordExporter {
+            override fun export(logs: Collection<LogRecordData>): CompletableResultCode =
+                exporter.export(logs)
+
+            override fun flush(): CompletableResultCode = CompletableResultCode.ofSuccess()
+
+            override fun shutdown(): CompletableResultCode {
+                exporter.shutdown()
+                return delegate.shutdown()
+            }
+        }
+    }
+
+    override fun logRecordFromDiskExporter(delegate: LogRecordExporter): FromDiskExporter =
+        SegmentedLogFromDiskExporter(
+            logRecords,
+            decoder(SignalSerializer.ofLogs()),
+            delegate::export,
+            delegate::shutdown,
+            configuration.maxExportBatchBytes,
+            configuration.maxExportBatchItems,
+        )
+
+    override fun metricToDiskExporter(delegate: MetricExporter): MetricExporter {
+        val exporter =
+            SegmentedLogToDiskExporter(
+                metrics,
+                encoder(SignalSerializer.ofMetrics()),
+                { configuration.metricPriority },
+                delegate::export,
+                codec.encoding,
+            )
+        return object : MetricExporter {
+            override fun getAggregationTemporality(
+                instrumentType: InstrumentType,
+            ): AggregationTemporality = delegate.getAggregationTemporality(instrumentType)
+
+            override fun export(metrics: Collection<MetricData>): CompletableResultCode =
+                exporter.export(metrics)
+
+            override fun flush(): CompletableResultCode = CompletableResultCode.ofSuccess()
+
+            override fun shutdown(): CompletableResultCode {
+                exporter.shutdown()
+                return delegate.shutdown()
+            }
+        }
+    }
+
+    override fun metricFromDiskExporter(delegate: MetricExporter): FromDiskExporter =
+        SegmentedLogFromDiskExporter(
+            metrics,
+            decoder(SignalSerializer.ofMetrics()),
+            delegate::export,
+            delegate::shutdown,
+            configuration.maxExportBatchBytes,
+            configuration.maxExportBatchItems,
+        )
+
+    private fun <T> encoder(serializer: SignalSerializer<T>): (Collection<T>) -> ByteArray =
+        { items -> codec.encode(serializer.serialize(items)) }
+
+    private fun <T> decoder(serializer: SignalSerializer<T>): (SegmentedLog.Record) -> List<T> =
+        { record -> serializer.deserialize(codec.decode(record.tag, record.data)) }
+
+    private fun openLog(
+        name: String,
+        maxSegmentSize: Int,
+        clock: Clock,
+    ): PrioritizedSegmentedLog {
+        return PrioritizedSegmentedLog(
+            File(rootDir, name),
+            maxSegmentSize,
+            quota,
+            maxAgeMillis,
+            clock,
+            tagged = true,
+        )
+    }
+}
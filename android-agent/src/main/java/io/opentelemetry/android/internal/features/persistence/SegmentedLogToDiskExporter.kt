@@ -0,0 +1,61 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import android.util.Log
+import io.opentelemetry.android.common.RumConstants
+import io.opentelemetry.sdk.common.CompletableResultCode
+import java.io.IOException
+
+/**
+ * Appends every exported batch to a [PrioritizedSegmentedLog]. The items of a batch are grouped by
+ * priority, and each group is stored as a single record in the log of its priority. Groups that
+ * can't be stored are exported right away instead.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal class SegmentedLogToDiskExporter<T>(
+    private val log: PrioritizedSegmentedLog,
+    private val serializer: (Collection<T>) -> ByteArray,
+    private val priority: (T) -> Int,
+    private val exportFunction: (Collection<T>) -> CompletableResultCode,
+    private val tag: Byte = 0,
+) {
+    fun export(items: Collection<T>): CompletableResultCode {
+        if (items.isEmpty()) {
+            return CompletableResultCode.ofSuccess()
+        }
+        val notStored = mutableListOf<T>()
+        for ((itemsPriority, group) in items.groupBy(priority)) {
+            if (!store(group, itemsPriority)) {
+                notStored.addAll(group)
+            }
+        }
+        if (notStored.isEmpty()) {
+            return CompletableResultCode.ofSuccess()
+        }
+        return exportFunction(notStored)
+    }
+
+    private fun store(
+        items: Collection<T>,
+        itemsPriority: Int,
+    ): Boolean {
+        try {
+            if (log.append(serializer(items), itemsPriority, tag)) {
+                return true
+            }
+            Log.w(RumConstants.OTEL_RUM_LOG_TAG, "Could not store a batch in disk.")
+        } catch (e: IOException) {
+            Log.e(RumConstants.OTEL_RUM_LOG_TAG, "Could not store a batch in disk.", e)
+        }
+        return false
+    }
+
+    fun shutdown() {
+        log.close()
+    }
+}
@@ -0,0 +1,17 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+/**
+ * The amount of bytes each kind of signal can use in disk.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal data class SignalQuotas(
+    val spans: Int,
+    val logRecords: Int,
+    val metrics: Int,
+)
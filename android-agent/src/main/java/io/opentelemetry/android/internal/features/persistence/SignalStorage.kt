@@ -0,0 +1,36 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter
+import io.opentelemetry.sdk.logs.export.LogRecordExporter
+import io.opentelemetry.sdk.metrics.export.MetricExporter
+import io.opentelemetry.sdk.trace.export.SpanExporter
+import java.io.File
+
+/**
+ * A storage engine for disk buffering. It wraps the exporters so that signals get written to disk
+ * instead of being exported right away, and it creates the exporters that read them back from disk
+ * to send them to the original exporters.
+ *
+ * This class is internal and not for public use. Its APIs are unstable and can change at any time.
+ */
+internal interface SignalStorage {
+    /** The directory where signals are stored. */
+    val rootDir: File
+
+    fun spanToDiskExporter(delegate: SpanExporter): SpanExporter
+
+    fun spanFromDiskExporter(delegate: SpanExporter): FromDiskExporter
+
+    fun logRecordToDiskExporter(delegate: LogRecordExporter): LogRecordExporter
+
+    fun logRecordFromDiskExporter(delegate: LogRecordExporter): FromDiskExporter
+
+    fun metricToDiskExporter(delegate: MetricExporter): MetricExporter
+
+    fun metricFromDiskExporter(delegate: MetricExporter): FromDiskExporter
+}
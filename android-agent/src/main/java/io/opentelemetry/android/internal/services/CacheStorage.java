@@ -33,6 +33,14 @@ public class CacheStorage {
         return appContext.getCacheDir();
     }
 
+    /**
+     * Returns the amount of bytes that can be used in the partition of the cache dir. Unlike
+     * {@link #ensureCacheSpaceAvailable(long)}, it doesn't ask the OS to free up any space.
+     */
+    public long getUsableSpace() {
+        return getCacheDir().getUsableSpace();
+    }
+
     /**
      * Checks for available cache space in the device and compares it to the max amount needed, if
      * the available space is lower than the provided max value, the available space is returned,
@@ -6,8 +6,10 @@
 package io.opentelemetry.android.internal.services
 
 import android.app.Application
+import io.opentelemetry.android.config.OtelRumConfig
 import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
 import io.opentelemetry.android.internal.services.periodicwork.PeriodicWorkService
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService
 
 /**
  * This class is internal and not for public use. Its APIs are unstable and can change at any time.
@@ -21,14 +23,29 @@ interface ServiceManager : Startable {
 
     fun getCurrentNetworkProvider(): CurrentNetworkProvider
 
+    fun getSchedulerService(): SchedulerService
+
     companion object {
         private var instance: ServiceManager? = null
 
         @JvmStatic
         fun initialize(application: Application) {
+            initialize(application, OtelRumConfig())
+        }
+
+        @JvmStatic
+        fun initialize(
+            application: Application,
+            config: OtelRumConfig,
+        ) {
             if (instance != null) {
                 return
             }
+            val schedulerService =
+                SchedulerService(
+                    config.schedulerThreadCount,
+                    config.schedulerThreadPriority,
+                )
             instance =
                 ServiceManagerImpl(
                     listOf(
@@ -36,7 +53,8 @@ interface ServiceManager : Startable {
                         CacheStorage(
                             application,
                         ),
-                        PeriodicWorkService(),
+                        schedulerService,
+                        PeriodicWorkService(schedulerService),
                         CurrentNetworkProvider.create(application),
                     ),
                 )
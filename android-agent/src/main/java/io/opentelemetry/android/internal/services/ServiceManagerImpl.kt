@@ -7,6 +7,7 @@ package io.opentelemetry.android.internal.services
 
 import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
 import io.opentelemetry.android.internal.services.periodicwork.PeriodicWorkService
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService
 import java.util.Collections
 
 internal class ServiceManagerImpl(services: List<Any>) : ServiceManager {
@@ -36,6 +37,10 @@ internal class ServiceManagerImpl(services: List<Any>) : ServiceManager {
         return getService(CurrentNetworkProvider::class.java)
     }
 
+    override fun getSchedulerService(): SchedulerService {
+        return getService(SchedulerService::class.java)
+    }
+
     override fun start() {
         for (service in services.values) {
             if (service is Startable) {
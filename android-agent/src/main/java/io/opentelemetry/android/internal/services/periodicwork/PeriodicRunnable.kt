@@ -6,6 +6,7 @@
 package io.opentelemetry.android.internal.services.periodicwork
 
 import io.opentelemetry.android.internal.tools.time.SystemTime
+import kotlin.math.max
 
 /**
  * Utility for creating a Runnable that needs to run multiple times.
@@ -19,12 +20,15 @@ abstract class PeriodicRunnable(periodicWorkServiceProvider: () -> PeriodicWorkS
     private var lastTimeItRan: Long? = null
 
     final override fun run() {
-        if (isReadyToRun()) {
-            onRun()
-            lastTimeItRan = getCurrentTimeMillis()
-        }
-        if (!shouldStopRunning()) {
-            enqueueForNextLoop()
+        try {
+            if (isReadyToRun()) {
+                onRun()
+                lastTimeItRan = getCurrentTimeMillis()
+            }
+        } finally {
+            if (!shouldStopRunning()) {
+                scheduleNextRun()
+            }
         }
     }
 
@@ -34,8 +38,15 @@ abstract class PeriodicRunnable(periodicWorkServiceProvider: () -> PeriodicWorkS
         } ?: true
     }
 
-    private fun enqueueForNextLoop() {
-        periodicWorkService.enqueue(this)
+    private fun scheduleNextRun() {
+        periodicWorkService.schedule(this, delayUntilNextRunInMillis())
+    }
+
+    private fun delayUntilNextRunInMillis(): Long {
+        val minimumDelay = minimumDelayUntilNextRunInMillis()
+        return lastTimeItRan?.let {
+            max(0, it + minimumDelay - getCurrentTimeMillis())
+        } ?: minimumDelay
     }
 
     private fun getCurrentTimeMillis() = SystemTime.get().getCurrentTimeMillis()
@@ -51,8 +62,8 @@ abstract class PeriodicRunnable(periodicWorkServiceProvider: () -> PeriodicWorkS
     abstract fun shouldStopRunning(): Boolean
 
     /**
-     * The minimum amount of time to wait between runs, it might take longer than what's defined here
-     * to run this task again depending on when the next batch of background work will get submitted.
+     * The minimum amount of time to wait between runs. The next run is scheduled for when this delay
+     * has elapsed; it might take slightly longer if the scheduler threads are busy.
      */
     abstract fun minimumDelayUntilNextRunInMillis(): Long
 }
@@ -5,71 +5,69 @@
 
 package io.opentelemetry.android.internal.services.periodicwork
 
-import android.os.Handler
-import android.os.Looper
 import io.opentelemetry.android.internal.services.Startable
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService
 import java.util.concurrent.ConcurrentLinkedQueue
-import java.util.concurrent.LinkedBlockingQueue
-import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
 
 /**
- * Utility to run periodic background work.
+ * Utility to run periodic background work on the shared agent scheduler.
+ *
+ * <p>Work is kept in the deadline-ordered queue of the scheduler, whose threads sleep until the
+ * next piece of work is due. Nothing runs (and nothing wakes up the main thread) while there is no
+ * work. Work enqueued before [start] is held until the service is started.
  *
  * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
  * time.
  */
-class PeriodicWorkService : Startable {
-    private val delegator = WorkerDelegator()
+class PeriodicWorkService(
+    private val schedulerService: SchedulerService = SchedulerService(),
+) : Startable {
+    private val pending = ConcurrentLinkedQueue<PendingWork>()
     private val started = AtomicBoolean(false)
 
     override fun start() {
         if (!started.getAndSet(true)) {
-            delegator.run()
+            submitPending()
         }
     }
 
+    /** Runs the [runnable] as soon as possible, once the service is started. */
     fun enqueue(runnable: Runnable) {
-        delegator.enqueue(runnable)
+        schedule(runnable, 0)
     }
 
-    private class WorkerDelegator : Runnable {
-        companion object {
-            private const val SECONDS_TO_KILL_IDLE_THREADS = 30L
-            private const val SECONDS_FOR_NEXT_LOOP = 10L
-            private const val MAX_AMOUNT_OF_WORKER_THREADS = 1
-            private const val NUMBER_OF_PERMANENT_WORKER_THREADS = 0
+    /** Runs the [runnable] after [delayInMillis], counting from the start of the service. */
+    fun schedule(
+        runnable: Runnable,
+        delayInMillis: Long,
+    ) {
+        if (started.get()) {
+            submit(runnable, delayInMillis)
+            return
         }
-
-        private val queue = ConcurrentLinkedQueue<Runnable>()
-        private val handler = Handler(Looper.getMainLooper())
-        private val executor =
-            ThreadPoolExecutor(
-                NUMBER_OF_PERMANENT_WORKER_THREADS,
-                MAX_AMOUNT_OF_WORKER_THREADS,
-                SECONDS_TO_KILL_IDLE_THREADS,
-                TimeUnit.SECONDS,
-                LinkedBlockingQueue(),
-            )
-
-        fun enqueue(runnable: Runnable) {
-            queue.add(runnable)
-        }
-
-        override fun run() {
-            delegateToWorkerThread()
-            scheduleNextLookUp()
+        pending.add(PendingWork(runnable, delayInMillis))
+        // the service might have been started while adding the work
+        if (started.get()) {
+            submitPending()
         }
+    }
 
-        private fun delegateToWorkerThread() {
-            while (queue.isNotEmpty()) {
-                executor.execute(queue.poll())
-            }
+    private fun submitPending() {
+        while (true) {
+            val work = pending.poll() ?: return
+            submit(work.runnable, work.delayInMillis)
         }
+    }
 
-        private fun scheduleNextLookUp() {
-            handler.postDelayed(this, TimeUnit.SECONDS.toMillis(SECONDS_FOR_NEXT_LOOP))
-        }
+    // the returned future is not needed, the work reschedules or stops by itself
+    private fun submit(
+        runnable: Runnable,
+        delayInMillis: Long,
+    ) {
+        schedulerService.getScheduler().schedule(runnable, delayInMillis, TimeUnit.MILLISECONDS)
     }
+
+    private class PendingWork(val runnable: Runnable, val delayInMillis: Long)
 }
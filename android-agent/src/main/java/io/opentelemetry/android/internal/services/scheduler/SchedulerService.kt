@@ -0,0 +1,113 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.services.scheduler
+
+import android.os.Process
+import android.util.Log
+import io.opentelemetry.android.common.RumConstants.OTEL_RUM_LOG_TAG
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.SynchronousQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Owns the single [ScheduledExecutorService] shared by the built-in instrumentations and the
+ * background work of the agent, so that they don't each start their own threads.
+ *
+ * <p>Blocking I/O, such as exporting the signals stored in disk, runs on a separate bounded
+ * executor instead, so that it can't delay the latency-sensitive work of the scheduler (such as
+ * detecting ANRs).
+ *
+ * <p>The threads are created lazily, run with the configured priority and are released after
+ * being idle for a while.
+ *
+ * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
+ * time.
+ */
+class SchedulerService(
+    private val threadCount: Int = DEFAULT_THREAD_COUNT,
+    private val threadPriority: Int = DEFAULT_THREAD_PRIORITY,
+) {
+    companion object {
+        const val DEFAULT_THREAD_COUNT = 2
+        const val DEFAULT_THREAD_PRIORITY = Process.THREAD_PRIORITY_BACKGROUND
+
+        // a drain of the disk buffer, and the other kinds of signals it hands over
+        const val IO_THREAD_COUNT = 3
+        private const val SECONDS_TO_KILL_IDLE_THREADS = 30L
+    }
+
+    private val scheduler: ScheduledExecutorService by lazy { createScheduler() }
+    private val ioExecutor: ExecutorService by lazy { createIoExecutor() }
+
+    fun getScheduler(): ScheduledExecutorService {
+        return scheduler
+    }
+
+    /**
+     * Returns the executor for blocking I/O. It doesn't queue work: once its threads are all busy,
+     * it rejects the work with a [java.util.concurrent.RejectedExecutionException].
+     */
+    fun getIoExecutor(): ExecutorService {
+        return ioExecutor
+    }
+
+    private fun createScheduler(): ScheduledExecutorService {
+        val executor =
+            ScheduledThreadPoolExecutor(
+                threadCount,
+                AgentThreadFactory("otel-rum-scheduler-", threadPriority),
+            )
+        executor.setKeepAliveTime(SECONDS_TO_KILL_IDLE_THREADS, TimeUnit.SECONDS)
+        executor.allowCoreThreadTimeOut(true)
+        // cancelled periodic tasks (e.g. ANR detection while in background) must not linger
+        executor.removeOnCancelPolicy = true
+        return executor
+    }
+
+    private fun createIoExecutor(): ExecutorService {
+        return ThreadPoolExecutor(
+            0,
+            IO_THREAD_COUNT,
+            SECONDS_TO_KILL_IDLE_THREADS,
+            TimeUnit.SECONDS,
+            SynchronousQueue(),
+            AgentThreadFactory("otel-rum-io-", threadPriority),
+        )
+    }
+
+    private class AgentThreadFactory(
+        private val namePrefix: String,
+        private val threadPriority: Int,
+    ) : ThreadFactory {
+        private val threadNumber = AtomicInteger(1)
+
+        override fun newThread(runnable: Runnable): Thread {
+            val thread =
+                Thread(
+                    {
+                        setPriority()
+                        runnable.run()
+                    },
+                    namePrefix + threadNumber.getAndIncrement(),
+                )
+            thread.isDaemon = true
+            return thread
+        }
+
+        private fun setPriority() {
+            try {
+                Process.setThreadPriority(threadPriority)
+            } catch (e: RuntimeException) {
+                Log.w(OTEL_RUM_LOG_TAG, "Could not set the priority of the agent thread.", e)
+            }
+        }
+    }
+}
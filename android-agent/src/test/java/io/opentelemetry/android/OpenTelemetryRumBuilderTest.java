@@ -10,12 +10,14 @@ import static io.opentelemetry.android.common.RumConstants.SESSION_ID_KEY;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
 import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.equalTo;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -26,8 +28,11 @@ import android.app.Application;
 import android.os.Looper;
 import androidx.annotation.NonNull;
 import io.opentelemetry.android.config.OtelRumConfig;
+import io.opentelemetry.android.export.LogRecordDataModifier;
+import io.opentelemetry.android.export.SpanDataModifier;
 import io.opentelemetry.android.features.diskbuffering.DiskBufferingConfiguration;
 import io.opentelemetry.android.features.diskbuffering.SignalFromDiskExporter;
+import io.opentelemetry.android.features.diskbuffering.StorageEngine;
 import io.opentelemetry.android.features.diskbuffering.scheduler.ExportScheduleHandler;
 import io.opentelemetry.android.instrumentation.common.ApplicationStateListener;
 import io.opentelemetry.android.instrumentation.startup.InitializationEvents;
@@ -35,6 +40,8 @@ import io.opentelemetry.android.internal.services.CacheStorage;
 import io.opentelemetry.android.internal.services.Preferences;
 import io.opentelemetry.android.internal.services.ServiceManager;
 import io.opentelemetry.android.internal.services.ServiceManagerImpl;
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider;
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.incubator.events.EventLogger;
 import io.opentelemetry.api.incubator.logs.AnyValue;
@@ -47,31 +54,40 @@ import io.opentelemetry.context.Scope;
 import io.opentelemetry.context.propagation.TextMapGetter;
 import io.opentelemetry.context.propagation.TextMapPropagator;
 import io.opentelemetry.contrib.disk.buffering.SpanToDiskExporter;
+import io.opentelemetry.exporter.logging.LoggingMetricExporter;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.logs.data.LogRecordData;
 import io.opentelemetry.sdk.logs.export.LogRecordExporter;
 import io.opentelemetry.sdk.logs.export.SimpleLogRecordProcessor;
 import io.opentelemetry.sdk.logs.internal.AnyValueBody;
 import io.opentelemetry.sdk.logs.internal.SdkEventLoggerProvider;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions;
 import io.opentelemetry.sdk.testing.exporter.InMemoryLogRecordExporter;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricExporter;
 import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
 import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
@@ -94,6 +110,7 @@ class OpenTelemetryRumBuilderTest {
 
     @Mock InitializationEvents initializationEvents;
     @Captor ArgumentCaptor<Application.ActivityLifecycleCallbacks> activityCallbacksCaptor;
+    @TempDir Path temporaryFolder;
 
     @BeforeEach
     void setup() {
@@ -141,6 +158,37 @@ class OpenTelemetryRumBuilderTest {
                         equalTo(SESSION_ID_KEY, sessionId), equalTo(SCREEN_NAME_KEY, "unknown"));
     }
 
+    @Test
+    void shouldExportMetricsWithMetricExporterCustomizer() {
+        InMemoryMetricExporter metricExporter = InMemoryMetricExporter.create();
+        AtomicReference<MetricExporter> defaultExporter = new AtomicReference<>();
+        OpenTelemetryRum openTelemetryRum =
+                makeBuilder()
+                        .setResource(resource)
+                        .addMetricExporterCustomizer(
+                                exporter -> {
+                                    defaultExporter.set(exporter);
+                                    return metricExporter;
+                                })
+                        .build();
+
+        OpenTelemetrySdk sdk = (OpenTelemetrySdk) openTelemetryRum.getOpenTelemetry();
+        sdk.getMeter("test").counterBuilder("test.counter").build().add(3);
+        sdk.getSdkMeterProvider().forceFlush().join(5, SECONDS);
+
+        assertThat(defaultExporter.get()).isInstanceOf(LoggingMetricExporter.class);
+        assertThat(metricExporter.getFinishedMetricItems())
+                .satisfiesExactly(
+                        metric ->
+                                assertThat(metric)
+                                        .hasName("test.counter")
+                                        .hasResource(resource)
+                                        .hasLongSumSatisfying(
+                                                sum ->
+                                                        sum.hasPointsSatisfying(
+                                                                point -> point.hasValue(3))));
+    }
+
     @Test
     void shouldBuildLogRecordProvider() {
         OpenTelemetryRum openTelemetryRum =
@@ -275,6 +323,28 @@ class OpenTelemetryRumBuilderTest {
                 .hasSeverity(Severity.FATAL3);
     }
 
+    @Test
+    void spanExporterModifier() {
+        OpenTelemetrySdk sdk =
+                (OpenTelemetrySdk)
+                        makeBuilder()
+                                .addSpanExporterCustomizer(exporter -> spanExporter)
+                                .addSpanExporterModifier(
+                                        exporter ->
+                                                SpanDataModifier.builder(exporter)
+                                                        .rejectSpansByName("rejected"::equals)
+                                                        .build())
+                                .build()
+                                .getOpenTelemetry();
+
+        sdk.getTracer("test").spanBuilder("rejected").startSpan().end();
+        sdk.getTracer("test").spanBuilder("exported").startSpan().end();
+        sdk.getSdkTracerProvider().forceFlush().join(5, SECONDS);
+
+        assertThat(spanExporter.getFinishedSpanItems())
+                .satisfiesExactly(span -> assertThat(span).hasName("exported"));
+    }
+
     @Test
     void diskBufferingEnabled() {
         Preferences preferences = mock();
@@ -301,6 +371,79 @@ class OpenTelemetryRumBuilderTest {
         assertThat(exporterCaptor.getValue()).isInstanceOf(SpanToDiskExporter.class);
     }
 
+    @Test
+    void diskBufferingEnabledWithSegmentedLog() {
+        Preferences preferences = mock();
+        CacheStorage cacheStorage = mock();
+        doReturn(60 * 1024 * 1024L).when(cacheStorage).ensureCacheSpaceAvailable(anyLong());
+        doReturn(temporaryFolder.toFile()).when(cacheStorage).getCacheDir();
+        ServiceManager serviceManager = createServiceManager(preferences, cacheStorage);
+        OtelRumConfig config = buildConfig();
+        ExportScheduleHandler scheduleHandler = mock();
+        config.setDiskBufferingConfiguration(
+                DiskBufferingConfiguration.builder()
+                        .setEnabled(true)
+                        .setStorageEngine(StorageEngine.SEGMENTED_LOG)
+                        .setExportScheduleHandler(scheduleHandler)
+                        .build());
+        ArgumentCaptor<SpanExporter> exporterCaptor = ArgumentCaptor.forClass(SpanExporter.class);
+
+        OpenTelemetryRum.builder(application, config)
+                .setInitializationEvents(initializationEvents)
+                .build(serviceManager);
+
+        assertThat(SignalFromDiskExporter.get()).isNotNull();
+        verify(scheduleHandler).enable();
+        verify(initializationEvents).spanExporterInitialized(exporterCaptor.capture());
+        assertThat(exporterCaptor.getValue()).isNotInstanceOf(SpanToDiskExporter.class);
+        assertThat(temporaryFolder.resolve("opentelemetry/segments/spans")).isDirectory();
+    }
+
+    @Test
+    void diskBufferingEnabled_modifiesLogRecordsBeforeWritingThemToDisk() throws IOException {
+        Preferences preferences = mock();
+        CacheStorage cacheStorage = mock();
+        doReturn(60 * 1024 * 1024L).when(cacheStorage).ensureCacheSpaceAvailable(anyLong());
+        doReturn(temporaryFolder.toFile()).when(cacheStorage).getCacheDir();
+        ServiceManager serviceManager = createServiceManager(preferences, cacheStorage);
+        OtelRumConfig config = buildConfig();
+        config.setDiskBufferingConfiguration(
+                DiskBufferingConfiguration.builder()
+                        .setEnabled(true)
+                        .setStorageEngine(StorageEngine.SEGMENTED_LOG)
+                        .setExportScheduleHandler(mock())
+                        .build());
+
+        OpenTelemetrySdk sdk =
+                (OpenTelemetrySdk)
+                        OpenTelemetryRum.builder(application, config)
+                                .addLogRecordExporterCustomizer(exporter -> logsExporter)
+                                .addLogRecordExporterModifier(
+                                        exporter ->
+                                                LogRecordDataModifier.builder(exporter)
+                                                        .removeLogRecordAttribute(
+                                                                stringKey("password"))
+                                                        .build())
+                                .build(serviceManager)
+                                .getOpenTelemetry();
+        sdk.getLogsBridge()
+                .get("test")
+                .logRecordBuilder()
+                .setBody("user signed in")
+                .setAttribute(stringKey("password"), "hunter2")
+                .emit();
+        sdk.getSdkLoggerProvider().forceFlush().join(5, SECONDS);
+
+        StringBuilder written = new StringBuilder();
+        try (Stream<Path> files = Files.walk(temporaryFolder.resolve("opentelemetry/segments"))) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                written.append(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1));
+            }
+        }
+        assertThat(written.toString()).contains("user signed in").doesNotContain("hunter2");
+        assertThat(logsExporter.getFinishedLogRecordItems()).isEmpty();
+    }
+
     @Test
     void diskBufferingEnabled_when_exception_thrown() {
         Preferences preferences = mock();
@@ -333,13 +476,26 @@ class OpenTelemetryRumBuilderTest {
         assertThat(SignalFromDiskExporter.get()).isNull();
     }
 
+    @Test
+    void networkAttributesComeFromTheGivenServiceManager() {
+        CurrentNetworkProvider currentNetworkProvider = mock();
+        ServiceManager serviceManager = mockServiceManager();
+        when(serviceManager.getCurrentNetworkProvider()).thenReturn(currentNetworkProvider);
+
+        OpenTelemetryRum.builder(application, new OtelRumConfig().disableSdkInitializationEvents())
+                .build(serviceManager);
+
+        verify(currentNetworkProvider)
+                .addNetworkChangeListener(isA(RumAttributesSpanAppender.class));
+    }
+
     @Test
     void sdkReadyListeners() {
         OtelRumConfig config = buildConfig();
         AtomicReference<OpenTelemetrySdk> seen = new AtomicReference<>();
         OpenTelemetryRum.builder(application, config)
                 .addOtelSdkReadyListener(seen::set)
-                .build(mock(ServiceManager.class));
+                .build(mockServiceManager());
         assertThat(seen.get()).isNotNull();
     }
 
@@ -403,18 +559,126 @@ class OpenTelemetryRumBuilderTest {
 
     @Test
     void verifyServicesAreStarted() {
-        ServiceManager serviceManager = mock();
+        ServiceManager serviceManager = mockServiceManager();
 
         makeBuilder().build(serviceManager);
 
         verify(serviceManager).start();
     }
 
+    @Test
+    void unsampledSessionsDoNotRecordTelemetry() {
+        OtelRumConfig config = buildConfig().setSessionSamplingRatio(0.0);
+
+        OpenTelemetryRum rum =
+                OpenTelemetryRum.builder(application, config)
+                        .addSpanExporterCustomizer(exporter -> spanExporter)
+                        .addLogRecordExporterCustomizer(exporter -> logsExporter)
+                        .build(mockServiceManager());
+        OpenTelemetrySdk sdk = (OpenTelemetrySdk) rum.getOpenTelemetry();
+
+        Span span = sdk.getTracer("test").spanBuilder("span").startSpan();
+        assertThat(span.isRecording()).isFalse();
+        span.end();
+        sdk.getLogsBridge().get("test").logRecordBuilder().setBody("foo").emit();
+        sdk.getSdkTracerProvider().forceFlush().join(5, SECONDS);
+        sdk.getSdkLoggerProvider().forceFlush().join(5, SECONDS);
+
+        assertThat(spanExporter.getFinishedSpanItems()).isEmpty();
+        assertThat(logsExporter.getFinishedLogRecordItems()).isEmpty();
+    }
+
+    @Test
+    void buildAsync_buffersUntilExportersAreReady() {
+        ServiceManager serviceManager = mockServiceManager();
+        AtomicReference<Runnable> deferred = new AtomicReference<>();
+
+        OpenTelemetryRum rum =
+                makeBuilder()
+                        .addSpanExporterCustomizer(exporter -> spanExporter)
+                        .buildAsync(serviceManager, deferred::set);
+        OpenTelemetrySdk sdk = (OpenTelemetrySdk) rum.getOpenTelemetry();
+
+        sdk.getTracer("test").spanBuilder("early span").startSpan().end();
+        sdk.getSdkTracerProvider().forceFlush().join(5, SECONDS);
+
+        assertThat(deferred.get()).isNotNull();
+        assertThat(spanExporter.getFinishedSpanItems()).isEmpty();
+        verify(serviceManager, never()).start();
+
+        deferred.get().run();
+
+        verify(serviceManager).start();
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertThat(spans).hasSize(1);
+        assertThat(spans.get(0)).hasName("early span");
+
+        sdk.getTracer("test").spanBuilder("late span").startSpan().end();
+        sdk.getSdkTracerProvider().forceFlush().join(5, SECONDS);
+        assertThat(spanExporter.getFinishedSpanItems()).hasSize(2);
+    }
+
+    @Test
+    void buildAsync_fallsBackWhenTheStorageSetupFails() {
+        ServiceManager serviceManager = mockServiceManager();
+        when(serviceManager.getCacheStorage())
+                .thenThrow(new IllegalStateException("storage unavailable"));
+        ExportScheduleHandler scheduleHandler = mock();
+        OtelRumConfig config = buildConfig();
+        config.setDiskBufferingConfiguration(
+                DiskBufferingConfiguration.builder()
+                        .setEnabled(true)
+                        .setExportScheduleHandler(scheduleHandler)
+                        .build());
+        AtomicReference<Runnable> deferred = new AtomicReference<>();
+
+        OpenTelemetryRum rum =
+                OpenTelemetryRum.builder(application, config)
+                        .addSpanExporterCustomizer(exporter -> spanExporter)
+                        .buildAsync(serviceManager, deferred::set);
+        OpenTelemetrySdk sdk = (OpenTelemetrySdk) rum.getOpenTelemetry();
+        sdk.getTracer("test").spanBuilder("early span").startSpan().end();
+
+        deferred.get().run();
+
+        verify(serviceManager).start();
+        verify(scheduleHandler).disable();
+        assertThat(SignalFromDiskExporter.get()).isNull();
+        sdk.getSdkTracerProvider().forceFlush().join(5, SECONDS);
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        assertThat(spans).hasSize(1);
+        assertThat(spans.get(0)).hasName("early span");
+    }
+
+    @Test
+    void buildAsync_notifiesInitializationEventsInBackground() {
+        ServiceManager serviceManager = mockServiceManager();
+        AtomicReference<Runnable> deferred = new AtomicReference<>();
+
+        makeBuilder()
+                .setInitializationEvents(initializationEvents)
+                .buildAsync(serviceManager, deferred::set);
+
+        verify(initializationEvents, never()).spanExporterInitialized(isA(SpanExporter.class));
+
+        deferred.get().run();
+
+        verify(initializationEvents).spanExporterInitialized(isA(SpanExporter.class));
+    }
+
     /**
      * @noinspection KotlinInternalInJava
      */
     private static ServiceManager createServiceManager(Object... services) {
-        return new ServiceManagerImpl(Arrays.asList(services));
+        List<Object> allServices = new ArrayList<>(Arrays.asList(services));
+        allServices.add(new SchedulerService());
+        return new ServiceManagerImpl(allServices);
+    }
+
+    private static ServiceManager mockServiceManager() {
+        ServiceManager serviceManager = mock();
+        lenient().when(serviceManager.getSchedulerService()).thenReturn(new SchedulerService());
+        return serviceManager;
     }
 
     @NonNull
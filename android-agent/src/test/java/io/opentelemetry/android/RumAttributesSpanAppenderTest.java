@@ -0,0 +1,204 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android;
+
+import static io.opentelemetry.android.common.RumConstants.SCREEN_NAME_KEY;
+import static io.opentelemetry.android.common.RumConstants.SESSION_ID_KEY;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static io.opentelemetry.semconv.incubating.NetworkIncubatingAttributes.NETWORK_CONNECTION_SUBTYPE;
+import static io.opentelemetry.semconv.incubating.NetworkIncubatingAttributes.NETWORK_CONNECTION_TYPE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Application;
+import io.opentelemetry.android.instrumentation.activity.VisibleScreenTracker;
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider;
+import io.opentelemetry.android.internal.services.network.data.CurrentNetwork;
+import io.opentelemetry.android.internal.services.network.data.NetworkState;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RumAttributesSpanAppenderTest {
+
+    static final CurrentNetwork WIFI = CurrentNetwork.builder(NetworkState.TRANSPORT_WIFI).build();
+    static final CurrentNetwork LTE =
+            CurrentNetwork.builder(NetworkState.TRANSPORT_CELLULAR).subType("LTE").build();
+
+    @Mock SessionId sessionId;
+    @Mock CurrentNetworkProvider currentNetworkProvider;
+    @Mock VisibleScreenTracker visibleScreenTracker;
+    @Mock ReadWriteSpan span;
+
+    @Test
+    void shouldAppendAllAttributesAtOnce() {
+        when(sessionId.getSessionId()).thenReturn("42");
+        when(currentNetworkProvider.getCurrentNetwork()).thenReturn(LTE);
+        when(visibleScreenTracker.getCurrentlyVisibleScreen()).thenReturn("MainActivity");
+        GlobalAttributesSpanAppender globals =
+                GlobalAttributesSpanAppender.create(Attributes.of(stringKey("app"), "demo"));
+
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(
+                        sessionId, globals, currentNetworkProvider, visibleScreenTracker);
+
+        assertThat(underTest.isStartRequired()).isTrue();
+        assertThat(underTest.isEndRequired()).isFalse();
+        underTest.onStart(Context.root(), span);
+
+        verify(span)
+                .setAllAttributes(
+                        Attributes.builder()
+                                .put(SESSION_ID_KEY, "42")
+                                .put("app", "demo")
+                                .put(NETWORK_CONNECTION_TYPE, "cell")
+                                .put(NETWORK_CONNECTION_SUBTYPE, "LTE")
+                                .put(SCREEN_NAME_KEY, "MainActivity")
+                                .build());
+    }
+
+    @Test
+    void shouldOnlyAppendSessionIdWhenNothingElseIsConfigured() {
+        when(sessionId.getSessionId()).thenReturn("42");
+
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(sessionId, null, null, null);
+
+        assertThat(underTest.currentAttributes()).isEqualTo(Attributes.of(SESSION_ID_KEY, "42"));
+    }
+
+    @Test
+    void shouldReuseSnapshotWhileNothingChanges() {
+        when(sessionId.getSessionId()).thenReturn("42");
+        when(currentNetworkProvider.getCurrentNetwork()).thenReturn(WIFI);
+        when(visibleScreenTracker.getCurrentlyVisibleScreen())
+                .thenReturn(new String("MainActivity"), new String("MainActivity"));
+        GlobalAttributesSpanAppender globals =
+                GlobalAttributesSpanAppender.create(Attributes.of(stringKey("app"), "demo"));
+
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(
+                        sessionId, globals, currentNetworkProvider, visibleScreenTracker);
+
+        Attributes first = underTest.currentAttributes();
+        assertThat(underTest.currentAttributes()).isSameAs(first);
+    }
+
+    @Test
+    void shouldRebuildSnapshotWhenASourceChanges() {
+        when(sessionId.getSessionId()).thenReturn("42", "42", "43", "43", "43");
+        when(currentNetworkProvider.getCurrentNetwork()).thenReturn(WIFI, WIFI, WIFI, LTE, LTE);
+        when(visibleScreenTracker.getCurrentlyVisibleScreen())
+                .thenReturn("MainActivity", "MainActivity", "MainActivity", "MainActivity", "Cart");
+        GlobalAttributesSpanAppender globals =
+                GlobalAttributesSpanAppender.create(Attributes.of(stringKey("app"), "demo"));
+
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(
+                        sessionId, globals, currentNetworkProvider, visibleScreenTracker);
+
+        Attributes initial = underTest.currentAttributes();
+
+        globals.update(builder -> builder.put("app", "other"));
+        Attributes afterGlobalsUpdate = underTest.currentAttributes();
+        assertThat(afterGlobalsUpdate).isNotSameAs(initial);
+        assertThat(afterGlobalsUpdate.get(stringKey("app"))).isEqualTo("other");
+
+        Attributes afterSessionRotation = underTest.currentAttributes();
+        assertThat(afterSessionRotation.get(SESSION_ID_KEY)).isEqualTo("43");
+
+        Attributes afterNetworkChange = underTest.currentAttributes();
+        assertThat(afterNetworkChange.get(NETWORK_CONNECTION_TYPE)).isEqualTo("cell");
+
+        Attributes afterScreenChange = underTest.currentAttributes();
+        assertThat(afterScreenChange.get(SCREEN_NAME_KEY)).isEqualTo("Cart");
+        assertThat(afterScreenChange.get(stringKey("app"))).isEqualTo("other");
+    }
+
+    @Test
+    void shouldReuseNetworkAttributesWhenAnotherSourceChanges() {
+        when(sessionId.getSessionId()).thenReturn("42", "43");
+        when(currentNetworkProvider.getCurrentNetwork()).thenReturn(LTE);
+
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(sessionId, null, currentNetworkProvider, null);
+
+        Attributes networkAttributes = underTest.networkAttributes(LTE);
+        Attributes beforeSessionRotation = underTest.currentAttributes();
+        Attributes afterSessionRotation = underTest.currentAttributes();
+
+        assertThat(afterSessionRotation).isNotSameAs(beforeSessionRotation);
+        assertThat(afterSessionRotation.get(SESSION_ID_KEY)).isEqualTo("43");
+        assertThat(afterSessionRotation.get(NETWORK_CONNECTION_SUBTYPE)).isEqualTo("LTE");
+        assertThat(underTest.networkAttributes(LTE)).isSameAs(networkAttributes);
+    }
+
+    @Test
+    void shouldExtractNetworkAttributesOnNetworkChange() {
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(sessionId, null, currentNetworkProvider, null);
+
+        underTest.onNetworkChange(WIFI);
+        Attributes wifiAttributes = underTest.networkAttributes(WIFI);
+        underTest.onNetworkChange(LTE);
+
+        assertThat(wifiAttributes).isEqualTo(Attributes.of(NETWORK_CONNECTION_TYPE, "wifi"));
+        assertThat(underTest.networkAttributes(LTE))
+                .isEqualTo(
+                        Attributes.of(
+                                NETWORK_CONNECTION_TYPE, "cell",
+                                NETWORK_CONNECTION_SUBTYPE, "LTE"));
+        // a network the provider refreshed without notifying is extracted anyway
+        assertThat(underTest.networkAttributes(WIFI)).isEqualTo(wifiAttributes);
+    }
+
+    @Test
+    void shouldNotAllocateOnSpanStart() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        // real sources rather than mocks, which allocate on every invocation; the network
+        // provider is never started, so its CurrentNetwork stays the same
+        CurrentNetworkProvider networkProvider =
+                CurrentNetworkProvider.create(mock(Application.class));
+        GlobalAttributesSpanAppender globals =
+                GlobalAttributesSpanAppender.create(Attributes.of(stringKey("app"), "demo"));
+        RumAttributesSpanAppender underTest =
+                new RumAttributesSpanAppender(
+                        new SessionId(new SessionIdTimeoutHandler()),
+                        globals,
+                        networkProvider,
+                        new VisibleScreenTracker());
+        int spans = 100_000;
+        // warm up
+        for (int i = 0; i < spans; i++) {
+            underTest.currentAttributes();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        // onStart() only hands these attributes over to the span
+        for (int i = 0; i < spans; i++) {
+            underTest.currentAttributes();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // less than a byte per span, measuring may allocate a little by itself
+        assertThat(allocated / spans).isZero();
+        assertThat(underTest.currentAttributes().get(NETWORK_CONNECTION_TYPE)).isEqualTo("unknown");
+    }
+}
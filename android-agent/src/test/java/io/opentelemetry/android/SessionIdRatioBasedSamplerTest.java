@@ -6,6 +6,9 @@
 package io.opentelemetry.android;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 import io.opentelemetry.api.common.Attributes;
@@ -17,6 +20,7 @@ import io.opentelemetry.sdk.trace.IdGenerator;
 import io.opentelemetry.sdk.trace.data.LinkData;
 import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
 import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -81,14 +85,34 @@ class SessionIdRatioBasedSamplerTest {
         assertEquals(shouldSample(samplerLow), SamplingDecision.RECORD_AND_SAMPLE);
     }
 
+    @Test
+    void decisionIsReusedUntilSessionChanges() {
+        when(sessionId.getSessionId()).thenReturn(LOW_ID, LOW_ID, HIGH_ID);
+
+        SessionIdRatioBasedSampler sampler = new SessionIdRatioBasedSampler(0.5, sessionId);
+
+        SamplingResult first = sampleResult(sampler);
+        assertSame(first, sampleResult(sampler));
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, first.getDecision());
+        assertEquals(SamplingDecision.DROP, shouldSample(sampler));
+    }
+
+    @Test
+    void isSessionSampled() {
+        when(sessionId.getSessionId()).thenReturn(LOW_ID, HIGH_ID);
+
+        SessionIdRatioBasedSampler sampler = new SessionIdRatioBasedSampler(0.5, sessionId);
+
+        assertTrue(sampler.isSessionSampled());
+        assertFalse(sampler.isSessionSampled());
+    }
+
     private SamplingDecision shouldSample(Sampler sampler) {
+        return sampleResult(sampler).getDecision();
+    }
+
+    private SamplingResult sampleResult(Sampler sampler) {
         return sampler.shouldSample(
-                        parentContext,
-                        traceId,
-                        "name",
-                        SpanKind.INTERNAL,
-                        Attributes.empty(),
-                        parentLinks)
-                .getDecision();
+                parentContext, traceId, "name", SpanKind.INTERNAL, Attributes.empty(), parentLinks);
     }
 }
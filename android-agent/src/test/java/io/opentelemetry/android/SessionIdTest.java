@@ -10,14 +10,23 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.opentelemetry.sdk.testing.time.TestClock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import org.junit.jupiter.api.Test;
@@ -60,11 +69,13 @@ class SessionIdTest {
     }
 
     @Test
-    void shouldCallSessionIdChangeListener() {
+    void shouldCallSessionIdChangeListeners() {
         TestClock clock = TestClock.create();
         SessionIdChangeListener listener = mock(SessionIdChangeListener.class);
+        SessionIdChangeListener otherListener = mock(SessionIdChangeListener.class);
         SessionId sessionId = new SessionId(clock, timeoutHandler);
-        sessionId.setSessionIdChangeListener(listener);
+        sessionId.addSessionIdChangeListener(listener);
+        sessionId.addSessionIdChangeListener(otherListener);
 
         String firstSessionId = sessionId.getSessionId();
         clock.advance(3, TimeUnit.HOURS);
@@ -74,9 +85,10 @@ class SessionIdTest {
 
         clock.advance(1, TimeUnit.HOURS);
         String secondSessionId = sessionId.getSessionId();
-        InOrder io = inOrder(timeoutHandler, listener);
+        InOrder io = inOrder(timeoutHandler, listener, otherListener);
         io.verify(timeoutHandler).bump();
         io.verify(listener).onChange(firstSessionId, secondSessionId);
+        io.verify(otherListener).onChange(firstSessionId, secondSessionId);
         io.verifyNoMoreInteractions();
     }
 
@@ -95,4 +107,96 @@ class SessionIdTest {
         assertNotEquals(value, sessionId.getSessionId());
         verify(timeoutHandler, times(3)).bump();
     }
+
+    @Test
+    void shouldNotBumpTimeoutOnEveryCallInForeground() {
+        TestClock clock = TestClock.create();
+        SessionIdTimeoutHandler realTimeoutHandler =
+                spy(new SessionIdTimeoutHandler(clock, Duration.ofMinutes(15)));
+        SessionId sessionId = new SessionId(clock, realTimeoutHandler);
+
+        String value = sessionId.getSessionId();
+        for (int i = 0; i < 100; i++) {
+            clock.advance(1, TimeUnit.MINUTES);
+            assertEquals(value, sessionId.getSessionId());
+        }
+
+        verify(realTimeoutHandler, times(1)).bump();
+    }
+
+    @Test
+    void shouldBumpTimeoutPeriodicallyInBackground() {
+        TestClock clock = TestClock.create();
+        SessionIdTimeoutHandler realTimeoutHandler =
+                spy(new SessionIdTimeoutHandler(clock, Duration.ofMinutes(15)));
+        SessionId sessionId = new SessionId(clock, realTimeoutHandler);
+        String value = sessionId.getSessionId();
+
+        realTimeoutHandler.onApplicationBackgrounded();
+        // keep the app busy in the background for longer than the session timeout
+        for (int i = 0; i < 20 * 60; i++) {
+            clock.advance(1, TimeUnit.SECONDS);
+            assertEquals(value, sessionId.getSessionId());
+        }
+        verify(realTimeoutHandler, atMost(20 * 60 / 5 + 2)).bump();
+
+        // then stay idle for longer than the timeout
+        clock.advance(16, TimeUnit.MINUTES);
+        assertNotEquals(value, sessionId.getSessionId());
+    }
+
+    @Test
+    void shouldTimeOutFirstCallAfterComingBackToForeground() {
+        TestClock clock = TestClock.create();
+        SessionIdTimeoutHandler realTimeoutHandler =
+                new SessionIdTimeoutHandler(clock, Duration.ofMinutes(15));
+        SessionId sessionId = new SessionId(clock, realTimeoutHandler);
+        String value = sessionId.getSessionId();
+
+        realTimeoutHandler.onApplicationBackgrounded();
+        clock.advance(20, TimeUnit.MINUTES);
+        realTimeoutHandler.onApplicationForegrounded();
+
+        String newValue = sessionId.getSessionId();
+        assertNotEquals(value, newValue);
+        clock.advance(1, TimeUnit.HOURS);
+        assertEquals(newValue, sessionId.getSessionId());
+    }
+
+    @Test
+    void shouldReturnSameValueUnderContention() throws Exception {
+        // A stand-in for a microbenchmark: many threads hammering the fast path at once must all
+        // observe the same session id, and the timeout bookkeeping must not run per call.
+        SessionIdTimeoutHandler realTimeoutHandler = spy(new SessionIdTimeoutHandler());
+        SessionId sessionId = new SessionId(realTimeoutHandler);
+        String value = sessionId.getSessionId();
+
+        int threads = 8;
+        int iterations = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(
+                    executor.submit(
+                            () -> {
+                                start.await();
+                                for (int i = 0; i < iterations; i++) {
+                                    if (!value.equals(sessionId.getSessionId())) {
+                                        return false;
+                                    }
+                                }
+                                return true;
+                            }));
+        }
+        start.countDown();
+        try {
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(realTimeoutHandler, times(1)).bump();
+    }
 }
@@ -6,12 +6,14 @@
 package io.opentelemetry.android;
 
 import static io.opentelemetry.android.SessionIdTimeoutHandler.DEFAULT_SESSION_TIMEOUT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.opentelemetry.sdk.testing.time.TestClock;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 class SessionIdTimeoutHandlerTest {
@@ -101,4 +103,51 @@ class SessionIdTimeoutHandlerTest {
         clock.advance(Duration.ofHours(4));
         assertFalse(timeoutHandler.hasTimedOut());
     }
+
+    @Test
+    void shouldOnlyRequirePeriodicChecksInBackground() {
+        TestClock clock = TestClock.create();
+        SessionIdTimeoutHandler timeoutHandler =
+                new SessionIdTimeoutHandler(clock, DEFAULT_SESSION_TIMEOUT);
+
+        assertEquals(Long.MAX_VALUE, timeoutHandler.getValidityNanos());
+
+        timeoutHandler.onApplicationBackgrounded();
+        assertEquals(TimeUnit.SECONDS.toNanos(5), timeoutHandler.getValidityNanos());
+
+        timeoutHandler.onApplicationForegrounded();
+        assertTrue(timeoutHandler.getValidityNanos() < Long.MAX_VALUE);
+
+        timeoutHandler.bump();
+        assertEquals(Long.MAX_VALUE, timeoutHandler.getValidityNanos());
+    }
+
+    @Test
+    void shouldStartTimeoutWhenMovedToBackground() {
+        TestClock clock = TestClock.create();
+        SessionIdTimeoutHandler timeoutHandler =
+                new SessionIdTimeoutHandler(clock, DEFAULT_SESSION_TIMEOUT);
+        timeoutHandler.bump();
+
+        // a long foreground period without any bump
+        clock.advance(Duration.ofHours(1));
+        timeoutHandler.onApplicationBackgrounded();
+
+        assertFalse(timeoutHandler.hasTimedOut());
+        clock.advance(15, TimeUnit.MINUTES);
+        assertTrue(timeoutHandler.hasTimedOut());
+    }
+
+    @Test
+    void shouldNotifyStateChanges() {
+        SessionIdTimeoutHandler timeoutHandler =
+                new SessionIdTimeoutHandler(TestClock.create(), DEFAULT_SESSION_TIMEOUT);
+        AtomicInteger notifications = new AtomicInteger();
+        timeoutHandler.setStateChangeListener(notifications::incrementAndGet);
+
+        timeoutHandler.onApplicationBackgrounded();
+        timeoutHandler.onApplicationForegrounded();
+
+        assertEquals(2, notifications.get());
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
+import io.opentelemetry.sdk.logs.ReadWriteLogRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SessionSamplingLogRecordProcessorTest {
+
+    @Mock LogRecordProcessor delegate;
+    @Mock SessionIdRatioBasedSampler sampler;
+    @Mock ReadWriteLogRecord logRecord;
+
+    @InjectMocks SessionSamplingLogRecordProcessor underTest;
+
+    @Test
+    void forwardsLogsOfSampledSessions() {
+        when(sampler.isSessionSampled()).thenReturn(true);
+
+        underTest.onEmit(Context.root(), logRecord);
+
+        verify(delegate).onEmit(Context.root(), logRecord);
+    }
+
+    @Test
+    void dropsLogsOfUnsampledSessions() {
+        when(sampler.isSessionSampled()).thenReturn(false);
+
+        underTest.onEmit(Context.root(), logRecord);
+
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void delegatesLifecycle() {
+        underTest.forceFlush();
+        underTest.shutdown();
+
+        verify(delegate).forceFlush();
+        verify(delegate).shutdown();
+    }
+}
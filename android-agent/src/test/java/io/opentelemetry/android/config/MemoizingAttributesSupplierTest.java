@@ -0,0 +1,68 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.config;
+
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class MemoizingAttributesSupplierTest {
+
+    final AtomicLong calls = new AtomicLong();
+    final Supplier<Attributes> delegate =
+            () -> Attributes.of(longKey("call"), calls.incrementAndGet());
+
+    @Test
+    void callsDelegateOnlyOnce() {
+        MemoizingAttributesSupplier underTest = MemoizingAttributesSupplier.create(delegate);
+
+        Attributes first = underTest.get();
+        for (int i = 0; i < 100; i++) {
+            assertThat(underTest.get()).isSameAs(first);
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateBumpsVersionAndRecomputes() {
+        MemoizingAttributesSupplier underTest = MemoizingAttributesSupplier.create(delegate);
+
+        assertThat(underTest.get().get(longKey("call"))).isEqualTo(1);
+        assertThat(underTest.getVersion()).isZero();
+
+        underTest.invalidate();
+
+        assertThat(underTest.getVersion()).isEqualTo(1);
+        assertThat(underTest.get().get(longKey("call"))).isEqualTo(2);
+        assertThat(underTest.get().get(longKey("call"))).isEqualTo(2);
+    }
+
+    @Test
+    void recomputesAfterTimeToLive() {
+        TestClock clock = TestClock.create();
+        MemoizingAttributesSupplier underTest =
+                new MemoizingAttributesSupplier(delegate, Duration.ofMinutes(1), clock);
+
+        assertThat(underTest.get().get(longKey("call"))).isEqualTo(1);
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(underTest.get().get(longKey("call"))).isEqualTo(1);
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(underTest.get().get(longKey("call"))).isEqualTo(2);
+    }
+
+    @Test
+    void nullFromDelegateBecomesEmpty() {
+        MemoizingAttributesSupplier underTest = MemoizingAttributesSupplier.create(() -> null);
+
+        assertThat(underTest.get()).isEqualTo(Attributes.empty());
+    }
+}
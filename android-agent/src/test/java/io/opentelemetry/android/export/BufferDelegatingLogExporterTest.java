@@ -0,0 +1,73 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import io.opentelemetry.sdk.testing.exporter.InMemoryLogRecordExporter;
+import io.opentelemetry.sdk.testing.logs.TestLogRecordData;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BufferDelegatingLogExporterTest {
+
+    @Test
+    void buffersUntilDelegateIsSet() {
+        BufferDelegatingLogExporter underTest = BufferDelegatingLogExporter.create();
+        LogRecordData log1 = log("one");
+        LogRecordData log2 = log("two");
+
+        assertThat(underTest.export(Arrays.asList(log1, log2)).isSuccess()).isTrue();
+        assertThat(underTest.getBufferedCount()).isEqualTo(2);
+
+        InMemoryLogRecordExporter delegate = InMemoryLogRecordExporter.create();
+        underTest.setDelegate(delegate);
+
+        assertThat(delegate.getFinishedLogRecordItems()).containsExactly(log1, log2);
+        assertThat(underTest.getBufferedCount()).isZero();
+
+        LogRecordData log3 = log("three");
+        underTest.export(Collections.singletonList(log3));
+        assertThat(delegate.getFinishedLogRecordItems()).containsExactly(log1, log2, log3);
+    }
+
+    @Test
+    void dropsOldestWhenFull() {
+        BufferDelegatingLogExporter underTest = BufferDelegatingLogExporter.create(1);
+        LogRecordData log1 = log("one");
+        LogRecordData log2 = log("two");
+
+        underTest.export(Arrays.asList(log1, log2));
+
+        InMemoryLogRecordExporter delegate = InMemoryLogRecordExporter.create();
+        underTest.setDelegate(delegate);
+        assertThat(delegate.getFinishedLogRecordItems()).containsExactly(log2);
+    }
+
+    @Test
+    void shutdownBeforeDelegateIsSet() {
+        BufferDelegatingLogExporter underTest = BufferDelegatingLogExporter.create();
+        underTest.export(Collections.singletonList(log("one")));
+        underTest.shutdown();
+
+        LogRecordExporter delegate = mock(LogRecordExporter.class);
+        underTest.setDelegate(delegate);
+        verify(delegate, never()).export(anyCollection());
+        verify(delegate).shutdown();
+    }
+
+    private static LogRecordData log(String body) {
+        return TestLogRecordData.builder().setBody(body).setSeverity(Severity.INFO).build();
+    }
+}
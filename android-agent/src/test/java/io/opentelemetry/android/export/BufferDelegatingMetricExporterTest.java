@@ -0,0 +1,88 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.AggregationTemporalitySelector;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricExporter;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BufferDelegatingMetricExporterTest {
+
+    @Test
+    void buffersUntilDelegateIsSet() {
+        BufferDelegatingMetricExporter underTest =
+                BufferDelegatingMetricExporter.create(
+                        AggregationTemporalitySelector.alwaysCumulative());
+        MetricData metric1 = mock(MetricData.class);
+        MetricData metric2 = mock(MetricData.class);
+
+        assertThat(underTest.export(Arrays.asList(metric1, metric2)).isSuccess()).isTrue();
+        assertThat(underTest.getBufferedCount()).isEqualTo(2);
+
+        InMemoryMetricExporter delegate = InMemoryMetricExporter.create();
+        underTest.setDelegate(delegate);
+
+        assertThat(delegate.getFinishedMetricItems()).containsExactly(metric1, metric2);
+        assertThat(underTest.getBufferedCount()).isZero();
+
+        MetricData metric3 = mock(MetricData.class);
+        underTest.export(Collections.singletonList(metric3));
+        assertThat(delegate.getFinishedMetricItems()).containsExactly(metric1, metric2, metric3);
+    }
+
+    @Test
+    void dropsOldestWhenFull() {
+        BufferDelegatingMetricExporter underTest =
+                BufferDelegatingMetricExporter.create(
+                        AggregationTemporalitySelector.alwaysCumulative(), 1);
+        MetricData metric1 = mock(MetricData.class);
+        MetricData metric2 = mock(MetricData.class);
+
+        underTest.export(Arrays.asList(metric1, metric2));
+
+        InMemoryMetricExporter delegate = InMemoryMetricExporter.create();
+        underTest.setDelegate(delegate);
+        assertThat(delegate.getFinishedMetricItems()).containsExactly(metric2);
+    }
+
+    @Test
+    void usesTheGivenAggregationTemporality() {
+        BufferDelegatingMetricExporter underTest =
+                BufferDelegatingMetricExporter.create(
+                        AggregationTemporalitySelector.deltaPreferred());
+
+        assertThat(underTest.getAggregationTemporality(InstrumentType.COUNTER))
+                .isEqualTo(AggregationTemporality.DELTA);
+        assertThat(underTest.getAggregationTemporality(InstrumentType.UP_DOWN_COUNTER))
+                .isEqualTo(AggregationTemporality.CUMULATIVE);
+    }
+
+    @Test
+    void shutdownBeforeDelegateIsSet() {
+        BufferDelegatingMetricExporter underTest =
+                BufferDelegatingMetricExporter.create(
+                        AggregationTemporalitySelector.alwaysCumulative());
+        underTest.export(Collections.singletonList(mock(MetricData.class)));
+        underTest.shutdown();
+
+        MetricExporter delegate = mock(MetricExporter.class);
+        underTest.setDelegate(delegate);
+        verify(delegate, never()).export(anyCollection());
+        verify(delegate).shutdown();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class BufferDelegatingSpanExporterTest {
+
+    @Test
+    void buffersUntilDelegateIsSet() {
+        BufferDelegatingSpanExporter underTest = BufferDelegatingSpanExporter.create();
+        SpanData span1 = TestSpanHelper.span("one");
+        SpanData span2 = TestSpanHelper.span("two");
+
+        CompletableResultCode result = underTest.export(Collections.singletonList(span1));
+        underTest.export(Collections.singletonList(span2));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(underTest.getBufferedCount()).isEqualTo(2);
+
+        InMemorySpanExporter delegate = InMemorySpanExporter.create();
+        underTest.setDelegate(delegate);
+
+        assertThat(delegate.getFinishedSpanItems()).containsExactly(span1, span2);
+        assertThat(underTest.getBufferedCount()).isZero();
+    }
+
+    @Test
+    void exportsDirectlyOnceDelegateIsSet() {
+        BufferDelegatingSpanExporter underTest = BufferDelegatingSpanExporter.create();
+        InMemorySpanExporter delegate = InMemorySpanExporter.create();
+        underTest.setDelegate(delegate);
+        SpanData span = TestSpanHelper.span("one");
+
+        underTest.export(Collections.singletonList(span));
+
+        assertThat(delegate.getFinishedSpanItems()).containsExactly(span);
+        assertThat(underTest.getBufferedCount()).isZero();
+    }
+
+    @Test
+    void dropsOldestWhenFull() {
+        BufferDelegatingSpanExporter underTest = BufferDelegatingSpanExporter.create(2);
+        SpanData span1 = TestSpanHelper.span("one");
+        SpanData span2 = TestSpanHelper.span("two");
+        SpanData span3 = TestSpanHelper.span("three");
+
+        underTest.export(Arrays.asList(span1, span2, span3));
+
+        InMemorySpanExporter delegate = InMemorySpanExporter.create();
+        underTest.setDelegate(delegate);
+        assertThat(delegate.getFinishedSpanItems()).containsExactly(span2, span3);
+    }
+
+    @Test
+    void shutdownBeforeDelegateIsSet() {
+        BufferDelegatingSpanExporter underTest = BufferDelegatingSpanExporter.create();
+        underTest.export(Collections.singletonList(TestSpanHelper.span("one")));
+
+        assertThat(underTest.shutdown().isSuccess()).isTrue();
+
+        SpanExporter delegate = mock(SpanExporter.class);
+        underTest.setDelegate(delegate);
+        verify(delegate, never()).export(anyCollection());
+        verify(delegate).shutdown();
+    }
+
+    @Test
+    void delegateCanOnlyBeSetOnce() {
+        BufferDelegatingSpanExporter underTest = BufferDelegatingSpanExporter.create();
+        underTest.setDelegate(InMemorySpanExporter.create());
+
+        assertThatThrownBy(() -> underTest.setDelegate(InMemorySpanExporter.create()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.export;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.logs.Severity;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import io.opentelemetry.sdk.testing.logs.TestLogRecordData;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LogRecordDataModifierTest {
+    static final AttributeKey<String> ATTRIBUTE = stringKey("attribute");
+    static final AttributeKey<String> OTHER_ATTRIBUTE = stringKey("other_attribute");
+
+    @Mock LogRecordExporter delegate;
+
+    @Captor ArgumentCaptor<Collection<LogRecordData>> logsCaptor;
+
+    @Test
+    void shouldRejectLogRecords() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate)
+                        .rejectLogRecords(log -> log.getSeverity() == Severity.DEBUG)
+                        .rejectLogRecordsByAttributeValue(ATTRIBUTE, "rejected!"::equals)
+                        .build();
+
+        LogRecordData log1 = log("log1", Severity.INFO, Attributes.of(ATTRIBUTE, "ok"));
+        LogRecordData log2 = log("log2", Severity.DEBUG, Attributes.empty());
+        LogRecordData log3 = log("log3", Severity.INFO, Attributes.of(ATTRIBUTE, "rejected!"));
+
+        CompletableResultCode expectedResult = new CompletableResultCode();
+        when(delegate.export(logsCaptor.capture())).thenReturn(expectedResult);
+
+        CompletableResultCode result = underTest.export(asList(log1, log2, log3));
+
+        assertThat(result).isSameAs(expectedResult);
+        assertThat(logsCaptor.getValue()).containsExactly(log1);
+    }
+
+    @Test
+    void shouldSkipDelegateWhenAllLogRecordsAreRejected() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate).rejectLogRecords(log -> true).build();
+
+        CompletableResultCode result =
+                underTest.export(asList(log("log1", Severity.INFO, Attributes.empty())));
+
+        assertThat(result.isSuccess()).isTrue();
+        verify(delegate, never()).export(any());
+    }
+
+    @Test
+    void shouldRemoveAndReplaceAttributes() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate)
+                        .removeLogRecordAttribute(ATTRIBUTE)
+                        .replaceLogRecordAttribute(OTHER_ATTRIBUTE, value -> value + "!")
+                        .build();
+
+        LogRecordData log =
+                log(
+                        "log",
+                        Severity.WARN,
+                        Attributes.of(ATTRIBUTE, "secret", OTHER_ATTRIBUTE, "value"));
+
+        when(delegate.export(logsCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(asList(log));
+
+        assertThat(logsCaptor.getValue())
+                .satisfiesExactly(
+                        modified -> {
+                            assertThat(modified.getAttributes())
+                                    .isEqualTo(Attributes.of(OTHER_ATTRIBUTE, "value!"));
+                            assertThat(modified.getTotalAttributeCount()).isEqualTo(1);
+                            assertThat(modified.getBody()).isEqualTo(log.getBody());
+                            assertThat(modified.getSeverity()).isEqualTo(Severity.WARN);
+                            assertThat(modified.getTimestampEpochNanos())
+                                    .isEqualTo(log.getTimestampEpochNanos());
+                        });
+    }
+
+    @Test
+    void shouldTruncateStringBodies() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate).truncateBody(5).build();
+
+        LogRecordData shortLog = log("short", Severity.INFO, Attributes.empty());
+        LogRecordData longLog = log("very long body", Severity.INFO, Attributes.empty());
+
+        when(delegate.export(logsCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(asList(shortLog, longLog));
+
+        List<LogRecordData> exported = (List<LogRecordData>) logsCaptor.getValue();
+        assertThat(exported).hasSize(2);
+        assertThat(exported.get(0)).isSameAs(shortLog);
+        assertThat(exported.get(1).getBody().asString()).isEqualTo("very ");
+    }
+
+    @Test
+    void shouldNotSplitSurrogatePairsWhenTruncating() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate).truncateBody(5).build();
+
+        LogRecordData log = log("body\uD83D\uDE00", Severity.INFO, Attributes.empty());
+
+        when(delegate.export(logsCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(asList(log));
+
+        assertThat(logsCaptor.getValue())
+                .satisfiesExactly(
+                        truncated -> assertThat(truncated.getBody().asString()).isEqualTo("body"));
+    }
+
+    @Test
+    void shouldKeepCountingDroppedAttributes() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate).removeLogRecordAttribute(ATTRIBUTE).build();
+
+        LogRecordData log =
+                TestLogRecordData.builder()
+                        .setAttributes(Attributes.of(ATTRIBUTE, "secret", OTHER_ATTRIBUTE, "value"))
+                        // one more attribute was dropped by the attribute limits
+                        .setTotalAttributeCount(3)
+                        .build();
+
+        when(delegate.export(logsCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(asList(log));
+
+        assertThat(logsCaptor.getValue())
+                .satisfiesExactly(
+                        modified -> assertThat(modified.getTotalAttributeCount()).isEqualTo(2));
+    }
+
+    @Test
+    void shouldRateLimitLogRecords() {
+        TestClock clock = TestClock.create();
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate)
+                        .rejectLogRecords(log -> log.getSeverity() == Severity.DEBUG)
+                        .rateLimit(2, Duration.ofSeconds(1))
+                        .setClock(clock)
+                        .build();
+
+        LogRecordData log1 = log("log1", Severity.INFO, Attributes.empty());
+        LogRecordData debug = log("debug", Severity.DEBUG, Attributes.empty());
+        LogRecordData log2 = log("log2", Severity.INFO, Attributes.empty());
+        LogRecordData log3 = log("log3", Severity.INFO, Attributes.empty());
+        LogRecordData log4 = log("log4", Severity.INFO, Attributes.empty());
+
+        when(delegate.export(logsCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(asList(log1, debug, log2, log3));
+        // rejected log records don't count towards the limit
+        assertThat(logsCaptor.getValue()).containsExactly(log1, log2);
+
+        clock.advance(Duration.ofMillis(500));
+        underTest.export(asList(log4));
+        verify(delegate).export(any());
+
+        clock.advance(Duration.ofMillis(500));
+        underTest.export(asList(log3, log4));
+        assertThat(logsCaptor.getValue()).containsExactly(log3, log4);
+    }
+
+    @Test
+    void shouldPassThroughUntouchedBatches() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate)
+                        .rejectLogRecordsByAttributeValue(ATTRIBUTE, "rejected!"::equals)
+                        .removeLogRecordAttribute(OTHER_ATTRIBUTE)
+                        .truncateBody(100)
+                        .build();
+
+        List<LogRecordData> logs =
+                asList(
+                        log("log1", Severity.INFO, Attributes.of(ATTRIBUTE, "ok")),
+                        log("log2", Severity.INFO, Attributes.empty()));
+
+        CompletableResultCode expectedResult = new CompletableResultCode();
+        when(delegate.export(logs)).thenReturn(expectedResult);
+
+        assertThat(underTest.export(logs)).isSameAs(expectedResult);
+    }
+
+    @Test
+    void shouldDelegateFlushAndShutdown() {
+        LogRecordExporter underTest =
+                LogRecordDataModifier.builder(delegate).truncateBody(10).build();
+
+        CompletableResultCode flushResult = new CompletableResultCode();
+        CompletableResultCode shutdownResult = new CompletableResultCode();
+        when(delegate.flush()).thenReturn(flushResult);
+        when(delegate.shutdown()).thenReturn(shutdownResult);
+
+        assertThat(underTest.flush()).isSameAs(flushResult);
+        assertThat(underTest.shutdown()).isSameAs(shutdownResult);
+    }
+
+    private static LogRecordData log(String body, Severity severity, Attributes attributes) {
+        return TestLogRecordData.builder()
+                .setBody(body)
+                .setSeverity(severity)
+                .setAttributes(attributes)
+                .setTotalAttributeCount(attributes.size())
+                .setTimestamp(42, NANOSECONDS)
+                .build();
+    }
+}
@@ -12,7 +12,9 @@ import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.asser
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -245,6 +247,104 @@ class SpanDataModifierTest {
                                         .hasAttributes(span.getAttributes()));
     }
 
+    @Test
+    void shouldEvaluateRejectionOnOriginalAttributes() {
+        SpanExporter underTest =
+                SpanDataModifier.builder(delegate)
+                        .rejectSpansByAttributeValue(ATTRIBUTE, value -> value.equals("test"))
+                        .replaceSpanAttribute(ATTRIBUTE, value -> "test")
+                        .build();
+
+        SpanData rejected = span("rejected", Attributes.of(ATTRIBUTE, "test"));
+        SpanData replaced = span("replaced", Attributes.of(ATTRIBUTE, "other"));
+
+        when(delegate.export(spansCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(asList(rejected, replaced));
+
+        assertThat(spansCaptor.getValue())
+                .satisfiesExactly(
+                        s ->
+                                assertThat(s)
+                                        .hasName("replaced")
+                                        .hasAttributes(Attributes.of(ATTRIBUTE, "test")));
+    }
+
+    @Test
+    void shouldPassThroughUntouchedSpansAndBatches() {
+        SpanExporter underTest =
+                SpanDataModifier.builder(delegate)
+                        .rejectSpansByName(spanName -> spanName.equals("rejected"))
+                        .rejectSpansByAttributeValue(ATTRIBUTE, value -> value.equals("test"))
+                        .removeSpanAttribute(OTHER_ATTRIBUTE, value -> value.equals("test"))
+                        .build();
+
+        List<SpanData> batch =
+                asList(
+                        span("first", Attributes.of(ATTRIBUTE, "ok")),
+                        span("second", Attributes.of(OTHER_ATTRIBUTE, "kept")),
+                        span("third"));
+
+        when(delegate.export(spansCaptor.capture())).thenReturn(new CompletableResultCode());
+
+        underTest.export(batch);
+
+        assertSame(batch, spansCaptor.getValue());
+    }
+
+    @Test
+    void shouldProcessLargeBatchInSinglePass() {
+        // A stand-in for a microbenchmark over a typical 512 spans batch: only the spans that are
+        // actually modified get copied. The delegate may keep the list it is passed, so every
+        // export gets its own.
+        SpanExporter underTest =
+                SpanDataModifier.builder(delegate)
+                        .rejectSpansByName(spanName -> spanName.endsWith("7"))
+                        .removeSpanAttribute(ATTRIBUTE, value -> value.equals("secret"))
+                        .build();
+
+        List<SpanData> batch = new ArrayList<>();
+        for (int i = 0; i < 512; i++) {
+            Attributes attributes =
+                    i % 2 == 0
+                            ? Attributes.of(ATTRIBUTE, "secret", LONG_ATTRIBUTE, (long) i)
+                            : Attributes.of(LONG_ATTRIBUTE, (long) i);
+            batch.add(span("span" + i, attributes));
+        }
+
+        List<Collection<SpanData>> exportedBatches = new ArrayList<>();
+        List<SpanData> exported = new ArrayList<>();
+        when(delegate.export(any()))
+                .thenAnswer(
+                        invocation -> {
+                            Collection<SpanData> spans = invocation.getArgument(0);
+                            exportedBatches.add(spans);
+                            exported.addAll(spans);
+                            return CompletableResultCode.ofSuccess();
+                        });
+
+        underTest.export(batch);
+
+        assertEquals(512 - 51, exported.size());
+        int index = 0;
+        for (int i = 0; i < 512; i++) {
+            if (i % 10 == 7) {
+                continue;
+            }
+            SpanData original = batch.get(i);
+            SpanData result = exported.get(index++);
+            assertEquals(original.getName(), result.getName());
+            assertEquals(Attributes.of(LONG_ATTRIBUTE, (long) i), result.getAttributes());
+            if (i % 2 == 1) {
+                assertSame(original, result);
+            }
+        }
+
+        underTest.export(batch);
+        assertEquals(2, exportedBatches.size());
+        assertNotSame(exportedBatches.get(0), exportedBatches.get(1));
+    }
+
     @Test
     void shouldDelegateCalls() {
         SpanExporter underTest = SpanDataModifier.builder(delegate).build();
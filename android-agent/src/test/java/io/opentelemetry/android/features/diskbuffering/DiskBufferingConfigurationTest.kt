@@ -0,0 +1,101 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.features.diskbuffering
+
+import io.opentelemetry.api.common.Attributes
+import io.opentelemetry.sdk.testing.logs.TestLogRecordData
+import io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_ESCAPED
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import java.time.Duration
+import java.util.zip.Deflater
+
+class DiskBufferingConfigurationTest {
+    @Test
+    fun `Give crash reports a higher priority by default`() {
+        val configuration = DiskBufferingConfiguration.builder().build()
+        val crash =
+            TestLogRecordData.builder()
+                .setAttributes(Attributes.of(EXCEPTION_ESCAPED, true))
+                .build()
+        val log = TestLogRecordData.builder().build()
+
+        assertThat(configuration.logRecordPriority.applyAsInt(crash))
+            .isEqualTo(DiskBufferingConfiguration.CRASH_PRIORITY)
+        assertThat(configuration.logRecordPriority.applyAsInt(log))
+            .isEqualTo(DiskBufferingConfiguration.DEFAULT_PRIORITY)
+        assertThat(configuration.metricPriority)
+            .isEqualTo(DiskBufferingConfiguration.DEFAULT_PRIORITY)
+        assertThat(configuration.maxAge).isEqualTo(Duration.ofHours(18))
+    }
+
+    @Test
+    fun `Configure priorities and max age`() {
+        val configuration =
+            DiskBufferingConfiguration.builder()
+                .setMaxAge(Duration.ofHours(1))
+                .setLogRecordPriority { 7 }
+                .setMetricPriority(-1)
+                .build()
+
+        assertThat(configuration.maxAge).isEqualTo(Duration.ofHours(1))
+        assertThat(configuration.logRecordPriority.applyAsInt(TestLogRecordData.builder().build()))
+            .isEqualTo(7)
+        assertThat(configuration.metricPriority).isEqualTo(-1)
+    }
+
+    @Test
+    fun `Memory first buffering is disabled by default`() {
+        val configuration = DiskBufferingConfiguration.builder().build()
+
+        assertThat(configuration.isMemoryFirst).isFalse()
+        assertThat(configuration.maxBatchesInMemory).isEqualTo(32)
+    }
+
+    @Test
+    fun `Configure memory first buffering`() {
+        val configuration =
+            DiskBufferingConfiguration.builder()
+                .setMemoryFirst(true)
+                .setMaxBatchesInMemory(4)
+                .build()
+
+        assertThat(configuration.isMemoryFirst).isTrue()
+        assertThat(configuration.maxBatchesInMemory).isEqualTo(4)
+    }
+
+    @Test
+    fun `Configure the limits of merged exports`() {
+        val defaults = DiskBufferingConfiguration.builder().build()
+        assertThat(defaults.maxExportBatchBytes).isEqualTo(512 * 1024)
+        assertThat(defaults.maxExportBatchItems).isEqualTo(512)
+
+        val configuration =
+            DiskBufferingConfiguration.builder()
+                .setMaxExportBatchBytes(1024)
+                .setMaxExportBatchItems(10)
+                .build()
+
+        assertThat(configuration.maxExportBatchBytes).isEqualTo(1024)
+        assertThat(configuration.maxExportBatchItems).isEqualTo(10)
+    }
+
+    @Test
+    fun `Configure the compression level`() {
+        assertThat(DiskBufferingConfiguration.builder().build().compressionLevel)
+            .isEqualTo(Deflater.NO_COMPRESSION)
+
+        val configuration =
+            DiskBufferingConfiguration.builder()
+                .setCompressionLevel(Deflater.BEST_SPEED)
+                .build()
+
+        assertThat(configuration.compressionLevel).isEqualTo(Deflater.BEST_SPEED)
+        assertThatThrownBy { DiskBufferingConfiguration.builder().setCompressionLevel(10) }
+            .isInstanceOf(IllegalArgumentException::class.java)
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.features.diskbuffering
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.concurrent.TimeUnit
+
+class DrainStatisticsTest {
+    @Test
+    fun `Compute throughput`() {
+        val statistics = DrainStatistics(4, 2, 4, 5000, TimeUnit.MILLISECONDS.toNanos(500))
+
+        assertThat(statistics.batches).isEqualTo(10)
+        assertThat(statistics.batchesPerSecond()).isEqualTo(20.0)
+        assertThat(statistics.bytesPerSecond()).isEqualTo(10_000.0)
+    }
+
+    @Test
+    fun `Report no throughput without duration`() {
+        assertThat(DrainStatistics.EMPTY.batchesPerSecond()).isZero()
+        assertThat(DrainStatistics.EMPTY.bytesPerSecond()).isZero()
+    }
+
+    @Test
+    fun `Add up statistics`() {
+        val total =
+            DrainStatistics(1, 2, 3, 100, 10) + DrainStatistics(4, 5, 6, 200, 20)
+
+        assertThat(total.spanBatches).isEqualTo(5)
+        assertThat(total.metricBatches).isEqualTo(7)
+        assertThat(total.logBatches).isEqualTo(9)
+        assertThat(total.bytes).isEqualTo(300)
+        assertThat(total.durationNanos).isEqualTo(30)
+    }
+}
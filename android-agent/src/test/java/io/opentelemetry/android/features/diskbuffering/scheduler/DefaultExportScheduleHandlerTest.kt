@@ -26,7 +26,7 @@ class DefaultExportScheduleHandlerTest {
         periodicWorkService = createPeriodicWorkServiceMock()
         handler =
             DefaultExportScheduleHandler(
-                DefaultExportScheduler { periodicWorkService },
+                DefaultExportScheduler({ periodicWorkService }),
             ) { periodicWorkService }
     }
 
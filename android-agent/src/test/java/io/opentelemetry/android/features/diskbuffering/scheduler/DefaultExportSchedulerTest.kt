@@ -5,24 +5,46 @@
 
 package io.opentelemetry.android.features.diskbuffering.scheduler
 
+import io.mockk.Runs
 import io.mockk.every
+import io.mockk.just
 import io.mockk.mockk
+import io.mockk.slot
 import io.mockk.verify
+import io.opentelemetry.android.features.diskbuffering.DrainStatistics
 import io.opentelemetry.android.features.diskbuffering.SignalFromDiskExporter
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
+import io.opentelemetry.android.internal.services.network.data.CurrentNetwork
+import io.opentelemetry.android.internal.services.network.data.NetworkState
+import io.opentelemetry.android.internal.services.periodicwork.PeriodicWorkService
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.fail
 import java.io.IOException
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
 import java.util.concurrent.TimeUnit
 
 class DefaultExportSchedulerTest {
+    companion object {
+        private val WIFI = CurrentNetwork.builder(NetworkState.TRANSPORT_WIFI).build()
+    }
+
+    private lateinit var periodicWorkService: PeriodicWorkService
+    private lateinit var currentNetworkProvider: CurrentNetworkProvider
     private lateinit var scheduler: DefaultExportScheduler
 
     @BeforeEach
     fun setUp() {
-        scheduler = DefaultExportScheduler(mockk())
+        periodicWorkService = mockk()
+        every { periodicWorkService.enqueue(any()) } just Runs
+        every { periodicWorkService.schedule(any(), any()) } just Runs
+        currentNetworkProvider = mockk()
+        every { currentNetworkProvider.getCurrentNetwork() } returns WIFI
+        every { currentNetworkProvider.addNetworkChangeListener(any()) } just Runs
+        scheduler = DefaultExportScheduler({ periodicWorkService }, { currentNetworkProvider })
     }
 
     @AfterEach
@@ -35,6 +57,7 @@ class DefaultExportSchedulerTest {
         val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
         every { signalFromDiskExporter.exportBatchOfEach() }.returns(true).andThen(true)
             .andThen(false)
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() } returns false
         SignalFromDiskExporter.set(signalFromDiskExporter)
 
         scheduler.onRun()
@@ -76,4 +99,169 @@ class DefaultExportSchedulerTest {
             ),
         )
     }
+
+    @Test
+    fun `Listen to network changes`() {
+        scheduler.startListeningToNetworkChanges()
+
+        verify { currentNetworkProvider.addNetworkChangeListener(scheduler) }
+    }
+
+    @Test
+    fun `Do not read from disk while offline`() {
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+        every { currentNetworkProvider.getCurrentNetwork() } returns CurrentNetworkProvider.NO_NETWORK
+        scheduler.startListeningToNetworkChanges()
+
+        scheduler.onRun()
+
+        verify(exactly = 0) { signalFromDiskExporter.exportBatchOfEach() }
+        assertThat(scheduler.shouldStopRunning()).isTrue()
+    }
+
+    @Test
+    fun `Export right away when a network becomes available`() {
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        every { signalFromDiskExporter.exportBatchOfEach() }.returns(true).andThen(false)
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() } returns false
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+        scheduler.onNetworkChange(CurrentNetworkProvider.NO_NETWORK)
+        assertThat(scheduler.shouldStopRunning()).isTrue()
+        val drain = slot<Runnable>()
+
+        scheduler.onNetworkChange(WIFI)
+
+        verify { periodicWorkService.enqueue(capture(drain)) }
+        drain.captured.run()
+        verify(exactly = 2) { signalFromDiskExporter.exportBatchOfEach() }
+        // the periodic runs are restarted too
+        verify { periodicWorkService.schedule(scheduler, TimeUnit.SECONDS.toMillis(10)) }
+        assertThat(scheduler.shouldStopRunning()).isFalse()
+    }
+
+    @Test
+    fun `Do not export again when the network changes while online`() {
+        scheduler.onNetworkChange(WIFI)
+
+        verify(exactly = 0) { periodicWorkService.enqueue(any()) }
+    }
+
+    @Test
+    fun `Back off exponentially while exports fail`() {
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        every { signalFromDiskExporter.exportBatchOfEach() }
+            .returns(false)
+            .andThenThrows(IOException())
+            .andThen(true)
+            .andThen(false)
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() }
+            .returns(true)
+            .andThen(false)
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+
+        scheduler.onRun()
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis()).isEqualTo(20_000)
+
+        scheduler.onRun()
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis()).isEqualTo(40_000)
+
+        scheduler.onRun()
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis()).isEqualTo(10_000)
+    }
+
+    @Test
+    fun `Keep the base delay while there is nothing to export`() {
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        every { signalFromDiskExporter.exportBatchOfEach() } returns false
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() } returns false
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+
+        repeat(3) { scheduler.onRun() }
+
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis()).isEqualTo(10_000)
+    }
+
+    @Test
+    fun `Cap the back off delay`() {
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        every { signalFromDiskExporter.exportBatchOfEach() } returns false
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() } returns true
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+
+        repeat(10) { scheduler.onRun() }
+
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis())
+            .isEqualTo(TimeUnit.MINUTES.toMillis(5))
+    }
+
+    @Test
+    fun `Drain concurrently when an executor is available`() {
+        val executor = Executor { it.run() }
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        every { signalFromDiskExporter.exportConcurrently(executor, 4) }
+            .returns(DrainStatistics(4, 1, 4, 1024, 1000))
+            .andThen(DrainStatistics(2, 0, 0, 512, 1000))
+            .andThen(DrainStatistics.EMPTY)
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() } returns false
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+        scheduler =
+            DefaultExportScheduler(
+                { periodicWorkService },
+                { currentNetworkProvider },
+                { executor },
+                4,
+            )
+
+        scheduler.onRun()
+
+        verify(exactly = 3) { signalFromDiskExporter.exportConcurrently(executor, 4) }
+        verify(exactly = 0) { signalFromDiskExporter.exportBatchOfEach() }
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis()).isEqualTo(10_000)
+    }
+
+    @Test
+    fun `Drain on the executor rather than on the scheduling thread`() {
+        val drains = mutableListOf<Runnable>()
+        val executor = Executor { drains.add(it) }
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        every { signalFromDiskExporter.exportConcurrently(executor, 4) }
+            .returns(DrainStatistics.EMPTY)
+        every { signalFromDiskExporter.exportFailedSinceLastCheck() } returns false
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+        scheduler =
+            DefaultExportScheduler(
+                { periodicWorkService },
+                { currentNetworkProvider },
+                { executor },
+                4,
+            )
+
+        scheduler.onRun()
+
+        verify(exactly = 0) { signalFromDiskExporter.exportConcurrently(any(), any()) }
+        assertThat(drains).hasSize(1)
+
+        drains[0].run()
+
+        verify(exactly = 1) { signalFromDiskExporter.exportConcurrently(executor, 4) }
+    }
+
+    @Test
+    fun `Back off when the executor is busy`() {
+        val signalFromDiskExporter = mockk<SignalFromDiskExporter>()
+        SignalFromDiskExporter.set(signalFromDiskExporter)
+        scheduler =
+            DefaultExportScheduler(
+                { periodicWorkService },
+                { currentNetworkProvider },
+                { Executor { throw RejectedExecutionException() } },
+                4,
+            )
+
+        scheduler.onRun()
+
+        verify(exactly = 0) { signalFromDiskExporter.exportConcurrently(any(), any()) }
+        assertThat(scheduler.minimumDelayUntilNextRunInMillis()).isEqualTo(20_000)
+    }
 }
@@ -8,15 +8,25 @@ package io.opentelemetry.android.features.diskbuffering.scheduler
 import io.mockk.MockKAnnotations
 import io.mockk.every
 import io.mockk.impl.annotations.MockK
+import io.mockk.mockk
 import io.mockk.verify
 import io.opentelemetry.android.features.diskbuffering.SignalFromDiskExporter
+import io.opentelemetry.android.internal.features.persistence.ExportFailureTracker
 import io.opentelemetry.contrib.disk.buffering.LogRecordFromDiskExporter
 import io.opentelemetry.contrib.disk.buffering.MetricFromDiskExporter
 import io.opentelemetry.contrib.disk.buffering.SpanFromDiskExporter
 import io.opentelemetry.contrib.disk.buffering.internal.exporter.FromDiskExporter
+import io.opentelemetry.sdk.common.CompletableResultCode
+import io.opentelemetry.sdk.trace.export.SpanExporter
 import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
 
 class SignalFromDiskExporterTest {
@@ -150,6 +160,158 @@ class SignalFromDiskExporterTest {
         assertThat(instance.exportBatchOfLogs()).isFalse()
     }
 
+    @Test
+    fun `Drain each kind of signal concurrently`() {
+        val instance =
+            createInstance(spanFromDiskExporter, metricFromDiskExporter, logRecordFromDiskExporter)
+        every { spanFromDiskExporter.exportStoredBatch(any(), any()) }
+            .returns(true)
+            .andThen(true)
+            .andThen(false)
+        every { metricFromDiskExporter.exportStoredBatch(any(), any()) }.returns(false)
+        every { logRecordFromDiskExporter.exportStoredBatch(any(), any()) }
+            .returns(true)
+            .andThen(false)
+        val executor = Executors.newFixedThreadPool(2)
+
+        try {
+            val statistics = instance.exportConcurrently(executor, 10)
+
+            assertThat(statistics.spanBatches).isEqualTo(2)
+            assertThat(statistics.metricBatches).isEqualTo(0)
+            assertThat(statistics.logBatches).isEqualTo(1)
+            assertThat(statistics.batches).isEqualTo(3)
+            assertThat(statistics.durationNanos).isPositive()
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `Limit the batches exported per signal`() {
+        val instance =
+            createInstance(spanFromDiskExporter, metricFromDiskExporter, logRecordFromDiskExporter)
+        every { spanFromDiskExporter.exportStoredBatch(any(), any()) }.returns(true)
+        every { metricFromDiskExporter.exportStoredBatch(any(), any()) }.returns(true)
+        every { logRecordFromDiskExporter.exportStoredBatch(any(), any()) }.returns(true)
+
+        val statistics = instance.exportConcurrently(Executor { it.run() }, 3)
+
+        assertThat(statistics.spanBatches).isEqualTo(3)
+        assertThat(statistics.metricBatches).isEqualTo(3)
+        assertThat(statistics.logBatches).isEqualTo(3)
+        verify(exactly = 3) { spanFromDiskExporter.exportStoredBatch(any(), any()) }
+    }
+
+    @Test
+    fun `Drain on the calling thread when the executor does not run the work`() {
+        val instance =
+            createInstance(spanFromDiskExporter, metricFromDiskExporter, logRecordFromDiskExporter)
+        every { spanFromDiskExporter.exportStoredBatch(any(), any()) }.returns(true).andThen(false)
+        every { metricFromDiskExporter.exportStoredBatch(any(), any()) }.returns(true).andThen(false)
+        every { logRecordFromDiskExporter.exportStoredBatch(any(), any()) }.returns(false)
+        val neverRunningExecutor = Executor { }
+
+        val statistics = instance.exportConcurrently(neverRunningExecutor, 10)
+
+        assertThat(statistics.spanBatches).isEqualTo(1)
+        assertThat(statistics.metricBatches).isEqualTo(1)
+        assertThat(statistics.logBatches).isEqualTo(0)
+    }
+
+    @Test
+    fun `Report errors of a concurrent drain`() {
+        val instance =
+            createInstance(spanFromDiskExporter, metricFromDiskExporter, logRecordFromDiskExporter)
+        every { spanFromDiskExporter.exportStoredBatch(any(), any()) }.throws(IOException())
+        every { metricFromDiskExporter.exportStoredBatch(any(), any()) }.returns(false)
+        every { logRecordFromDiskExporter.exportStoredBatch(any(), any()) }.returns(false)
+
+        assertThatThrownBy { instance.exportConcurrently(Executor { it.run() }, 10) }
+            .isInstanceOf(IOException::class.java)
+        verify { logRecordFromDiskExporter.exportStoredBatch(any(), any()) }
+    }
+
+    @Test
+    fun `Measure the bytes freed in disk by a concurrent drain`(
+        @TempDir storageDir: File,
+    ) {
+        val storedBatch = File(storageDir, "spans/1000")
+        storedBatch.parentFile!!.mkdirs()
+        storedBatch.writeBytes(ByteArray(512))
+        val instance =
+            SignalFromDiskExporter(
+                spanFromDiskExporter,
+                null,
+                null,
+                DEFAULT_EXPORT_TIMEOUT_IN_MILLIS,
+                storageDir,
+            ) { true }
+        every { spanFromDiskExporter.exportStoredBatch(any(), any()) }.answers {
+            storedBatch.delete()
+            true
+        }.andThen(false)
+
+        val statistics = instance.exportConcurrently(Executor { it.run() }, 10)
+
+        assertThat(statistics.spanBatches).isEqualTo(1)
+        assertThat(statistics.bytes).isEqualTo(512)
+    }
+
+    @Test
+    fun `Only measure the bytes of a concurrent drain when debug logging is enabled`(
+        @TempDir storageDir: File,
+    ) {
+        val storedBatch = File(storageDir, "spans/1000")
+        storedBatch.parentFile!!.mkdirs()
+        storedBatch.writeBytes(ByteArray(512))
+        val instance =
+            SignalFromDiskExporter(
+                spanFromDiskExporter,
+                null,
+                null,
+                DEFAULT_EXPORT_TIMEOUT_IN_MILLIS,
+                storageDir,
+            ) { false }
+        every { spanFromDiskExporter.exportStoredBatch(any(), any()) }.answers {
+            storedBatch.delete()
+            true
+        }.andThen(false)
+
+        val statistics = instance.exportConcurrently(Executor { it.run() }, 10)
+
+        assertThat(statistics.spanBatches).isEqualTo(1)
+        assertThat(statistics.bytes).isZero()
+    }
+
+    @Test
+    fun `Tell failed exports apart from an empty disk`() {
+        val exportFailures = ExportFailureTracker()
+        val failing = CompletableResultCode()
+        val delegate = mockk<SpanExporter>()
+        every { delegate.export(any()) }
+            .returns(CompletableResultCode.ofSuccess())
+            .andThen(failing)
+        val exporter = exportFailures.spanExporter(delegate)
+        val instance =
+            SignalFromDiskExporter(
+                spanFromDiskExporter,
+                null,
+                null,
+                DEFAULT_EXPORT_TIMEOUT_IN_MILLIS,
+                null,
+                exportFailures,
+            )
+
+        exporter.export(emptyList())
+        assertThat(instance.exportFailedSinceLastCheck()).isFalse()
+
+        exporter.export(emptyList())
+        failing.fail()
+        assertThat(instance.exportFailedSinceLastCheck()).isTrue()
+        assertThat(instance.exportFailedSinceLastCheck()).isFalse()
+    }
+
     private fun verifyExportStoredBatchCall(
         exporter: FromDiskExporter,
         timeoutInMillis: Long,
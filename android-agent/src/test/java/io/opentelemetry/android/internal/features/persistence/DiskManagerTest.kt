@@ -5,16 +5,15 @@
 
 package io.opentelemetry.android.internal.features.persistence
 
-import io.mockk.Called
 import io.mockk.MockKAnnotations
 import io.mockk.Runs
 import io.mockk.clearMocks
-import io.mockk.confirmVerified
 import io.mockk.every
 import io.mockk.impl.annotations.MockK
 import io.mockk.just
 import io.mockk.verify
 import io.opentelemetry.android.features.diskbuffering.DiskBufferingConfiguration
+import io.opentelemetry.android.features.diskbuffering.StorageEngine
 import io.opentelemetry.android.internal.services.CacheStorage
 import io.opentelemetry.android.internal.services.Preferences
 import io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat
@@ -23,6 +22,8 @@ import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.io.TempDir
 import java.io.File
+import java.time.Duration
+import java.util.zip.Deflater
 
 internal class DiskManagerTest {
     @MockK
@@ -53,6 +54,13 @@ internal class DiskManagerTest {
         assertThat(expected.exists()).isTrue()
     }
 
+    @Test
+    fun `provides the segments buffer dir`() {
+        val expected = File(cacheDir, "opentelemetry/segments")
+        assertThat(diskManager.segmentsBufferDir).isEqualTo(expected)
+        assertThat(expected.exists()).isTrue()
+    }
+
     @Test
     fun `provides a temp dir`() {
         every { cacheStorage.cacheDir }.returns(cacheDir)
@@ -85,53 +93,179 @@ internal class DiskManagerTest {
     }
 
     @Test
-    fun `can get max signal folder size`() {
+    fun `can get max cache size`() {
         val maxCacheSize = (10 * 1024 * 1024).toLong() // 10 MB
         val maxCacheFileSize = 1024 * 1024 // 1 MB
         every { diskBufferingConfiguration.maxCacheSize }.returns(maxCacheSize.toInt())
         every { diskBufferingConfiguration.maxCacheFileSize }.returns(maxCacheFileSize)
+        every { cacheStorage.usableSpace }.returns(100L * 1024 * 1024)
         every { cacheStorage.ensureCacheSpaceAvailable(maxCacheSize) }.returns(maxCacheSize)
-        every { preferences.retrieveInt(MAX_FOLDER_SIZE_KEY, -1) }.returns(-1)
+        every { preferences.retrieveInt(any(), -1) }.returns(-1)
         every { preferences.store(any(), any()) } just Runs
 
-        // Expects the size of a single signal type folder minus the size of a cache file, to use as
+        // Expects the cache size minus the size of a cache file per kind of signal, to use as
         // temporary space for reading.
-        val expected = 2446677
-        assertThat(diskManager.maxFolderSize).isEqualTo(expected)
+        val expected = 7340032
+        assertThat(diskManager.maxCacheSize).isEqualTo(expected)
         verify {
-            preferences.store(MAX_FOLDER_SIZE_KEY, expected)
+            preferences.store(MAX_CACHE_SIZE_KEY, expected)
+            preferences.store(REQUESTED_CACHE_SIZE_KEY, maxCacheSize.toInt())
+            preferences.store(USABLE_SPACE_MB_KEY, 100)
         }
 
         // On a second call, should get the value from the preferences.
-        clearMocks(cacheStorage, diskBufferingConfiguration, preferences)
-        every { preferences.retrieveInt(MAX_FOLDER_SIZE_KEY, -1) }.returns(expected)
-        assertThat(diskManager.maxFolderSize).isEqualTo(expected)
+        clearMocks(cacheStorage, preferences)
+        every { cacheStorage.usableSpace }.returns(110L * 1024 * 1024)
+        stubStoredCacheSize(expected, maxCacheSize.toInt(), 100)
+        assertThat(diskManager.maxCacheSize).isEqualTo(expected)
 
+        verify(inverse = true) {
+            cacheStorage.ensureCacheSpaceAvailable(any())
+            preferences.store(any(), any())
+        }
+    }
+
+    @Test
+    fun `computes the max cache size again when the usable space changes significantly`() {
+        val maxCacheSize = (10 * 1024 * 1024).toLong() // 10 MB
+        every { diskBufferingConfiguration.maxCacheSize }.returns(maxCacheSize.toInt())
+        every { diskBufferingConfiguration.maxCacheFileSize }.returns(1024 * 1024)
+        every { cacheStorage.usableSpace }.returns(8L * 1024 * 1024)
+        every { cacheStorage.ensureCacheSpaceAvailable(maxCacheSize) }.returns(8L * 1024 * 1024)
+        every { preferences.store(any(), any()) } just Runs
+        stubStoredCacheSize(7340032, maxCacheSize.toInt(), 100)
+
+        assertThat(diskManager.maxCacheSize).isEqualTo(5242880)
         verify {
-            preferences.retrieveInt(MAX_FOLDER_SIZE_KEY, -1)
+            preferences.store(MAX_CACHE_SIZE_KEY, 5242880)
+            preferences.store(USABLE_SPACE_MB_KEY, 8)
         }
-        confirmVerified(preferences)
-        verify { cacheStorage wasNot Called }
-        verify { diskBufferingConfiguration wasNot Called }
     }
 
     @Test
-    fun `max folder size is used when calculated size is invalid`() {
-        val maxCacheSize = (1024 * 1024).toLong() // 1 MB
+    fun `max cache size is 0 when calculated size is invalid`() {
+        val maxCacheSize = (4 * 1024 * 1024).toLong() // 4 MB
         val maxCacheFileSize = 1024 * 1024 // 1 MB
         every { diskBufferingConfiguration.maxCacheSize }.returns(maxCacheSize.toInt())
         every { diskBufferingConfiguration.maxCacheFileSize }.returns(maxCacheFileSize)
+        every { cacheStorage.usableSpace }.returns(100L * 1024 * 1024)
         every { cacheStorage.ensureCacheSpaceAvailable(maxCacheSize) }.returns(maxCacheSize)
-        every { preferences.retrieveInt(MAX_FOLDER_SIZE_KEY, -1) }.returns(-1)
-        // Expects the size of a single signal type folder minus the size of a cache file, to use as
-        // temporary space for reading.
-        assertThat(diskManager.maxFolderSize).isEqualTo(0)
+        every { preferences.retrieveInt(any(), -1) }.returns(-1)
+        // There must be room for at least a file per kind of signal, besides the temporary files.
+        assertThat(diskManager.maxCacheSize).isEqualTo(0)
         verify(inverse = true) {
             preferences.store(any(), any())
         }
     }
 
+    @Test
+    fun `splits the cache based on the usage of each kind of signal`() {
+        every { diskBufferingConfiguration.maxCacheSize }.returns(10 * 1024 * 1024)
+        every { diskBufferingConfiguration.maxCacheFileSize }.returns(1024 * 1024)
+        every { cacheStorage.usableSpace }.returns(100L * 1024 * 1024)
+        every { preferences.store(any(), any()) } just Runs
+        stubStoredCacheSize(7340032, 10 * 1024 * 1024, 100)
+        val signalsDir = createSignalFiles(spans = 800, logs = 100, metrics = 100)
+
+        val quotas = diskManager.signalQuotas(signalsDir)
+
+        assertThat(quotas).isEqualTo(SignalQuotas(4404019, 1468006, 1468006))
+        verify {
+            preferences.store(USAGE_SHARE_KEY_PREFIX + "spans", 800)
+            preferences.store(USAGE_SHARE_KEY_PREFIX + "logs", 100)
+            preferences.store(USAGE_SHARE_KEY_PREFIX + "metrics", 100)
+        }
+    }
+
+    @Test
+    fun `smooths the usage of each kind of signal over time`() {
+        every { diskBufferingConfiguration.maxCacheSize }.returns(10 * 1024 * 1024)
+        every { diskBufferingConfiguration.maxCacheFileSize }.returns(1024 * 1024)
+        every { cacheStorage.usableSpace }.returns(100L * 1024 * 1024)
+        every { preferences.store(any(), any()) } just Runs
+        stubStoredCacheSize(7340032, 10 * 1024 * 1024, 100)
+        every { preferences.retrieveInt(USAGE_SHARE_KEY_PREFIX + "spans", -1) }.returns(200)
+        every { preferences.retrieveInt(USAGE_SHARE_KEY_PREFIX + "logs", -1) }.returns(400)
+        every { preferences.retrieveInt(USAGE_SHARE_KEY_PREFIX + "metrics", -1) }.returns(400)
+        val signalsDir = createSignalFiles(spans = 800, logs = 100, metrics = 100)
+
+        diskManager.signalQuotas(signalsDir)
+
+        verify {
+            preferences.store(USAGE_SHARE_KEY_PREFIX + "spans", 500)
+            preferences.store(USAGE_SHARE_KEY_PREFIX + "logs", 250)
+            preferences.store(USAGE_SHARE_KEY_PREFIX + "metrics", 250)
+        }
+    }
+
+    @Test
+    fun `splits the cache evenly without any usage`() {
+        assertThat(DiskManager.allocate(9000, 1000, listOf(0, 0, 0)))
+            .containsExactly(3000, 3000, 3000)
+        assertThat(DiskManager.allocate(9000, 1000, listOf(1000, 0, 0)))
+            .containsExactly(7000, 1000, 1000)
+    }
+
+    @Test
+    fun `creates a file per batch storage by default`() {
+        every { diskBufferingConfiguration.storageEngine }.returns(StorageEngine.FILE_PER_BATCH)
+        every { diskBufferingConfiguration.maxAge }.returns(Duration.ofHours(18))
+        every { diskBufferingConfiguration.maxCacheSize }.returns(10 * 1024 * 1024)
+        every { diskBufferingConfiguration.maxCacheFileSize }.returns(1024 * 1024)
+        every { cacheStorage.usableSpace }.returns(100L * 1024 * 1024)
+        stubStoredCacheSize(7340032, 10 * 1024 * 1024, 100)
+
+        val storage = diskManager.createSignalStorage()
+
+        assertThat(storage).isInstanceOf(FilePerBatchSignalStorage::class.java)
+        assertThat(storage.rootDir).isEqualTo(File(cacheDir, "opentelemetry/signals"))
+    }
+
+    @Test
+    fun `creates a segmented log storage`() {
+        every { diskBufferingConfiguration.storageEngine }.returns(StorageEngine.SEGMENTED_LOG)
+        every { diskBufferingConfiguration.maxAge }.returns(Duration.ofHours(18))
+        every { diskBufferingConfiguration.compressionLevel }.returns(Deflater.BEST_SPEED)
+        every { diskBufferingConfiguration.maxCacheSize }.returns(10 * 1024 * 1024)
+        every { diskBufferingConfiguration.maxCacheFileSize }.returns(1024 * 1024)
+        every { cacheStorage.usableSpace }.returns(100L * 1024 * 1024)
+        stubStoredCacheSize(7340032, 10 * 1024 * 1024, 100)
+
+        val storage = diskManager.createSignalStorage()
+
+        assertThat(storage).isInstanceOf(SegmentedLogSignalStorage::class.java)
+        assertThat(storage.rootDir).isEqualTo(File(cacheDir, "opentelemetry/segments"))
+        assertThat(File(cacheDir, "opentelemetry/segments/spans").isDirectory).isTrue()
+    }
+
+    private fun stubStoredCacheSize(
+        maxCacheSize: Int,
+        requestedSize: Int,
+        usableSpaceMb: Int,
+    ) {
+        every { preferences.retrieveInt(any(), -1) }.returns(-1)
+        every { preferences.retrieveInt(MAX_CACHE_SIZE_KEY, -1) }.returns(maxCacheSize)
+        every { preferences.retrieveInt(REQUESTED_CACHE_SIZE_KEY, -1) }.returns(requestedSize)
+        every { preferences.retrieveInt(USABLE_SPACE_MB_KEY, -1) }.returns(usableSpaceMb)
+    }
+
+    private fun createSignalFiles(
+        spans: Int,
+        logs: Int,
+        metrics: Int,
+    ): File {
+        val signalsDir = File(cacheDir, "signals")
+        mapOf("spans" to spans, "logs" to logs, "metrics" to metrics).forEach { (folder, size) ->
+            File(signalsDir, folder).mkdirs()
+            File(signalsDir, "$folder/1000").writeBytes(ByteArray(size))
+        }
+        return signalsDir
+    }
+
     companion object {
-        private const val MAX_FOLDER_SIZE_KEY = "max_signal_folder_size"
+        private const val MAX_CACHE_SIZE_KEY = "max_cache_size"
+        private const val REQUESTED_CACHE_SIZE_KEY = "requested_cache_size"
+        private const val USABLE_SPACE_MB_KEY = "cache_usable_space_mb"
+        private const val USAGE_SHARE_KEY_PREFIX = "signal_usage_share_"
     }
 }
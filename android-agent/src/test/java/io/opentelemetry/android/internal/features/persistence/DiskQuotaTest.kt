@@ -0,0 +1,119 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.Clock
+import io.opentelemetry.sdk.testing.time.TestClock
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class DiskQuotaTest {
+    @TempDir
+    lateinit var dir: File
+
+    private val clock = TestClock.create()
+    private val logs = mutableListOf<SegmentedLog>()
+
+    @AfterEach
+    fun tearDown() {
+        logs.forEach { it.close() }
+    }
+
+    @Test
+    fun `Account the size of every log`() {
+        val quota = DiskQuota(1024)
+        open("first", quota).append(ByteArray(10))
+        open("second", quota).append(ByteArray(10))
+
+        assertThat(quota.usedSize).isEqualTo(52)
+    }
+
+    @Test
+    fun `Evict the lowest priority first`() {
+        val quota = DiskQuota(78)
+        val low = open("low", quota, priority = 0)
+        val high = open("high", quota, priority = 1)
+        low.append("a".repeat(10).toByteArray())
+        high.append("b".repeat(10).toByteArray())
+        low.append("c".repeat(10).toByteArray())
+
+        assertThat(high.append("d".repeat(10).toByteArray())).isTrue()
+
+        assertThat(quota.usedSize).isEqualTo(78)
+        assertThat(String(low.read()!!.data)).isEqualTo("c".repeat(10))
+        assertThat(String(high.read()!!.data)).isEqualTo("b".repeat(10))
+    }
+
+    @Test
+    fun `Evict the oldest first among the same priority`() {
+        val quota = DiskQuota(78)
+        val first = open("first", quota)
+        val second = open("second", quota)
+        second.append("a".repeat(10).toByteArray())
+        clock.advance(Duration.ofSeconds(1))
+        first.append("b".repeat(10).toByteArray())
+        clock.advance(Duration.ofSeconds(1))
+        second.append("c".repeat(10).toByteArray())
+
+        assertThat(first.append("d".repeat(10).toByteArray())).isTrue()
+
+        assertThat(String(second.read()!!.data)).isEqualTo("c".repeat(10))
+        assertThat(String(first.read()!!.data)).isEqualTo("b".repeat(10))
+    }
+
+    @Test
+    fun `Never evict data to make room for a lower priority`() {
+        val quota = DiskQuota(52)
+        val low = open("low", quota, priority = 0)
+        val high = open("high", quota, priority = 1)
+        high.append(ByteArray(10))
+        high.append(ByteArray(10))
+
+        assertThat(low.append(ByteArray(10))).isFalse()
+
+        assertThat(high.size).isEqualTo(52)
+    }
+
+    @Test
+    fun `Evict expired segments first`() {
+        val quota = DiskQuota(52)
+        val high =
+            SegmentedLog(
+                File(dir, "high"),
+                26,
+                quota,
+                1,
+                TimeUnit.HOURS.toMillis(1),
+                Clock.getDefault(),
+            ).also { logs.add(it) }
+        val low = open("low", quota, priority = 0)
+        high.append(ByteArray(10))
+        low.append(ByteArray(10))
+        File(dir, "high").listFiles { file -> file.name.endsWith(".log") }!!
+            .single()
+            .setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2))
+
+        assertThat(low.append(ByteArray(10))).isTrue()
+
+        assertThat(high.size).isZero()
+        assertThat(low.size).isEqualTo(52)
+    }
+
+    private fun open(
+        name: String,
+        quota: DiskQuota,
+        priority: Int = 0,
+    ): SegmentedLog {
+        // a single record per segment
+        return SegmentedLog(File(dir, name), 26, quota, priority, SegmentedLog.NO_MAX_AGE, clock)
+            .also { logs.add(it) }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import android.app.Application
+import android.content.ComponentCallbacks2
+import io.mockk.Runs
+import io.mockk.every
+import io.mockk.just
+import io.mockk.mockk
+import io.mockk.verify
+import io.opentelemetry.android.instrumentation.common.InstrumentedApplication
+import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
+import io.opentelemetry.android.internal.services.network.data.CurrentNetwork
+import io.opentelemetry.android.internal.services.network.data.NetworkState
+import io.opentelemetry.sdk.common.CompletableResultCode
+import io.opentelemetry.sdk.trace.data.SpanData
+import io.opentelemetry.sdk.trace.export.SpanExporter
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+class MemoryFirstBufferingTest {
+    companion object {
+        private val WIFI = CurrentNetwork.builder(NetworkState.TRANSPORT_WIFI).build()
+    }
+
+    private val delegate = mockk<SpanExporter>()
+    private val toDiskExporter = mockk<SpanExporter>()
+    private val span = mockk<SpanData>()
+    private val buffering = MemoryFirstBuffering(10)
+    private lateinit var exporter: SpanExporter
+
+    @BeforeEach
+    fun setUp() {
+        every { delegate.export(any()) } returns CompletableResultCode.ofSuccess()
+        every { toDiskExporter.export(any()) } returns CompletableResultCode.ofSuccess()
+        exporter = buffering.spanExporter(delegate, toDiskExporter)
+    }
+
+    @Test
+    fun `Register to the app state and memory pressure`() {
+        val application = mockk<Application>()
+        val instrumentedApplication = mockk<InstrumentedApplication>()
+        every { instrumentedApplication.application } returns application
+        every { instrumentedApplication.registerApplicationStateListener(any()) } just Runs
+        every { application.registerComponentCallbacks(any()) } just Runs
+
+        buffering.installOn(instrumentedApplication)
+
+        verify {
+            instrumentedApplication.registerApplicationStateListener(buffering)
+            application.registerComponentCallbacks(buffering)
+        }
+    }
+
+    @Test
+    fun `Store signals until the app is in the foreground`() {
+        exporter.export(listOf(span))
+        verify { toDiskExporter.export(listOf(span)) }
+
+        buffering.onApplicationForegrounded()
+        exporter.export(listOf(span))
+        verify(exactly = 1) {
+            toDiskExporter.export(any())
+            delegate.export(listOf(span))
+        }
+    }
+
+    @Test
+    fun `Store the signals kept in memory when the app goes to the background`() {
+        val currentNetworkProvider = mockk<CurrentNetworkProvider>()
+        every { currentNetworkProvider.currentNetwork } returns CurrentNetworkProvider.NO_NETWORK
+        every { currentNetworkProvider.addNetworkChangeListener(any()) } just Runs
+        buffering.listenToNetworkChanges(currentNetworkProvider)
+        buffering.onApplicationForegrounded()
+        exporter.export(listOf(span))
+        verify(exactly = 0) { toDiskExporter.export(any()) }
+
+        buffering.onApplicationBackgrounded()
+
+        verify { toDiskExporter.export(listOf(span)) }
+        verify(exactly = 0) { delegate.export(any()) }
+    }
+
+    @Test
+    fun `Store the signals kept in memory when trimming memory`() {
+        buffering.onApplicationForegrounded()
+        buffering.onNetworkChange(CurrentNetworkProvider.NO_NETWORK)
+        exporter.export(listOf(span))
+
+        buffering.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+
+        verify { toDiskExporter.export(listOf(span)) }
+    }
+
+    @Test
+    fun `Export the signals kept in memory when back online`() {
+        buffering.onApplicationForegrounded()
+        buffering.onNetworkChange(CurrentNetworkProvider.NO_NETWORK)
+        exporter.export(listOf(span))
+        verify(exactly = 0) { delegate.export(any()) }
+
+        buffering.onNetworkChange(WIFI)
+
+        verify { delegate.export(listOf(span)) }
+        verify(exactly = 0) { toDiskExporter.export(any()) }
+    }
+
+    @Test
+    fun `Store the signals kept in memory on shutdown`() {
+        every { toDiskExporter.shutdown() } returns CompletableResultCode.ofSuccess()
+        buffering.onApplicationForegrounded()
+        buffering.onNetworkChange(CurrentNetworkProvider.NO_NETWORK)
+        exporter.export(listOf(span))
+
+        exporter.shutdown()
+
+        verify {
+            toDiskExporter.export(listOf(span))
+            toDiskExporter.shutdown()
+        }
+        verify(exactly = 0) { delegate.shutdown() }
+    }
+}
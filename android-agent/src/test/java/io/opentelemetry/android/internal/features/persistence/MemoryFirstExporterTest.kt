@@ -0,0 +1,153 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.CompletableResultCode
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+class MemoryFirstExporterTest {
+    private val exported = mutableListOf<Collection<String>>()
+    private val stored = mutableListOf<Collection<String>>()
+    private var exportResult = CompletableResultCode.ofSuccess()
+    private var spilling = false
+    private var online = true
+
+    private val exporter =
+        MemoryFirstExporter(
+            {
+                exported.add(it)
+                exportResult
+            },
+            {
+                stored.add(it)
+                CompletableResultCode.ofSuccess()
+            },
+            2,
+            { spilling },
+            { online },
+        )
+
+    @Test
+    fun `Export directly while online`() {
+        val result = exporter.export(listOf("a"))
+
+        assertThat(result.isSuccess).isTrue()
+        assertThat(exported).containsExactly(listOf("a"))
+        assertThat(stored).isEmpty()
+    }
+
+    @Test
+    fun `Store the batches that fail to export`() {
+        exportResult = CompletableResultCode.ofFailure()
+
+        val result = exporter.export(listOf("a"))
+
+        assertThat(result.isSuccess).isTrue()
+        assertThat(stored).containsExactly(listOf("a"))
+    }
+
+    @Test
+    fun `Store batches once the export completes with a failure`() {
+        exportResult = CompletableResultCode()
+
+        val result = exporter.export(listOf("a"))
+        assertThat(result.isDone).isFalse()
+        assertThat(stored).isEmpty()
+
+        exportResult.fail()
+        assertThat(result.isSuccess).isTrue()
+        assertThat(stored).containsExactly(listOf("a"))
+    }
+
+    @Test
+    fun `Store batches right away while spilling`() {
+        spilling = true
+
+        exporter.export(listOf("a"))
+
+        assertThat(exported).isEmpty()
+        assertThat(stored).containsExactly(listOf("a"))
+    }
+
+    @Test
+    fun `Keep a copy of the batches kept in memory`() {
+        online = false
+        val batch = mutableListOf("a", "b")
+        exporter.export(batch)
+        // as done by the batch processors once the export returns
+        batch.clear()
+
+        online = true
+        exporter.flush()
+
+        assertThat(exported).containsExactly(listOf("a", "b"))
+    }
+
+    @Test
+    fun `Keep a copy of the batches spilled to disk`() {
+        online = false
+        val batch = mutableListOf("a")
+        exporter.export(batch)
+        batch.clear()
+
+        exporter.flush()
+
+        assertThat(stored).containsExactly(listOf("a"))
+    }
+
+    @Test
+    fun `Keep batches in memory while offline`() {
+        online = false
+        exporter.export(listOf("a"))
+        exporter.export(listOf("b"))
+        assertThat(exporter.queuedBatches).isEqualTo(2)
+        assertThat(exported).isEmpty()
+        assertThat(stored).isEmpty()
+
+        online = true
+        exporter.export(listOf("c"))
+
+        assertThat(exported).containsExactly(listOf("a"), listOf("b"), listOf("c"))
+        assertThat(exporter.queuedBatches).isZero()
+    }
+
+    @Test
+    fun `Store the oldest batches when the queue is full`() {
+        online = false
+        exporter.export(listOf("a"))
+        exporter.export(listOf("b"))
+        exporter.export(listOf("c"))
+
+        assertThat(stored).containsExactly(listOf("a"))
+        assertThat(exporter.queuedBatches).isEqualTo(2)
+    }
+
+    @Test
+    fun `Store the queued batches when spilled`() {
+        online = false
+        exporter.export(listOf("a"))
+        exporter.export(listOf("b"))
+
+        exporter.spill()
+
+        assertThat(stored).containsExactly(listOf("a"), listOf("b"))
+        assertThat(exporter.queuedBatches).isZero()
+    }
+
+    @Test
+    fun `Flush the queued batches`() {
+        online = false
+        exporter.export(listOf("a"))
+        exporter.flush()
+        assertThat(stored).containsExactly(listOf("a"))
+
+        exporter.export(listOf("b"))
+        online = true
+        exporter.flush()
+        assertThat(exported).containsExactly(listOf("b"))
+    }
+}
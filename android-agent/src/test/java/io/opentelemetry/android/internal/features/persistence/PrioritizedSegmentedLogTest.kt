@@ -0,0 +1,46 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class PrioritizedSegmentedLogTest {
+    @TempDir
+    lateinit var dir: File
+
+    @Test
+    fun `Read the highest priority first`() {
+        val log = PrioritizedSegmentedLog(dir, 1024, DiskQuota(4096))
+        log.append("low".toByteArray(), 0)
+        log.append("lowest".toByteArray(), -1)
+        log.append("high".toByteArray(), 5)
+
+        val records =
+            generateSequence { log.read()?.also { log.acknowledge(it) } }
+                .map { String(it.data) }
+                .toList()
+
+        assertThat(records).containsExactly("high", "low", "lowest")
+        log.close()
+    }
+
+    @Test
+    fun `Reopen the logs of every priority`() {
+        var log = PrioritizedSegmentedLog(dir, 1024, DiskQuota(4096))
+        log.append("low".toByteArray(), 0)
+        log.append("high".toByteArray(), 5)
+        log.close()
+
+        log = PrioritizedSegmentedLog(dir, 1024, DiskQuota(4096))
+
+        assertThat(log.size).isEqualTo(2 * 16 + 7)
+        assertThat(String(log.read()!!.data)).isEqualTo("high")
+        log.close()
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import java.io.IOException
+import java.util.zip.Deflater
+
+class RecordCodecTest {
+    private val data =
+        "at io.opentelemetry.android.Example.run(Example.java:42)\n".repeat(100).toByteArray()
+
+    @Test
+    fun `Store data as is without compression`() {
+        val codec = RecordCodec()
+
+        val record = codec.encode(data)
+
+        assertThat(record).isSameAs(data)
+        assertThat(codec.decode(codec.encoding, record)).isSameAs(data)
+    }
+
+    @Test
+    fun `Compress data`() {
+        val codec = RecordCodec(Deflater.BEST_COMPRESSION)
+
+        val record = codec.encode(data)
+
+        assertThat(record.size).isLessThan(data.size / 10)
+        assertThat(codec.decode(codec.encoding, record)).isEqualTo(data)
+    }
+
+    @Test
+    fun `Decode records written with another level`() {
+        val compressing = RecordCodec(Deflater.BEST_SPEED)
+        val compressed = compressing.encode(data)
+        val raw = RecordCodec().encode(data)
+
+        assertThat(RecordCodec().decode(compressing.encoding, compressed)).isEqualTo(data)
+        assertThat(compressing.decode(RecordCodec().encoding, raw)).isEqualTo(data)
+    }
+
+    @Test
+    fun `Fail to decode unknown or corrupt records`() {
+        val codec = RecordCodec(Deflater.BEST_SPEED)
+        val truncated = codec.encode(data).copyOf(10)
+
+        assertThatThrownBy { codec.decode(7, byteArrayOf(1, 2)) }
+            .isInstanceOf(IOException::class.java)
+        assertThatThrownBy { codec.decode(codec.encoding, truncated) }
+            .isInstanceOf(IOException::class.java)
+    }
+}
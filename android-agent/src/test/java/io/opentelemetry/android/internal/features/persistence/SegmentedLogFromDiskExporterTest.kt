@@ -0,0 +1,171 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.CompletableResultCode
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+class SegmentedLogFromDiskExporterTest {
+    @TempDir
+    lateinit var dir: File
+
+    private lateinit var log: PrioritizedSegmentedLog
+    private val exported = mutableListOf<Collection<String>>()
+    private var exportResult = CompletableResultCode.ofSuccess()
+
+    @BeforeEach
+    fun setUp() {
+        log = PrioritizedSegmentedLog(dir, 1024, DiskQuota(4096))
+    }
+
+    @AfterEach
+    fun tearDown() {
+        log.close()
+    }
+
+    @Test
+    fun `Export stored batches oldest first`() {
+        log.append("a,b".toByteArray(), 0)
+        log.append("c".toByteArray(), 0)
+        val exporter = createExporter(maxBatchItems = 1)
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isFalse()
+
+        assertThat(exported).containsExactly(listOf("a", "b"), listOf("c"))
+        assertThat(log.size).isZero()
+    }
+
+    @Test
+    fun `Keep the batch when its export fails`() {
+        log.append("a".toByteArray(), 0)
+        val exporter = createExporter()
+        exportResult = CompletableResultCode.ofFailure()
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isFalse()
+
+        exportResult = CompletableResultCode.ofSuccess()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exported).containsExactly(listOf("a"), listOf("a"))
+    }
+
+    @Test
+    fun `Keep the batch when its export times out`() {
+        log.append("a".toByteArray(), 0)
+        val exporter = createExporter()
+        exportResult = CompletableResultCode()
+
+        assertThat(exporter.exportStoredBatch(10, TimeUnit.MILLISECONDS)).isFalse()
+
+        assertThat(String(log.read()!!.data)).isEqualTo("a")
+    }
+
+    @Test
+    fun `Merge consecutive stored batches up to the item limit`() {
+        log.append("a,b".toByteArray(), 0)
+        log.append("c".toByteArray(), 0)
+        log.append("d,e".toByteArray(), 0)
+        val exporter = createExporter(maxBatchItems = 3)
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isFalse()
+
+        assertThat(exported).containsExactly(listOf("a", "b", "c"), listOf("d", "e"))
+        assertThat(log.size).isZero()
+    }
+
+    @Test
+    fun `Merge consecutive stored batches up to the byte limit`() {
+        log.append("a,b".toByteArray(), 0)
+        log.append("c".toByteArray(), 0)
+        log.append("d".toByteArray(), 0)
+        log.append("e".toByteArray(), 0)
+        val exporter = createExporter(maxBatchBytes = 4)
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+
+        assertThat(exported).containsExactly(listOf("a", "b", "c"), listOf("d", "e"))
+    }
+
+    @Test
+    fun `Export a stored batch bigger than the limits alone`() {
+        log.append("a,b,c".toByteArray(), 0)
+        log.append("d".toByteArray(), 0)
+        val exporter = createExporter(maxBatchItems = 2)
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+
+        assertThat(exported).containsExactly(listOf("a", "b", "c"))
+        assertThat(String(log.read()!!.data)).isEqualTo("d")
+    }
+
+    @Test
+    fun `Don't merge stored batches of different priorities`() {
+        log.append("a".toByteArray(), 1)
+        log.append("b".toByteArray(), 0)
+        val exporter = createExporter()
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+
+        assertThat(exported).containsExactly(listOf("a"), listOf("b"))
+    }
+
+    @Test
+    fun `Keep every merged batch when the export fails`() {
+        log.append("a".toByteArray(), 0)
+        log.append("b".toByteArray(), 0)
+        val exporter = createExporter()
+        exportResult = CompletableResultCode.ofFailure()
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isFalse()
+
+        assertThat(exported).containsExactly(listOf("a", "b"))
+        assertThat(String(log.read()!!.data)).isEqualTo("a")
+    }
+
+    @Test
+    fun `Drop a stored batch that can't be deserialized`() {
+        log.append("!".toByteArray(), 0)
+        log.append("a".toByteArray(), 0)
+        val exporter = createExporter()
+
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+        assertThat(exporter.exportStoredBatch(1, TimeUnit.SECONDS)).isTrue()
+
+        assertThat(exported).containsExactly(listOf("a"))
+        assertThat(log.size).isZero()
+    }
+
+    private fun createExporter(
+        maxBatchBytes: Int = Int.MAX_VALUE,
+        maxBatchItems: Int = Int.MAX_VALUE,
+    ): SegmentedLogFromDiskExporter<String> {
+        return SegmentedLogFromDiskExporter(
+            log,
+            { record ->
+                require(String(record.data) != "!") { "Invalid data" }
+                String(record.data).split(",")
+            },
+            { items ->
+                exported.add(items)
+                exportResult
+            },
+            { CompletableResultCode.ofSuccess() },
+            maxBatchBytes,
+            maxBatchItems,
+        )
+    }
+}
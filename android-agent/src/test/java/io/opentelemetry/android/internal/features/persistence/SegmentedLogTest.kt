@@ -0,0 +1,287 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.testing.time.TestClock
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.time.Duration
+
+class SegmentedLogTest {
+    @TempDir
+    lateinit var dir: File
+
+    private var log: SegmentedLog? = null
+
+    @AfterEach
+    fun tearDown() {
+        log?.close()
+    }
+
+    @Test
+    fun `Read records in the order they were appended`() {
+        val log = open()
+        assertThat(log.append("first".toByteArray())).isTrue()
+        assertThat(log.append("second".toByteArray())).isTrue()
+
+        val first = log.read()!!
+        assertThat(String(first.data)).isEqualTo("first")
+        assertThat(String(log.read()!!.data)).isEqualTo("first")
+
+        log.acknowledge(first)
+        val second = log.read()!!
+        assertThat(String(second.data)).isEqualTo("second")
+
+        log.acknowledge(second)
+        assertThat(log.read()).isNull()
+    }
+
+    @Test
+    fun `Roll segments when they are full`() {
+        val log = open(maxSegmentSize = 52)
+        log.append(ByteArray(10))
+        log.append(ByteArray(10))
+        log.append(ByteArray(10))
+
+        assertThat(segmentFiles()).hasSize(2)
+        assertThat(log.size).isEqualTo(78)
+    }
+
+    @Test
+    fun `Delete segments once all their records are acknowledged`() {
+        val log = open(maxSegmentSize = 52)
+        log.append(ByteArray(10))
+        log.append(ByteArray(10))
+        log.append(ByteArray(10))
+
+        log.acknowledge(log.read()!!)
+        assertThat(segmentFiles()).hasSize(2)
+        log.acknowledge(log.read()!!)
+        assertThat(segmentFiles()).hasSize(1)
+        log.acknowledge(log.read()!!)
+        assertThat(segmentFiles()).isEmpty()
+        assertThat(log.size).isZero()
+
+        assertThat(log.append("again".toByteArray())).isTrue()
+        assertThat(String(log.read()!!.data)).isEqualTo("again")
+    }
+
+    @Test
+    fun `Reject records bigger than a segment`() {
+        val log = open(maxSegmentSize = 28)
+
+        assertThat(log.append(ByteArray(13))).isFalse()
+        assertThat(log.append(ByteArray(12))).isTrue()
+    }
+
+    @Test
+    fun `Drop the oldest segments when full`() {
+        val log = open(maxSegmentSize = 26, maxSize = 52)
+        log.append("aaaaaaaaaa".toByteArray())
+        log.append("bbbbbbbbbb".toByteArray())
+        log.append("cccccccccc".toByteArray())
+
+        assertThat(log.size).isEqualTo(52)
+        assertThat(String(log.read()!!.data)).isEqualTo("bbbbbbbbbb")
+    }
+
+    @Test
+    fun `Resume reading from the checkpoint after reopening`() {
+        var log = open()
+        log.append("first".toByteArray())
+        log.append("second".toByteArray())
+        log.acknowledge(log.read()!!)
+        log.close()
+
+        log = open()
+        assertThat(String(log.read()!!.data)).isEqualTo("second")
+        log.append("third".toByteArray())
+        log.acknowledge(log.read()!!)
+        assertThat(String(log.read()!!.data)).isEqualTo("third")
+    }
+
+    @Test
+    fun `Skip a torn write at the end of a segment`() {
+        var log = open()
+        log.append("first".toByteArray())
+        log.close()
+        segmentFiles().single().appendBytes(byteArrayOf(0, 0, 0, 50, 1, 2))
+
+        log = open()
+        assertThat(segmentFiles().single().length()).isEqualTo(21)
+        log.append("second".toByteArray())
+        log.acknowledge(log.read()!!)
+        assertThat(String(log.read()!!.data)).isEqualTo("second")
+    }
+
+    @Test
+    fun `Truncate a torn record that fails its checksum`() {
+        var log = open()
+        log.append("first".toByteArray())
+        log.append("second".toByteArray())
+        log.close()
+        val file = segmentFiles().single()
+        file.writeBytes(file.readBytes().copyOf(file.length().toInt() - 1) + 0.toByte())
+
+        log = open()
+
+        assertThat(file.length()).isEqualTo(21)
+        assertThat(String(log.read()!!.data)).isEqualTo("first")
+    }
+
+    @Test
+    fun `Delete a segment left empty by a torn write`() {
+        var log = open()
+        log.append("first".toByteArray())
+        log.close()
+        val file = segmentFiles().single()
+        file.writeBytes(file.readBytes().copyOf(10))
+
+        log = open()
+
+        assertThat(segmentFiles()).isEmpty()
+        assertThat(log.read()).isNull()
+        assertThat(log.append("second".toByteArray())).isTrue()
+        assertThat(String(log.read()!!.data)).isEqualTo("second")
+    }
+
+    @Test
+    fun `Quarantine and skip corrupt records`() {
+        val log = open()
+        log.append("first".toByteArray())
+        log.append("second".toByteArray())
+        log.append("third".toByteArray())
+        val file = segmentFiles().single()
+        val bytes = file.readBytes()
+        bytes[17] = 'F'.code.toByte()
+        file.writeBytes(bytes)
+
+        val second = log.read()!!
+        assertThat(String(second.data)).isEqualTo("second")
+        assertThat(File(dir, "quarantine").listFiles()!!.single().readBytes())
+            .isEqualTo(bytes.copyOf(21))
+        log.acknowledge(second)
+        assertThat(String(log.read()!!.data)).isEqualTo("third")
+    }
+
+    @Test
+    fun `Skip the unreadable end of a segment`() {
+        val log = open(maxSegmentSize = 45)
+        log.append("first".toByteArray())
+        log.append("second".toByteArray())
+        log.append("third".toByteArray())
+        val first = segmentFiles().first()
+        val bytes = first.readBytes()
+        // a corrupt length that points past the end of the segment
+        bytes[21 + 1] = 1
+        first.writeBytes(bytes)
+
+        assertThat(String(log.read()!!.data)).isEqualTo("first")
+        log.acknowledge(log.read()!!)
+
+        assertThat(String(log.read()!!.data)).isEqualTo("third")
+    }
+
+    @Test
+    fun `Drop expired records when reading`() {
+        val clock = TestClock.create()
+        val log = open(maxAge = Duration.ofHours(1), clock = clock)
+        log.append("old".toByteArray())
+        clock.advance(Duration.ofMinutes(90))
+        log.append("new".toByteArray())
+
+        val record = log.read()!!
+
+        assertThat(String(record.data)).isEqualTo("new")
+        log.close()
+        assertThat(String(open().read()!!.data)).isEqualTo("new")
+    }
+
+    @Test
+    fun `Read ahead without consuming records`() {
+        val log = open(maxSegmentSize = 45)
+        log.append("first".toByteArray())
+        log.append("second".toByteArray())
+        log.append("third".toByteArray())
+        val first = log.read()!!
+
+        val second = log.readAfter(first)!!
+        val third = log.readAfter(second)!!
+
+        assertThat(String(second.data)).isEqualTo("second")
+        assertThat(String(third.data)).isEqualTo("third")
+        assertThat(segmentFiles()).hasSize(2)
+        assertThat(log.readAfter(third)).isNull()
+        assertThat(String(log.read()!!.data)).isEqualTo("first")
+        log.acknowledge(third)
+        assertThat(log.read()).isNull()
+    }
+
+    @Test
+    fun `Ignore acknowledgements of records already consumed`() {
+        val log = open()
+        log.append("first".toByteArray())
+        log.append("second".toByteArray())
+        val first = log.read()!!
+        log.acknowledge(first)
+
+        log.acknowledge(first)
+
+        assertThat(String(log.read()!!.data)).isEqualTo("second")
+    }
+
+    @Test
+    fun `Do nothing once closed`() {
+        val log = open()
+        log.append("first".toByteArray())
+        log.close()
+
+        assertThat(log.append("second".toByteArray())).isFalse()
+        assertThat(log.read()).isNull()
+    }
+
+    @Test
+    fun `Store the tag of records apart from their data`() {
+        val log = open(tagged = true)
+        log.append("first".toByteArray(), 1)
+        log.append(ByteArray(0), 2)
+
+        val first = log.read()!!
+        assertThat(String(first.data)).isEqualTo("first")
+        assertThat(first.tag).isEqualTo(1.toByte())
+        log.acknowledge(first)
+        log.close()
+
+        val empty = open(tagged = true).read()!!
+        assertThat(empty.data).isEmpty()
+        assertThat(empty.tag).isEqualTo(2.toByte())
+    }
+
+    private fun open(
+        maxSegmentSize: Int = 1024,
+        maxSize: Long = 4096,
+        maxAge: Duration? = null,
+        clock: TestClock = TestClock.create(),
+        tagged: Boolean = false,
+    ): SegmentedLog {
+        return SegmentedLog(
+            dir,
+            maxSegmentSize,
+            DiskQuota(maxSize),
+            0,
+            maxAge?.toMillis() ?: SegmentedLog.NO_MAX_AGE,
+            clock,
+            tagged,
+        ).also { log = it }
+    }
+
+    private fun segmentFiles(): List<File> {
+        return dir.listFiles { file -> file.name.endsWith(".log") }!!.sortedBy { it.name }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.features.persistence
+
+import io.opentelemetry.sdk.common.CompletableResultCode
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class SegmentedLogToDiskExporterTest {
+    @TempDir
+    lateinit var dir: File
+
+    private lateinit var log: PrioritizedSegmentedLog
+    private val exported = mutableListOf<Collection<String>>()
+
+    @BeforeEach
+    fun setUp() {
+        log = PrioritizedSegmentedLog(dir, 32, DiskQuota(1024))
+    }
+
+    @AfterEach
+    fun tearDown() {
+        log.close()
+    }
+
+    @Test
+    fun `Store every batch as a record`() {
+        val exporter = createExporter()
+
+        assertThat(exporter.export(listOf("a", "b")).isSuccess).isTrue()
+
+        assertThat(String(log.read()!!.data)).isEqualTo("a,b")
+        assertThat(exported).isEmpty()
+    }
+
+    @Test
+    fun `Export right away what can't be stored`() {
+        val exporter = createExporter()
+        val batch = listOf("a".repeat(40))
+
+        assertThat(exporter.export(batch).isSuccess).isTrue()
+
+        assertThat(log.read()).isNull()
+        assertThat(exported).containsExactly(batch)
+    }
+
+    @Test
+    fun `Store items of different priorities separately`() {
+        val exporter = createExporter()
+
+        assertThat(exporter.export(listOf("a", "B", "c")).isSuccess).isTrue()
+
+        val high = log.read()!!
+        assertThat(String(high.data)).isEqualTo("B")
+        log.acknowledge(high)
+        assertThat(String(log.read()!!.data)).isEqualTo("a,c")
+    }
+
+    @Test
+    fun `Ignore empty batches`() {
+        val exporter = createExporter()
+
+        assertThat(exporter.export(emptyList()).isSuccess).isTrue()
+
+        assertThat(log.read()).isNull()
+        assertThat(exported).isEmpty()
+    }
+
+    private fun createExporter(): SegmentedLogToDiskExporter<String> {
+        return SegmentedLogToDiskExporter(
+            log,
+            { items -> items.joinToString(",").toByteArray() },
+            { item -> if (item.uppercase() == item) 1 else 0 },
+            { items ->
+                exported.add(items)
+                CompletableResultCode.ofSuccess()
+            },
+        )
+    }
+}
@@ -8,6 +8,7 @@ package io.opentelemetry.android.internal.services
 import io.opentelemetry.android.internal.services.ServiceManager.Companion.initialize
 import io.opentelemetry.android.internal.services.network.CurrentNetworkProvider
 import io.opentelemetry.android.internal.services.periodicwork.PeriodicWorkService
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -30,6 +31,7 @@ class ServiceManagerImplTest {
         assertThat(serviceManager.getCacheStorage()).isInstanceOf(CacheStorage::class.java)
         assertThat(serviceManager.getPreferences()).isInstanceOf(Preferences::class.java)
         assertThat(serviceManager.getCurrentNetworkProvider()).isInstanceOf(CurrentNetworkProvider::class.java)
+        assertThat(serviceManager.getSchedulerService()).isInstanceOf(SchedulerService::class.java)
     }
 
     @Test
@@ -12,6 +12,7 @@ import io.mockk.mockk
 import io.mockk.verify
 import io.opentelemetry.android.internal.tools.time.SystemTime
 import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -60,19 +61,45 @@ class PeriodicRunnableTest {
     }
 
     @Test
-    fun `When needed to run again, enqueue for next loop`() {
+    fun `When needed to run again, schedule after the minimum delay`() {
         val runnable = createRunnable(1000)
 
         runnable.run()
 
         assertThat(runnable.timesRun).isEqualTo(1)
         verify {
-            periodicWorkService.enqueue(runnable)
+            periodicWorkService.schedule(runnable, 1000)
         }
     }
 
     @Test
-    fun `When no need to run again, do not enqueue for next loop`() {
+    fun `When run too early, schedule for when the minimum delay has passed`() {
+        val runnable = createRunnable(1000)
+        runnable.run()
+        testSystemTime.advanceTimeByMillis(400)
+
+        runnable.run()
+
+        assertThat(runnable.timesRun).isEqualTo(1)
+        verify {
+            periodicWorkService.schedule(runnable, 600)
+        }
+    }
+
+    @Test
+    fun `When the run fails, still schedule the next run`() {
+        val runnable = createRunnable(1000)
+        runnable.failOnRun = true
+
+        assertThatThrownBy { runnable.run() }.isInstanceOf(IllegalStateException::class.java)
+
+        verify {
+            periodicWorkService.schedule(runnable, 1000)
+        }
+    }
+
+    @Test
+    fun `When no need to run again, do not schedule the next run`() {
         val runnable = createRunnable(1000)
         runnable.stopAfterRun = true
 
@@ -80,7 +107,7 @@ class PeriodicRunnableTest {
 
         assertThat(runnable.timesRun).isEqualTo(1)
         verify(exactly = 0) {
-            periodicWorkService.enqueue(runnable)
+            periodicWorkService.schedule(runnable, any())
         }
     }
 
@@ -88,7 +115,7 @@ class PeriodicRunnableTest {
 
     private fun createPeriodicWorkServiceMock(): PeriodicWorkService {
         val periodicWorkService = mockk<PeriodicWorkService>()
-        every { periodicWorkService.enqueue(any()) } just Runs
+        every { periodicWorkService.schedule(any(), any()) } just Runs
 
         return periodicWorkService
     }
@@ -99,9 +126,11 @@ class PeriodicRunnableTest {
     ) : PeriodicRunnable({ periodicWorkService }) {
         var timesRun = 0
         var stopAfterRun = false
+        var failOnRun = false
         private var stopRunning = false
 
         override fun onRun() {
+            check(!failOnRun) { "failed" }
             timesRun++
             if (stopAfterRun) {
                 stopRunning = true
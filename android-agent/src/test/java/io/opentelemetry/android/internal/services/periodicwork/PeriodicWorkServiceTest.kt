@@ -5,124 +5,96 @@
 
 package io.opentelemetry.android.internal.services.periodicwork
 
+import android.os.Looper
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import io.opentelemetry.android.internal.services.scheduler.SchedulerService
 import org.assertj.core.api.Assertions.assertThat
-import org.junit.Assert.fail
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
-import org.robolectric.shadows.ShadowLooper
+import org.robolectric.Shadows.shadowOf
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.TimeUnit
 
 @RunWith(RobolectricTestRunner::class)
 class PeriodicWorkServiceTest {
-    companion object {
-        private const val DELAY_BETWEEN_EXECUTIONS_IN_SECONDS = 10L
-    }
-
+    private lateinit var scheduler: ScheduledExecutorService
     private lateinit var service: PeriodicWorkService
 
     @Before
     fun setUp() {
-        service = PeriodicWorkService()
+        scheduler = mockk()
+        every { scheduler.schedule(any<Runnable>(), any(), any()) } returns mockk()
+        val schedulerService = mockk<SchedulerService>()
+        every { schedulerService.getScheduler() } returns scheduler
+        service = PeriodicWorkService(schedulerService)
     }
 
     @Test
     fun `Execute enqueued work on start`() {
+        val realService = PeriodicWorkService(SchedulerService())
         val numberOfTasks = 5
         val latch = CountDownLatch(numberOfTasks)
         val threadIds = mutableSetOf<Long>()
         repeat(numberOfTasks) {
-            service.enqueue {
-                threadIds.add(Thread.currentThread().id)
+            realService.enqueue {
+                synchronized(threadIds) {
+                    threadIds.add(Thread.currentThread().id)
+                }
                 latch.countDown()
             }
         }
 
-        service.start()
-        latch.await()
+        realService.start()
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue()
+
+        // The worker threads are not the main thread
+        assertThat(threadIds).doesNotContain(Thread.currentThread().id)
+    }
 
-        // All ran in a single worker thread
-        assertThat(threadIds.size).isEqualTo(1)
+    @Test
+    fun `Hold work until started`() {
+        val work = Runnable {}
+        service.schedule(work, 1000)
+
+        verify(exactly = 0) { scheduler.schedule(any<Runnable>(), any(), any()) }
+
+        service.start()
 
-        // The worker thread is not the same as the main thread
-        assertThat(threadIds.first()).isNotEqualTo(Thread.currentThread().id)
+        verify(exactly = 1) { scheduler.schedule(work, 1000, TimeUnit.MILLISECONDS) }
     }
 
     @Test
     fun `Start only once`() {
-        val latch = CountDownLatch(1)
+        val work = Runnable {}
+        service.enqueue(work)
 
-        // First start (should work)
-        service.enqueue {
-            latch.countDown()
-        }
         service.start()
-        latch.await()
-
-        // Trying to re-start (should not work)
-        service.enqueue {
-            fail("Must not execute this right away.")
-        }
         service.start()
 
-        Thread.sleep(200) // Giving some time for the test to fail.
+        verify(exactly = 1) { scheduler.schedule(work, 0, TimeUnit.MILLISECONDS) }
     }
 
     @Test
-    fun `Check for pending work after a delay`() {
-        val firstRunLatch = CountDownLatch(1)
-        val secondRunLatch = CountDownLatch(1)
-        var secondRunExecuted = false
-
-        // First run right away
-        service.enqueue {
-            firstRunLatch.countDown()
-        }
+    fun `Schedule work directly once started`() {
         service.start()
-        service.enqueue {
-            secondRunExecuted = true
-            secondRunLatch.countDown()
-        }
-        firstRunLatch.await()
-        assertThat(secondRunExecuted).isFalse()
+        val work = Runnable {}
 
-        // Second run after delay
-        fastForwardBySeconds(DELAY_BETWEEN_EXECUTIONS_IN_SECONDS)
-        secondRunLatch.await(1, TimeUnit.SECONDS)
-        assertThat(secondRunExecuted).isTrue()
+        service.schedule(work, 10_000)
+
+        verify(exactly = 1) { scheduler.schedule(work, 10_000, TimeUnit.MILLISECONDS) }
     }
 
     @Test
-    fun `Remove delegated work from further executions`() {
-        val firstRunLatch = CountDownLatch(1)
-        val secondRunLatch = CountDownLatch(1)
-        var timesExecutedFirstWork = 0
-        var timesExecutedSecondWork = 0
-
-        // First run right away
-        service.enqueue {
-            timesExecutedFirstWork++
-            firstRunLatch.countDown()
-        }
+    fun `Never post to the main looper`() {
+        service.enqueue {}
         service.start()
-        service.enqueue {
-            timesExecutedSecondWork++
-            secondRunLatch.countDown()
-        }
-        firstRunLatch.await()
-        assertThat(timesExecutedFirstWork).isEqualTo(1)
-        assertThat(timesExecutedSecondWork).isEqualTo(0)
-
-        // Second run after delay
-        fastForwardBySeconds(DELAY_BETWEEN_EXECUTIONS_IN_SECONDS)
-        secondRunLatch.await(1, TimeUnit.SECONDS)
-        assertThat(timesExecutedFirstWork).isEqualTo(1)
-        assertThat(timesExecutedSecondWork).isEqualTo(1)
-    }
+        service.schedule({}, 10_000)
 
-    private fun fastForwardBySeconds(seconds: Long) {
-        ShadowLooper.idleMainLooper(seconds, TimeUnit.SECONDS)
+        assertThat(shadowOf(Looper.getMainLooper()).isIdle).isTrue()
     }
 }
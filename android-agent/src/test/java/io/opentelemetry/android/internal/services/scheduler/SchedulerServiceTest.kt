@@ -0,0 +1,76 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.internal.services.scheduler
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+class SchedulerServiceTest {
+    @Test
+    fun `Always provide the same scheduler`() {
+        val service = SchedulerService()
+
+        assertThat(service.getScheduler()).isSameAs(service.getScheduler())
+    }
+
+    @Test
+    fun `Configure the scheduler threads`() {
+        val service = SchedulerService(3, SchedulerService.DEFAULT_THREAD_PRIORITY)
+
+        val executor = service.getScheduler() as ScheduledThreadPoolExecutor
+
+        assertThat(executor.corePoolSize).isEqualTo(3)
+        assertThat(executor.allowsCoreThreadTimeOut()).isTrue()
+        assertThat(executor.removeOnCancelPolicy).isTrue()
+    }
+
+    @Test
+    fun `Run tasks on daemon agent threads`() {
+        val service = SchedulerService()
+        val latch = CountDownLatch(1)
+        var thread: Thread? = null
+
+        service.getScheduler().schedule({
+            thread = Thread.currentThread()
+            latch.countDown()
+        }, 10, TimeUnit.MILLISECONDS)
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue()
+        assertThat(thread!!.name).startsWith("otel-rum-scheduler-")
+        assertThat(thread!!.isDaemon).isTrue()
+    }
+
+    @Test
+    fun `Run blocking I O on separate bounded agent threads`() {
+        val service = SchedulerService()
+        val release = CountDownLatch(1)
+        val started = CountDownLatch(SchedulerService.IO_THREAD_COUNT)
+        val threadNames = ConcurrentLinkedQueue<String>()
+
+        try {
+            repeat(SchedulerService.IO_THREAD_COUNT) {
+                service.getIoExecutor().execute {
+                    threadNames.add(Thread.currentThread().name)
+                    started.countDown()
+                    release.await()
+                }
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue()
+
+            assertThatThrownBy { service.getIoExecutor().execute {} }
+                .isInstanceOf(RejectedExecutionException::class.java)
+            assertThat(threadNames).allMatch { it.startsWith("otel-rum-io-") }
+        } finally {
+            release.countDown()
+        }
+    }
+}
@@ -8,11 +8,17 @@ package io.opentelemetry.android.instrumentation.anr;
 import android.os.Handler;
 import android.os.Looper;
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.instrumentation.api.instrumenter.InstrumenterBuilder;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 /** Entrypoint for installing the ANR (application not responding) detection instrumentation. */
@@ -31,44 +37,112 @@ public final class AnrDetector {
     private final List<AttributesExtractor<StackTraceElement[], Void>> additionalExtractors;
     private final Looper mainLooper;
     private final ScheduledExecutorService scheduler;
+    private final Duration probeInterval;
+    private final Duration hangThreshold;
+    private final Duration severeHangThreshold;
+    private final Duration anrThreshold;
+    private final Duration stackSamplingInterval;
+    private final int maxStackSamples;
+    private final int maxStackTraceFrames;
 
     AnrDetector(AnrDetectorBuilder builder) {
         this.additionalExtractors = builder.additionalExtractors;
         this.mainLooper = builder.mainLooper;
-        this.scheduler = builder.scheduler;
+        this.probeInterval = builder.probeInterval;
+        this.hangThreshold = builder.hangThreshold;
+        this.severeHangThreshold = builder.severeHangThreshold;
+        this.anrThreshold = builder.anrThreshold;
+        this.stackSamplingInterval = builder.stackSamplingInterval;
+        this.maxStackSamples = builder.maxStackSamples;
+        this.maxStackTraceFrames = builder.maxStackTraceFrames;
+        this.scheduler =
+                builder.scheduler != null
+                        ? builder.scheduler
+                        : Executors.newScheduledThreadPool(1);
     }
 
     /**
      * Installs the ANR detection instrumentation on the given {@link InstrumentedApplication}.
      *
-     * <p>When the main thread is unresponsive for 5 seconds or more, an event including the main
-     * thread's stack trace will be reported to the RUM system.
+     * <p>When the main thread is unresponsive for longer than the hang threshold, a "Hang",
+     * "SevereHang" or "ANR" span spanning the unresponsive period, and including the main thread's
+     * stack trace and a profile of its stack sampled during the hang, will be reported to the RUM
+     * system.
      */
     public void installOn(InstrumentedApplication instrumentedApplication) {
         Handler uiHandler = new Handler(mainLooper);
+        Thread mainThread = mainLooper.getThread();
+        StackSampler stackSampler =
+                stackSamplingInterval.isZero() || maxStackSamples == 0
+                        ? null
+                        : new StackSampler(
+                                mainThread,
+                                scheduler,
+                                stackSamplingInterval.toNanos(),
+                                maxStackSamples);
+        StackTraceEncoder stackTraceEncoder = StackTraceEncoder.create(maxStackTraceFrames);
+        // the repeated stack traces are reported in full once per session
+        instrumentedApplication.registerSessionChangeListener(stackTraceEncoder);
         AnrWatcher anrWatcher =
                 new AnrWatcher(
                         uiHandler,
-                        mainLooper.getThread(),
-                        buildAnrInstrumenter(instrumentedApplication.getOpenTelemetrySdk()));
+                        mainThread,
+                        stackSampler,
+                        buildHangInstrumenter(
+                                instrumentedApplication.getOpenTelemetrySdk(),
+                                stackTraceEncoder,
+                                additionalExtractors),
+                        hangThreshold.toNanos(),
+                        severeHangThreshold.toNanos(),
+                        anrThreshold.toNanos());
 
-        AnrDetectorToggler listener = new AnrDetectorToggler(anrWatcher, scheduler);
+        AnrDetectorToggler listener =
+                new AnrDetectorToggler(anrWatcher, scheduler, probeInterval.toMillis());
         // call it manually the first time to enable the ANR detection
         listener.onApplicationForegrounded();
 
         instrumentedApplication.registerApplicationStateListener(listener);
     }
 
-    private Instrumenter<StackTraceElement[], Void> buildAnrInstrumenter(
-            OpenTelemetry openTelemetry) {
-        return Instrumenter.<StackTraceElement[], Void>builder(
-                        openTelemetry, "io.opentelemetry.anr", stackTrace -> "ANR")
-                // it's always an error
-                .setSpanStatusExtractor(
-                        (spanStatusBuilder, stackTrace, unused, error) ->
-                                spanStatusBuilder.setStatus(StatusCode.ERROR))
-                .addAttributesExtractor(new StackTraceFormatter())
-                .addAttributesExtractors(additionalExtractors)
-                .buildInstrumenter();
+    static Instrumenter<Hang, Void> buildHangInstrumenter(
+            OpenTelemetry openTelemetry,
+            StackTraceEncoder stackTraceEncoder,
+            List<AttributesExtractor<StackTraceElement[], Void>> additionalExtractors) {
+        InstrumenterBuilder<Hang, Void> builder =
+                Instrumenter.<Hang, Void>builder(
+                                openTelemetry,
+                                "io.opentelemetry.anr",
+                                hang -> hang.getSeverity().getSpanName())
+                        // it's always an error
+                        .setSpanStatusExtractor(
+                                (spanStatusBuilder, hang, unused, error) ->
+                                        spanStatusBuilder.setStatus(StatusCode.ERROR))
+                        .addAttributesExtractor(
+                                forStackTrace(new StackTraceFormatter(stackTraceEncoder)))
+                        .addAttributesExtractor(new HangProfileExtractor());
+        for (AttributesExtractor<StackTraceElement[], Void> extractor : additionalExtractors) {
+            builder.addAttributesExtractor(forStackTrace(extractor));
+        }
+        return builder.buildInstrumenter();
+    }
+
+    private static AttributesExtractor<Hang, Void> forStackTrace(
+            AttributesExtractor<StackTraceElement[], Void> extractor) {
+        return new AttributesExtractor<Hang, Void>() {
+            @Override
+            public void onStart(AttributesBuilder attributes, Context parentContext, Hang hang) {
+                extractor.onStart(attributes, parentContext, hang.getStackTrace());
+            }
+
+            @Override
+            public void onEnd(
+                    AttributesBuilder attributes,
+                    Context context,
+                    Hang hang,
+                    Void unused,
+                    Throwable error) {
+                extractor.onEnd(attributes, context, hang.getStackTrace(), unused, error);
+            }
+        };
     }
 }
@@ -6,10 +6,12 @@
 package io.opentelemetry.android.instrumentation.anr;
 
 import android.os.Looper;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 /** A builder of {@link AnrDetector}. */
@@ -20,7 +22,14 @@ public final class AnrDetectorBuilder {
     final List<AttributesExtractor<StackTraceElement[], Void>> additionalExtractors =
             new ArrayList<>();
     Looper mainLooper = Looper.getMainLooper();
-    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    @Nullable ScheduledExecutorService scheduler;
+    Duration probeInterval = Duration.ofMillis(250);
+    Duration hangThreshold = Duration.ofMillis(250);
+    Duration severeHangThreshold = Duration.ofSeconds(2);
+    Duration anrThreshold = Duration.ofSeconds(5);
+    Duration stackSamplingInterval = Duration.ofMillis(50);
+    int maxStackSamples = 100;
+    int maxStackTraceFrames = StackTraceEncoder.DEFAULT_MAX_FRAMES;
 
     /** Adds an {@link AttributesExtractor} that will extract additional attributes. */
     public AnrDetectorBuilder addAttributesExtractor(
@@ -35,14 +44,99 @@ public final class AnrDetectorBuilder {
         return this;
     }
 
-    // visible for tests
-    AnrDetectorBuilder setScheduler(ScheduledExecutorService scheduler) {
+    /**
+     * Sets the {@link ScheduledExecutorService} used to periodically check the main thread. The
+     * scheduler is shared and not owned by the {@link AnrDetector}: it is never shut down. When not
+     * set, the {@link AnrDetector} creates its own single-threaded scheduler.
+     */
+    public AnrDetectorBuilder setScheduler(ScheduledExecutorService scheduler) {
         this.scheduler = scheduler;
         return this;
     }
 
-    /** Returns a new {@link AnrDetector} with the settings of this {@link AnrDetectorBuilder}. */
+    /**
+     * Sets how often the main thread is checked, 250 milliseconds by default. Hangs are measured
+     * with this precision, so it should not be longer than the hang threshold.
+     */
+    public AnrDetectorBuilder setProbeInterval(Duration probeInterval) {
+        this.probeInterval = probeInterval;
+        return this;
+    }
+
+    /**
+     * Sets how long the main thread must be unresponsive for it to be reported as a hang, 250
+     * milliseconds by default.
+     */
+    public AnrDetectorBuilder setHangThreshold(Duration hangThreshold) {
+        this.hangThreshold = hangThreshold;
+        return this;
+    }
+
+    /**
+     * Sets how long the main thread must be unresponsive for it to be reported as a severe hang, 2
+     * seconds by default.
+     */
+    public AnrDetectorBuilder setSevereHangThreshold(Duration severeHangThreshold) {
+        this.severeHangThreshold = severeHangThreshold;
+        return this;
+    }
+
+    /**
+     * Sets how long the main thread must be unresponsive for it to be reported as an ANR, 5
+     * seconds by default, as the system does for input events.
+     */
+    public AnrDetectorBuilder setAnrThreshold(Duration anrThreshold) {
+        this.anrThreshold = anrThreshold;
+        return this;
+    }
+
+    /**
+     * Sets how often the main thread's stack is sampled once it hangs, 50 milliseconds by default.
+     * The samples are aggregated into a profile attached to the hang, in the folded stacks format.
+     * A zero interval disables sampling.
+     */
+    public AnrDetectorBuilder setStackSamplingInterval(Duration stackSamplingInterval) {
+        this.stackSamplingInterval = stackSamplingInterval;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of stack samples taken per hang, 100 by default, which bounds the
+     * sampling overhead and the size of the profile.
+     */
+    public AnrDetectorBuilder setMaxStackSamples(int maxStackSamples) {
+        this.maxStackSamples = maxStackSamples;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of frames of the reported stack traces, 256 by default. Stack traces
+     * reported again are only identified by their fingerprint.
+     */
+    public AnrDetectorBuilder setMaxStackTraceFrames(int maxStackTraceFrames) {
+        this.maxStackTraceFrames = maxStackTraceFrames;
+        return this;
+    }
+
+    /**
+     * Returns a new {@link AnrDetector} with the settings of this {@link AnrDetectorBuilder}.
+     *
+     * @throws IllegalArgumentException if the probe interval is not positive, if the thresholds
+     *     are not in increasing order, or if the stack trace settings are negative.
+     */
     public AnrDetector build() {
+        if (probeInterval.isNegative() || probeInterval.isZero()) {
+            throw new IllegalArgumentException("The probe interval must be positive");
+        }
+        if (stackSamplingInterval.isNegative() || maxStackSamples < 0 || maxStackTraceFrames < 0) {
+            throw new IllegalArgumentException("The stack trace settings must not be negative");
+        }
+        if (hangThreshold.compareTo(severeHangThreshold) > 0
+                || severeHangThreshold.compareTo(anrThreshold) > 0) {
+            throw new IllegalArgumentException(
+                    "The hang threshold must not exceed the severe hang threshold,"
+                            + " which must not exceed the ANR threshold");
+        }
         return new AnrDetector(this);
     }
 }
@@ -15,18 +15,26 @@ final class AnrDetectorToggler implements ApplicationStateListener {
 
     private final Runnable anrWatcher;
     private final ScheduledExecutorService anrScheduler;
+    private final long probeIntervalMillis;
 
     @Nullable private ScheduledFuture<?> future;
 
-    AnrDetectorToggler(Runnable anrWatcher, ScheduledExecutorService anrScheduler) {
+    AnrDetectorToggler(
+            Runnable anrWatcher, ScheduledExecutorService anrScheduler, long probeIntervalMillis) {
         this.anrWatcher = anrWatcher;
         this.anrScheduler = anrScheduler;
+        this.probeIntervalMillis = probeIntervalMillis;
     }
 
     @Override
     public void onApplicationForegrounded() {
         if (future == null) {
-            future = anrScheduler.scheduleWithFixedDelay(anrWatcher, 1, 1, TimeUnit.SECONDS);
+            future =
+                    anrScheduler.scheduleWithFixedDelay(
+                            anrWatcher,
+                            probeIntervalMillis,
+                            probeIntervalMillis,
+                            TimeUnit.MILLISECONDS);
         }
     }
 
@@ -6,54 +6,184 @@
 package io.opentelemetry.android.instrumentation.anr;
 
 import android.os.Handler;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import io.opentelemetry.instrumentation.api.internal.InstrumenterUtil;
+import io.opentelemetry.sdk.common.Clock;
+import java.time.Instant;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
+/**
+ * Checks that the main thread keeps responding, without blocking nor allocating.
+ *
+ * <p>Every run posts a heartbeat to the main thread, which records when it ran and bumps a tick
+ * counter, unless the heartbeat posted by a previous run is still pending. The time between posting
+ * a heartbeat and its run is how long the main thread was unresponsive.
+ *
+ * <p>Stalls longer than the hang or the severe hang threshold are reported once the main thread
+ * responds again, with their start and end time. Stalls reaching the ANR threshold are reported
+ * right away instead, as the app may be killed before it responds, and then again every time the
+ * stall lasts for another ANR threshold.
+ *
+ * <p>Once a stall passes the hang threshold, the main thread's stack is also sampled with the
+ * {@link StackSampler} until it ends, and the resulting profile is attached to the reports.
+ */
 final class AnrWatcher implements Runnable {
-    private final AtomicInteger anrCounter = new AtomicInteger();
-    private final Handler uiHandler;
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    private final Predicate<Runnable> mainThreadPoster;
     private final Thread mainThread;
-    private final Instrumenter<StackTraceElement[], Void> instrumenter;
+    @Nullable private final StackSampler stackSampler;
+    private final Instrumenter<Hang, Void> instrumenter;
+    private final Clock clock;
+    private final long hangThresholdNanos;
+    private final long severeHangThresholdNanos;
+    private final long anrThresholdNanos;
+    // the same heartbeat is posted every time, so that checking doesn't allocate
+    private final Runnable heartbeat = this::onHeartbeat;
+
+    private final AtomicInteger heartbeatTick = new AtomicInteger();
+    // written before bumping the tick, so it is up-to-date once the tick changed
+    private volatile long respondedAtNanos = 0;
+
+    // only accessed by the runs, which never overlap
+    private int postedAtTick = 0;
+    private long postedAtNanos = 0;
+    private boolean heartbeatPending = false;
+    @Nullable private StackTraceElement[] stackTrace;
+    private long stackTraceSampledAfterNanos = 0;
+    private boolean sampling = false;
+    private int reportedAnrs = 0;
 
     AnrWatcher(
             Handler uiHandler,
             Thread mainThread,
-            Instrumenter<StackTraceElement[], Void> instrumenter) {
-        this.uiHandler = uiHandler;
+            @Nullable StackSampler stackSampler,
+            Instrumenter<Hang, Void> instrumenter,
+            long hangThresholdNanos,
+            long severeHangThresholdNanos,
+            long anrThresholdNanos) {
+        this(
+                uiHandler::post,
+                mainThread,
+                stackSampler,
+                instrumenter,
+                Clock.getDefault(),
+                hangThresholdNanos,
+                severeHangThresholdNanos,
+                anrThresholdNanos);
+    }
+
+    @VisibleForTesting
+    AnrWatcher(
+            Predicate<Runnable> mainThreadPoster,
+            Thread mainThread,
+            @Nullable StackSampler stackSampler,
+            Instrumenter<Hang, Void> instrumenter,
+            Clock clock,
+            long hangThresholdNanos,
+            long severeHangThresholdNanos,
+            long anrThresholdNanos) {
+        this.mainThreadPoster = mainThreadPoster;
         this.mainThread = mainThread;
+        this.stackSampler = stackSampler;
         this.instrumenter = instrumenter;
+        this.clock = clock;
+        this.hangThresholdNanos = hangThresholdNanos;
+        this.severeHangThresholdNanos = severeHangThresholdNanos;
+        this.anrThresholdNanos = anrThresholdNanos;
     }
 
     @Override
     public void run() {
-        CountDownLatch response = new CountDownLatch(1);
-        if (!uiHandler.post(response::countDown)) {
-            // the main thread is probably shutting down. ignore and return.
-            return;
+        long now = clock.nanoTime();
+        if (heartbeatPending) {
+            if (heartbeatTick.get() == postedAtTick) {
+                onUnresponsive(now);
+                return;
+            }
+            onResponded(respondedAtNanos);
         }
-        boolean success;
-        try {
-            success = response.await(1, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
+        postedAtTick = heartbeatTick.get();
+        postedAtNanos = now;
+        // when it can't be posted, the main thread is probably shutting down.
+        heartbeatPending = mainThreadPoster.test(heartbeat);
+    }
+
+    private void onHeartbeat() {
+        respondedAtNanos = clock.nanoTime();
+        heartbeatTick.incrementAndGet();
+    }
+
+    private void onUnresponsive(long now) {
+        long stalledNanos = now - postedAtNanos;
+        if (stalledNanos >= anrThresholdNanos * (reportedAnrs + 1)) {
+            reportedAnrs++;
+            String stackProfile = stackSampler != null ? stackSampler.getProfile() : null;
+            report(HangSeverity.ANR, mainThread.getStackTrace(), stackProfile, now);
             return;
         }
-        if (success) {
-            anrCounter.set(0);
-            return;
+        // sample the stack once per threshold crossed, the hang is reported when it ends
+        long sampleAfterNanos =
+                stalledNanos >= severeHangThresholdNanos
+                        ? severeHangThresholdNanos
+                        : stalledNanos >= hangThresholdNanos ? hangThresholdNanos : 0;
+        if (sampleAfterNanos > stackTraceSampledAfterNanos) {
+            stackTrace = mainThread.getStackTrace();
+            stackTraceSampledAfterNanos = sampleAfterNanos;
+        }
+        if (stackSampler != null && !sampling && stalledNanos >= hangThresholdNanos) {
+            stackSampler.start();
+            sampling = true;
         }
-        if (anrCounter.incrementAndGet() >= 5) {
-            StackTraceElement[] stackTrace = mainThread.getStackTrace();
-            recordAnr(stackTrace);
-            // only report once per 5s.
-            anrCounter.set(0);
+    }
+
+    private void onResponded(long respondedAt) {
+        long stalledNanos = respondedAt - postedAtNanos;
+        String stackProfile = null;
+        if (sampling && stackSampler != null) {
+            stackProfile = stackSampler.stop();
+            sampling = false;
+        }
+        // a stall already reported as an ANR is not reported again when it ends
+        if (reportedAnrs == 0 && stalledNanos >= hangThresholdNanos) {
+            HangSeverity severity =
+                    stalledNanos >= anrThresholdNanos
+                            ? HangSeverity.ANR
+                            : stalledNanos >= severeHangThresholdNanos
+                                    ? HangSeverity.SEVERE_HANG
+                                    : HangSeverity.HANG;
+            report(
+                    severity,
+                    stackTrace != null ? stackTrace : NO_STACK_TRACE,
+                    stackProfile,
+                    respondedAt);
         }
+        stackTrace = null;
+        stackTraceSampledAfterNanos = 0;
+        reportedAnrs = 0;
+    }
+
+    private void report(
+            HangSeverity severity,
+            StackTraceElement[] stackTrace,
+            @Nullable String stackProfile,
+            long endNanos) {
+        InstrumenterUtil.startAndEnd(
+                instrumenter,
+                Context.current(),
+                new Hang(severity, stackTrace, stackProfile),
+                null,
+                null,
+                toInstant(postedAtNanos),
+                toInstant(endNanos));
     }
 
-    private void recordAnr(StackTraceElement[] stackTrace) {
-        Context context = instrumenter.start(Context.current(), stackTrace);
-        instrumenter.end(context, stackTrace, null, null);
+    private Instant toInstant(long nanoTime) {
+        long epochNanos = clock.now() - (clock.nanoTime() - nanoTime);
+        return Instant.ofEpochSecond(0, epochNanos);
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.anr;
+
+import androidx.annotation.Nullable;
+
+/** A period during which the main thread was unresponsive. */
+final class Hang {
+
+    private final HangSeverity severity;
+    private final StackTraceElement[] stackTrace;
+    @Nullable private final String stackProfile;
+
+    Hang(HangSeverity severity, StackTraceElement[] stackTrace, @Nullable String stackProfile) {
+        this.severity = severity;
+        this.stackTrace = stackTrace;
+        this.stackProfile = stackProfile;
+    }
+
+    HangSeverity getSeverity() {
+        return severity;
+    }
+
+    /** The main thread's stack trace, sampled while it was unresponsive. */
+    StackTraceElement[] getStackTrace() {
+        return stackTrace;
+    }
+
+    /** The main thread's stacks sampled during the hang, in the folded stacks format. */
+    @Nullable
+    String getStackProfile() {
+        return stackProfile;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.anr;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
+
+final class HangProfileExtractor implements AttributesExtractor<Hang, Void> {
+
+    static final AttributeKey<String> HANG_STACK_PROFILE =
+            AttributeKey.stringKey("hang.stack_profile");
+
+    @Override
+    public void onStart(AttributesBuilder attributes, Context parentContext, Hang hang) {
+        String stackProfile = hang.getStackProfile();
+        if (stackProfile != null) {
+            attributes.put(HANG_STACK_PROFILE, stackProfile);
+        }
+    }
+
+    @Override
+    public void onEnd(
+            AttributesBuilder attributes,
+            Context context,
+            Hang hang,
+            Void unused,
+            Throwable error) {}
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.anr;
+
+/** How long the main thread was unresponsive, each severity being reported as its own span. */
+enum HangSeverity {
+    HANG("Hang"),
+    SEVERE_HANG("SevereHang"),
+    ANR("ANR");
+
+    private final String spanName;
+
+    HangSeverity(String spanName) {
+        this.spanName = spanName;
+    }
+
+    String getSpanName() {
+        return spanName;
+    }
+}
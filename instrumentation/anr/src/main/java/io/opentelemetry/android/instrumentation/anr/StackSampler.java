@@ -0,0 +1,137 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.anr;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples a thread's stack while it hangs, aggregating the samples into a profile in
+ * the folded stacks format: one line per distinct stack, with its frames from the root to the leaf
+ * separated by semicolons, followed by how many samples had that stack.
+ *
+ * <p>Sampling only happens between {@link #start()} and {@link #stop()}, and stops by itself after
+ * the maximum amount of samples, so its overhead is bounded even if it is never stopped (such as
+ * when the app goes to the background during a hang). The profile is bounded too: the stacks that
+ * don't fit in its maximum length are left out, starting with the least sampled ones.
+ */
+final class StackSampler {
+    static final int DEFAULT_MAX_PROFILE_LENGTH = 16 * 1024;
+
+    private final Thread thread;
+    private final ScheduledExecutorService scheduler;
+    private final long intervalNanos;
+    private final int maxSamples;
+    private final int maxProfileLength;
+
+    // guarded by this, the samples are taken concurrently with the profile being read
+    private final Map<String, Integer> sampleCounts = new HashMap<>();
+    private int samples = 0;
+    // bumped by every start() and stop(), so that a run that was already due when its sampling
+    // was cancelled can neither add samples nor cancel the future of the next sampling
+    private int generation = 0;
+    @Nullable private ScheduledFuture<?> future;
+
+    StackSampler(
+            Thread thread, ScheduledExecutorService scheduler, long intervalNanos, int maxSamples) {
+        this(thread, scheduler, intervalNanos, maxSamples, DEFAULT_MAX_PROFILE_LENGTH);
+    }
+
+    @VisibleForTesting
+    StackSampler(
+            Thread thread,
+            ScheduledExecutorService scheduler,
+            long intervalNanos,
+            int maxSamples,
+            int maxProfileLength) {
+        this.thread = thread;
+        this.scheduler = scheduler;
+        this.intervalNanos = intervalNanos;
+        this.maxSamples = maxSamples;
+        this.maxProfileLength = maxProfileLength;
+    }
+
+    /** Starts sampling, discarding the samples of the previous run. */
+    synchronized void start() {
+        cancel();
+        sampleCounts.clear();
+        samples = 0;
+        int sampling = ++generation;
+        // scheduled while holding the lock, so that the runs only sample once the future is set
+        future =
+                scheduler.scheduleAtFixedRate(
+                        () -> sample(sampling), intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Stops sampling, and returns the profile, or null if there are no samples. */
+    @Nullable
+    synchronized String stop() {
+        cancel();
+        generation++;
+        return getProfile();
+    }
+
+    // must be called while holding the lock
+    private void cancel() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    /** Returns the profile sampled so far, or null if there are no samples. */
+    @Nullable
+    synchronized String getProfile() {
+        // the most sampled stacks first, so that the least sampled ones are left out if too long
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(sampleCounts.entrySet());
+        entries.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        StringBuilder profile = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : entries) {
+            String count = String.valueOf(entry.getValue());
+            // the stack, a space, the count and a new line
+            int lineLength = entry.getKey().length() + count.length() + 2;
+            if (profile.length() + lineLength > maxProfileLength) {
+                continue;
+            }
+            profile.append(entry.getKey()).append(' ').append(count).append('\n');
+        }
+        return profile.length() == 0 ? null : profile.toString();
+    }
+
+    private void sample(int sampling) {
+        String stack = fold(thread.getStackTrace());
+        synchronized (this) {
+            // a run may already be due when cancelling
+            if (sampling != generation || samples >= maxSamples) {
+                return;
+            }
+            Integer count = sampleCounts.get(stack);
+            sampleCounts.put(stack, count == null ? 1 : count + 1);
+            if (++samples >= maxSamples) {
+                cancel();
+            }
+        }
+    }
+
+    private static String fold(StackTraceElement[] stackTrace) {
+        StringBuilder folded = new StringBuilder();
+        for (int i = stackTrace.length - 1; i >= 0; i--) {
+            StackTraceElement frame = stackTrace[i];
+            folded.append(frame.getClassName()).append('.').append(frame.getMethodName());
+            if (i > 0) {
+                folded.append(';');
+            }
+        }
+        return folded.toString();
+    }
+}
@@ -7,20 +7,30 @@ package io.opentelemetry.android.instrumentation.anr;
 
 import static io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_STACKTRACE;
 
+import io.opentelemetry.android.instrumentation.common.EncodedStackTrace;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
 
 final class StackTraceFormatter implements AttributesExtractor<StackTraceElement[], Void> {
 
+    private final StackTraceEncoder encoder;
+
+    StackTraceFormatter(StackTraceEncoder encoder) {
+        this.encoder = encoder;
+    }
+
     @Override
     public void onStart(
             AttributesBuilder attributes, Context parentContext, StackTraceElement[] stackTrace) {
-        StringBuilder stackTraceString = new StringBuilder();
-        for (StackTraceElement stackTraceElement : stackTrace) {
-            stackTraceString.append(stackTraceElement).append("\n");
+        EncodedStackTrace encoded = encoder.encode(stackTrace);
+        attributes.put(StackTraceEncoder.STACKTRACE_FINGERPRINT, encoded.getFingerprint());
+        // repeated stack traces are only identified by their fingerprint
+        String stackTraceString = encoded.getStackTrace();
+        if (stackTraceString != null) {
+            attributes.put(EXCEPTION_STACKTRACE, stackTraceString);
         }
-        attributes.put(EXCEPTION_STACKTRACE, stackTraceString.toString());
     }
 
     @Override
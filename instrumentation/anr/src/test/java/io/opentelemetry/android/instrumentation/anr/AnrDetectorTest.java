@@ -7,6 +7,7 @@ package io.opentelemetry.android.instrumentation.anr;
 
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import static io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor.constant;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.verify;
@@ -14,7 +15,9 @@ import static org.mockito.Mockito.when;
 
 import android.os.Looper;
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import java.time.Duration;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
@@ -45,9 +48,55 @@ class AnrDetectorTest {
         // verify that the ANR scheduler was started
         verify(scheduler)
                 .scheduleWithFixedDelay(
-                        isA(AnrWatcher.class), eq(1L), eq(1L), eq(TimeUnit.SECONDS));
+                        isA(AnrWatcher.class), eq(250L), eq(250L), eq(TimeUnit.MILLISECONDS));
         // verify that an application listener was installed
         verify(instrumentedApplication)
                 .registerApplicationStateListener(isA(AnrDetectorToggler.class));
+        // verify that the stack traces are reported in full once per session
+        verify(instrumentedApplication)
+                .registerSessionChangeListener(isA(StackTraceEncoder.class));
+    }
+
+    @Test
+    void shouldUseTheConfiguredProbeInterval() {
+        when(instrumentedApplication.getOpenTelemetrySdk())
+                .thenReturn(OpenTelemetrySdk.builder().build());
+
+        AnrDetector anrDetector =
+                AnrDetector.builder()
+                        .setMainLooper(mainLooper)
+                        .setScheduler(scheduler)
+                        .setProbeInterval(Duration.ofMillis(100))
+                        .build();
+        anrDetector.installOn(instrumentedApplication);
+
+        verify(scheduler)
+                .scheduleWithFixedDelay(
+                        isA(AnrWatcher.class), eq(100L), eq(100L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(
+                        () ->
+                                AnrDetector.builder()
+                                        .setMainLooper(mainLooper)
+                                        .setProbeInterval(Duration.ZERO)
+                                        .build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(
+                        () ->
+                                AnrDetector.builder()
+                                        .setMainLooper(mainLooper)
+                                        .setSevereHangThreshold(Duration.ofSeconds(10))
+                                        .build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(
+                        () ->
+                                AnrDetector.builder()
+                                        .setMainLooper(mainLooper)
+                                        .setMaxStackSamples(-1)
+                                        .build())
+                .isInstanceOf(IllegalArgumentException.class);
     }
 }
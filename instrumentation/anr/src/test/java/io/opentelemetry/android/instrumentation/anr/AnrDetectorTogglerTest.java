@@ -12,9 +12,9 @@ import static org.mockito.Mockito.verify;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -25,22 +25,32 @@ class AnrDetectorTogglerTest {
     @Mock ScheduledExecutorService scheduler;
     @Mock ScheduledFuture<?> future;
 
-    @InjectMocks AnrDetectorToggler underTest;
+    AnrDetectorToggler underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new AnrDetectorToggler(anrWatcher, scheduler, 250);
+    }
 
     @Test
     void testOnApplicationForegrounded() {
-        doReturn(future).when(scheduler).scheduleWithFixedDelay(anrWatcher, 1, 1, TimeUnit.SECONDS);
+        doReturn(future)
+                .when(scheduler)
+                .scheduleWithFixedDelay(anrWatcher, 250, 250, TimeUnit.MILLISECONDS);
 
         underTest.onApplicationForegrounded();
         underTest.onApplicationForegrounded();
         underTest.onApplicationForegrounded();
 
-        verify(scheduler, times(1)).scheduleWithFixedDelay(anrWatcher, 1, 1, TimeUnit.SECONDS);
+        verify(scheduler, times(1))
+                .scheduleWithFixedDelay(anrWatcher, 250, 250, TimeUnit.MILLISECONDS);
     }
 
     @Test
     void testOnApplicationBackgrounded() {
-        doReturn(future).when(scheduler).scheduleWithFixedDelay(anrWatcher, 1, 1, TimeUnit.SECONDS);
+        doReturn(future)
+                .when(scheduler)
+                .scheduleWithFixedDelay(anrWatcher, 250, 250, TimeUnit.MILLISECONDS);
 
         underTest.onApplicationForegrounded();
 
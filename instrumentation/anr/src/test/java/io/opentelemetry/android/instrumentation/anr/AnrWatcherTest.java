@@ -5,19 +5,31 @@
 
 package io.opentelemetry.android.instrumentation.anr;
 
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.isA;
-import static org.mockito.ArgumentMatchers.isNull;
-import static org.mockito.ArgumentMatchers.same;
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+import static io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_STACKTRACE;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
-import android.os.Handler;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.sdk.common.Clock;
 import io.opentelemetry.sdk.testing.junit5.OpenTelemetryExtension;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -26,79 +38,302 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class AnrWatcherTest {
+    private static final Duration PROBE_INTERVAL = Duration.ofMillis(250);
+    private static final StackTraceElement[] STACK_TRACE = {
+        new StackTraceElement("Foo", "bar", "Foo.java", 1)
+    };
 
     @RegisterExtension
     static final OpenTelemetryExtension testing = OpenTelemetryExtension.create();
 
-    @Mock Handler handler;
     @Mock Thread mainThread;
-    @Mock Instrumenter<StackTraceElement[], Void> instrumenter;
+    @Mock StackSampler stackSampler;
+
+    private final TestClock clock = TestClock.create();
+    private final Queue<Runnable> mainThreadQueue = new ArrayDeque<>();
+    private Instrumenter<Hang, Void> instrumenter;
+
+    @BeforeEach
+    void setUp() {
+        instrumenter =
+                AnrDetector.buildHangInstrumenter(
+                        testing.getOpenTelemetry(),
+                        StackTraceEncoder.create(),
+                        Collections.emptyList());
+    }
 
     @Test
     void mainThreadDisappearing() {
-        AnrWatcher anrWatcher = new AnrWatcher(handler, mainThread, instrumenter);
-        for (int i = 0; i < 5; i++) {
-            when(handler.post(isA(Runnable.class))).thenReturn(false);
-            anrWatcher.run();
+        AnrWatcher anrWatcher = createWatcher(runnable -> false, clock);
+        for (int i = 0; i < 40; i++) {
+            probe(anrWatcher);
         }
-        verifyNoInteractions(instrumenter);
+        assertThat(testing.getSpans()).isEmpty();
     }
 
     @Test
-    void noAnr() {
-        AnrWatcher anrWatcher = new AnrWatcher(handler, mainThread, instrumenter);
-        for (int i = 0; i < 5; i++) {
-            when(handler.post(isA(Runnable.class)))
-                    .thenAnswer(
-                            invocation -> {
-                                Runnable callback = (Runnable) invocation.getArgument(0);
-                                callback.run();
-                                return true;
-                            });
-            anrWatcher.run();
+    void noHang() {
+        AnrWatcher anrWatcher =
+                createWatcher(
+                        runnable -> {
+                            runnable.run();
+                            return true;
+                        },
+                        clock);
+        for (int i = 0; i < 40; i++) {
+            probe(anrWatcher);
         }
-        verifyNoInteractions(instrumenter);
+        assertThat(testing.getSpans()).isEmpty();
     }
 
     @Test
-    void noAnr_temporaryPause() {
-        AnrWatcher anrWatcher = new AnrWatcher(handler, mainThread, instrumenter);
-        for (int i = 0; i < 5; i++) {
-            int index = i;
-            when(handler.post(isA(Runnable.class)))
-                    .thenAnswer(
-                            invocation -> {
-                                Runnable callback = invocation.getArgument(0);
-                                // have it fail once
-                                if (index != 3) {
-                                    callback.run();
-                                }
-                                return true;
-                            });
-            anrWatcher.run();
+    void noHang_shortPause() {
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock);
+        anrWatcher.run();
+        clock.advance(Duration.ofMillis(200));
+        runMainThread();
+        for (int i = 0; i < 10; i++) {
+            probe(anrWatcher);
+            runMainThread();
+        }
+        assertThat(testing.getSpans()).isEmpty();
+    }
+
+    @Test
+    void hang_detected() {
+        when(mainThread.getStackTrace()).thenReturn(STACK_TRACE);
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock);
+        long startNanos = clock.now();
+        anrWatcher.run();
+        for (int i = 0; i < 3; i++) {
+            probe(anrWatcher);
+        }
+        assertThat(testing.getSpans()).isEmpty();
+
+        clock.advance(Duration.ofMillis(100));
+        runMainThread();
+        probe(anrWatcher);
+
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName("Hang")
+                .hasStatus(StatusData.error())
+                .startsAt(startNanos)
+                .endsAt(startNanos + TimeUnit.MILLISECONDS.toNanos(850))
+                .hasAttribute(EXCEPTION_STACKTRACE, "Foo.bar(Foo.java:1)\n");
+    }
+
+    @Test
+    void severeHang_detected() {
+        when(mainThread.getStackTrace()).thenReturn(STACK_TRACE);
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock);
+        long startNanos = clock.now();
+        anrWatcher.run();
+        for (int i = 0; i < 12; i++) {
+            probe(anrWatcher);
         }
-        verifyNoInteractions(instrumenter);
+        runMainThread();
+        probe(anrWatcher);
+
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName("SevereHang")
+                .startsAt(startNanos)
+                .endsAt(startNanos + TimeUnit.SECONDS.toNanos(3));
+        // sampled once the hang, then the severe hang threshold were crossed
+        verify(mainThread, times(2)).getStackTrace();
     }
 
     @Test
     void anr_detected() {
-        StackTraceElement[] stackTrace = new StackTraceElement[0];
-        when(mainThread.getStackTrace()).thenReturn(stackTrace);
+        when(mainThread.getStackTrace()).thenReturn(STACK_TRACE);
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock);
+        long startNanos = clock.now();
+        anrWatcher.run();
+        for (int i = 0; i < 20; i++) {
+            probe(anrWatcher);
+        }
+        // reported while the main thread is still unresponsive
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName("ANR")
+                .startsAt(startNanos)
+                .endsAt(startNanos + TimeUnit.SECONDS.toNanos(5))
+                .hasStatus(StatusData.error())
+                .hasAttribute(EXCEPTION_STACKTRACE, "Foo.bar(Foo.java:1)\n");
+
+        // then once per ANR threshold
+        for (int i = 0; i < 20; i++) {
+            probe(anrWatcher);
+        }
+        assertThat(testing.getSpans()).hasSize(2);
+        // the same stack trace is only identified by its fingerprint
+        assertThat(testing.getSpans().get(1))
+                .hasName("ANR")
+                .startsAt(startNanos)
+                .endsAt(startNanos + TimeUnit.SECONDS.toNanos(10))
+                .hasAttribute(
+                        StackTraceEncoder.STACKTRACE_FINGERPRINT,
+                        testing.getSpans()
+                                .get(0)
+                                .getAttributes()
+                                .get(StackTraceEncoder.STACKTRACE_FINGERPRINT));
+        assertThat(testing.getSpans().get(1).getAttributes().get(EXCEPTION_STACKTRACE)).isNull();
+
+        // but not again once it responds
+        runMainThread();
+        probe(anrWatcher);
+        assertThat(testing.getSpans()).hasSize(2);
+    }
+
+    @Test
+    void hang_detectedWithoutSample() {
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock);
+        long startNanos = clock.now();
+        anrWatcher.run();
+        // the watcher was delayed for as long as the main thread was
+        clock.advance(Duration.ofMillis(400));
+        runMainThread();
+        anrWatcher.run();
+
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName("Hang")
+                .startsAt(startNanos)
+                .endsAt(startNanos + TimeUnit.MILLISECONDS.toNanos(400))
+                .hasAttribute(EXCEPTION_STACKTRACE, "");
+    }
+
+    @Test
+    void hang_withStackProfile() {
+        when(mainThread.getStackTrace()).thenReturn(STACK_TRACE);
+        when(stackSampler.stop()).thenReturn("Foo.bar 3\n");
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock, stackSampler);
+        anrWatcher.run();
+        probe(anrWatcher);
+        // sampling starts once the hang threshold is passed
+        verify(stackSampler).start();
+        for (int i = 0; i < 3; i++) {
+            probe(anrWatcher);
+        }
+        verifyNoMoreInteractions(stackSampler);
 
-        AnrWatcher anrWatcher = new AnrWatcher(handler, mainThread, instrumenter);
-        when(handler.post(isA(Runnable.class))).thenReturn(true);
-        for (int i = 0; i < 5; i++) {
+        runMainThread();
+        probe(anrWatcher);
+
+        verify(stackSampler).stop();
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName("Hang")
+                .hasAttribute(HangProfileExtractor.HANG_STACK_PROFILE, "Foo.bar 3\n");
+    }
+
+    @Test
+    void anr_withStackProfile() {
+        when(mainThread.getStackTrace()).thenReturn(STACK_TRACE);
+        when(stackSampler.getProfile()).thenReturn("Foo.bar 95\n");
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock, stackSampler);
+        anrWatcher.run();
+        for (int i = 0; i < 20; i++) {
+            probe(anrWatcher);
+        }
+
+        // the profile sampled so far, while sampling goes on
+        verify(stackSampler, never()).stop();
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName("ANR")
+                .hasAttribute(HangProfileExtractor.HANG_STACK_PROFILE, "Foo.bar 95\n");
+    }
+
+    @Test
+    void noStackSamplingWithoutHang() {
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock, stackSampler);
+        anrWatcher.run();
+        clock.advance(Duration.ofMillis(200));
+        anrWatcher.run();
+        runMainThread();
+        probe(anrWatcher);
+
+        verifyNoInteractions(stackSampler);
+    }
+
+    @Test
+    void singleHeartbeatPendingWhileUnresponsive() {
+        AnrWatcher anrWatcher = createWatcher(mainThreadQueue::add, clock);
+        anrWatcher.run();
+        for (int i = 0; i < 3; i++) {
+            clock.advance(Duration.ofMillis(10));
             anrWatcher.run();
         }
-        verify(instrumenter, times(1)).start(any(), same(stackTrace));
-        verify(instrumenter, times(1)).end(any(), same(stackTrace), isNull(), isNull());
-        for (int i = 0; i < 4; i++) {
+        assertThat(mainThreadQueue).hasSize(1);
+
+        runMainThread();
+        anrWatcher.run();
+
+        assertThat(mainThreadQueue).hasSize(1);
+    }
+
+    @Test
+    void noAllocationPerHeartbeat() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        AnrWatcher anrWatcher =
+                createWatcher(
+                        runnable -> {
+                            runnable.run();
+                            return true;
+                        },
+                        Clock.getDefault());
+        int heartbeats = 100_000;
+        // warm up
+        for (int i = 0; i < heartbeats; i++) {
             anrWatcher.run();
         }
-        verifyNoMoreInteractions(instrumenter);
 
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < heartbeats; i++) {
+            anrWatcher.run();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // less than a byte per heartbeat, measuring may allocate a little by itself
+        assertThat(allocated / heartbeats).isZero();
+        assertThat(testing.getSpans()).isEmpty();
+    }
+
+    private AnrWatcher createWatcher(Predicate<Runnable> mainThreadPoster, Clock clock) {
+        return createWatcher(mainThreadPoster, clock, null);
+    }
+
+    private AnrWatcher createWatcher(
+            Predicate<Runnable> mainThreadPoster,
+            Clock clock,
+            @Nullable StackSampler stackSampler) {
+        return new AnrWatcher(
+                mainThreadPoster,
+                mainThread,
+                stackSampler,
+                instrumenter,
+                clock,
+                TimeUnit.MILLISECONDS.toNanos(250),
+                TimeUnit.SECONDS.toNanos(2),
+                TimeUnit.SECONDS.toNanos(5));
+    }
+
+    private void probe(AnrWatcher anrWatcher) {
+        clock.advance(PROBE_INTERVAL);
         anrWatcher.run();
-        verify(instrumenter, times(2)).start(any(), same(stackTrace));
-        verify(instrumenter, times(2)).end(any(), same(stackTrace), isNull(), isNull());
+    }
+
+    private void runMainThread() {
+        Runnable runnable;
+        while ((runnable = mainThreadQueue.poll()) != null) {
+            runnable.run();
+        }
     }
 }
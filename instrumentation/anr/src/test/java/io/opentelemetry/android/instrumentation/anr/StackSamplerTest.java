@@ -0,0 +1,197 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.anr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StackSamplerTest {
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final StackTraceElement[] STACK_A = {
+        new StackTraceElement("Foo", "leaf", "Foo.java", 2),
+        new StackTraceElement("Foo", "root", "Foo.java", 1)
+    };
+    private static final StackTraceElement[] STACK_B = {
+        new StackTraceElement("Bar", "leaf", "Bar.java", 2),
+        new StackTraceElement("Foo", "root", "Foo.java", 1)
+    };
+
+    @Mock Thread thread;
+    @Mock ScheduledExecutorService scheduler;
+    @Mock ScheduledFuture<?> future;
+    @Mock ScheduledFuture<?> nextFuture;
+    @Captor ArgumentCaptor<Runnable> sampling;
+
+    private StackSampler stackSampler;
+
+    @BeforeEach
+    void setUp() {
+        stackSampler = new StackSampler(thread, scheduler, INTERVAL_NANOS, 4);
+    }
+
+    @Test
+    void samplesWhileStarted() {
+        doReturn(future)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+        when(thread.getStackTrace()).thenReturn(STACK_A, STACK_B, STACK_A);
+
+        stackSampler.start();
+        for (int i = 0; i < 3; i++) {
+            sampling.getValue().run();
+        }
+        String profile = stackSampler.stop();
+
+        verify(future).cancel(false);
+        assertThat(profile).isEqualTo("Foo.root;Foo.leaf 2\nFoo.root;Bar.leaf 1\n");
+    }
+
+    @Test
+    void noProfileWithoutSamples() {
+        doReturn(future)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+
+        stackSampler.start();
+
+        assertThat(stackSampler.stop()).isNull();
+    }
+
+    @Test
+    void stopsAfterMaxSamples() {
+        doReturn(future)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+        when(thread.getStackTrace()).thenReturn(STACK_A);
+
+        stackSampler.start();
+        for (int i = 0; i < 6; i++) {
+            sampling.getValue().run();
+        }
+
+        verify(future).cancel(false);
+        assertThat(stackSampler.getProfile()).isEqualTo("Foo.root;Foo.leaf 4\n");
+    }
+
+    @Test
+    void restartDiscardsPreviousSamples() {
+        doReturn(future)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+        when(thread.getStackTrace()).thenReturn(STACK_A, STACK_B);
+
+        stackSampler.start();
+        sampling.getValue().run();
+        stackSampler.stop();
+        stackSampler.start();
+        sampling.getValue().run();
+
+        verify(scheduler, times(2))
+                .scheduleAtFixedRate(
+                        any(), eq(INTERVAL_NANOS), eq(INTERVAL_NANOS), eq(TimeUnit.NANOSECONDS));
+        assertThat(stackSampler.getProfile()).isEqualTo("Foo.root;Bar.leaf 1\n");
+    }
+
+    @Test
+    void runsDueWhenStoppedDoNotSample() {
+        doReturn(future)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+        when(thread.getStackTrace()).thenReturn(STACK_A);
+
+        stackSampler.start();
+        sampling.getValue().run();
+        String profile = stackSampler.stop();
+        sampling.getValue().run();
+
+        assertThat(profile).isEqualTo("Foo.root;Foo.leaf 1\n");
+        assertThat(stackSampler.getProfile()).isEqualTo(profile);
+    }
+
+    @Test
+    void runsDueWhenRestartedDoNotCancelTheNextSampling() {
+        doReturn(future, nextFuture)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+        when(thread.getStackTrace()).thenReturn(STACK_B);
+
+        stackSampler.start();
+        stackSampler.start();
+        List<Runnable> runs = sampling.getAllValues();
+        // enough runs of the previous sampling to reach the maximum samples
+        for (int i = 0; i < 4; i++) {
+            runs.get(0).run();
+        }
+        runs.get(1).run();
+
+        verify(future).cancel(false);
+        verify(nextFuture, never()).cancel(false);
+        assertThat(stackSampler.getProfile()).isEqualTo("Foo.root;Bar.leaf 1\n");
+    }
+
+    @Test
+    void leavesOutTheLeastSampledStacksWhenTooLong() {
+        stackSampler = new StackSampler(thread, scheduler, INTERVAL_NANOS, 4, 30);
+        doReturn(future)
+                .when(scheduler)
+                .scheduleAtFixedRate(
+                        sampling.capture(),
+                        eq(INTERVAL_NANOS),
+                        eq(INTERVAL_NANOS),
+                        eq(TimeUnit.NANOSECONDS));
+        when(thread.getStackTrace()).thenReturn(STACK_A, STACK_B, STACK_A);
+
+        stackSampler.start();
+        for (int i = 0; i < 3; i++) {
+            sampling.getValue().run();
+        }
+
+        assertThat(stackSampler.stop()).isEqualTo("Foo.root;Foo.leaf 2\n");
+    }
+}
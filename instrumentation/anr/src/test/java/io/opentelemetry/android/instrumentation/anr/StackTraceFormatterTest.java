@@ -8,6 +8,7 @@ package io.opentelemetry.android.instrumentation.anr;
 import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
 import static io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_STACKTRACE;
 
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.context.Context;
@@ -23,12 +24,13 @@ class StackTraceFormatterTest {
                     new StackTraceElement(
                             "a.b.AnotherClass", "bar", "/src/a/b/AnotherClass.java", 123)
                 };
-        StackTraceFormatter underTest = new StackTraceFormatter();
+        StackTraceFormatter underTest = new StackTraceFormatter(StackTraceEncoder.create());
 
         AttributesBuilder startAttributes = Attributes.builder();
         underTest.onStart(startAttributes, Context.current(), stackTrace);
         assertThat(startAttributes.build())
-                .hasSize(1)
+                .hasSize(2)
+                .containsKey(StackTraceEncoder.STACKTRACE_FINGERPRINT)
                 .containsEntry(
                         EXCEPTION_STACKTRACE,
                         "a.b.Class.foo(/src/a/b/Class.java:42)\n"
@@ -38,4 +40,24 @@ class StackTraceFormatterTest {
         underTest.onEnd(endAttributes, Context.current(), stackTrace, null, null);
         assertThat(endAttributes.build()).isEmpty();
     }
+
+    @Test
+    void shouldOnlyFingerprintRepeatedStackTraces() {
+        StackTraceElement[] stackTrace =
+                new StackTraceElement[] {
+                    new StackTraceElement("a.b.Class", "foo", "/src/a/b/Class.java", 42)
+                };
+        StackTraceFormatter underTest = new StackTraceFormatter(StackTraceEncoder.create());
+
+        AttributesBuilder first = Attributes.builder();
+        underTest.onStart(first, Context.current(), stackTrace);
+        AttributesBuilder second = Attributes.builder();
+        underTest.onStart(second, Context.current(), stackTrace);
+
+        assertThat(second.build())
+                .hasSize(1)
+                .containsEntry(
+                        StackTraceEncoder.STACKTRACE_FINGERPRINT,
+                        first.build().get(StackTraceEncoder.STACKTRACE_FINGERPRINT));
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.common;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A stack trace encoded by a {@link StackTraceEncoder}.
+ *
+ * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
+ * time.
+ */
+public final class EncodedStackTrace {
+
+    private final String fingerprint;
+    @Nullable private final String stackTrace;
+
+    EncodedStackTrace(String fingerprint, @Nullable String stackTrace) {
+        this.fingerprint = fingerprint;
+        this.stackTrace = stackTrace;
+    }
+
+    /** Returns the stable hash of the stack trace's frames, as 16 hexadecimal digits. */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the encoded stack trace, or null if the same stack trace was already encoded, in
+     * which case it is only identified by its {@link #getFingerprint()}.
+     */
+    @Nullable
+    public String getStackTrace() {
+        return stackTrace;
+    }
+}
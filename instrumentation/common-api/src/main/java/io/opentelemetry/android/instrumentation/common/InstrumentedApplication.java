@@ -7,10 +7,12 @@ package io.opentelemetry.android.instrumentation.common;
 
 import android.app.Application;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Provides access to the {@linkplain OpenTelemetrySdk OpenTelemetry SDK}, the instrumented {@link
- * Application}, allows registering {@linkplain ApplicationStateListener listeners}.
+ * Application}, allows registering {@linkplain ApplicationStateListener application state} and
+ * {@linkplain SessionChangeListener session} listeners.
  *
  * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
  * at any time.
@@ -23,6 +25,13 @@ public interface InstrumentedApplication {
     /** Returns the {@link OpenTelemetrySdk} instance. */
     OpenTelemetrySdk getOpenTelemetrySdk();
 
+    /**
+     * Returns the {@link ScheduledExecutorService} shared by the instrumentations and the agent, so
+     * that they don't each start their own threads. It is owned by the agent and must not be shut
+     * down.
+     */
+    ScheduledExecutorService getScheduler();
+
     /**
      * Registers the passed {@link ApplicationStateListener} - from now on it will be called
      * whenever the application is moved from background to foreground, and vice versa.
@@ -31,4 +40,13 @@ public interface InstrumentedApplication {
      * times; duplicates are not trimmed.
      */
     void registerApplicationStateListener(ApplicationStateListener listener);
+
+    /**
+     * Registers the passed {@link SessionChangeListener} - from now on it will be called whenever
+     * the session changes.
+     *
+     * <p>Users of this method should take care to avoid passing the same listener instance multiple
+     * times; duplicates are not trimmed.
+     */
+    void registerSessionChangeListener(SessionChangeListener listener);
 }
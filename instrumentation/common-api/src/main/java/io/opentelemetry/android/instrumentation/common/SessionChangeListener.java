@@ -0,0 +1,19 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.common;
+
+/**
+ * Listener interface that is called whenever the RUM session of the instrumented application
+ * changes.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public interface SessionChangeListener {
+
+    /** Called whenever a new session id replaces the previous one. */
+    void onSessionChanged(String previousSessionId, String sessionId);
+}
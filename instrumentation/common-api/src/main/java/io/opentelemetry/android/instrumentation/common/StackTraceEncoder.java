@@ -0,0 +1,248 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.common;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.AttributeKey;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Encodes stack traces into text, shared by the instrumentations reporting them (such as ANRs and
+ * crashes) to keep their size bounded.
+ *
+ * <p>Each stack trace gets a fingerprint, a stable hash of its frames normalized to their class and
+ * method names, so that the same stack gets the same fingerprint across builds with different line
+ * numbers. Only the first {@code maxFrames} frames are encoded. The formatted frames are interned
+ * in a bounded LRU cache, so that the frames of repeated stacks are not formatted again, and the
+ * fingerprint is computed before formatting the stack trace, which is skipped when repeated. Once a
+ * stack trace has been encoded, its later occurrences in the same session are only identified by
+ * their fingerprint: the encoder is to be registered as a {@link SessionChangeListener}, so that
+ * every session gets each stack trace in full once.
+ *
+ * <p>This class is internal and not for public use. Its APIs are unstable and can change at any
+ * time.
+ */
+public final class StackTraceEncoder implements SessionChangeListener {
+
+    /** The attribute identifying a stack trace, whether it was reported in full or not. */
+    public static final AttributeKey<String> STACKTRACE_FINGERPRINT =
+            stringKey("exception.stacktrace.fingerprint");
+
+    public static final int DEFAULT_MAX_FRAMES = 256;
+
+    private static final int MAX_INTERNED_FRAMES = 1024;
+    private static final int MAX_FINGERPRINTS = 256;
+
+    // FNV-1a, a hash that is stable across processes and versions
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Returns a new {@link StackTraceEncoder} encoding up to {@link #DEFAULT_MAX_FRAMES}. */
+    public static StackTraceEncoder create() {
+        return create(DEFAULT_MAX_FRAMES);
+    }
+
+    /** Returns a new {@link StackTraceEncoder} encoding up to {@code maxFrames} frames. */
+    public static StackTraceEncoder create(int maxFrames) {
+        return new StackTraceEncoder(maxFrames, MAX_INTERNED_FRAMES, MAX_FINGERPRINTS);
+    }
+
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    private final int maxFrames;
+    // guarded by this
+    private final Map<StackTraceElement, Frame> frames;
+    private final Map<Long, Boolean> encodedFingerprints;
+
+    StackTraceEncoder(int maxFrames, int maxInternedFrames, int maxFingerprints) {
+        this.maxFrames = maxFrames;
+        this.frames = lruMap(maxInternedFrames);
+        this.encodedFingerprints = lruMap(maxFingerprints);
+    }
+
+    /** Encodes the frames of a thread's stack trace, one per line. */
+    public synchronized EncodedStackTrace encode(StackTraceElement[] stackTrace) {
+        return encode(encoding -> appendFrames(encoding, stackTrace, stackTrace.length, "", false));
+    }
+
+    /**
+     * Encodes a throwable with its suppressed exceptions and causes in the same format as {@link
+     * Throwable#printStackTrace()}, the frame budget being shared by all of them.
+     */
+    public synchronized EncodedStackTrace encode(Throwable throwable) {
+        return encode(
+                encoding ->
+                        appendThrowable(
+                                encoding,
+                                throwable,
+                                NO_STACK_TRACE,
+                                "",
+                                "",
+                                Collections.newSetFromMap(new IdentityHashMap<>())));
+    }
+
+    /** Forgets the stack traces encoded so far, so that the new session gets them in full. */
+    @Override
+    public synchronized void onSessionChanged(String previousSessionId, String sessionId) {
+        encodedFingerprints.clear();
+    }
+
+    // walks the stack trace twice: to compute its fingerprint first, then to format it only if it
+    // has not been encoded yet, so that repeated stack traces are never formatted
+    private EncodedStackTrace encode(Consumer<Encoding> walk) {
+        Encoding fingerprinting = new Encoding(null);
+        walk.accept(fingerprinting);
+        long hash = fingerprinting.hash;
+        String hex = Long.toHexString(hash);
+        String fingerprint = "0000000000000000".substring(hex.length()) + hex;
+        if (encodedFingerprints.put(hash, Boolean.TRUE) != null) {
+            return new EncodedStackTrace(fingerprint, null);
+        }
+        StringBuilder text = new StringBuilder();
+        walk.accept(new Encoding(text));
+        return new EncodedStackTrace(fingerprint, text.toString());
+    }
+
+    private void appendThrowable(
+            Encoding encoding,
+            Throwable throwable,
+            StackTraceElement[] enclosingTrace,
+            String caption,
+            String prefix,
+            Set<Throwable> encoded) {
+        StringBuilder text = encoding.text;
+        if (!encoded.add(throwable)) {
+            if (text != null) {
+                text.append(prefix)
+                        .append(caption)
+                        .append("[CIRCULAR REFERENCE: ")
+                        .append(throwable)
+                        .append("]\n");
+            }
+            return;
+        }
+        if (text != null) {
+            text.append(prefix).append(caption).append(throwable).append('\n');
+        }
+        encoding.hash = hash(encoding.hash, throwable.getClass().getName());
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        // the frames in common with the enclosing trace are elided
+        int last = stackTrace.length - 1;
+        int enclosingLast = enclosingTrace.length - 1;
+        while (last >= 0
+                && enclosingLast >= 0
+                && stackTrace[last].equals(enclosingTrace[enclosingLast])) {
+            last--;
+            enclosingLast--;
+        }
+        appendFrames(encoding, stackTrace, last + 1, prefix, true);
+        int framesInCommon = stackTrace.length - 1 - last;
+        if (text != null && framesInCommon > 0) {
+            text.append(prefix).append("\t... ").append(framesInCommon).append(" more\n");
+        }
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            appendThrowable(
+                    encoding, suppressed, stackTrace, "Suppressed: ", prefix + "\t", encoded);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            appendThrowable(encoding, cause, stackTrace, "Caused by: ", prefix, encoded);
+        }
+    }
+
+    private void appendFrames(
+            Encoding encoding,
+            StackTraceElement[] stackTrace,
+            int frameCount,
+            String prefix,
+            boolean throwableFrames) {
+        StringBuilder text = encoding.text;
+        int count = Math.min(frameCount, encoding.remainingFrames);
+        for (int i = 0; i < count; i++) {
+            Frame frame = intern(stackTrace[i]);
+            if (text != null) {
+                text.append(prefix)
+                        .append(throwableFrames ? "\tat " : "")
+                        .append(frame.text)
+                        .append('\n');
+            }
+            encoding.hash = (encoding.hash ^ frame.hash) * FNV_PRIME;
+        }
+        encoding.remainingFrames -= count;
+        if (text != null && count < frameCount) {
+            text.append(prefix)
+                    .append(throwableFrames ? "\t" : "")
+                    .append("... ")
+                    .append(frameCount - count)
+                    .append(" more frames\n");
+        }
+    }
+
+    private Frame intern(StackTraceElement element) {
+        Frame frame = frames.get(element);
+        if (frame == null) {
+            frame = new Frame(element.toString(), normalizedHash(element));
+            frames.put(element, frame);
+        }
+        return frame;
+    }
+
+    // the class and the method, without the line, and without the generated lambda class suffix
+    private static long normalizedHash(StackTraceElement element) {
+        String className = element.getClassName();
+        int lambda = className.indexOf("$$Lambda");
+        if (lambda >= 0) {
+            className = className.substring(0, lambda);
+        }
+        long hash = hash(FNV_OFFSET_BASIS, className);
+        hash = (hash ^ '.') * FNV_PRIME;
+        return hash(hash, element.getMethodName());
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private final class Encoding {
+        // null while only computing the fingerprint
+        @Nullable final StringBuilder text;
+        long hash = FNV_OFFSET_BASIS;
+        int remainingFrames = maxFrames;
+
+        Encoding(@Nullable StringBuilder text) {
+            this.text = text;
+        }
+    }
+
+    private static final class Frame {
+        final String text;
+        final long hash;
+
+        Frame(String text, long hash) {
+            this.text = text;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+class StackTraceEncoderTest {
+    private static final StackTraceElement[] STACK_TRACE = {
+        new StackTraceElement("a.b.Class", "foo", "Class.java", 42),
+        new StackTraceElement("a.b.Other", "bar", "Other.java", 7),
+        new StackTraceElement("a.b.Main", "main", "Main.java", 1)
+    };
+
+    @Test
+    void encodesFramesPerLine() {
+        EncodedStackTrace encoded = StackTraceEncoder.create().encode(STACK_TRACE);
+
+        assertThat(encoded.getStackTrace())
+                .isEqualTo(
+                        "a.b.Class.foo(Class.java:42)\n"
+                                + "a.b.Other.bar(Other.java:7)\n"
+                                + "a.b.Main.main(Main.java:1)\n");
+        assertThat(encoded.getFingerprint()).hasSize(16);
+    }
+
+    @Test
+    void truncatesToTheFrameBudget() {
+        EncodedStackTrace encoded = StackTraceEncoder.create(2).encode(STACK_TRACE);
+
+        assertThat(encoded.getStackTrace())
+                .isEqualTo(
+                        "a.b.Class.foo(Class.java:42)\n"
+                                + "a.b.Other.bar(Other.java:7)\n"
+                                + "... 1 more frames\n");
+    }
+
+    @Test
+    void onlyFingerprintsRepeatedStackTraces() {
+        StackTraceEncoder encoder = StackTraceEncoder.create();
+
+        EncodedStackTrace first = encoder.encode(STACK_TRACE);
+        EncodedStackTrace second = encoder.encode(STACK_TRACE.clone());
+
+        assertThat(first.getStackTrace()).isNotNull();
+        assertThat(second.getStackTrace()).isNull();
+        assertThat(second.getFingerprint()).isEqualTo(first.getFingerprint());
+    }
+
+    @Test
+    void encodesRepeatedStackTracesAgainInTheNextSession() {
+        StackTraceEncoder encoder = StackTraceEncoder.create();
+        EncodedStackTrace first = encoder.encode(STACK_TRACE);
+
+        encoder.onSessionChanged("previous", "next");
+        EncodedStackTrace second = encoder.encode(STACK_TRACE);
+
+        assertThat(second.getStackTrace()).isEqualTo(first.getStackTrace());
+        assertThat(encoder.encode(STACK_TRACE).getStackTrace()).isNull();
+    }
+
+    @Test
+    void fingerprintIgnoresLineNumbers() {
+        StackTraceElement[] otherLines = {
+            new StackTraceElement("a.b.Class", "foo", "Class.java", 43),
+            new StackTraceElement("a.b.Other", "bar", "Other.java", 8),
+            new StackTraceElement("a.b.Main", "main", "Main.java", 2)
+        };
+
+        String fingerprint = StackTraceEncoder.create().encode(STACK_TRACE).getFingerprint();
+
+        assertThat(StackTraceEncoder.create().encode(otherLines).getFingerprint())
+                .isEqualTo(fingerprint);
+        assertThat(StackTraceEncoder.create().encode(new StackTraceElement[0]).getFingerprint())
+                .isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    void fingerprintIsStable() {
+        assertThat(StackTraceEncoder.create().encode(new StackTraceElement[0]).getFingerprint())
+                .isEqualTo("cbf29ce484222325");
+    }
+
+    @Test
+    void encodesThrowablesWithTheirCauses() {
+        IllegalStateException cause = new IllegalStateException("cause");
+        cause.setStackTrace(new StackTraceElement[] {STACK_TRACE[2]});
+        RuntimeException throwable = new RuntimeException("boom", cause);
+        throwable.setStackTrace(new StackTraceElement[] {STACK_TRACE[0], STACK_TRACE[1]});
+
+        EncodedStackTrace encoded = StackTraceEncoder.create(2).encode(throwable);
+
+        assertThat(encoded.getStackTrace())
+                .isEqualTo(
+                        "java.lang.RuntimeException: boom\n"
+                                + "\tat a.b.Class.foo(Class.java:42)\n"
+                                + "\tat a.b.Other.bar(Other.java:7)\n"
+                                + "Caused by: java.lang.IllegalStateException: cause\n"
+                                + "\t... 1 more frames\n");
+    }
+
+    @Test
+    void fingerprintIncludesTheThrowableTypes() {
+        RuntimeException first = new RuntimeException("first");
+        first.setStackTrace(STACK_TRACE);
+        IllegalStateException second = new IllegalStateException("second");
+        second.setStackTrace(STACK_TRACE);
+        RuntimeException sameType = new RuntimeException("other message");
+        sameType.setStackTrace(STACK_TRACE);
+        StackTraceEncoder encoder = StackTraceEncoder.create();
+
+        String fingerprint = encoder.encode(first).getFingerprint();
+
+        assertThat(encoder.encode(second).getFingerprint()).isNotEqualTo(fingerprint);
+        assertThat(encoder.encode(sameType).getFingerprint()).isEqualTo(fingerprint);
+    }
+
+    @Test
+    void encodesThrowablesLikePrintStackTrace() {
+        IllegalStateException cause = new IllegalStateException("cause");
+        cause.setStackTrace(new StackTraceElement[] {STACK_TRACE[1], STACK_TRACE[2]});
+        IllegalArgumentException suppressed = new IllegalArgumentException("suppressed");
+        suppressed.setStackTrace(new StackTraceElement[] {STACK_TRACE[2]});
+        RuntimeException throwable = new RuntimeException("boom", cause);
+        throwable.setStackTrace(STACK_TRACE);
+        throwable.addSuppressed(suppressed);
+        StringWriter printed = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(printed));
+
+        EncodedStackTrace encoded = StackTraceEncoder.create().encode(throwable);
+
+        assertThat(encoded.getStackTrace()).isEqualTo(printed.toString());
+        assertThat(encoded.getStackTrace())
+                .isEqualTo(
+                        "java.lang.RuntimeException: boom\n"
+                                + "\tat a.b.Class.foo(Class.java:42)\n"
+                                + "\tat a.b.Other.bar(Other.java:7)\n"
+                                + "\tat a.b.Main.main(Main.java:1)\n"
+                                + "\tSuppressed: java.lang.IllegalArgumentException: suppressed\n"
+                                + "\t\t... 1 more\n"
+                                + "Caused by: java.lang.IllegalStateException: cause\n"
+                                + "\t... 2 more\n");
+    }
+}
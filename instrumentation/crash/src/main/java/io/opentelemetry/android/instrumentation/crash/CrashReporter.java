@@ -11,15 +11,15 @@ import static io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_STACKTRACE;
 import static io.opentelemetry.semconv.ExceptionAttributes.EXCEPTION_TYPE;
 import static io.opentelemetry.semconv.incubating.ThreadIncubatingAttributes.*;
 
+import io.opentelemetry.android.instrumentation.common.EncodedStackTrace;
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.api.logs.Logger;
 import io.opentelemetry.api.logs.LoggerProvider;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -37,9 +37,11 @@ public final class CrashReporter {
     }
 
     private final List<AttributesExtractor<CrashDetails, Void>> additionalExtractors;
+    private final StackTraceEncoder stackTraceEncoder;
 
     CrashReporter(CrashReporterBuilder builder) {
         this.additionalExtractors = builder.additionalExtractors;
+        this.stackTraceEncoder = StackTraceEncoder.create(builder.maxStackTraceFrames);
     }
 
     /**
@@ -56,19 +58,27 @@ public final class CrashReporter {
                                         .getSdkLoggerProvider()),
                         instrumentedApplication.getOpenTelemetrySdk().getSdkLoggerProvider(),
                         existingHandler));
+        // the repeated stack traces are reported in full once per session
+        instrumentedApplication.registerSessionChangeListener(stackTraceEncoder);
     }
 
     private void emitCrashEvent(Logger crashReporter, CrashDetails crashDetails) {
         Throwable throwable = crashDetails.getCause();
         Thread thread = crashDetails.getThread();
+        EncodedStackTrace stackTrace = stackTraceEncoder.encode(throwable);
         AttributesBuilder attributesBuilder =
                 Attributes.builder()
                         .put(EXCEPTION_ESCAPED, true)
                         .put(THREAD_ID, thread.getId())
                         .put(THREAD_NAME, thread.getName())
                         .put(EXCEPTION_MESSAGE, throwable.getMessage())
-                        .put(EXCEPTION_STACKTRACE, stackTraceToString(throwable))
+                        .put(StackTraceEncoder.STACKTRACE_FINGERPRINT, stackTrace.getFingerprint())
                         .put(EXCEPTION_TYPE, throwable.getClass().getName());
+        // repeated stack traces are only identified by their fingerprint
+        String stackTraceString = stackTrace.getStackTrace();
+        if (stackTraceString != null) {
+            attributesBuilder.put(EXCEPTION_STACKTRACE, stackTraceString);
+        }
 
         for (AttributesExtractor<CrashDetails, Void> extractor : additionalExtractors) {
             extractor.onStart(attributesBuilder, Context.current(), crashDetails);
@@ -77,16 +87,6 @@ public final class CrashReporter {
         crashReporter.logRecordBuilder().setAllAttributes(attributesBuilder.build()).emit();
     }
 
-    private String stackTraceToString(Throwable throwable) {
-        StringWriter sw = new StringWriter(256);
-        PrintWriter pw = new PrintWriter(sw);
-
-        throwable.printStackTrace(pw);
-        pw.flush();
-
-        return sw.toString();
-    }
-
     private Consumer<CrashDetails> buildInstrumenter(LoggerProvider loggerProvider) {
         Logger logger = loggerProvider.loggerBuilder("io.opentelemetry.crash").build();
         return crashDetails -> emitCrashEvent(logger, crashDetails);
@@ -5,6 +5,7 @@
 
 package io.opentelemetry.android.instrumentation.crash;
 
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +16,7 @@ public final class CrashReporterBuilder {
     CrashReporterBuilder() {}
 
     final List<AttributesExtractor<CrashDetails, Void>> additionalExtractors = new ArrayList<>();
+    int maxStackTraceFrames = StackTraceEncoder.DEFAULT_MAX_FRAMES;
 
     /** Adds an {@link AttributesExtractor} that will extract additional attributes. */
     public CrashReporterBuilder addAttributesExtractor(
@@ -23,6 +25,15 @@ public final class CrashReporterBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum amount of frames of the reported stack traces, shared by the crash and its
+     * causes, 256 by default.
+     */
+    public CrashReporterBuilder setMaxStackTraceFrames(int maxStackTraceFrames) {
+        this.maxStackTraceFrames = maxStackTraceFrames;
+        return this;
+    }
+
     /**
      * Returns a new {@link CrashReporter} with the settings of this {@link CrashReporterBuilder}.
      */
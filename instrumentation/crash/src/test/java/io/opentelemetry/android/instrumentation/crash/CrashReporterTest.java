@@ -8,10 +8,13 @@ package io.opentelemetry.android.instrumentation.crash;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import static io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor.constant;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.android.instrumentation.common.StackTraceEncoder;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.logs.data.LogRecordData;
@@ -78,6 +81,9 @@ class CrashReporterTest {
                 .containsEntry(ThreadIncubatingAttributes.THREAD_NAME, crashingThread.getName())
                 .containsEntry(stringKey("test.key"), "abc");
         assertThat(crashAttributes.get(ExceptionAttributes.EXCEPTION_STACKTRACE))
-                .startsWith("java.lang.RuntimeException: boooom!");
+                .startsWith("java.lang.RuntimeException: boooom!\n\tat ");
+        assertThat(crashAttributes.get(StackTraceEncoder.STACKTRACE_FINGERPRINT)).hasSize(16);
+        verify(instrumentedApplication)
+                .registerSessionChangeListener(isA(StackTraceEncoder.class));
     }
 }
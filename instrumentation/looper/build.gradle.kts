@@ -0,0 +1,26 @@
+plugins {
+    id("otel.android-library-conventions")
+    id("otel.publish-conventions")
+}
+
+description = "OpenTelemetry Android main looper message dispatch instrumentation"
+
+android {
+    namespace = "io.opentelemetry.android.instrumentation.looper"
+
+    defaultConfig {
+        consumerProguardFiles("consumer-rules.pro")
+    }
+
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+dependencies {
+    api(platform(libs.opentelemetry.platform))
+    api(libs.opentelemetry.api)
+    api(project(":instrumentation:common-api"))
+    implementation(libs.androidx.core)
+    implementation(libs.opentelemetry.sdk)
+}
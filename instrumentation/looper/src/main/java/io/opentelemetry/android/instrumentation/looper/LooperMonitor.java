@@ -0,0 +1,117 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.sdk.common.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Entrypoint for installing the looper monitoring instrumentation, which measures the latency of
+ * the messages dispatched by the main thread's {@link Looper}: the long tasks that cause jank
+ * without being long enough to be reported as ANRs.
+ */
+public final class LooperMonitor {
+
+    static final String INSTRUMENTATION_NAME = "io.opentelemetry.looper";
+    static final String DISPATCH_DURATION_METRIC = "looper.message.dispatch.duration";
+    static final String QUEUE_DELAY_METRIC = "looper.message.queue.delay";
+
+    // in milliseconds, doubling from 1ms to past an ANR
+    private static final List<Double> BUCKET_BOUNDARIES = bucketBoundaries(1, 8192);
+
+    /** Returns a new {@link LooperMonitor} with the default settings. */
+    public static LooperMonitor create() {
+        return builder().build();
+    }
+
+    /** Returns a new {@link LooperMonitorBuilder}. */
+    public static LooperMonitorBuilder builder() {
+        return new LooperMonitorBuilder();
+    }
+
+    private final Looper looper;
+    private final Duration longTaskThreshold;
+    private final Duration queueDelayProbeInterval;
+    @Nullable private final ScheduledExecutorService scheduler;
+
+    LooperMonitor(LooperMonitorBuilder builder) {
+        this.looper = builder.looper;
+        this.longTaskThreshold = builder.longTaskThreshold;
+        this.queueDelayProbeInterval = builder.queueDelayProbeInterval;
+        this.scheduler = builder.scheduler;
+    }
+
+    /**
+     * Installs the looper monitoring instrumentation on the given {@link InstrumentedApplication}.
+     *
+     * <p>The dispatch duration of every message is recorded in the {@code
+     * looper.message.dispatch.duration} histogram, and messages longer than the long task
+     * threshold are reported as "LongTask" spans. The time the probe messages wait in the queue is
+     * recorded in the {@code looper.message.queue.delay} histogram.
+     *
+     * <p>The dispatches are measured with {@link Looper#setMessageLogging}, which replaces any
+     * other message logging set on the looper.
+     */
+    public void installOn(InstrumentedApplication instrumentedApplication) {
+        OpenTelemetry openTelemetry = instrumentedApplication.getOpenTelemetrySdk();
+        Meter meter = openTelemetry.getMeter(INSTRUMENTATION_NAME);
+        Clock clock = Clock.getDefault();
+
+        looper.setMessageLogging(
+                new MessageDispatchPrinter(
+                        openTelemetry.getTracer(INSTRUMENTATION_NAME),
+                        buildHistogram(
+                                meter,
+                                DISPATCH_DURATION_METRIC,
+                                "How long the looper took to dispatch its messages"),
+                        longTaskThreshold.toNanos(),
+                        clock));
+
+        if (queueDelayProbeInterval.isZero()) {
+            return;
+        }
+        Handler handler = new Handler(looper);
+        QueueDelayProbe probe =
+                new QueueDelayProbe(
+                        handler::post,
+                        buildHistogram(
+                                meter,
+                                QUEUE_DELAY_METRIC,
+                                "How long messages waited in the looper's queue"),
+                        clock,
+                        scheduler != null ? scheduler : instrumentedApplication.getScheduler(),
+                        queueDelayProbeInterval.toNanos());
+        // call it manually the first time to start probing
+        probe.onApplicationForegrounded();
+        instrumentedApplication.registerApplicationStateListener(probe);
+    }
+
+    static DoubleHistogram buildHistogram(Meter meter, String name, String description) {
+        return meter.histogramBuilder(name)
+                .setDescription(description)
+                .setUnit("ms")
+                .setExplicitBucketBoundariesAdvice(BUCKET_BOUNDARIES)
+                .build();
+    }
+
+    private static List<Double> bucketBoundaries(double first, double last) {
+        List<Double> boundaries = new ArrayList<>();
+        for (double boundary = first; boundary <= last; boundary *= 2) {
+            boundaries.add(boundary);
+        }
+        return boundaries;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import android.os.Looper;
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+/** A builder of {@link LooperMonitor}. */
+public final class LooperMonitorBuilder {
+
+    LooperMonitorBuilder() {}
+
+    Looper looper = Looper.getMainLooper();
+    Duration longTaskThreshold = Duration.ofMillis(50);
+    Duration queueDelayProbeInterval = Duration.ofSeconds(1);
+    @Nullable ScheduledExecutorService scheduler;
+
+    /** Sets a custom {@link Looper} to monitor, the main looper by default. */
+    public LooperMonitorBuilder setLooper(Looper looper) {
+        this.looper = looper;
+        return this;
+    }
+
+    /**
+     * Sets how long a message must take to be dispatched for it to be reported as a "LongTask"
+     * span, 50 milliseconds by default. Shorter messages are only recorded in the dispatch
+     * duration histogram.
+     */
+    public LooperMonitorBuilder setLongTaskThreshold(Duration longTaskThreshold) {
+        this.longTaskThreshold = longTaskThreshold;
+        return this;
+    }
+
+    /**
+     * Sets how often a probe message is posted to measure how long messages wait in the queue, 1
+     * second by default. A zero interval disables the queue delay measurement.
+     */
+    public LooperMonitorBuilder setQueueDelayProbeInterval(Duration queueDelayProbeInterval) {
+        this.queueDelayProbeInterval = queueDelayProbeInterval;
+        return this;
+    }
+
+    /**
+     * Sets the {@link ScheduledExecutorService} used to post the queue delay probes. The scheduler
+     * is shared and not owned by the {@link LooperMonitor}: it is never shut down. When not set,
+     * the scheduler shared by the agent ({@link InstrumentedApplication#getScheduler()}) is used.
+     */
+    public LooperMonitorBuilder setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * Returns a new {@link LooperMonitor} with the settings of this {@link LooperMonitorBuilder}.
+     *
+     * @throws IllegalArgumentException if the long task threshold or the probe interval is
+     *     negative.
+     */
+    public LooperMonitor build() {
+        if (longTaskThreshold.isNegative() || queueDelayProbeInterval.isNegative()) {
+            throw new IllegalArgumentException(
+                    "The long task threshold and the probe interval must not be negative");
+        }
+        return new LooperMonitor(this);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+import android.util.Printer;
+import androidx.annotation.Nullable;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the looper takes to dispatch each message, from the lines it logs before and
+ * after dispatching them: {@code ">>>>> Dispatching to <target> <callback>: <what>"} and {@code
+ * "<<<<< Finished to <target> <callback>"}.
+ *
+ * <p>Every dispatch is recorded in a histogram, and the ones longer than the long task threshold
+ * are also reported as spans, with the class of the target {@code Handler} and of the callback.
+ * Only those are parsed, so that measuring the other messages stays cheap.
+ */
+final class MessageDispatchPrinter implements Printer {
+
+    static final String LONG_TASK_SPAN_NAME = "LongTask";
+    static final AttributeKey<String> HANDLER_CLASS = stringKey("looper.message.handler");
+    static final AttributeKey<String> CALLBACK_CLASS = stringKey("looper.message.callback");
+
+    private static final String DISPATCHING_PREFIX = ">>>>> Dispatching to ";
+    private static final String FINISHED_PREFIX = "<<<<< Finished to ";
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Tracer tracer;
+    private final DoubleHistogram dispatchDuration;
+    private final long longTaskThresholdNanos;
+    private final Clock clock;
+
+    // only accessed by the looper's thread
+    private boolean dispatching = false;
+    private long dispatchStartNanos = 0;
+
+    MessageDispatchPrinter(
+            Tracer tracer,
+            DoubleHistogram dispatchDuration,
+            long longTaskThresholdNanos,
+            Clock clock) {
+        this.tracer = tracer;
+        this.dispatchDuration = dispatchDuration;
+        this.longTaskThresholdNanos = longTaskThresholdNanos;
+        this.clock = clock;
+    }
+
+    @Override
+    public void println(String line) {
+        if (line.startsWith(DISPATCHING_PREFIX)) {
+            dispatching = true;
+            dispatchStartNanos = clock.nanoTime();
+        } else if (dispatching && line.startsWith(FINISHED_PREFIX)) {
+            dispatching = false;
+            long durationNanos = clock.nanoTime() - dispatchStartNanos;
+            dispatchDuration.record(durationNanos / NANOS_PER_MILLI);
+            if (durationNanos >= longTaskThresholdNanos) {
+                reportLongTask(line, durationNanos);
+            }
+        }
+    }
+
+    private void reportLongTask(String finishedLine, long durationNanos) {
+        long endEpochNanos = clock.now();
+        SpanBuilder spanBuilder =
+                tracer.spanBuilder(LONG_TASK_SPAN_NAME)
+                        // the span current when the message finished is unrelated to it
+                        .setNoParent()
+                        .setStartTimestamp(endEpochNanos - durationNanos, TimeUnit.NANOSECONDS);
+        String handlerClass = handlerClass(finishedLine);
+        if (handlerClass != null) {
+            spanBuilder.setAttribute(HANDLER_CLASS, handlerClass);
+        }
+        String callbackClass = callbackClass(finishedLine);
+        if (callbackClass != null) {
+            spanBuilder.setAttribute(CALLBACK_CLASS, callbackClass);
+        }
+        spanBuilder.startSpan().end(endEpochNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // the target is formatted as "Handler (<class>) {<identity hash>}"
+    @Nullable
+    static String handlerClass(String finishedLine) {
+        int start = finishedLine.indexOf(" (", FINISHED_PREFIX.length());
+        if (start < 0) {
+            return null;
+        }
+        int end = finishedLine.indexOf(") {", start);
+        return end < 0 ? null : finishedLine.substring(start + 2, end);
+    }
+
+    // the callback is usually formatted as "<class>@<identity hash>", or "null" when there's none
+    @Nullable
+    static String callbackClass(String finishedLine) {
+        int start = finishedLine.indexOf("} ", FINISHED_PREFIX.length());
+        if (start < 0) {
+            return null;
+        }
+        String callback = finishedLine.substring(start + 2);
+        if (callback.isEmpty() || callback.equals("null")) {
+            return null;
+        }
+        int hash = callback.lastIndexOf('@');
+        return hash > 0 ? callback.substring(0, hash) : callback;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import androidx.annotation.Nullable;
+import io.opentelemetry.android.instrumentation.common.ApplicationStateListener;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.sdk.common.Clock;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Measures how long messages wait in the looper's queue before being dispatched, by periodically
+ * posting a probe message and recording how long it took to run.
+ *
+ * <p>Only one probe is pending at a time, and the same probe is posted every time, so that probing
+ * doesn't allocate. Probing only happens while the app is in the foreground, so that it doesn't
+ * wake up the looper's thread in the background.
+ */
+final class QueueDelayProbe implements Runnable, ApplicationStateListener {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Predicate<Runnable> looperPoster;
+    private final DoubleHistogram queueDelay;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final long intervalNanos;
+    private final Runnable probe = this::onProbeDispatched;
+
+    private final AtomicBoolean probePending = new AtomicBoolean();
+    // written before posting the probe, so it is up-to-date when the probe runs
+    private volatile long postedAtNanos = 0;
+
+    @Nullable private ScheduledFuture<?> future;
+
+    QueueDelayProbe(
+            Predicate<Runnable> looperPoster,
+            DoubleHistogram queueDelay,
+            Clock clock,
+            ScheduledExecutorService scheduler,
+            long intervalNanos) {
+        this.looperPoster = looperPoster;
+        this.queueDelay = queueDelay;
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.intervalNanos = intervalNanos;
+    }
+
+    @Override
+    public void run() {
+        // a looper that doesn't run its messages at all is for the ANR detection to report
+        if (!probePending.compareAndSet(false, true)) {
+            return;
+        }
+        postedAtNanos = clock.nanoTime();
+        // when it can't be posted, the looper is probably quitting
+        if (!looperPoster.test(probe)) {
+            probePending.set(false);
+        }
+    }
+
+    private void onProbeDispatched() {
+        queueDelay.record((clock.nanoTime() - postedAtNanos) / NANOS_PER_MILLI);
+        probePending.set(false);
+    }
+
+    @Override
+    public void onApplicationForegrounded() {
+        if (future == null) {
+            future =
+                    scheduler.scheduleWithFixedDelay(
+                            this, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void onApplicationBackgrounded() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+}
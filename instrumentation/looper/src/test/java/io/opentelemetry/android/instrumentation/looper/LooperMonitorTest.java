@@ -0,0 +1,96 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.Looper;
+import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LooperMonitorTest {
+
+    @Mock Looper looper;
+    @Mock ScheduledExecutorService scheduler;
+    @Mock InstrumentedApplication instrumentedApplication;
+
+    @Test
+    void shouldInstallInstrumentation() {
+        when(instrumentedApplication.getOpenTelemetrySdk())
+                .thenReturn(OpenTelemetrySdk.builder().build());
+
+        LooperMonitor.builder()
+                .setLooper(looper)
+                .setScheduler(scheduler)
+                .build()
+                .installOn(instrumentedApplication);
+
+        verify(looper).setMessageLogging(isA(MessageDispatchPrinter.class));
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1);
+        verify(scheduler)
+                .scheduleWithFixedDelay(
+                        isA(QueueDelayProbe.class),
+                        eq(intervalNanos),
+                        eq(intervalNanos),
+                        eq(TimeUnit.NANOSECONDS));
+        verify(instrumentedApplication)
+                .registerApplicationStateListener(isA(QueueDelayProbe.class));
+    }
+
+    @Test
+    void shouldUseTheSharedSchedulerByDefault() {
+        when(instrumentedApplication.getOpenTelemetrySdk())
+                .thenReturn(OpenTelemetrySdk.builder().build());
+        when(instrumentedApplication.getScheduler()).thenReturn(scheduler);
+
+        LooperMonitor.builder().setLooper(looper).build().installOn(instrumentedApplication);
+
+        verify(scheduler)
+                .scheduleWithFixedDelay(isA(QueueDelayProbe.class), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void shouldNotProbeWhenDisabled() {
+        when(instrumentedApplication.getOpenTelemetrySdk())
+                .thenReturn(OpenTelemetrySdk.builder().build());
+
+        LooperMonitor.builder()
+                .setLooper(looper)
+                .setScheduler(scheduler)
+                .setQueueDelayProbeInterval(Duration.ZERO)
+                .build()
+                .installOn(instrumentedApplication);
+
+        verify(looper).setMessageLogging(isA(MessageDispatchPrinter.class));
+        verify(scheduler, never()).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void shouldRejectNegativeSettings() {
+        assertThatThrownBy(
+                        () ->
+                                LooperMonitor.builder()
+                                        .setLooper(looper)
+                                        .setLongTaskThreshold(Duration.ofMillis(-1))
+                                        .build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
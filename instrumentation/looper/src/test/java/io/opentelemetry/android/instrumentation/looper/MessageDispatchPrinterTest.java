@@ -0,0 +1,137 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.junit5.OpenTelemetryExtension;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class MessageDispatchPrinterTest {
+    private static final String DISPATCHING =
+            ">>>>> Dispatching to Handler (android.view.Choreographer$FrameHandler) {3ab8e5c}"
+                    + " android.view.Choreographer$FrameDisplayEventReceiver@b2c4a3: 0";
+    private static final String FINISHED =
+            "<<<<< Finished to Handler (android.view.Choreographer$FrameHandler) {3ab8e5c}"
+                    + " android.view.Choreographer$FrameDisplayEventReceiver@b2c4a3";
+
+    @RegisterExtension
+    static final OpenTelemetryExtension testing = OpenTelemetryExtension.create();
+
+    private final TestClock clock = TestClock.create();
+    private MessageDispatchPrinter printer;
+
+    @BeforeEach
+    void setUp() {
+        printer =
+                new MessageDispatchPrinter(
+                        testing.getOpenTelemetry().getTracer("test"),
+                        LooperMonitor.buildHistogram(
+                                testing.getOpenTelemetry().getMeter("test"),
+                                LooperMonitor.DISPATCH_DURATION_METRIC,
+                                "test"),
+                        TimeUnit.MILLISECONDS.toNanos(50),
+                        clock);
+    }
+
+    @Test
+    void recordsEveryDispatch() {
+        for (int i = 0; i < 3; i++) {
+            printer.println(DISPATCHING);
+            clock.advance(Duration.ofMillis(10));
+            printer.println(FINISHED);
+        }
+
+        assertThat(testing.getMetrics()).hasSize(1);
+        MetricData metric = testing.getMetrics().get(0);
+        assertThat(metric).hasName(LooperMonitor.DISPATCH_DURATION_METRIC).hasUnit("ms");
+        HistogramPointData point = metric.getHistogramData().getPoints().iterator().next();
+        assertThat(point.getCount()).isEqualTo(3);
+        assertThat(point.getSum()).isEqualTo(30.0);
+        assertThat(point.getBoundaries())
+                .containsExactly(
+                        1.0, 2.0, 4.0, 8.0, 16.0, 32.0, 64.0, 128.0, 256.0, 512.0, 1024.0, 2048.0,
+                        4096.0, 8192.0);
+        assertThat(testing.getSpans()).isEmpty();
+    }
+
+    @Test
+    void reportsLongTasks() {
+        long startNanos = clock.now();
+        printer.println(DISPATCHING);
+        clock.advance(Duration.ofMillis(60));
+        printer.println(FINISHED);
+
+        assertThat(testing.getSpans()).hasSize(1);
+        assertThat(testing.getSpans().get(0))
+                .hasName(MessageDispatchPrinter.LONG_TASK_SPAN_NAME)
+                .startsAt(startNanos)
+                .endsAt(startNanos + TimeUnit.MILLISECONDS.toNanos(60))
+                .hasAttribute(
+                        MessageDispatchPrinter.HANDLER_CLASS,
+                        "android.view.Choreographer$FrameHandler")
+                .hasAttribute(
+                        MessageDispatchPrinter.CALLBACK_CLASS,
+                        "android.view.Choreographer$FrameDisplayEventReceiver");
+    }
+
+    @Test
+    void longTasksHaveNoParent() {
+        Span current =
+                testing.getOpenTelemetry().getTracer("test").spanBuilder("current").startSpan();
+        try (Scope ignored = current.makeCurrent()) {
+            printer.println(DISPATCHING);
+            clock.advance(Duration.ofMillis(60));
+            printer.println(FINISHED);
+        } finally {
+            current.end();
+        }
+
+        assertThat(testing.getSpans())
+                .satisfiesExactlyInAnyOrder(
+                        span -> assertThat(span).hasName("current"),
+                        span ->
+                                assertThat(span)
+                                        .hasName(MessageDispatchPrinter.LONG_TASK_SPAN_NAME)
+                                        .hasParentSpanId(SpanId.getInvalid()));
+    }
+
+    @Test
+    void ignoresOtherLines() {
+        printer.println(FINISHED);
+        printer.println("something else");
+
+        assertThat(testing.getMetrics()).isEmpty();
+        assertThat(testing.getSpans()).isEmpty();
+    }
+
+    @Test
+    void parsesTheFinishedLine() {
+        assertThat(MessageDispatchPrinter.handlerClass(FINISHED))
+                .isEqualTo("android.view.Choreographer$FrameHandler");
+        assertThat(
+                        MessageDispatchPrinter.callbackClass(
+                                "<<<<< Finished to Handler (a.B) {1} null"))
+                .isNull();
+        assertThat(
+                        MessageDispatchPrinter.callbackClass(
+                                "<<<<< Finished to Handler (a.B) {1} a.C$$Lambda0@2"))
+                .isEqualTo("a.C$$Lambda0");
+        assertThat(MessageDispatchPrinter.handlerClass("<<<<< Finished to custom target")).isNull();
+        assertThat(MessageDispatchPrinter.callbackClass("<<<<< Finished to custom target"))
+                .isNull();
+    }
+}
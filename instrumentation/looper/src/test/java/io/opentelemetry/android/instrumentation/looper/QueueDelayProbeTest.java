@@ -0,0 +1,126 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.android.instrumentation.looper;
+
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.testing.junit5.OpenTelemetryExtension;
+import io.opentelemetry.sdk.testing.time.TestClock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class QueueDelayProbeTest {
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @RegisterExtension
+    static final OpenTelemetryExtension testing = OpenTelemetryExtension.create();
+
+    @Mock ScheduledExecutorService scheduler;
+    @Mock ScheduledFuture<?> future;
+
+    private final TestClock clock = TestClock.create();
+    private final Queue<Runnable> looperQueue = new ArrayDeque<>();
+    private QueueDelayProbe probe;
+
+    @BeforeEach
+    void setUp() {
+        probe =
+                new QueueDelayProbe(
+                        looperQueue::add,
+                        LooperMonitor.buildHistogram(
+                                testing.getOpenTelemetry().getMeter("test"),
+                                LooperMonitor.QUEUE_DELAY_METRIC,
+                                "test"),
+                        clock,
+                        scheduler,
+                        INTERVAL_NANOS);
+    }
+
+    @Test
+    void recordsTheQueueDelay() {
+        probe.run();
+        clock.advance(Duration.ofMillis(30));
+        runLooper();
+
+        assertThat(testing.getMetrics()).hasSize(1);
+        assertThat(testing.getMetrics().get(0)).hasName(LooperMonitor.QUEUE_DELAY_METRIC);
+        HistogramPointData point =
+                testing.getMetrics().get(0).getHistogramData().getPoints().iterator().next();
+        assertThat(point.getCount()).isEqualTo(1);
+        assertThat(point.getSum()).isEqualTo(30.0);
+    }
+
+    @Test
+    void singleProbePending() {
+        probe.run();
+        probe.run();
+        assertThat(looperQueue).hasSize(1);
+
+        runLooper();
+        probe.run();
+
+        assertThat(looperQueue).hasSize(1);
+    }
+
+    @Test
+    void probesNothingWhenTheLooperIsQuitting() {
+        QueueDelayProbe quittingProbe =
+                new QueueDelayProbe(
+                        runnable -> false,
+                        LooperMonitor.buildHistogram(
+                                testing.getOpenTelemetry().getMeter("test"),
+                                LooperMonitor.QUEUE_DELAY_METRIC,
+                                "test"),
+                        clock,
+                        scheduler,
+                        INTERVAL_NANOS);
+
+        quittingProbe.run();
+        quittingProbe.run();
+
+        assertThat(testing.getMetrics()).isEmpty();
+    }
+
+    @Test
+    void onlyProbesInTheForeground() {
+        doReturn(future)
+                .when(scheduler)
+                .scheduleWithFixedDelay(
+                        probe, INTERVAL_NANOS, INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+
+        probe.onApplicationForegrounded();
+        probe.onApplicationForegrounded();
+        probe.onApplicationBackgrounded();
+        probe.onApplicationBackgrounded();
+
+        verify(scheduler, times(1))
+                .scheduleWithFixedDelay(
+                        probe, INTERVAL_NANOS, INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+        verify(future, times(1)).cancel(false);
+    }
+
+    private void runLooper() {
+        Runnable runnable;
+        while ((runnable = looperQueue.poll()) != null) {
+            runnable.run();
+        }
+    }
+}
@@ -41,7 +41,7 @@ final class NetworkChangeAttributesExtractor implements AttributesExtractor<Curr
             Void unused,
             Throwable error) {
         // put these after span start to override what might be set in the
-        // NetworkAttributesSpanAppender.
+        // RumAttributesSpanAppender.
         if (currentNetwork.getState() == NetworkState.NO_NETWORK_AVAILABLE) {
             attributes.put(NETWORK_CONNECTION_TYPE, currentNetwork.getState().getHumanName());
         } else {
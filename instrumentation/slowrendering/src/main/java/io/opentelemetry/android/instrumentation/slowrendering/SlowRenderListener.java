@@ -28,7 +28,6 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -53,12 +52,9 @@ class SlowRenderListener implements DefaultingActivityLifecycleCallbacks {
     private final ConcurrentMap<Activity, PerActivityListener> activities =
             new ConcurrentHashMap<>();
 
-    SlowRenderListener(Tracer tracer, Duration pollInterval) {
-        this(
-                tracer,
-                Executors.newScheduledThreadPool(1),
-                new Handler(startFrameMetricsLoop()),
-                pollInterval);
+    SlowRenderListener(
+            Tracer tracer, ScheduledExecutorService executorService, Duration pollInterval) {
+        this(tracer, executorService, new Handler(startFrameMetricsLoop()), pollInterval);
     }
 
     // Exists for testing
@@ -7,9 +7,12 @@ package io.opentelemetry.android.instrumentation.slowrendering;
 
 import android.os.Build;
 import android.util.Log;
+import androidx.annotation.Nullable;
 import io.opentelemetry.android.common.RumConstants;
 import io.opentelemetry.android.instrumentation.common.InstrumentedApplication;
 import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Entrypoint for installing the slow rendering detection instrumentation.
@@ -28,9 +31,11 @@ public final class SlowRenderingDetector {
     }
 
     private final Duration slowRenderingDetectionPollInterval;
+    @Nullable private final ScheduledExecutorService scheduler;
 
     SlowRenderingDetector(SlowRenderingDetectorBuilder builder) {
         this.slowRenderingDetectionPollInterval = builder.slowRenderingDetectionPollInterval;
+        this.scheduler = builder.scheduler;
     }
 
     /**
@@ -50,6 +55,7 @@ public final class SlowRenderingDetector {
                         instrumentedApplication
                                 .getOpenTelemetrySdk()
                                 .getTracer("io.opentelemetry.slow-rendering"),
+                        scheduler != null ? scheduler : Executors.newScheduledThreadPool(1),
                         slowRenderingDetectionPollInterval);
 
         instrumentedApplication.getApplication().registerActivityLifecycleCallbacks(detector);
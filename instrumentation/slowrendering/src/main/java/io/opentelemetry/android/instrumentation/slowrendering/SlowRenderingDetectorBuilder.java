@@ -6,8 +6,10 @@
 package io.opentelemetry.android.instrumentation.slowrendering;
 
 import android.util.Log;
+import androidx.annotation.Nullable;
 import io.opentelemetry.android.common.RumConstants;
 import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * A builder of {@link SlowRenderingDetector}.
@@ -20,6 +22,7 @@ public final class SlowRenderingDetectorBuilder {
     SlowRenderingDetectorBuilder() {}
 
     Duration slowRenderingDetectionPollInterval = Duration.ofSeconds(1);
+    @Nullable ScheduledExecutorService scheduler;
 
     /**
      * Configures the rate at which frame render durations are polled.
@@ -40,6 +43,20 @@ public final class SlowRenderingDetectorBuilder {
         return this;
     }
 
+    /**
+     * Sets the {@link ScheduledExecutorService} used to poll the frame render durations. The
+     * scheduler is shared and not owned by the {@link SlowRenderingDetector}: it is never shut
+     * down. When not set, the {@link SlowRenderingDetector} creates its own single-threaded
+     * scheduler.
+     *
+     * @param scheduler The scheduler that should be used for polling.
+     * @return {@code this}
+     */
+    public SlowRenderingDetectorBuilder setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
     public SlowRenderingDetector build() {
         return new SlowRenderingDetector(this);
     }
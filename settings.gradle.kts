@@ -8,6 +8,7 @@ include(":instrumentation:common-api")
 include(":instrumentation:crash")
 include(":instrumentation:fragment")
 include(":instrumentation:lifecycle")
+include(":instrumentation:looper")
 include(":instrumentation:okhttp:okhttp-3.0:agent")
 include(":instrumentation:okhttp:okhttp-3.0:library")
 include(":instrumentation:okhttp:okhttp-3.0:testing")